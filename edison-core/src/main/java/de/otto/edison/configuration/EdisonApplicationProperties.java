@@ -119,6 +119,12 @@ public class EdisonApplicationProperties {
 
     public static class Management {
         private String basePath = "/internal";
+        /**
+         * The public URI of the application, e.g. https://example.org/myservice. Used to resolve relative links
+         * in the JSON representation of the status. If empty, relative links are resolved against the scheme, host
+         * and context path of the current request.
+         */
+        private String baseUri = "";
 
         public Management(final String basePath) {
             this.basePath = basePath;
@@ -131,5 +137,13 @@ public class EdisonApplicationProperties {
         public void setBasePath(String basePath) {
             this.basePath = basePath;
         }
+
+        public String getBaseUri() {
+            return baseUri;
+        }
+
+        public void setBaseUri(String baseUri) {
+            this.baseUri = baseUri;
+        }
     }
 }
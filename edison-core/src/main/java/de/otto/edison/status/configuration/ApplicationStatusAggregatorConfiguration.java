@@ -10,14 +10,19 @@ import de.otto.edison.status.scheduler.Scheduler;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
+import javax.annotation.PreDestroy;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static de.otto.edison.status.domain.ApplicationStatus.applicationStatus;
 import static java.util.Collections.emptyList;
+import static java.util.concurrent.Executors.newFixedThreadPool;
 
 /**
  * Configuration of the default ApplicationStatusAggregator that is used to get and cache the status of this
@@ -25,6 +30,7 @@ import static java.util.Collections.emptyList;
  */
 @Configuration
 @EnableScheduling
+@EnableConfigurationProperties(StatusAggregatorProperties.class)
 public class ApplicationStatusAggregatorConfiguration {
 
     @Autowired(required = false)
@@ -33,28 +39,57 @@ public class ApplicationStatusAggregatorConfiguration {
     @Autowired(required = false)
     private ClusterInfo clusterInfo;
 
+    private ExecutorService statusDetailIndicatorExecutor;
+
     /**
      * By default, a CachedApplicationStatusAggregator is used. The status is updated using a
      * {@link de.otto.edison.status.scheduler.Scheduler} every now and then.
+     * <p>
+     *     If {@code edison.status.aggregator.parallel=true}, the StatusDetailIndicators are called in parallel,
+     *     using a dedicated thread pool.
+     * </p>
+     * <p>
+     *     The StatusDetails of indicators are cached and only refreshed after the refresh interval of the indicator,
+     *     as configured using {@code edison.status.aggregator.refresh-interval.<StatusDetailName>}. The last known
+     *     StatusDetails of a timed out indicator are reported until they are older than
+     *     {@code edison.status.aggregator.max-staleness.<StatusDetailName>}. Changes of
+     *     MutableStatusDetailIndicators are applied after {@code edison.status.aggregator.debounce} milliseconds.
+     * </p>
      *
      * @param applicationInfo Information about the application
      * @param versionInfo     Information about the application's version
      * @param systemInfo      Information about the system
      * @param teamInfo        Information about the team responsible for this application
+     * @param properties      Properties used to configure the aggregation
      * @return ApplicationStatusAggregator
      */
-    @Bean
+    @Bean(destroyMethod = "shutdown")
     @ConditionalOnMissingBean(ApplicationStatusAggregator.class)
     public ApplicationStatusAggregator applicationStatusAggregator(final ApplicationInfo applicationInfo,
                                                                    final VersionInfo versionInfo,
                                                                    final SystemInfo systemInfo,
-                                                                   final TeamInfo teamInfo) {
+                                                                   final TeamInfo teamInfo,
+                                                                   final StatusAggregatorProperties properties) {
         final List<StatusDetailIndicator> indicators = statusDetailIndicators != null
                 ? statusDetailIndicators
                 : emptyList();
-        return new CachedApplicationStatusAggregator(
-                applicationStatus(applicationInfo, clusterInfo, systemInfo, versionInfo, teamInfo, emptyList()),
-                indicators);
+        final ApplicationStatus initialStatus = applicationStatus(applicationInfo, clusterInfo, systemInfo, versionInfo, teamInfo, emptyList());
+        if (properties.isParallel()) {
+            final AtomicInteger threadNumber = new AtomicInteger();
+            statusDetailIndicatorExecutor = newFixedThreadPool(properties.getThreads(), r -> {
+                final Thread thread = new Thread(r, "edison-StatusDetailIndicator-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return new CachedApplicationStatusAggregator(initialStatus, indicators, statusDetailIndicatorExecutor, properties);
+    }
+
+    @PreDestroy
+    public void shutdownStatusDetailIndicatorExecutor() {
+        if (statusDetailIndicatorExecutor != null) {
+            statusDetailIndicatorExecutor.shutdownNow();
+        }
     }
 
     /**
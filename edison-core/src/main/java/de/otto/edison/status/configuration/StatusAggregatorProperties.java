@@ -0,0 +1,117 @@
+package de.otto.edison.status.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Properties used to configure the aggregation of the {@link de.otto.edison.status.domain.ApplicationStatus}.
+ */
+@ConfigurationProperties(prefix = "edison.status.aggregator")
+@Validated
+public class StatusAggregatorProperties {
+
+    /**
+     * Enable/Disable the parallel aggregation of StatusDetails.
+     * <p>
+     *     If enabled, all StatusDetailIndicators are called concurrently using a dedicated thread pool, and
+     *     indicators that do not respond within {@code edison.status.aggregator.timeout} milliseconds are reported
+     *     using their last known StatusDetails. Otherwise, the indicators are called one after another by the
+     *     scheduler thread.
+     * </p>
+     */
+    private boolean parallel = false;
+
+    /**
+     * Number of threads used to call StatusDetailIndicators, if parallel aggregation is enabled.
+     */
+    @Min(1)
+    private int threads = 4;
+
+    /**
+     * Milliseconds to wait for the StatusDetails of all indicators, if parallel aggregation is enabled.
+     */
+    @Min(1)
+    private long timeout = 5000L;
+
+    /**
+     * Milliseconds between two refreshes of the StatusDetails of an indicator, by name of one of the StatusDetails
+     * returned by the indicator (case insensitive).
+     * <p>
+     *     Overrides the {@link de.otto.edison.status.indicator.StatusDetailIndicator#refreshInterval() refreshInterval}
+     *     declared by the indicator. Between two refreshes, the cached StatusDetails of the indicator are reported.
+     *     Example: {@code edison.status.aggregator.refresh-interval.Search=60000} for an indicator returning a
+     *     StatusDetail named "Search".
+     * </p>
+     */
+    private Map<String, Long> refreshInterval = new HashMap<>();
+
+    /**
+     * Max milliseconds that the last known StatusDetails of a timed out indicator are reported without degrading
+     * them to WARNING, by name of one of the StatusDetails returned by the indicator (case insensitive).
+     * <p>
+     *     Overrides the {@link de.otto.edison.status.indicator.StatusDetailIndicator#maxStaleness() maxStaleness}
+     *     declared by the indicator.
+     * </p>
+     */
+    private Map<String, Long> maxStaleness = new HashMap<>();
+
+    /**
+     * Milliseconds to wait for further changes of {@link de.otto.edison.status.indicator.MutableStatusDetailIndicator}s,
+     * before the changed StatusDetails are applied to the aggregated status. If 0, changes are applied immediately
+     * by the updating thread.
+     */
+    @Min(0)
+    private long debounce = 100L;
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public void setParallel(final boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(final int threads) {
+        this.threads = threads;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(final long timeout) {
+        this.timeout = timeout;
+    }
+
+    public Map<String, Long> getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    public void setRefreshInterval(final Map<String, Long> refreshInterval) {
+        this.refreshInterval = refreshInterval;
+    }
+
+    public Map<String, Long> getMaxStaleness() {
+        return maxStaleness;
+    }
+
+    public void setMaxStaleness(final Map<String, Long> maxStaleness) {
+        this.maxStaleness = maxStaleness;
+    }
+
+    public long getDebounce() {
+        return debounce;
+    }
+
+    public void setDebounce(final long debounce) {
+        this.debounce = debounce;
+    }
+}
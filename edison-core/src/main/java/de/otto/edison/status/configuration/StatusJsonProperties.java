@@ -0,0 +1,25 @@
+package de.otto.edison.status.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Properties used to configure the JSON representation of the status at /internal/status.
+ */
+@ConfigurationProperties(prefix = "edison.status.json")
+public class StatusJsonProperties {
+
+    /**
+     * Enable/Disable serving a pre-serialized JSON representation of the status. If enabled, the status is
+     * serialized and gzipped only once per aggregated status, and served with a strong ETag. The representation then
+     * does not contain {@code system.systemTime} and {@code system.systemUpTime}.
+     */
+    private boolean preSerialized = false;
+
+    public boolean isPreSerialized() {
+        return preSerialized;
+    }
+
+    public void setPreSerialized(final boolean preSerialized) {
+        this.preSerialized = preSerialized;
+    }
+}
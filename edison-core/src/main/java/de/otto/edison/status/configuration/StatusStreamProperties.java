@@ -0,0 +1,69 @@
+package de.otto.edison.status.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+
+/**
+ * Properties used to configure the stream of status changes at /internal/status/stream.
+ */
+@ConfigurationProperties(prefix = "edison.status.stream")
+@Validated
+public class StatusStreamProperties {
+
+    /**
+     * Enable/Disable the Server-Sent Events endpoint /internal/status/stream.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Milliseconds to collect changes of the status, before they are sent to subscribers as a single event.
+     */
+    @Min(0)
+    private long coalesce = 500L;
+
+    /**
+     * Max number of concurrent subscribers. Further subscriptions are rejected with 503 Service Unavailable.
+     */
+    @Min(1)
+    private int maxSubscribers = 100;
+
+    /**
+     * Milliseconds until a subscription times out and clients have to reconnect.
+     */
+    @Min(1)
+    private long timeout = 1800000L;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getCoalesce() {
+        return coalesce;
+    }
+
+    public void setCoalesce(final long coalesce) {
+        this.coalesce = coalesce;
+    }
+
+    public int getMaxSubscribers() {
+        return maxSubscribers;
+    }
+
+    public void setMaxSubscribers(final int maxSubscribers) {
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(final long timeout) {
+        this.timeout = timeout;
+    }
+}
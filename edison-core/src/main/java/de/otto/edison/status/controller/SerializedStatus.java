@@ -0,0 +1,58 @@
+package de.otto.edison.status.controller;
+
+import net.jcip.annotations.Immutable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+import static org.springframework.util.DigestUtils.md5DigestAsHex;
+
+/**
+ * The serialized JSON representation of an {@link de.otto.edison.status.domain.ApplicationStatus}, including
+ * a gzipped variant and strong ETags of both variants.
+ */
+@Immutable
+final class SerializedStatus {
+
+    private final byte[] json;
+    private final byte[] gzippedJson;
+    private final String eTag;
+
+    private SerializedStatus(final byte[] json) {
+        this.json = json;
+        this.gzippedJson = gzip(json);
+        this.eTag = "\"" + md5DigestAsHex(json) + "\"";
+    }
+
+    static SerializedStatus serializedStatus(final byte[] json) {
+        return new SerializedStatus(json);
+    }
+
+    byte[] getJson() {
+        return json;
+    }
+
+    byte[] getGzippedJson() {
+        return gzippedJson;
+    }
+
+    String getETag() {
+        return eTag;
+    }
+
+    String getGzippedETag() {
+        return eTag.substring(0, eTag.length() - 1) + "-gzip\"";
+    }
+
+    private static byte[] gzip(final byte[] bytes) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 32);
+        try (final GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
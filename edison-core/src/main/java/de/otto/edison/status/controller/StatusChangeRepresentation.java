@@ -0,0 +1,88 @@
+package de.otto.edison.status.controller;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import de.otto.edison.status.domain.ApplicationStatus;
+import de.otto.edison.status.domain.Link;
+import de.otto.edison.status.domain.Status;
+import de.otto.edison.status.domain.StatusDetail;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_EMPTY;
+import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * The changes between two versions of the aggregated {@link ApplicationStatus}, as streamed to the subscribers
+ * of /internal/status/stream.
+ * <p>
+ *     Only added or changed StatusDetails are contained in {@code statusDetails}; the names of StatusDetails that
+ *     do not exist anymore are listed in {@code removedStatusDetails}.
+ * </p>
+ */
+@JsonInclude(NON_EMPTY)
+public class StatusChangeRepresentation {
+
+    public Status status;
+    public Map<String, Map<String, Object>> statusDetails;
+    public List<String> removedStatusDetails;
+
+    private StatusChangeRepresentation(final ApplicationStatus previousStatus,
+                                       final ApplicationStatus status) {
+        final List<StatusDetail> previousDetails = previousStatus != null
+                ? previousStatus.statusDetails
+                : emptyList();
+        this.status = status.status;
+        this.statusDetails = new LinkedHashMap<>();
+        status.statusDetails
+                .stream()
+                .filter(statusDetail -> !previousDetails.contains(statusDetail))
+                .forEach(statusDetail -> statusDetails.put(statusDetail.getName(), representationOf(statusDetail)));
+        this.removedStatusDetails = previousDetails
+                .stream()
+                .map(StatusDetail::getName)
+                .filter(name -> status.statusDetails.stream().noneMatch(statusDetail -> statusDetail.getName().equals(name)))
+                .collect(toList());
+    }
+
+    /**
+     * Calculates the changes between two versions of the aggregated ApplicationStatus.
+     *
+     * @param previousStatus the ApplicationStatus known by the subscriber, or null if the subscriber does not know
+     *                       any ApplicationStatus so far.
+     * @param status the current ApplicationStatus
+     * @return StatusChangeRepresentation
+     */
+    public static StatusChangeRepresentation statusChangeOf(final ApplicationStatus previousStatus,
+                                                            final ApplicationStatus status) {
+        return new StatusChangeRepresentation(previousStatus, status);
+    }
+
+    boolean hasChanges() {
+        return !statusDetails.isEmpty() || !removedStatusDetails.isEmpty();
+    }
+
+    private static Map<String, Object> representationOf(final StatusDetail statusDetail) {
+        final Map<String, Object> representation = new LinkedHashMap<>();
+        representation.put("status", statusDetail.getStatus().name());
+        representation.put("message", statusDetail.getMessage());
+        representation.put("links", linksOf(statusDetail.getLinks()));
+        representation.putAll(statusDetail.getDetails());
+        return representation;
+    }
+
+    private static List<Map<String, String>> linksOf(final List<Link> links) {
+        final List<Map<String, String>> result = new ArrayList<>();
+        links.forEach(link -> {
+            final Map<String, String> representation = new LinkedHashMap<>();
+            representation.put("rel", link.rel);
+            representation.put("href", link.href);
+            representation.put("title", link.title);
+            result.add(representation);
+        });
+        return result;
+    }
+}
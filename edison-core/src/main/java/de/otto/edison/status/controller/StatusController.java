@@ -1,30 +1,83 @@
 package de.otto.edison.status.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.otto.edison.configuration.EdisonApplicationProperties;
+import de.otto.edison.status.configuration.StatusJsonProperties;
 import de.otto.edison.status.controller.StatusRepresentation.DependencyRepresentation;
+import de.otto.edison.status.domain.ApplicationStatus;
 import de.otto.edison.status.domain.Criticality;
 import de.otto.edison.status.domain.ExternalDependency;
 import de.otto.edison.status.indicator.ApplicationStatusAggregator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.ModelAndView;
 
+import javax.servlet.http.HttpServletRequest;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import static de.otto.edison.status.controller.SerializedStatus.serializedStatus;
 import static de.otto.edison.status.controller.StatusRepresentation.statusRepresentationOf;
+import static de.otto.edison.status.controller.StatusRepresentation.timeIndependentStatusRepresentationOf;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
 import static java.util.Comparator.comparing;
 import static java.util.stream.Collectors.toList;
+import static org.springframework.http.HttpHeaders.ACCEPT;
+import static org.springframework.http.HttpHeaders.ACCEPT_ENCODING;
+import static org.springframework.http.HttpHeaders.CONTENT_ENCODING;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.parseMediaType;
+import static org.springframework.http.MediaType.parseMediaTypes;
+import static org.springframework.http.MediaType.sortBySpecificityAndQuality;
 import static org.springframework.web.bind.annotation.RequestMethod.GET;
+import static org.springframework.web.servlet.support.ServletUriComponentsBuilder.fromCurrentContextPath;
 
+/**
+ * Controller used to expose the status of the application as JSON or HTML.
+ * <p>
+ *     Relative links of StatusDetails are resolved against {@code edison.application.management.base-uri}, or
+ *     against the scheme, host and context path of the current request, if the property is not configured.
+ * </p>
+ * <p>
+ *     If {@code edison.status.json.pre-serialized=true}, the JSON representation of the status is serialized (and
+ *     gzipped) only once per aggregated ApplicationStatus, cluster color and base URI of the links. It is served with
+ *     a strong ETag, so clients sending If-None-Match are answered with 304 Not Modified as long as the status does
+ *     not change. Therefore, the pre-serialized representation does not contain {@code system.systemTime} and
+ *     {@code system.systemUpTime}.
+ * </p>
+ */
 @RestController
+@EnableConfigurationProperties({EdisonApplicationProperties.class, StatusJsonProperties.class})
 public class StatusController {
 
+    private static final List<MediaType> JSON_MEDIA_TYPES = asList(
+            parseMediaType("application/hal+json"),
+            parseMediaType("application/vnd.otto.monitoring.status+json"),
+            APPLICATION_JSON);
+    private static final int MAX_CACHED_REPRESENTATIONS = 16;
+
     @Autowired
     private ApplicationStatusAggregator aggregator;
     @Autowired
     private ExternalDependencies externalDependencies;
     @Autowired(required = false)
     private Criticality criticality;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private EdisonApplicationProperties applicationProperties;
+    @Autowired
+    private StatusJsonProperties jsonProperties;
+
+    private volatile SerializedStatusCache cache;
 
     @RequestMapping(
             value = "${edison.application.management.base-path:/internal}/status",
@@ -34,11 +87,28 @@ public class StatusController {
                     "application/json"},
             method = GET
     )
-    public StatusRepresentation getStatusAsJson() {
-        return statusRepresentationOf(
-                aggregator.aggregatedStatus(),
-                criticality,
-                externalDependencies.getDependencies());
+    public ResponseEntity<byte[]> getStatusAsJson(final HttpServletRequest request) {
+        final ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(selectedMediaType(request.getHeader(ACCEPT)));
+        if (!jsonProperties.isPreSerialized()) {
+            return response.body(serialize(statusRepresentationOf(
+                    aggregator.aggregatedStatus(),
+                    criticality,
+                    externalDependencies.getDependencies(),
+                    configuredBaseUri())));
+        }
+        final SerializedStatus serializedStatus = serializedStatusOf(aggregator.aggregatedStatus());
+        response.varyBy(ACCEPT_ENCODING);
+        if (acceptsGzip(request.getHeader(ACCEPT_ENCODING))) {
+            return response
+                    .eTag(serializedStatus.getGzippedETag())
+                    .header(CONTENT_ENCODING, "gzip")
+                    .body(serializedStatus.getGzippedJson());
+        } else {
+            return response
+                    .eTag(serializedStatus.getETag())
+                    .body(serializedStatus.getJson());
+        }
     }
 
     @RequestMapping(
@@ -58,5 +128,74 @@ public class StatusController {
         }});
     }
 
-}
+    private SerializedStatus serializedStatusOf(final ApplicationStatus status) {
+        SerializedStatusCache current = cache;
+        if (current == null || current.status != status) {
+            current = new SerializedStatusCache(status);
+            cache = current;
+        }
+        // The cluster info may be provided by Suppliers, changing without a new ApplicationStatus. Without a
+        // configured base URI, links are resolved against the scheme, host and context path of the request:
+        final String baseUri = configuredBaseUri();
+        final String context = (status.cluster.isEnabled()
+                ? status.cluster.getColor() + " " + status.cluster.getColorState()
+                : "") + " " + (baseUri != null ? baseUri : fromCurrentContextPath().toUriString());
+        final SerializedStatus cached = current.representations.get(context);
+        if (cached != null) {
+            return cached;
+        }
+        final SerializedStatus serializedStatus = serializedStatus(serialize(timeIndependentStatusRepresentationOf(
+                status,
+                criticality,
+                externalDependencies.getDependencies(),
+                baseUri)));
+        if (current.representations.size() < MAX_CACHED_REPRESENTATIONS) {
+            current.representations.putIfAbsent(context, serializedStatus);
+        }
+        return serializedStatus;
+    }
+
+    private String configuredBaseUri() {
+        final String baseUri = applicationProperties.getManagement().getBaseUri();
+        return baseUri != null && !baseUri.isEmpty()
+                ? baseUri
+                : null;
+    }
 
+    private byte[] serialize(final StatusRepresentation statusRepresentation) {
+        try {
+            return objectMapper.writeValueAsBytes(statusRepresentation);
+        } catch (final JsonProcessingException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    private static MediaType selectedMediaType(final String accept) {
+        final List<MediaType> acceptedMediaTypes = accept != null
+                ? parseMediaTypes(accept)
+                : asList(MediaType.ALL);
+        sortBySpecificityAndQuality(acceptedMediaTypes);
+        for (final MediaType acceptedMediaType : acceptedMediaTypes) {
+            for (final MediaType jsonMediaType : JSON_MEDIA_TYPES) {
+                if (acceptedMediaType.isCompatibleWith(jsonMediaType)) {
+                    return new MediaType(jsonMediaType, UTF_8);
+                }
+            }
+        }
+        return new MediaType(APPLICATION_JSON, UTF_8);
+    }
+
+    private static boolean acceptsGzip(final String acceptEncoding) {
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+
+    private static final class SerializedStatusCache {
+        private final ApplicationStatus status;
+        private final ConcurrentMap<String, SerializedStatus> representations = new ConcurrentHashMap<>();
+
+        private SerializedStatusCache(final ApplicationStatus status) {
+            this.status = status;
+        }
+    }
+
+}
@@ -13,11 +13,13 @@ import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_EMPTY;
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
 import static java.util.Collections.emptyList;
 import static java.util.Comparator.comparing;
 import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
 import static org.springframework.web.servlet.support.ServletUriComponentsBuilder.fromCurrentContextPath;
+import static org.springframework.web.util.UriComponentsBuilder.fromUriString;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 @JsonInclude(NON_EMPTY)
@@ -27,16 +29,18 @@ public class StatusRepresentation {
 
     public ApplicationRepresentation application;
     public ClusterInfo cluster;
-    public SystemInfo system;
+    public SystemRepresentation system;
     public TeamInfo team;
     public Criticality criticality;
     public List<DependencyRepresentation> dependencies;
 
     private StatusRepresentation(final ApplicationStatus applicationStatus,
                                  final Criticality criticality,
-                                 final List<ExternalDependency> dependencies) {
-        this.application = new ApplicationRepresentation(applicationStatus);
-        this.system = applicationStatus.system;
+                                 final List<ExternalDependency> dependencies,
+                                 final String baseUri,
+                                 final boolean withSystemTime) {
+        this.application = new ApplicationRepresentation(applicationStatus, baseUri);
+        this.system = new SystemRepresentation(applicationStatus.system, withSystemTime);
         this.team = applicationStatus.team;
         this.cluster = applicationStatus.cluster.isEnabled() ? applicationStatus.cluster : null;
         this.criticality = criticality;
@@ -50,13 +54,71 @@ public class StatusRepresentation {
     }
 
     public static StatusRepresentation statusRepresentationOf(final ApplicationStatus status) {
-        return new StatusRepresentation(status, null, null);
+        return new StatusRepresentation(status, null, null, null, true);
     }
 
     public static StatusRepresentation statusRepresentationOf(final ApplicationStatus status,
                                                               final Criticality criticality,
                                                               final List<ExternalDependency> dependencies) {
-        return new StatusRepresentation(status, criticality, dependencies);
+        return new StatusRepresentation(status, criticality, dependencies, null, true);
+    }
+
+    /**
+     * Creates the representation of an ApplicationStatus, resolving relative links of the StatusDetails against
+     * the given base URI instead of the context path of the current request.
+     *
+     * @param status the ApplicationStatus
+     * @param criticality the criticality of the application, or null
+     * @param dependencies the external dependencies of the application, or null
+     * @param baseUri the URI (or path) used to resolve relative links, e.g. https://example.org/myservice, or
+     *                null to resolve them against the context path of the current request
+     * @return StatusRepresentation
+     */
+    public static StatusRepresentation statusRepresentationOf(final ApplicationStatus status,
+                                                              final Criticality criticality,
+                                                              final List<ExternalDependency> dependencies,
+                                                              final String baseUri) {
+        return new StatusRepresentation(status, criticality, dependencies, baseUri, true);
+    }
+
+    /**
+     * Creates the representation of an ApplicationStatus that does not depend on the current time, so it can be
+     * serialized once and served until the status changes: {@code system.systemTime} and
+     * {@code system.systemUpTime} are omitted.
+     *
+     * @param status the ApplicationStatus
+     * @param criticality the criticality of the application, or null
+     * @param dependencies the external dependencies of the application, or null
+     * @param baseUri the URI (or path) used to resolve relative links, e.g. https://example.org/myservice, or
+     *                null to resolve them against the context path of the current request
+     * @return StatusRepresentation
+     */
+    public static StatusRepresentation timeIndependentStatusRepresentationOf(final ApplicationStatus status,
+                                                                             final Criticality criticality,
+                                                                             final List<ExternalDependency> dependencies,
+                                                                             final String baseUri) {
+        return new StatusRepresentation(status, criticality, dependencies, baseUri, false);
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    @JsonInclude(NON_NULL)
+    static class SystemRepresentation {
+        public String hostname;
+        public int port;
+        public String systemTime;
+        public String systemStartTime;
+        public String systemUpTime;
+
+        public SystemRepresentation() {
+        }
+
+        private SystemRepresentation(final SystemInfo systemInfo, final boolean withSystemTime) {
+            this.hostname = systemInfo.hostname;
+            this.port = systemInfo.port;
+            this.systemTime = withSystemTime ? systemInfo.getSystemTime() : null;
+            this.systemStartTime = systemInfo.getSystemStartTime();
+            this.systemUpTime = withSystemTime ? systemInfo.getSystemUpTime() : null;
+        }
     }
 
 	@JsonIgnoreProperties(ignoreUnknown = true)
@@ -116,7 +178,7 @@ public class StatusRepresentation {
         public ApplicationRepresentation() {
         }
 
-        private ApplicationRepresentation(final ApplicationStatus applicationStatus) {
+        private ApplicationRepresentation(final ApplicationStatus applicationStatus, final String baseUri) {
             this.name = applicationStatus.application.name;
             this.title = applicationStatus.application.title;
             this.description = applicationStatus.application.description;
@@ -126,13 +188,13 @@ public class StatusRepresentation {
             this.commit = applicationStatus.vcs.commitId;
             this.vcsUrl = applicationStatus.vcs.url;
             this.status = applicationStatus.status;
-            this.statusDetails = statusDetailsOf(applicationStatus.statusDetails);
+            this.statusDetails = statusDetailsOf(applicationStatus.statusDetails, baseUri);
         }
 
-        private Map<String, ?> statusDetailsOf(final List<StatusDetail> statusDetails) {
+        private Map<String, ?> statusDetailsOf(final List<StatusDetail> statusDetails, final String baseUri) {
             final Map<String, Object> map = new LinkedHashMap<>();
             for (StatusDetail entry : statusDetails) {
-                final List<Map<String, String>> links = toLinks(entry.getLinks());
+                final List<Map<String, String>> links = toLinks(entry.getLinks(), baseUri);
                 map.put(toCamelCase(entry.getName()), new LinkedHashMap<String, Object>() {{
                     put("status", entry.getStatus().name());
                     put("message", entry.getMessage());
@@ -144,13 +206,15 @@ public class StatusRepresentation {
 
         }
 
-        private List<Map<String, String>> toLinks(final List<Link> links) {
+        private List<Map<String, String>> toLinks(final List<Link> links, final String baseUri) {
             final List<Map<String,String>> result = new ArrayList<>();
             links.forEach(link -> result.add(new LinkedHashMap<String,String>() {{
                 put("rel", link.rel);
                 put("href", link.href.startsWith("http")
                         ? link.href
-                        : fromCurrentContextPath().path(link.href).build().toString());
+                        : baseUri != null
+                                ? fromUriString(baseUri).path(link.href).build().toString()
+                                : fromCurrentContextPath().path(link.href).build().toString());
                 put("title", link.title);
             }}));
             return result;
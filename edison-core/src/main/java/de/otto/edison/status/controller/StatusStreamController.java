@@ -0,0 +1,183 @@
+package de.otto.edison.status.controller;
+
+import de.otto.edison.status.configuration.StatusStreamProperties;
+import de.otto.edison.status.domain.ApplicationStatus;
+import de.otto.edison.status.indicator.ApplicationStatusAggregator;
+import de.otto.edison.status.indicator.ApplicationStatusChangedEvent;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static de.otto.edison.status.controller.StatusChangeRepresentation.statusChangeOf;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.slf4j.LoggerFactory.getLogger;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.web.bind.annotation.RequestMethod.GET;
+
+/**
+ * Streams changes of the aggregated status of the application to subscribers, using Server-Sent Events.
+ * <p>
+ *     The stream is enabled using {@code edison.status.stream.enabled=true}. After subscribing, clients receive the
+ *     current status, followed by a {@link StatusChangeRepresentation} whenever the
+ *     {@link ApplicationStatusAggregator} publishes an {@link ApplicationStatusChangedEvent}. Every subscriber only
+ *     buffers the latest status it has not yet received: changes within {@code edison.status.stream.coalesce}
+ *     milliseconds are sent as a single event, so slow subscribers are not able to pile up pending events.
+ *     Events are sent by a separate sender thread per busy subscriber, so a subscriber that is blocking on a
+ *     slow connection does not delay the events of other subscribers.
+ * </p>
+ */
+@RestController
+@ConditionalOnProperty(prefix = "edison.status.stream", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(StatusStreamProperties.class)
+public class StatusStreamController {
+
+    private static final Logger LOG = getLogger(StatusStreamController.class);
+
+    private final ApplicationStatusAggregator aggregator;
+    private final StatusStreamProperties properties;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService executorService;
+    private final ExecutorService senderExecutorService;
+
+    @Autowired
+    public StatusStreamController(final ApplicationStatusAggregator aggregator,
+                                  final StatusStreamProperties properties) {
+        this.aggregator = aggregator;
+        this.properties = properties;
+        this.executorService = newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "edison-StatusStream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.senderExecutorService = newCachedThreadPool(r -> {
+            final Thread thread = new Thread(r, "edison-StatusStream-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @RequestMapping(
+            value = "${edison.application.management.base-path:/internal}/status/stream",
+            produces = "text/event-stream",
+            method = GET
+    )
+    public ResponseEntity<SseEmitter> streamStatusChanges() {
+        final SseEmitter emitter = new SseEmitter(properties.getTimeout());
+        return subscribe(emitter)
+                ? ResponseEntity.ok(emitter)
+                : ResponseEntity.status(SERVICE_UNAVAILABLE).build();
+    }
+
+    @EventListener
+    public void onStatusChanged(final ApplicationStatusChangedEvent event) {
+        subscribers.forEach(subscriber -> offer(subscriber, event.getStatus(), properties.getCoalesce()));
+    }
+
+    @PreDestroy
+    public void stop() {
+        executorService.shutdownNow();
+        senderExecutorService.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    /**
+     * Subscribes an SseEmitter to the changes of the status. The current status is sent immediately.
+     *
+     * @param emitter the SseEmitter used to send the changes
+     * @return true, if subscribed; false, if the max number of subscribers is reached
+     */
+    boolean subscribe(final SseEmitter emitter) {
+        final Subscriber subscriber = new Subscriber(emitter);
+        synchronized (subscribers) {
+            if (subscribers.size() >= properties.getMaxSubscribers()) {
+                LOG.warn("Rejected subscription to status changes: max number of {} subscribers reached", properties.getMaxSubscribers());
+                return false;
+            }
+            subscribers.add(subscriber);
+        }
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        offer(subscriber, aggregator.aggregatedStatus(), 0L);
+        return true;
+    }
+
+    int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    private void offer(final Subscriber subscriber, final ApplicationStatus status, final long delayMillis) {
+        subscriber.pendingStatus.set(status);
+        schedule(subscriber, delayMillis);
+    }
+
+    /**
+     * Schedules sending the pending status to the subscriber, unless a send is already scheduled or in progress.
+     * The scheduler thread only waits for the coalescing delay; the (possibly blocking) send is executed by a
+     * sender thread, so at most one thread is busy with a single subscriber at any time.
+     */
+    private void schedule(final Subscriber subscriber, final long delayMillis) {
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            if (delayMillis > 0) {
+                executorService.schedule(() -> senderExecutorService.execute(() -> send(subscriber)), delayMillis, MILLISECONDS);
+            } else {
+                senderExecutorService.execute(() -> send(subscriber));
+            }
+        }
+    }
+
+    private void send(final Subscriber subscriber) {
+        try {
+            final ApplicationStatus status = subscriber.pendingStatus.getAndSet(null);
+            if (status == null) {
+                return;
+            }
+            final StatusChangeRepresentation statusChange = statusChangeOf(subscriber.sentStatus, status);
+            if (subscriber.sentStatus != null && !statusChange.hasChanges()) {
+                return;
+            }
+            subscriber.emitter.send(SseEmitter.event().name("status").data(statusChange, APPLICATION_JSON));
+            subscriber.sentStatus = status;
+        } catch (final IOException | IllegalStateException e) {
+            LOG.info("Unsubscribing from status changes: {}", e.getMessage());
+            subscribers.remove(subscriber);
+            subscriber.emitter.complete();
+        } finally {
+            subscriber.scheduled.set(false);
+        }
+        // Changes offered while sending are coalesced into the next event:
+        if (subscriber.pendingStatus.get() != null && subscribers.contains(subscriber)) {
+            schedule(subscriber, properties.getCoalesce());
+        }
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final AtomicReference<ApplicationStatus> pendingStatus = new AtomicReference<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile ApplicationStatus sentStatus;
+
+        private Subscriber(final SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package de.otto.edison.status.indicator;
+
+import de.otto.edison.status.domain.ApplicationStatus;
+import net.jcip.annotations.Immutable;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Event published by the {@link CachedApplicationStatusAggregator}, if an update changed the aggregated
+ * {@link ApplicationStatus}.
+ */
+@Immutable
+public class ApplicationStatusChangedEvent extends ApplicationEvent {
+
+    private final ApplicationStatus previousStatus;
+    private final ApplicationStatus status;
+
+    public ApplicationStatusChangedEvent(final ApplicationStatusAggregator source,
+                                         final ApplicationStatus previousStatus,
+                                         final ApplicationStatus status) {
+        super(source);
+        this.previousStatus = previousStatus;
+        this.status = status;
+    }
+
+    /**
+     * The aggregated ApplicationStatus before the update.
+     *
+     * @return previous ApplicationStatus
+     */
+    public ApplicationStatus getPreviousStatus() {
+        return previousStatus;
+    }
+
+    /**
+     * The aggregated ApplicationStatus after the update.
+     *
+     * @return current ApplicationStatus
+     */
+    public ApplicationStatus getStatus() {
+        return status;
+    }
+}
@@ -1,28 +1,132 @@
 package de.otto.edison.status.indicator;
 
+import de.otto.edison.status.configuration.StatusAggregatorProperties;
 import de.otto.edison.status.domain.ApplicationStatus;
+import de.otto.edison.status.domain.Status;
+import de.otto.edison.status.domain.StatusDetail;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static de.otto.edison.status.domain.ApplicationStatus.applicationStatus;
+import static de.otto.edison.status.domain.Status.ERROR;
+import static de.otto.edison.status.domain.Status.WARNING;
+import static de.otto.edison.status.domain.StatusDetail.statusDetail;
+import static java.lang.Math.max;
+import static java.lang.System.nanoTime;
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.stream.Collectors.toList;
+import static org.slf4j.LoggerFactory.getLogger;
 
 /**
  * A caching ApplicationStatusAggregator.
+ * <p>
+ *     The StatusDetails of every indicator are cached. On {@link #update()}, only the indicators that are due
+ *     according to their {@link StatusDetailIndicator#refreshInterval() refresh interval} are called, and the
+ *     ApplicationStatus is assembled from the refreshed and the cached StatusDetails.
+ * </p>
+ * <p>
+ *     By default, the StatusDetailIndicators are called one after another. If an {@link Executor} is configured,
+ *     the indicators are called in parallel. Indicators that do not respond within the configured timeout are
+ *     reported using their last known StatusDetails, together with the age of these StatusDetails. An indicator that
+ *     is still busy is not called again until it has responded.
+ * </p>
+ * <p>
+ *     The latency of every indicator is recorded by the timer {@code timer.status.indicator}, tagged by the names of
+ *     the StatusDetails of the indicator. Configured refresh intervals and max staleness are looked up by these
+ *     names, too. Until an indicator has responded for the first time, its class name is used instead.
+ * </p>
+ * <p>
+ *     The aggregated status is only replaced, if an update changed any StatusDetails. In this case, an
+ *     {@link ApplicationStatusChangedEvent} is published.
+ * </p>
+ * <p>
+ *     Changes of {@link MutableStatusDetailIndicator}s are applied without waiting for the next update: after the
+ *     configured debounce delay, the changed StatusDetails replace the cached StatusDetails of the indicator, without
+ *     calling any other indicator.
+ * </p>
  *
  * @author Guido Steinacker
  * @since 13.02.15
  */
-public class CachedApplicationStatusAggregator implements ApplicationStatusAggregator {
+public class CachedApplicationStatusAggregator implements ApplicationStatusAggregator, ApplicationEventPublisherAware {
+
+    private static final Logger LOG = getLogger(CachedApplicationStatusAggregator.class);
+
+    static final String INDICATOR_LATENCY = "timer.status.indicator";
 
     private volatile ApplicationStatus cachedStatus;
 
     private final List<StatusDetailIndicator> indicators;
+    private final Executor executor;
+    private final StatusAggregatorProperties properties;
+    private final Clock clock;
+    private final Map<StatusDetailIndicator, IndicatorState> indicatorStates = new ConcurrentHashMap<>();
+    private final AtomicBoolean lateResponses = new AtomicBoolean();
+    private final AtomicBoolean pendingChanges = new AtomicBoolean();
+    private volatile ApplicationEventPublisher eventPublisher;
+    private ScheduledExecutorService changeExecutor;
 
     public CachedApplicationStatusAggregator(final ApplicationStatus applicationStatus,
                                              final List<StatusDetailIndicator> indicators) {
+        this(applicationStatus, indicators, null, new StatusAggregatorProperties(), Clock.systemDefaultZone());
+    }
+
+    /**
+     * Creates a CachedApplicationStatusAggregator that is configured using StatusAggregatorProperties.
+     *
+     * @param applicationStatus the initial ApplicationStatus
+     * @param indicators the StatusDetailIndicators
+     * @param executor the Executor used to call the indicators in parallel, or null to call them one after another
+     * @param properties properties used to configure timeout, refresh intervals and max staleness of indicators
+     */
+    public CachedApplicationStatusAggregator(final ApplicationStatus applicationStatus,
+                                             final List<StatusDetailIndicator> indicators,
+                                             final Executor executor,
+                                             final StatusAggregatorProperties properties) {
+        this(applicationStatus, indicators, executor, properties, Clock.systemDefaultZone());
+    }
+
+    CachedApplicationStatusAggregator(final ApplicationStatus applicationStatus,
+                                      final List<StatusDetailIndicator> indicators,
+                                      final Executor executor,
+                                      final StatusAggregatorProperties properties,
+                                      final Clock clock) {
         this.cachedStatus = applicationStatus;
         this.indicators = indicators;
+        this.executor = executor;
+        this.properties = properties;
+        this.clock = clock;
+        indicators
+                .stream()
+                .filter(MutableStatusDetailIndicator.class::isInstance)
+                .forEach(indicator -> ((MutableStatusDetailIndicator) indicator).addChangeListener(
+                        statusDetail -> indicatorChanged(indicator)));
+    }
+
+    @Override
+    public void setApplicationEventPublisher(final ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -32,16 +136,248 @@ public class CachedApplicationStatusAggregator implements ApplicationStatusAggre
 
     @Override
     public void update() {
-        cachedStatus = applicationStatus(
-                cachedStatus.application,
-                cachedStatus.cluster,
-                cachedStatus.system,
-                cachedStatus.vcs,
-                cachedStatus.team,
-                indicators
-                        .stream()
-                        .flatMap(i -> i.statusDetails().stream())
-                        .collect(toList()));
+        final Instant now = clock.instant();
+        final List<StatusDetailIndicator> dueIndicators = indicators
+                .stream()
+                .filter(indicator -> stateOf(indicator).isDue(now))
+                .collect(toList());
+        if (dueIndicators.isEmpty() && !lateResponses.getAndSet(false)) {
+            return;
+        }
+        if (executor != null) {
+            refreshInParallel(dueIndicators);
+        } else {
+            dueIndicators.forEach(this::refresh);
+        }
+        assemble();
+    }
+
+    /**
+     * Shuts down the thread used to apply debounced changes of MutableStatusDetailIndicators.
+     */
+    public synchronized void shutdown() {
+        if (changeExecutor != null) {
+            changeExecutor.shutdownNow();
+        }
     }
 
+    private void indicatorChanged(final StatusDetailIndicator indicator) {
+        final IndicatorState state = stateOf(indicator);
+        if (state.lastKnown == null) {
+            // not yet aggregated: the indicator is called by the next update
+            return;
+        }
+        refresh(indicator);
+        if (properties.getDebounce() == 0) {
+            assemble();
+        } else if (pendingChanges.compareAndSet(false, true)) {
+            changeExecutor().schedule(() -> {
+                pendingChanges.set(false);
+                assemble();
+            }, properties.getDebounce(), MILLISECONDS);
+        }
+    }
+
+    private synchronized ScheduledExecutorService changeExecutor() {
+        if (changeExecutor == null) {
+            changeExecutor = newSingleThreadScheduledExecutor(r -> {
+                final Thread thread = new Thread(r, "edison-StatusChanges");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return changeExecutor;
+    }
+
+    private synchronized void assemble() {
+        final ApplicationStatus previousStatus = cachedStatus;
+        final List<IndicatorState> states = indicators.stream().map(this::stateOf).collect(toList());
+        if (states.stream().anyMatch(state -> state.reported == null)) {
+            return;
+        }
+        final List<StatusDetail> statusDetails = states
+                .stream()
+                .flatMap(state -> state.reported.stream())
+                .collect(toList());
+        if (statusDetails.equals(previousStatus.statusDetails)) {
+            return;
+        }
+        final ApplicationStatus status = applicationStatus(
+                previousStatus.application,
+                previousStatus.cluster,
+                previousStatus.system,
+                previousStatus.vcs,
+                previousStatus.team,
+                statusDetails);
+        cachedStatus = status;
+        if (eventPublisher != null) {
+            eventPublisher.publishEvent(new ApplicationStatusChangedEvent(this, previousStatus, status));
+        }
+    }
+
+    private void refresh(final StatusDetailIndicator indicator) {
+        stateOf(indicator).refreshed(new LastKnown(timedStatusDetails(indicator), clock.instant()));
+    }
+
+    private void refreshInParallel(final List<StatusDetailIndicator> dueIndicators) {
+        final List<CompletableFuture<LastKnown>> futures = dueIndicators
+                .stream()
+                .map(this::submit)
+                .collect(toList());
+        final long deadline = nanoTime() + MILLISECONDS.toNanos(properties.getTimeout());
+        for (int i = 0; i < dueIndicators.size(); ++i) {
+            await(dueIndicators.get(i), futures.get(i), deadline);
+        }
+    }
+
+    private CompletableFuture<LastKnown> submit(final StatusDetailIndicator indicator) {
+        final IndicatorState state = stateOf(indicator);
+        synchronized (state) {
+            if (state.inFlight == null || state.inFlight.isDone()) {
+                state.inFlight = CompletableFuture.supplyAsync(() -> new LastKnown(timedStatusDetails(indicator), clock.instant()), executor);
+                state.inFlight.thenAccept(lastKnown -> {
+                    state.refreshed(lastKnown);
+                    lateResponses.set(true);
+                });
+            }
+            return state.inFlight;
+        }
+    }
+
+    private void await(final StatusDetailIndicator indicator,
+                       final CompletableFuture<LastKnown> future,
+                       final long deadline) {
+        final IndicatorState state = stateOf(indicator);
+        try {
+            state.refreshed(future.get(max(0L, deadline - nanoTime()), NANOSECONDS));
+        } catch (final TimeoutException e) {
+            LOG.warn("StatusDetailIndicator {} did not respond within {}ms", state.name, properties.getTimeout());
+            state.reported = timedOut(indicator);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            state.reported = timedOut(indicator);
+        } catch (final ExecutionException e) {
+            LOG.error("StatusDetailIndicator {} failed: {}", state.name, e.getCause().getMessage(), e.getCause());
+            state.reported = singletonList(statusDetail(state.name, ERROR, "Failed to get status: " + e.getCause().getMessage()));
+        }
+    }
+
+    private List<StatusDetail> timedOut(final StatusDetailIndicator indicator) {
+        final IndicatorState state = stateOf(indicator);
+        final String timedOut = "No response within " + properties.getTimeout() + "ms";
+        final LastKnown lastKnown = state.lastKnown;
+        if (lastKnown == null) {
+            return singletonList(statusDetail(state.name, WARNING, timedOut));
+        }
+        final Duration age = Duration.between(lastKnown.updated, clock.instant());
+        final boolean stale = state.maxStaleness.isPresent() && age.compareTo(state.maxStaleness.get()) > 0;
+        return lastKnown.statusDetails
+                .stream()
+                .map(statusDetail -> {
+                    final Map<String, String> details = new LinkedHashMap<>(statusDetail.getDetails());
+                    details.put("timedOut", timedOut);
+                    details.put("age", age.getSeconds() + "s");
+                    final Status status = stale
+                            ? Status.plus(statusDetail.getStatus(), WARNING)
+                            : statusDetail.getStatus();
+                    return statusDetail(statusDetail.getName(), status, statusDetail.getMessage(), statusDetail.getLinks(), details);
+                })
+                .collect(toList());
+    }
+
+    private List<StatusDetail> timedStatusDetails(final StatusDetailIndicator indicator) {
+        final long started = nanoTime();
+        List<StatusDetail> statusDetails = null;
+        try {
+            statusDetails = indicator.statusDetails();
+            return statusDetails;
+        } finally {
+            Timer.builder(INDICATOR_LATENCY)
+                    .tag("indicator", statusDetails != null && !statusDetails.isEmpty()
+                            ? String.join(",", namesOf(statusDetails))
+                            : stateOf(indicator).name)
+                    .register(Metrics.globalRegistry)
+                    .record(nanoTime() - started, NANOSECONDS);
+        }
+    }
+
+    private IndicatorState stateOf(final StatusDetailIndicator indicator) {
+        return indicatorStates.computeIfAbsent(indicator, IndicatorState::new);
+    }
+
+    private static Optional<Duration> configuredOrDeclared(final Map<String, Long> millisByName,
+                                                           final List<String> names,
+                                                           final Optional<Duration> declared) {
+        final Optional<Duration> configured = millisByName.entrySet()
+                .stream()
+                .filter(entry -> names.stream().anyMatch(name -> entry.getKey().equalsIgnoreCase(name)))
+                .map(entry -> Duration.ofMillis(entry.getValue()))
+                .findFirst();
+        return configured.isPresent() ? configured : declared;
+    }
+
+    private static List<String> namesOf(final List<StatusDetail> statusDetails) {
+        return statusDetails
+                .stream()
+                .map(StatusDetail::getName)
+                .distinct()
+                .collect(toList());
+    }
+
+    private static String classNameOf(final StatusDetailIndicator indicator) {
+        final String simpleName = indicator.getClass().getSimpleName();
+        return simpleName.isEmpty() ? indicator.getClass().getName() : simpleName;
+    }
+
+    /**
+     * The cached StatusDetails of an indicator. The name, refresh interval and max staleness of the indicator are
+     * resolved from the names of its StatusDetails, whenever these names have changed.
+     */
+    private final class IndicatorState {
+        private final StatusDetailIndicator indicator;
+        private volatile List<String> names;
+        private volatile String name;
+        private volatile Duration refreshInterval;
+        private volatile Optional<Duration> maxStaleness;
+        private CompletableFuture<LastKnown> inFlight;
+        private volatile LastKnown lastKnown;
+        private volatile List<StatusDetail> reported;
+
+        private IndicatorState(final StatusDetailIndicator indicator) {
+            this.indicator = indicator;
+            this.name = classNameOf(indicator);
+            this.refreshInterval = indicator.refreshInterval().orElse(Duration.ZERO);
+            this.maxStaleness = indicator.maxStaleness();
+        }
+
+        private boolean isDue(final Instant now) {
+            final LastKnown lastKnown = this.lastKnown;
+            return lastKnown == null
+                    || reported != lastKnown.statusDetails
+                    || !now.isBefore(lastKnown.updated.plus(refreshInterval));
+        }
+
+        private void refreshed(final LastKnown lastKnown) {
+            final List<String> names = namesOf(lastKnown.statusDetails);
+            if (!names.isEmpty() && !names.equals(this.names)) {
+                this.names = names;
+                this.name = String.join(",", names);
+                this.refreshInterval = configuredOrDeclared(properties.getRefreshInterval(), names, indicator.refreshInterval())
+                        .orElse(Duration.ZERO);
+                this.maxStaleness = configuredOrDeclared(properties.getMaxStaleness(), names, indicator.maxStaleness());
+            }
+            this.lastKnown = lastKnown;
+            this.reported = lastKnown.statusDetails;
+        }
+    }
+
+    private static final class LastKnown {
+        private final List<StatusDetail> statusDetails;
+        private final Instant updated;
+
+        private LastKnown(final List<StatusDetail> statusDetails, final Instant updated) {
+            this.statusDetails = statusDetails;
+            this.updated = updated;
+        }
+    }
 }
@@ -3,12 +3,17 @@ package de.otto.edison.status.indicator;
 import de.otto.edison.status.domain.StatusDetail;
 import net.jcip.annotations.ThreadSafe;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
 import static java.util.Objects.requireNonNull;
 
 @ThreadSafe
 public class MutableStatusDetailIndicator implements StatusDetailIndicator {
 
     private volatile StatusDetail statusDetail;
+    private final List<Consumer<StatusDetail>> changeListeners = new CopyOnWriteArrayList<>();
 
     public MutableStatusDetailIndicator(final StatusDetail initialStatusDetail) {
         this.statusDetail = requireNonNull(initialStatusDetail, "Initial StatusDetail must not be null");
@@ -23,7 +28,21 @@ public class MutableStatusDetailIndicator implements StatusDetailIndicator {
         if (!this.statusDetail.getName().equals(statusDetail.getName())) {
             throw new IllegalArgumentException("Must not update StatusDetail with different names. That would be confusing.");
         }
+        final StatusDetail previousStatusDetail = this.statusDetail;
         this.statusDetail = requireNonNull(statusDetail, "Parameter StatusDetail must not be null");
+        if (!statusDetail.equals(previousStatusDetail)) {
+            changeListeners.forEach(listener -> listener.accept(statusDetail));
+        }
+    }
+
+    /**
+     * Registers a listener that is called with the new StatusDetail, whenever an update changed the StatusDetail of
+     * this indicator. Listeners are called by the updating thread.
+     *
+     * @param listener the listener
+     */
+    public void addChangeListener(final Consumer<StatusDetail> listener) {
+        changeListeners.add(requireNonNull(listener, "Parameter listener must not be null"));
     }
 
     public void toOk(String message) {
@@ -2,7 +2,9 @@ package de.otto.edison.status.indicator;
 
 import de.otto.edison.status.domain.StatusDetail;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
 
 import static java.util.Arrays.asList;
 
@@ -35,4 +37,31 @@ public interface StatusDetailIndicator {
         return asList(statusDetail());
     }
 
+    /**
+     * The interval between two refreshes of the StatusDetails of this indicator.
+     *
+     * Implementations should override this method, if calculating the StatusDetails is expensive and it is sufficient
+     * to refresh them less often than the status of the application is updated. In between, the
+     * {@link CachedApplicationStatusAggregator} reports the cached StatusDetails.
+     *
+     * By default, the StatusDetails are refreshed on every update.
+     *
+     * @return optional refresh interval
+     */
+    default Optional<Duration> refreshInterval() {
+        return Optional.empty();
+    }
+
+    /**
+     * The max age of the last known StatusDetails that are reported, if the indicator did not respond in time.
+     * Older StatusDetails are reported with status WARNING or worse.
+     *
+     * By default, the last known StatusDetails are reported regardless of their age.
+     *
+     * @return optional max staleness
+     */
+    default Optional<Duration> maxStaleness() {
+        return Optional.empty();
+    }
+
 }
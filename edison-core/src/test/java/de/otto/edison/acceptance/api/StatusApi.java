@@ -10,9 +10,14 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
 import java.util.Optional;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Arrays.asList;
 import static java.util.Optional.of;
 import static org.springframework.http.HttpMethod.GET;
@@ -43,6 +48,24 @@ public class StatusApi extends SpringTestBase {
         return When.INSTANCE;
     }
 
+    public static When internal_status_stream_is_subscribed() throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:8084/testcore/internal/status/stream").openConnection();
+        connection.setRequestProperty("Accept", "text/event-stream");
+        connection.setReadTimeout(5000);
+        try (final BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), UTF_8))) {
+            statusCode = HttpStatus.valueOf(connection.getResponseCode());
+            final StringBuilder event = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null && !(line.isEmpty() && event.length() > 0)) {
+                event.append(line).append('\n');
+            }
+            content = event.toString();
+        } finally {
+            connection.disconnect();
+        }
+        return When.INSTANCE;
+    }
+
     public static HttpStatus the_status_code() {
         return statusCode;
     }
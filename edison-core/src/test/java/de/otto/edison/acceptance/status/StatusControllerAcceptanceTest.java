@@ -13,6 +13,7 @@ import static java.util.Collections.singletonList;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.Matchers.startsWith;
 
 public class StatusControllerAcceptanceTest {
@@ -150,4 +151,59 @@ public class StatusControllerAcceptanceTest {
         );
     }
 
+    @Test
+    public void shouldGetStatusWithETag() throws IOException {
+        when(
+                internal_status_is_retrieved_as("application/json")
+        );
+
+        then(
+                assertThat(the_status_code().value(), is(200)),
+                assertThat(the_response_headers().getETag(), startsWith("\""))
+        );
+    }
+
+    @Test
+    public void shouldGetNotModifiedIfETagMatches() throws IOException {
+        internal_status_is_retrieved_as("application/json");
+        final HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(the_response_headers().getETag());
+
+        when(
+                internal_status_is_retrieved_as("application/json", headers)
+        );
+
+        then(
+                assertThat(the_status_code().value(), is(304)),
+                assertThat(the_returned_content(), is(nullValue()))
+        );
+    }
+
+    @Test
+    public void shouldGetGzippedStatus() throws IOException {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.set("Accept-Encoding", "gzip");
+        when(
+                internal_status_is_retrieved_as("application/json", headers)
+        );
+
+        then(
+                assertThat(the_status_code().value(), is(200)),
+                assertThat(the_response_headers().get("Content-Encoding"), contains("gzip")),
+                assertThat(the_response_headers().get("Content-Type"), contains("application/json;charset=UTF-8"))
+        );
+    }
+
+    @Test
+    public void shouldStreamCurrentStatus() throws IOException {
+        when(
+                internal_status_stream_is_subscribed()
+        );
+
+        then(
+                assertThat(the_status_code().value(), is(200)),
+                assertThat(the_returned_content(), startsWith("event:status\ndata:{\"status\":\"WARNING\""))
+        );
+    }
+
 }
@@ -1,16 +1,19 @@
 package de.otto.edison.status.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import de.otto.edison.configuration.EdisonApplicationProperties;
 import de.otto.edison.status.domain.*;
 import de.otto.edison.testsupport.util.JsonMap;
 import org.junit.Test;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
 import static de.otto.edison.configuration.EdisonApplicationProperties.edisonApplicationProperties;
 import static de.otto.edison.status.configuration.VersionInfoProperties.versionInfoProperties;
 import static de.otto.edison.status.controller.StatusRepresentation.statusRepresentationOf;
+import static de.otto.edison.status.controller.StatusRepresentation.timeIndependentStatusRepresentationOf;
 import static de.otto.edison.status.domain.ApplicationInfo.applicationInfo;
 import static de.otto.edison.status.domain.ApplicationStatus.applicationStatus;
 import static de.otto.edison.status.domain.ClusterInfo.clusterInfo;
@@ -18,11 +21,13 @@ import static de.otto.edison.status.domain.Link.link;
 import static de.otto.edison.status.domain.Status.OK;
 import static de.otto.edison.status.domain.Status.WARNING;
 import static de.otto.edison.status.domain.StatusDetail.statusDetail;
+import static de.otto.edison.status.domain.SystemInfo.systemInfo;
 import static de.otto.edison.testsupport.util.JsonMap.jsonMapFrom;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.Mockito.mock;
@@ -119,6 +124,67 @@ public class StatusRepresentationTest {
         assertThat(link.getString("rel"), is("item"));
     }
 
+    @Test
+    public void shouldResolveRelativeLinksAgainstBaseUri() {
+        // given
+        final StatusRepresentation json = statusRepresentationOf(
+                someStatusWithLink("/internal/some/url"),
+                null,
+                null,
+                "https://example.org/myservice"
+        );
+        // then
+        final JsonMap jsonMap = jsonMapFrom(json.application.statusDetails.get("someDetail"));
+        final JsonMap link = jsonMap.get("links").asListOf(JsonMap.class).get(0);
+        assertThat(link.getString("href"), is("https://example.org/myservice/internal/some/url"));
+    }
+
+    @Test
+    public void shouldResolveRelativeLinksAgainstContextPath() {
+        // given
+        final StatusRepresentation json = statusRepresentationOf(
+                someStatusWithLink("/internal/some/url"),
+                null,
+                null,
+                "/myservice"
+        );
+        // then
+        final JsonMap jsonMap = jsonMapFrom(json.application.statusDetails.get("someDetail"));
+        final JsonMap link = jsonMap.get("links").asListOf(JsonMap.class).get(0);
+        assertThat(link.getString("href"), is("/myservice/internal/some/url"));
+    }
+
+    @Test
+    public void shouldContainSystemInfo() throws IOException {
+        // given
+        final StatusRepresentation json = statusRepresentationOf(
+                applicationStatus(mock(ApplicationInfo.class), mock(ClusterInfo.class), systemInfo("localhost", 8080), mock(VersionInfo.class), mock(TeamInfo.class), emptyList())
+        );
+        // when
+        final JsonMap system = systemOf(json);
+        // then
+        assertThat(system.keySet(), containsInAnyOrder("hostname", "port", "systemTime", "systemStartTime", "systemUpTime"));
+        assertThat(system.getString("hostname"), is("localhost"));
+        assertThat(system.getInt("port"), is(8080));
+    }
+
+    @Test
+    public void shouldNotContainTimeDependentSystemInfoInTimeIndependentRepresentation() throws IOException {
+        // given
+        final StatusRepresentation json = timeIndependentStatusRepresentationOf(
+                applicationStatus(mock(ApplicationInfo.class), mock(ClusterInfo.class), systemInfo("localhost", 8080), mock(VersionInfo.class), mock(TeamInfo.class), emptyList()),
+                null,
+                null,
+                "https://example.org/myservice"
+        );
+        // when
+        final JsonMap system = systemOf(json);
+        // then
+        assertThat(system.keySet(), containsInAnyOrder("hostname", "port", "systemStartTime"));
+        assertThat(system.getString("hostname"), is("localhost"));
+        assertThat(system.getInt("port"), is(8080));
+    }
+
     @Test
     public void shouldCreateStatusRepresentationWithMultipleDetails() {
         // given
@@ -143,4 +209,22 @@ public class StatusRepresentationTest {
         assertThat(someOtherDetail.get("message"), is("detailed warning"));
         assertThat(someOtherDetail.get("count"), is("1000"));
     }
+
+    private static JsonMap systemOf(final StatusRepresentation json) throws IOException {
+        final ObjectMapper objectMapper = new ObjectMapper();
+        return jsonMapFrom(objectMapper.readValue(objectMapper.writeValueAsString(json), Map.class)).get("system");
+    }
+
+    private static ApplicationStatus someStatusWithLink(final String href) {
+        return applicationStatus(
+                mock(ApplicationInfo.class),
+                mock(ClusterInfo.class),
+                mock(SystemInfo.class),
+                mock(VersionInfo.class),
+                mock(TeamInfo.class),
+                singletonList(
+                        statusDetail("someDetail", OK, "some message", link("item", href, "some title"))
+                )
+        );
+    }
 }
@@ -0,0 +1,210 @@
+package de.otto.edison.status.controller;
+
+import de.otto.edison.status.configuration.StatusStreamProperties;
+import de.otto.edison.status.domain.*;
+import de.otto.edison.status.indicator.ApplicationStatusAggregator;
+import de.otto.edison.status.indicator.ApplicationStatusChangedEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+
+import static de.otto.edison.status.domain.ApplicationStatus.applicationStatus;
+import static de.otto.edison.status.domain.StatusDetail.statusDetail;
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StatusStreamControllerTest {
+
+    private static final StatusDetail OK_DETAIL = statusDetail("foo", Status.OK, "fine");
+    private static final StatusDetail WARNING_DETAIL = statusDetail("foo", Status.WARNING, "not so fine");
+    private static final StatusDetail OTHER_DETAIL = statusDetail("bar", Status.OK, "fine");
+
+    private ApplicationStatusAggregator aggregator;
+    private StatusStreamProperties properties;
+    private StatusStreamController controller;
+
+    @Before
+    public void setUp() {
+        aggregator = mock(ApplicationStatusAggregator.class);
+        when(aggregator.aggregatedStatus()).thenReturn(someStatus(OK_DETAIL));
+        properties = new StatusStreamProperties();
+        properties.setCoalesce(100);
+        controller = new StatusStreamController(aggregator, properties);
+    }
+
+    @After
+    public void tearDown() {
+        controller.stop();
+    }
+
+    @Test
+    public void shouldSendCurrentStatusToNewSubscriber() throws Exception {
+        // given
+        final RecordingSseEmitter emitter = new RecordingSseEmitter();
+
+        // when
+        controller.subscribe(emitter);
+
+        // then
+        emitter.awaitEvents(1);
+        assertThat(emitter.statusChanges.get(0).status, is(Status.OK));
+        assertThat(emitter.statusChanges.get(0).statusDetails.get("foo").get("message"), is("fine"));
+    }
+
+    @Test
+    public void shouldCoalesceChangesOfStatus() throws Exception {
+        // given
+        final RecordingSseEmitter emitter = new RecordingSseEmitter();
+        controller.subscribe(emitter);
+        emitter.awaitEvents(1);
+
+        // when
+        controller.onStatusChanged(someEvent(someStatus(OK_DETAIL, OTHER_DETAIL)));
+        controller.onStatusChanged(someEvent(someStatus(WARNING_DETAIL, OTHER_DETAIL)));
+
+        // then
+        emitter.awaitEvents(2);
+        Thread.sleep(200);
+        assertThat(emitter.statusChanges.size(), is(2));
+        final StatusChangeRepresentation statusChange = emitter.statusChanges.get(1);
+        assertThat(statusChange.status, is(Status.WARNING));
+        assertThat(statusChange.statusDetails.keySet(), contains("foo", "bar"));
+        assertThat(statusChange.statusDetails.get("foo").get("status"), is("WARNING"));
+    }
+
+    @Test
+    public void shouldSendRemovedStatusDetails() throws Exception {
+        // given
+        final RecordingSseEmitter emitter = new RecordingSseEmitter();
+        controller.subscribe(emitter);
+        emitter.awaitEvents(1);
+
+        // when
+        controller.onStatusChanged(someEvent(someStatus(OTHER_DETAIL)));
+
+        // then
+        emitter.awaitEvents(2);
+        assertThat(emitter.statusChanges.get(1).removedStatusDetails, contains("foo"));
+    }
+
+    @Test
+    public void shouldRejectSubscribersAboveMax() {
+        // given
+        properties.setMaxSubscribers(1);
+        controller.subscribe(new RecordingSseEmitter());
+
+        // when
+        final boolean subscribed = controller.subscribe(new RecordingSseEmitter());
+
+        // then
+        assertThat(subscribed, is(false));
+        assertThat(controller.getSubscriberCount(), is(1));
+    }
+
+    @Test
+    public void shouldUnsubscribeIfSendingFailed() throws Exception {
+        // given
+        final RecordingSseEmitter emitter = new RecordingSseEmitter();
+        emitter.failing = true;
+
+        // when
+        controller.subscribe(emitter);
+
+        // then
+        for (int i = 0; i < 50 && controller.getSubscriberCount() > 0; ++i) {
+            Thread.sleep(20);
+        }
+        assertThat(controller.getSubscriberCount(), is(0));
+    }
+
+    @Test
+    public void shouldUnsubscribeOnError() {
+        // given
+        final RecordingSseEmitter emitter = new RecordingSseEmitter();
+        controller.subscribe(emitter);
+
+        // when
+        emitter.errorCallback.accept(new IOException("connection reset"));
+
+        // then
+        assertThat(controller.getSubscriberCount(), is(0));
+    }
+
+    @Test
+    public void shouldNotDelayOtherSubscribersWhileSendingIsBlocked() throws Exception {
+        // given
+        final CountDownLatch unblock = new CountDownLatch(1);
+        final RecordingSseEmitter blockingEmitter = new RecordingSseEmitter();
+        blockingEmitter.blocking = unblock;
+        final RecordingSseEmitter emitter = new RecordingSseEmitter();
+        controller.subscribe(blockingEmitter);
+        controller.subscribe(emitter);
+        emitter.awaitEvents(1);
+
+        // when
+        controller.onStatusChanged(someEvent(someStatus(WARNING_DETAIL)));
+
+        // then
+        emitter.awaitEvents(2);
+        assertThat(blockingEmitter.statusChanges.size(), is(0));
+        unblock.countDown();
+        blockingEmitter.awaitEvents(2);
+        assertThat(blockingEmitter.statusChanges.get(1).status, is(Status.WARNING));
+    }
+
+    private ApplicationStatusChangedEvent someEvent(final ApplicationStatus status) {
+        return new ApplicationStatusChangedEvent(aggregator, aggregator.aggregatedStatus(), status);
+    }
+
+    private static ApplicationStatus someStatus(final StatusDetail... statusDetails) {
+        return applicationStatus(mock(ApplicationInfo.class), mock(ClusterInfo.class), mock(SystemInfo.class), mock(VersionInfo.class), mock(TeamInfo.class), asList(statusDetails));
+    }
+
+    private static class RecordingSseEmitter extends SseEmitter {
+        private final List<StatusChangeRepresentation> statusChanges = new CopyOnWriteArrayList<>();
+        private volatile boolean failing;
+        private volatile CountDownLatch blocking;
+        private volatile Consumer<Throwable> errorCallback;
+
+        @Override
+        public void onError(final Consumer<Throwable> callback) {
+            this.errorCallback = callback;
+        }
+
+        @Override
+        public void send(final SseEventBuilder builder) throws IOException {
+            if (failing) {
+                throw new IOException("broken pipe");
+            }
+            if (blocking != null) {
+                try {
+                    blocking.await();
+                } catch (final InterruptedException e) {
+                    throw new IOException("interrupted");
+                }
+            }
+            builder.build().stream()
+                    .map(DataWithMediaType::getData)
+                    .filter(StatusChangeRepresentation.class::isInstance)
+                    .forEach(data -> statusChanges.add((StatusChangeRepresentation) data));
+        }
+
+        private void awaitEvents(final int count) throws InterruptedException {
+            for (int i = 0; i < 100 && statusChanges.size() < count; ++i) {
+                Thread.sleep(20);
+            }
+            assertThat(statusChanges.size() >= count, is(true));
+        }
+    }
+}
@@ -1,13 +1,32 @@
 package de.otto.edison.status.indicator;
 
+import de.otto.edison.status.configuration.StatusAggregatorProperties;
 import de.otto.edison.status.domain.*;
+import io.micrometer.core.instrument.Metrics;
+import org.junit.After;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
 
 import static de.otto.edison.status.domain.StatusDetail.statusDetail;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.Mockito.*;
 
@@ -18,6 +37,16 @@ public class CachedApplicationStatusAggregatorTest {
     public static final StatusDetail WARNING_DETAIL = statusDetail("iHaveAWarning", Status.WARNING, "a message");
     public static final StatusDetail ERROR_DETAIL = statusDetail("thatsAnError", Status.ERROR, "a message");
 
+    private final ExecutorService executorService = newFixedThreadPool(4);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final Instant now = Instant.parse("2018-01-10T10:00:00Z");
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        executorService.shutdownNow();
+    }
+
     @Test
     public void shouldCacheStatus() throws Exception {
         // given
@@ -71,6 +100,319 @@ public class CachedApplicationStatusAggregatorTest {
         assertThat(statusAggregator.aggregatedStatus().statusDetails.get(2), is(OK_DETAIL_TWO));
     }
 
+    @Test
+    public void shouldAggregateStatusDetailsInParallel() throws Exception {
+        // given
+        final CountDownLatch bothCalled = new CountDownLatch(2);
+        final StatusDetailIndicator first = () -> {
+            bothCalled.countDown();
+            awaitQuietly(bothCalled);
+            return OK_DETAIL_ONE;
+        };
+        final StatusDetailIndicator second = () -> {
+            bothCalled.countDown();
+            awaitQuietly(bothCalled);
+            return WARNING_DETAIL;
+        };
+        final ApplicationStatusAggregator statusAggregator = new CachedApplicationStatusAggregator(
+                mock(ApplicationStatus.class), asList(first, second), executorService, timeout(5000)
+        );
+        // when
+        statusAggregator.update();
+        // then
+        assertThat(statusAggregator.aggregatedStatus().status, is(Status.WARNING));
+        assertThat(statusAggregator.aggregatedStatus().statusDetails, is(asList(OK_DETAIL_ONE, WARNING_DETAIL)));
+    }
+
+    @Test
+    public void shouldReportLastKnownStatusDetailsOfTimedOutIndicator() throws Exception {
+        // given
+        final BlockingIndicator slowIndicator = new BlockingIndicator(OK_DETAIL_ONE);
+        final ApplicationStatusAggregator statusAggregator = new CachedApplicationStatusAggregator(
+                mock(ApplicationStatus.class), asList(slowIndicator, someStatusDetailIndicator(OK_DETAIL_TWO)),
+                executorService, timeout(50), Clock.fixed(Instant.parse("2018-01-10T10:00:00Z"), ZoneOffset.UTC)
+        );
+        statusAggregator.update();
+        slowIndicator.block();
+        // when
+        statusAggregator.update();
+        // then
+        final List<StatusDetail> statusDetails = statusAggregator.aggregatedStatus().statusDetails;
+        assertThat(statusDetails.get(0).getStatus(), is(Status.OK));
+        assertThat(statusDetails.get(0).getMessage(), is("a message"));
+        assertThat(statusDetails.get(0).getDetails().get("timedOut"), is("No response within 50ms"));
+        assertThat(statusDetails.get(0).getDetails().get("age"), is("0s"));
+        assertThat(statusDetails.get(1), is(OK_DETAIL_TWO));
+    }
+
+    @Test
+    public void shouldReportWarningIfIndicatorTimedOutWithoutLastKnownStatusDetails() throws Exception {
+        // given
+        final BlockingIndicator slowIndicator = new BlockingIndicator(OK_DETAIL_ONE);
+        slowIndicator.block();
+        final ApplicationStatusAggregator statusAggregator = new CachedApplicationStatusAggregator(
+                mock(ApplicationStatus.class), singletonList(slowIndicator), executorService, timeout(50)
+        );
+        // when
+        statusAggregator.update();
+        // then
+        assertThat(statusAggregator.aggregatedStatus().status, is(Status.WARNING));
+        assertThat(statusAggregator.aggregatedStatus().statusDetails.get(0).getName(), is("BlockingIndicator"));
+    }
+
+    @Test
+    public void shouldNotCallBusyIndicatorAgain() throws Exception {
+        // given
+        final BlockingIndicator slowIndicator = new BlockingIndicator(OK_DETAIL_ONE);
+        slowIndicator.block();
+        final ApplicationStatusAggregator statusAggregator = new CachedApplicationStatusAggregator(
+                mock(ApplicationStatus.class), singletonList(slowIndicator), executorService, timeout(50)
+        );
+        // when
+        statusAggregator.update();
+        statusAggregator.update();
+        // then
+        assertThat(slowIndicator.calls, is(1));
+    }
+
+    @Test
+    public void shouldReportErrorIfIndicatorFailedInParallelMode() throws Exception {
+        // given
+        final StatusDetailIndicator failingIndicator = mock(StatusDetailIndicator.class);
+        when(failingIndicator.statusDetails()).thenThrow(new IllegalStateException("boom"));
+        final ApplicationStatusAggregator statusAggregator = new CachedApplicationStatusAggregator(
+                mock(ApplicationStatus.class), singletonList(failingIndicator), executorService, timeout(5000)
+        );
+        // when
+        statusAggregator.update();
+        // then
+        assertThat(statusAggregator.aggregatedStatus().status, is(Status.ERROR));
+        assertThat(statusAggregator.aggregatedStatus().statusDetails.get(0).getMessage(), is("Failed to get status: boom"));
+    }
+
+    @Test
+    public void shouldRecordLatencyOfIndicators() throws Exception {
+        // given
+        final ApplicationStatusAggregator statusAggregator = new CachedApplicationStatusAggregator(
+                mock(ApplicationStatus.class), singletonList(new BlockingIndicator(OK_DETAIL_ONE))
+        );
+        // when
+        statusAggregator.update();
+        // then
+        assertThat(Metrics.globalRegistry.find("timer.status.indicator").tag("indicator", "one").timer(), is(notNullValue()));
+    }
+
+    @Test
+    public void shouldOnlyRefreshDueIndicators() throws Exception {
+        // given
+        final Clock clock = mock(Clock.class);
+        final StatusDetailIndicator expensiveIndicator = spy(new StatusDetailIndicator() {
+            @Override
+            public StatusDetail statusDetail() {
+                return OK_DETAIL_ONE;
+            }
+
+            @Override
+            public Optional<Duration> refreshInterval() {
+                return Optional.of(Duration.ofSeconds(60));
+            }
+        });
+        final StatusDetailIndicator cheapIndicator = someStatusDetailIndicator(OK_DETAIL_TWO);
+        final ApplicationStatusAggregator statusAggregator = new CachedApplicationStatusAggregator(
+                mock(ApplicationStatus.class), asList(expensiveIndicator, cheapIndicator), null, new StatusAggregatorProperties(), clock
+        );
+        // when
+        when(clock.instant()).thenReturn(now);
+        statusAggregator.update();
+        when(clock.instant()).thenReturn(now.plusSeconds(10));
+        statusAggregator.update();
+        when(clock.instant()).thenReturn(now.plusSeconds(60));
+        statusAggregator.update();
+        // then
+        verify(expensiveIndicator, times(2)).statusDetails();
+        verify(cheapIndicator, times(3)).statusDetails();
+        assertThat(statusAggregator.aggregatedStatus().statusDetails, is(asList(OK_DETAIL_ONE, OK_DETAIL_TWO)));
+    }
+
+    @Test
+    public void shouldUseConfiguredRefreshInterval() throws Exception {
+        // given
+        final BlockingIndicator indicator = new BlockingIndicator(OK_DETAIL_ONE);
+        final StatusAggregatorProperties properties = new StatusAggregatorProperties();
+        properties.getRefreshInterval().put("ONE", 60000L);
+        final ApplicationStatusAggregator statusAggregator = new CachedApplicationStatusAggregator(
+                mock(ApplicationStatus.class), singletonList(indicator), null, properties, Clock.fixed(now, ZoneOffset.UTC)
+        );
+        // when
+        statusAggregator.update();
+        final ApplicationStatus firstStatus = statusAggregator.aggregatedStatus();
+        statusAggregator.update();
+        // then
+        assertThat(indicator.calls, is(1));
+        assertThat(statusAggregator.aggregatedStatus(), is(sameInstance(firstStatus)));
+    }
+
+    @Test
+    public void shouldUseRefreshIntervalConfiguredForAnyStatusDetailOfIndicator() throws Exception {
+        // given
+        final StatusDetailIndicator indicator = someCompositeStatusDetailIndicator(OK_DETAIL_ONE, OK_DETAIL_TWO);
+        final StatusAggregatorProperties properties = new StatusAggregatorProperties();
+        properties.getRefreshInterval().put("two", 60000L);
+        final ApplicationStatusAggregator statusAggregator = new CachedApplicationStatusAggregator(
+                mock(ApplicationStatus.class), singletonList(indicator), null, properties, Clock.fixed(now, ZoneOffset.UTC)
+        );
+        // when
+        statusAggregator.update();
+        statusAggregator.update();
+        // then
+        verify(indicator, times(1)).statusDetails();
+        assertThat(Metrics.globalRegistry.find("timer.status.indicator").tag("indicator", "one,two").timer(), is(notNullValue()));
+    }
+
+    @Test
+    public void shouldDegradeStaleStatusDetailsOfTimedOutIndicator() throws Exception {
+        // given
+        final Clock clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(now);
+        final BlockingIndicator slowIndicator = new BlockingIndicator(OK_DETAIL_ONE);
+        final StatusAggregatorProperties properties = timeout(50);
+        properties.getMaxStaleness().put("one", 1000L);
+        final ApplicationStatusAggregator statusAggregator = new CachedApplicationStatusAggregator(
+                mock(ApplicationStatus.class), singletonList(slowIndicator), executorService, properties, clock
+        );
+        statusAggregator.update();
+        slowIndicator.block();
+        when(clock.instant()).thenReturn(now.plusSeconds(5));
+        // when
+        statusAggregator.update();
+        // then
+        final StatusDetail statusDetail = statusAggregator.aggregatedStatus().statusDetails.get(0);
+        assertThat(statusDetail.getStatus(), is(Status.WARNING));
+        assertThat(statusDetail.getDetails().get("age"), is("5s"));
+    }
+
+    @Test
+    public void shouldPublishEventIfStatusChanged() throws Exception {
+        // given
+        final MutableStatusDetailIndicator indicator = new MutableStatusDetailIndicator(OK_DETAIL_ONE);
+        final CachedApplicationStatusAggregator statusAggregator = new CachedApplicationStatusAggregator(
+                mock(ApplicationStatus.class), singletonList(indicator)
+        );
+        final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+        statusAggregator.setApplicationEventPublisher(eventPublisher);
+        statusAggregator.update();
+        final ApplicationStatus previousStatus = statusAggregator.aggregatedStatus();
+        reset(eventPublisher);
+        // when
+        statusAggregator.update();
+        indicator.toWarning("a warning");
+        statusAggregator.update();
+        // then
+        final ArgumentCaptor<ApplicationStatusChangedEvent> event = ArgumentCaptor.forClass(ApplicationStatusChangedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertThat(event.getValue().getPreviousStatus(), is(sameInstance(previousStatus)));
+        assertThat(event.getValue().getStatus().status, is(Status.WARNING));
+    }
+
+    @Test
+    public void shouldApplyChangesOfMutableIndicatorWithoutCallingOtherIndicators() throws Exception {
+        // given
+        final MutableStatusDetailIndicator mutableIndicator = new MutableStatusDetailIndicator(OK_DETAIL_ONE);
+        final StatusDetailIndicator otherIndicator = someStatusDetailIndicator(OK_DETAIL_TWO);
+        final StatusAggregatorProperties properties = new StatusAggregatorProperties();
+        properties.setDebounce(0);
+        final ApplicationStatusAggregator statusAggregator = new CachedApplicationStatusAggregator(
+                mock(ApplicationStatus.class), asList(mutableIndicator, otherIndicator), null, properties
+        );
+        statusAggregator.update();
+        // when
+        mutableIndicator.toError("circuit open");
+        // then
+        assertThat(statusAggregator.aggregatedStatus().status, is(Status.ERROR));
+        assertThat(statusAggregator.aggregatedStatus().statusDetails.get(0).getMessage(), is("circuit open"));
+        assertThat(statusAggregator.aggregatedStatus().statusDetails.get(1), is(OK_DETAIL_TWO));
+        verify(otherIndicator, times(1)).statusDetails();
+    }
+
+    @Test
+    public void shouldDebounceChangesOfMutableIndicator() throws Exception {
+        // given
+        final MutableStatusDetailIndicator mutableIndicator = new MutableStatusDetailIndicator(OK_DETAIL_ONE);
+        final StatusAggregatorProperties properties = new StatusAggregatorProperties();
+        properties.setDebounce(100);
+        final CachedApplicationStatusAggregator statusAggregator = new CachedApplicationStatusAggregator(
+                mock(ApplicationStatus.class), singletonList(mutableIndicator), null, properties
+        );
+        final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+        statusAggregator.setApplicationEventPublisher(eventPublisher);
+        statusAggregator.update();
+        reset(eventPublisher);
+        // when
+        mutableIndicator.toWarning("half open");
+        mutableIndicator.toError("circuit open");
+        // then
+        assertThat(statusAggregator.aggregatedStatus().status, is(Status.OK));
+        verify(eventPublisher, Mockito.timeout(2000).times(1)).publishEvent(any(ApplicationStatusChangedEvent.class));
+        Thread.sleep(200);
+        verify(eventPublisher, times(1)).publishEvent(any(ApplicationStatusChangedEvent.class));
+        assertThat(statusAggregator.aggregatedStatus().status, is(Status.ERROR));
+        statusAggregator.shutdown();
+    }
+
+    @Test
+    public void shouldIgnoreChangesOfMutableIndicatorBeforeFirstUpdate() throws Exception {
+        // given
+        final MutableStatusDetailIndicator mutableIndicator = new MutableStatusDetailIndicator(OK_DETAIL_ONE);
+        final StatusDetailIndicator otherIndicator = someStatusDetailIndicator(OK_DETAIL_TWO);
+        final StatusAggregatorProperties properties = new StatusAggregatorProperties();
+        properties.setDebounce(0);
+        final ApplicationStatusAggregator statusAggregator = new CachedApplicationStatusAggregator(
+                mock(ApplicationStatus.class), asList(mutableIndicator, otherIndicator), null, properties
+        );
+        // when
+        mutableIndicator.toError("circuit open");
+        statusAggregator.update();
+        // then
+        assertThat(statusAggregator.aggregatedStatus().status, is(Status.ERROR));
+    }
+
+    private static StatusAggregatorProperties timeout(final long timeoutMillis) {
+        final StatusAggregatorProperties properties = new StatusAggregatorProperties();
+        properties.setTimeout(timeoutMillis);
+        return properties;
+    }
+
+    private static void awaitQuietly(final CountDownLatch latch) {
+        try {
+            latch.await(5, SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private class BlockingIndicator implements StatusDetailIndicator {
+        private final StatusDetail statusDetail;
+        private volatile boolean blocking;
+        private volatile int calls;
+
+        BlockingIndicator(final StatusDetail statusDetail) {
+            this.statusDetail = statusDetail;
+        }
+
+        void block() {
+            blocking = true;
+        }
+
+        @Override
+        public StatusDetail statusDetail() {
+            ++calls;
+            if (blocking) {
+                awaitQuietly(release);
+            }
+            return statusDetail;
+        }
+    }
+
     private StatusDetailIndicator someCompositeStatusDetailIndicator(final StatusDetail... statusDetails) {
         final StatusDetailIndicator mockIndicator = mock(StatusDetailIndicator.class);
         when(mockIndicator.statusDetails()).thenReturn(asList(statusDetails));
@@ -3,11 +3,15 @@ package de.otto.edison.status.indicator;
 import de.otto.edison.status.domain.StatusDetail;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static de.otto.edison.status.domain.Status.*;
 import static de.otto.edison.status.domain.StatusDetail.statusDetail;
 import static java.util.Collections.singletonMap;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasEntry;
 import static org.hamcrest.Matchers.is;
 
@@ -112,4 +116,16 @@ public class MutableStatusDetailIndicatorTest {
         // then an exception is thrown
     }
 
+    @Test
+    public void shouldNotifyChangeListeners() {
+        // given
+        final MutableStatusDetailIndicator indicator = new MutableStatusDetailIndicator(statusDetail("foo", OK, "message"));
+        final List<StatusDetail> changes = new ArrayList<>();
+        indicator.addChangeListener(changes::add);
+        // when
+        indicator.toError("broken");
+        indicator.toError("broken");
+        // then
+        assertThat(changes, contains(statusDetail("foo", ERROR, "broken")));
+    }
 }
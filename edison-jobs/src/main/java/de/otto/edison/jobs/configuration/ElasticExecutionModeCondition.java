@@ -0,0 +1,30 @@
+package de.otto.edison.jobs.configuration;
+
+import de.otto.edison.jobs.configuration.JobsProperties.ExecutionMode;
+import org.springframework.boot.autoconfigure.condition.ConditionOutcome;
+import org.springframework.boot.autoconfigure.condition.SpringBootCondition;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+/**
+ * Matches, if {@link JobsProperties#getExecutionMode() edison.jobs.execution-mode} is {@link ExecutionMode#ELASTIC}.
+ * <p>
+ *     The property is bound to the ExecutionMode exactly like the JobsProperties, so the value is case insensitive.
+ * </p>
+ */
+class ElasticExecutionModeCondition extends SpringBootCondition {
+
+    private static final String EXECUTION_MODE = "edison.jobs.execution-mode";
+
+    @Override
+    public ConditionOutcome getMatchOutcome(final ConditionContext context,
+                                            final AnnotatedTypeMetadata metadata) {
+        final ExecutionMode executionMode = Binder.get(context.getEnvironment())
+                .bind(EXECUTION_MODE, ExecutionMode.class)
+                .orElse(ExecutionMode.SHARED);
+        return executionMode == ExecutionMode.ELASTIC
+                ? ConditionOutcome.match(EXECUTION_MODE + " is " + executionMode)
+                : ConditionOutcome.noMatch(EXECUTION_MODE + " is " + executionMode);
+    }
+}
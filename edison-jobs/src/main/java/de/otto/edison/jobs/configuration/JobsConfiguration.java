@@ -23,6 +23,7 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
@@ -30,11 +31,13 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static de.otto.edison.status.domain.StatusDetail.statusDetail;
+import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static java.util.stream.Collectors.toList;
 
@@ -45,6 +48,7 @@ import static java.util.stream.Collectors.toList;
 public class JobsConfiguration {
 
     public static final Logger LOG = LoggerFactory.getLogger(JobsConfiguration.class);
+    public static final String JOB_RUNNER_EXECUTOR_SERVICE = "jobRunnerExecutorService";
 
     private final JobsProperties jobsProperties;
     private final String edisonManagementBasePath;
@@ -68,14 +72,21 @@ public class JobsConfiguration {
     @Bean
     @ConditionalOnMissingBean(ScheduledExecutorService.class)
     public ScheduledExecutorService scheduledExecutorService() {
-        return newScheduledThreadPool(jobsProperties.getThreadCount(), new ThreadFactory() {
-            private final AtomicInteger num = new AtomicInteger();
+        return newScheduledThreadPool(jobsProperties.getThreadCount(), namedThreadFactory("edison-ScheduledExecutorService-"));
+    }
 
-            @Override
-            public Thread newThread(Runnable r) {
-                return new Thread(r, "edison-ScheduledExecutorService-" + num.getAndAdd(1));
-            }
-        });
+    /**
+     * The executor used to run jobs, if {@code edison.jobs.execution-mode} is
+     * {@link JobsProperties.ExecutionMode#ELASTIC ELASTIC}. Threads are created on demand and terminated after being
+     * idle for 60 seconds, so I/O-bound jobs that are blocked most of the time are able to run concurrently without
+     * tuning {@code edison.jobs.thread-count}.
+     *
+     * @return ExecutorService used to run jobs
+     */
+    @Bean(name = JOB_RUNNER_EXECUTOR_SERVICE, destroyMethod = "shutdown")
+    @Conditional(ElasticExecutionModeCondition.class)
+    public ExecutorService jobRunnerExecutorService() {
+        return newCachedThreadPool(namedThreadFactory("edison-JobRunner-"));
     }
 
     @Bean
@@ -149,6 +160,17 @@ public class JobsConfiguration {
         }
     }
 
+    private static ThreadFactory namedThreadFactory(final String prefix) {
+        return new ThreadFactory() {
+            private final AtomicInteger num = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                return new Thread(r, prefix + num.getAndAdd(1));
+            }
+        };
+    }
+
     private JobStatusCalculator findJobStatusCalculator(final String jobType,
                                                         final List<JobStatusCalculator> calculators) {
         final Map<String, String> statusCalculators = jobsProperties.getStatus().getCalculator();
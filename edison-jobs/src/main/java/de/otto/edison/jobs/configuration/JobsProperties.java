@@ -17,17 +17,59 @@ import java.util.Map;
 @ConfigurationProperties(prefix = "edison.jobs")
 @Validated
 public class JobsProperties {
+    /**
+     * The executor used to run the bodies of jobs.
+     */
+    public enum ExecutionMode {
+        /** Jobs are running on the shared ScheduledExecutorService, limited to {@code thread-count} jobs at a time. */
+        SHARED,
+        /**
+         * Jobs are running on a separate executor that is creating threads on demand, so the number of concurrently
+         * running jobs is not limited by {@code thread-count}. The ScheduledExecutorService is only used for timers
+         * like keep-alive pings of running jobs.
+         */
+        ELASTIC
+    }
+
     /** Enables / disabled the support for external triggers (->Edison JobTrigger). If false, the job controllers are not available. */
     private boolean externalTrigger = true;
     /** Number of threads available to run jobs. */
     @Min(1)
     private int threadCount = 10;
+    /**
+     * The executor used to run jobs: SHARED runs jobs on the ScheduledExecutorService, ELASTIC runs jobs on a separate
+     * executor, so blocking jobs are neither starving keep-alive pings nor other jobs.
+     */
+    @NotNull
+    private ExecutionMode executionMode = ExecutionMode.SHARED;
+    /**
+     * Number of milliseconds the meta information of job types (like disabled state) is cached by the JobMetaService.
+     * Modifications of the current instance are visible immediately. The disabled state is always read uncached
+     * before a job is started. 0 disables caching.
+     */
+    @Min(0)
+    private long jobMetaCacheTtl = 1000;
     /** Properties used to configure clean-up strategies. */
     @Valid
     private Cleanup cleanup = new Cleanup();
     /** Properties used to configure the reporting of job status using StatusDetailIndicators. */
     @Valid
     private Status status = new Status();
+    /** Properties used to configure the persistence of job messages written by the JobMessageLogAppender. */
+    @Valid
+    private Messages messages = new Messages();
+    /** Properties used to configure the dispatching of job state change events. */
+    @Valid
+    private Events events = new Events();
+    /** Properties used to configure the coalesced keep-alive heartbeats of running jobs. */
+    @Valid
+    private Heartbeat heartbeat = new Heartbeat();
+    /** Properties used to configure the run locks of jobs. */
+    @Valid
+    private Lock lock = new Lock();
+    /** Properties used to configure the JobScheduler that is triggering jobs having a cron expression or fixed delay. */
+    @Valid
+    private Scheduler scheduler = new Scheduler();
 
     public boolean isExternalTrigger() {
         return externalTrigger;
@@ -45,6 +87,22 @@ public class JobsProperties {
         this.threadCount = threadCount;
     }
 
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    public void setExecutionMode(ExecutionMode executionMode) {
+        this.executionMode = executionMode;
+    }
+
+    public long getJobMetaCacheTtl() {
+        return jobMetaCacheTtl;
+    }
+
+    public void setJobMetaCacheTtl(long jobMetaCacheTtl) {
+        this.jobMetaCacheTtl = jobMetaCacheTtl;
+    }
+
     public Cleanup getCleanup() {
         return cleanup;
     }
@@ -61,6 +119,46 @@ public class JobsProperties {
         this.status = status;
     }
 
+    public Messages getMessages() {
+        return messages;
+    }
+
+    public void setMessages(Messages messages) {
+        this.messages = messages;
+    }
+
+    public Events getEvents() {
+        return events;
+    }
+
+    public void setEvents(Events events) {
+        this.events = events;
+    }
+
+    public Heartbeat getHeartbeat() {
+        return heartbeat;
+    }
+
+    public void setHeartbeat(Heartbeat heartbeat) {
+        this.heartbeat = heartbeat;
+    }
+
+    public Lock getLock() {
+        return lock;
+    }
+
+    public void setLock(Lock lock) {
+        this.lock = lock;
+    }
+
+    public Scheduler getScheduler() {
+        return scheduler;
+    }
+
+    public void setScheduler(Scheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
     public static class Cleanup {
         /**
          * The number of jobs to keep by strategies like KeepLastJobs to clean up old jobs.
@@ -77,6 +175,12 @@ public class JobsProperties {
          */
         @Min(1)
         private int markDeadAfter = 30;
+        /**
+         * Number of seconds after which stopped jobs are removed using a TTL index, independent of the number of jobs
+         * to keep. 0 disables the TTL index. Supported by the MongoJobRepository.
+         */
+        @Min(0)
+        private long stoppedJobsTimeToLive = 0;
 
         public int getNumberOfJobsToKeep() {
             return numberOfJobsToKeep;
@@ -101,6 +205,14 @@ public class JobsProperties {
         public void setMarkDeadAfter(int markDeadAfter) {
             this.markDeadAfter = markDeadAfter;
         }
+
+        public long getStoppedJobsTimeToLive() {
+            return stoppedJobsTimeToLive;
+        }
+
+        public void setStoppedJobsTimeToLive(long stoppedJobsTimeToLive) {
+            this.stoppedJobsTimeToLive = stoppedJobsTimeToLive;
+        }
     }
 
     public static class Status {
@@ -133,4 +245,272 @@ public class JobsProperties {
             this.calculator = normalized;
         }
     }
+
+    public static class Messages {
+        /**
+         * The behaviour of the JobMessageLogAppender if the queue of job messages is full.
+         */
+        public enum OverflowPolicy {
+            /** New messages are dropped and counted. */
+            DROP,
+            /** The logging thread is blocked until the queue has capacity. */
+            BLOCK
+        }
+
+        /**
+         * If true, job messages are queued and persisted in batches by a background thread, instead of
+         * persisting every message on the logging thread of the job.
+         */
+        private boolean async = false;
+        /**
+         * The maximum number of job messages that are queued for asynchronous persistence.
+         */
+        @Min(1)
+        private int queueSize = 10000;
+        /**
+         * Interval in milliseconds between two flushes of queued job messages.
+         */
+        @Min(1)
+        private long flushInterval = 500;
+        /**
+         * Policy used if the queue of job messages is full: DROP or BLOCK.
+         */
+        @NotNull
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+        /**
+         * The maximum number of messages stored with a JobInfo. If a job is writing more messages, only the latest
+         * messages are kept. 0 means unlimited. Supported by the MongoJobRepository.
+         */
+        @Min(0)
+        private int maxMessagesPerJob = 0;
+        /**
+         * If true, all job messages are additionally stored in a separate message log, so messages exceeding
+         * maxMessagesPerJob are still available. Supported by the MongoJobRepository.
+         */
+        private boolean separateLog = false;
+
+        public boolean isAsync() {
+            return async;
+        }
+
+        public void setAsync(boolean async) {
+            this.async = async;
+        }
+
+        public int getQueueSize() {
+            return queueSize;
+        }
+
+        public void setQueueSize(int queueSize) {
+            this.queueSize = queueSize;
+        }
+
+        public long getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(long flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+
+        public OverflowPolicy getOverflowPolicy() {
+            return overflowPolicy;
+        }
+
+        public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+        }
+
+        public int getMaxMessagesPerJob() {
+            return maxMessagesPerJob;
+        }
+
+        public void setMaxMessagesPerJob(int maxMessagesPerJob) {
+            this.maxMessagesPerJob = maxMessagesPerJob;
+        }
+
+        public boolean isSeparateLog() {
+            return separateLog;
+        }
+
+        public void setSeparateLog(boolean separateLog) {
+            this.separateLog = separateLog;
+        }
+    }
+
+    public static class Events {
+        /**
+         * If true, the StateChangeEvents of jobs are dispatched to the JobStateChangeListeners by background threads,
+         * instead of the thread running the job. Events of the same job are dispatched in order.
+         */
+        private boolean async = false;
+        /**
+         * Number of threads used to dispatch events. Events are assigned to a thread by job id.
+         */
+        @Min(1)
+        private int threads = 4;
+        /**
+         * Maximum number of queued events per thread. If the queue is full, the job publishing an event is blocked
+         * until the queue has capacity.
+         */
+        @Min(1)
+        private int queueSize = 1000;
+
+        public boolean isAsync() {
+            return async;
+        }
+
+        public void setAsync(boolean async) {
+            this.async = async;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueSize() {
+            return queueSize;
+        }
+
+        public void setQueueSize(int queueSize) {
+            this.queueSize = queueSize;
+        }
+    }
+
+    public static class Heartbeat {
+        /**
+         * If true, the keep-alives of all jobs running on this instance are written using a single bulk update per
+         * period, instead of publishing a KEEP_ALIVE event per job every 20 seconds.
+         */
+        private boolean enabled = false;
+        /**
+         * Number of seconds between two heartbeats. Must be considerably shorter than
+         * {@code edison.jobs.cleanup.mark-dead-after}.
+         */
+        @Min(1)
+        private long period = 20;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getPeriod() {
+            return period;
+        }
+
+        public void setPeriod(long period) {
+            this.period = period;
+        }
+    }
+
+    public static class Lock {
+        /**
+         * Number of seconds a run lock is leased to the instance running the job. The lease is renewed by the
+         * keep-alive pings of the running job; if the instance dies, the lock can be acquired by other instances after
+         * the lease has expired. Should be greater than the ping period of 20 seconds; if heartbeats are enabled, it
+         * must be at least twice the {@code edison.jobs.heartbeat.period}. 0 (the default) disables leases.
+         */
+        @Min(0)
+        private long leaseTime = 0;
+
+        public long getLeaseTime() {
+            return leaseTime;
+        }
+
+        public void setLeaseTime(long leaseTime) {
+            this.leaseTime = leaseTime;
+        }
+    }
+
+    public static class Scheduler {
+        /**
+         * The behaviour of the JobScheduler if a job is triggered later than scheduled, for example because all
+         * threads of the ScheduledExecutorService were busy.
+         */
+        public enum MisfirePolicy {
+            /** The job is triggered once, no matter how many executions were missed. */
+            FIRE_ONCE,
+            /** The missed execution is skipped and the job is triggered at the next regular fire time. */
+            SKIP
+        }
+
+        /**
+         * If true, all jobs having a cron expression or fixed delay are triggered by the JobScheduler. Disabled by
+         * default, because jobs are triggered by external job triggers or @Scheduled methods of the application.
+         */
+        private boolean enabled = false;
+        /**
+         * Maximum number of milliseconds that are randomly added to the fire times of a job type, so the instances of
+         * a service are not triggering the same job at the same time. The jitter is chosen once per job type and
+         * instance. 0 disables the jitter.
+         */
+        @Min(0)
+        private long maxJitter = 5000;
+        /**
+         * Number of milliseconds a job may be triggered later than scheduled, before the trigger is regarded as a
+         * misfire.
+         */
+        @Min(0)
+        private long misfireThreshold = 60000;
+        /**
+         * Policy used if a trigger misfired: FIRE_ONCE or SKIP.
+         */
+        @NotNull
+        private MisfirePolicy misfirePolicy = MisfirePolicy.FIRE_ONCE;
+        /**
+         * Number of milliseconds an instance delays triggering a job, if the job was last run by another instance.
+         * This way, every job type is preferably triggered by the instance that was last running it, and the other
+         * instances only take over if the job was not started in the meantime. 0 disables the delay.
+         */
+        @Min(0)
+        private long preferredOwnerDelay = 0;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaxJitter() {
+            return maxJitter;
+        }
+
+        public void setMaxJitter(long maxJitter) {
+            this.maxJitter = maxJitter;
+        }
+
+        public long getMisfireThreshold() {
+            return misfireThreshold;
+        }
+
+        public void setMisfireThreshold(long misfireThreshold) {
+            this.misfireThreshold = misfireThreshold;
+        }
+
+        public MisfirePolicy getMisfirePolicy() {
+            return misfirePolicy;
+        }
+
+        public void setMisfirePolicy(MisfirePolicy misfirePolicy) {
+            this.misfirePolicy = misfirePolicy;
+        }
+
+        public long getPreferredOwnerDelay() {
+            return preferredOwnerDelay;
+        }
+
+        public void setPreferredOwnerDelay(long preferredOwnerDelay) {
+            this.preferredOwnerDelay = preferredOwnerDelay;
+        }
+    }
 }
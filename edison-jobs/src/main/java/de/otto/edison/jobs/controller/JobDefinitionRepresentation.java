@@ -5,10 +5,12 @@ import de.otto.edison.jobs.definition.JobDefinition;
 import de.otto.edison.status.domain.Link;
 
 import java.time.Duration;
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 
 import static de.otto.edison.status.domain.Link.link;
+import static java.time.format.DateTimeFormatter.ISO_OFFSET_DATE_TIME;
 import static java.util.Arrays.asList;
 
 /**
@@ -25,9 +27,13 @@ public class JobDefinitionRepresentation {
     public final String cron;
     public final Long maxAge;
     public final Long fixedDelay;
+    public final String nextFireTime;
     public final List<Link> links;
 
-    private JobDefinitionRepresentation(final JobDefinition jobDefinition, String baseUri, String edisonManagementBasePath) {
+    private JobDefinitionRepresentation(final JobDefinition jobDefinition,
+                                        final Optional<OffsetDateTime> nextFireTime,
+                                        final String baseUri,
+                                        final String edisonManagementBasePath) {
         this.type = jobDefinition.jobType();
         this.name = jobDefinition.jobName();
         this.retries = jobDefinition.retries();
@@ -35,13 +41,31 @@ public class JobDefinitionRepresentation {
         this.cron = jobDefinition.cron().orElse(null);
         this.maxAge = valueOf(jobDefinition.maxAge());
         this.fixedDelay = valueOf(jobDefinition.fixedDelay());
+        this.nextFireTime = nextFireTime.map(ISO_OFFSET_DATE_TIME::format).orElse(null);
         this.links = linksOf(jobDefinition, baseUri, edisonManagementBasePath);
     }
 
     public static JobDefinitionRepresentation representationOf(final JobDefinition jobDefinition,
                                                                final String baseUri,
                                                                final String edisonManagementBasePath) {
-        return new JobDefinitionRepresentation(jobDefinition, baseUri, edisonManagementBasePath);
+        return new JobDefinitionRepresentation(jobDefinition, Optional.empty(), baseUri, edisonManagementBasePath);
+    }
+
+    /**
+     * Creates a representation of a JobDefinition, including the time when the job is triggered next by the
+     * {@link de.otto.edison.jobs.service.JobScheduler}.
+     *
+     * @param jobDefinition the JobDefinition
+     * @param nextFireTime optional time when the job is triggered next
+     * @param baseUri the base uri
+     * @param edisonManagementBasePath the base path of the edison management endpoints
+     * @return JobDefinitionRepresentation
+     */
+    public static JobDefinitionRepresentation representationOf(final JobDefinition jobDefinition,
+                                                               final Optional<OffsetDateTime> nextFireTime,
+                                                               final String baseUri,
+                                                               final String edisonManagementBasePath) {
+        return new JobDefinitionRepresentation(jobDefinition, nextFireTime, baseUri, edisonManagementBasePath);
     }
 
     @Override
@@ -54,6 +78,7 @@ public class JobDefinitionRepresentation {
         if (retries != that.retries) return false;
         if (cron != null ? !cron.equals(that.cron) : that.cron != null) return false;
         if (fixedDelay != null ? !fixedDelay.equals(that.fixedDelay) : that.fixedDelay != null) return false;
+        if (nextFireTime != null ? !nextFireTime.equals(that.nextFireTime) : that.nextFireTime != null) return false;
         if (links != null ? !links.equals(that.links) : that.links != null) return false;
         if (maxAge != null ? !maxAge.equals(that.maxAge) : that.maxAge != null) return false;
         if (name != null ? !name.equals(that.name) : that.name != null) return false;
@@ -72,6 +97,7 @@ public class JobDefinitionRepresentation {
         result = 31 * result + (cron != null ? cron.hashCode() : 0);
         result = 31 * result + (maxAge != null ? maxAge.hashCode() : 0);
         result = 31 * result + (fixedDelay != null ? fixedDelay.hashCode() : 0);
+        result = 31 * result + (nextFireTime != null ? nextFireTime.hashCode() : 0);
         result = 31 * result + (links != null ? links.hashCode() : 0);
         return result;
     }
@@ -86,6 +112,7 @@ public class JobDefinitionRepresentation {
                 ", retryDelay=" + retryDelay +
                 ", maxAge=" + maxAge +
                 ", fixedDelay=" + fixedDelay +
+                ", nextFireTime='" + nextFireTime + '\'' +
                 ", links=" + links +
                 '}';
     }
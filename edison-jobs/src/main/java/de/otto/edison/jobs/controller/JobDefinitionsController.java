@@ -5,6 +5,7 @@ import de.otto.edison.jobs.definition.JobDefinition;
 import de.otto.edison.jobs.domain.JobMeta;
 import de.otto.edison.jobs.service.JobDefinitionService;
 import de.otto.edison.jobs.service.JobMetaService;
+import de.otto.edison.jobs.service.JobScheduler;
 import de.otto.edison.navigation.NavBar;
 import de.otto.edison.status.domain.Link;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,15 +21,18 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.time.Duration;
+import java.time.OffsetDateTime;
 import java.util.*;
 
 import static de.otto.edison.jobs.controller.JobDefinitionRepresentation.representationOf;
 import static de.otto.edison.navigation.NavBarItem.navBarItem;
 import static de.otto.edison.status.domain.Link.link;
 import static de.otto.edison.util.UrlHelper.baseUriOf;
+import static java.time.format.DateTimeFormatter.ISO_OFFSET_DATE_TIME;
 import static java.util.Collections.singletonList;
 import static java.util.Collections.singletonMap;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
 import static javax.servlet.http.HttpServletResponse.SC_NOT_FOUND;
 import static org.springframework.web.bind.annotation.RequestMethod.GET;
 
@@ -41,15 +45,35 @@ public class JobDefinitionsController {
 
     private final JobDefinitionService jobDefinitionService;
     private final JobMetaService jobMetaService;
+    private final Optional<JobScheduler> jobScheduler;
     private final EdisonApplicationProperties applicationProperties;
 
+    public JobDefinitionsController(final JobDefinitionService definitionService,
+                                    final JobMetaService jobMetaService,
+                                    final NavBar rightNavBar,
+                                    final EdisonApplicationProperties applicationProperties) {
+        this(definitionService, jobMetaService, Optional.empty(), rightNavBar, applicationProperties);
+    }
+
+    /**
+     * Creates a JobDefinitionsController that is also rendering the next fire times of jobs triggered by the
+     * {@link JobScheduler}, if the scheduler is enabled.
+     *
+     * @param definitionService the JobDefinitionService
+     * @param jobMetaService the JobMetaService
+     * @param jobScheduler optional JobScheduler
+     * @param rightNavBar the NavBar used to register the job definitions page
+     * @param applicationProperties the EdisonApplicationProperties
+     */
     @Autowired
     public JobDefinitionsController(final JobDefinitionService definitionService,
                                     final JobMetaService jobMetaService,
+                                    final Optional<JobScheduler> jobScheduler,
                                     final NavBar rightNavBar,
                                     final EdisonApplicationProperties applicationProperties) {
         this.jobDefinitionService = definitionService;
         this.jobMetaService = jobMetaService;
+        this.jobScheduler = jobScheduler;
         this.applicationProperties = applicationProperties;
         jobDefinitionsUri = String.format("%s/jobdefinitions", applicationProperties.getManagement().getBasePath());
         rightNavBar.register(navBarItem(10, "Job Definitions", jobDefinitionsUri));
@@ -73,12 +97,17 @@ public class JobDefinitionsController {
 
     @RequestMapping(value = "${edison.application.management.base-path:/internal}/jobdefinitions", method = GET, produces = "*/*")
     public ModelAndView getJobDefinitionsAsHtml(final HttpServletRequest request) {
+        final List<JobDefinition> jobDefinitions = jobDefinitionService.getJobDefinitions();
+        final Map<String, JobMeta> jobMetas = jobMetaService.getJobMetas(jobDefinitions
+                .stream()
+                .map(JobDefinition::jobType)
+                .collect(toSet()));
         return new ModelAndView("jobdefinitions", new HashMap<String, Object>() {{
             put("baseUri", baseUriOf(request));
-            put("jobdefinitions", jobDefinitionService.getJobDefinitions()
+            put("jobdefinitions", jobDefinitions
                     .stream()
                     .map((def) -> {
-                        final JobMeta jobMeta = jobMetaService.getJobMeta(def.jobType());
+                        final JobMeta jobMeta = jobMetas.get(def.jobType());
                         return new HashMap<String, Object>() {{
                             put("isDisabled", jobMeta != null && jobMeta.isDisabled());
                             put("comment", jobMeta != null ? jobMeta.getDisabledComment() : "");
@@ -87,6 +116,7 @@ public class JobDefinitionsController {
                             put("description", def.description());
                             put("maxAge", def.maxAge().isPresent() ? def.maxAge().get().toMinutes() + " Minutes" : "unlimited");
                             put("frequency", frequencyOf(def));
+                            put("nextFireTime", nextFireTimeOf(def.jobType()).map(ISO_OFFSET_DATE_TIME::format).orElse(null));
                             put("retry", retryOf(def));
                         }};
                     })
@@ -102,7 +132,7 @@ public class JobDefinitionsController {
 
         Optional<JobDefinition> jobDefinition = jobDefinitionService.getJobDefinition(jobType);
         if (jobDefinition.isPresent()) {
-            return representationOf(jobDefinition.get(), baseUriOf(request), applicationProperties.getManagement().getBasePath());
+            return representationOf(jobDefinition.get(), nextFireTimeOf(jobType), baseUriOf(request), applicationProperties.getManagement().getBasePath());
         } else {
             response.sendError(SC_NOT_FOUND, "Job not found");
             return null;
@@ -123,6 +153,7 @@ public class JobDefinitionsController {
                     put("description", def.description());
                     put("maxAge", def.maxAge().isPresent() ? def.maxAge().get().toMinutes() + " Minutes" : "unlimited");
                     put("frequency", frequencyOf(def));
+                    put("nextFireTime", nextFireTimeOf(def.jobType()).map(ISO_OFFSET_DATE_TIME::format).orElse(null));
                     put("retry", retryOf(def));
                 }});
         if (optionalResult.isPresent()) {
@@ -136,6 +167,10 @@ public class JobDefinitionsController {
         }
     }
 
+    private Optional<OffsetDateTime> nextFireTimeOf(final String jobType) {
+        return jobScheduler.flatMap(scheduler -> scheduler.nextFireTime(jobType));
+    }
+
     private String frequencyOf(final JobDefinition def) {
         if (def.cron().isPresent()) {
             return def.cron().get();
@@ -22,12 +22,15 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static de.otto.edison.jobs.controller.JobRepresentation.representationOf;
 import static de.otto.edison.navigation.NavBarItem.navBarItem;
 import static de.otto.edison.util.UrlHelper.baseUriOf;
+import static java.util.Collections.emptyMap;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
 import static javax.servlet.http.HttpServletResponse.SC_CONFLICT;
 import static javax.servlet.http.HttpServletResponse.SC_NOT_FOUND;
 import static javax.servlet.http.HttpServletResponse.SC_NO_CONTENT;
@@ -62,8 +65,10 @@ public class JobsController {
                                       @RequestParam(value = "count", defaultValue = "100") int count,
                                       @RequestParam(value = "distinct", defaultValue = "true", required = false) boolean distinct,
                                       HttpServletRequest request) {
-        final List<JobRepresentation> jobRepresentations = getJobInfos(type, count, distinct).stream()
-                .map((j) -> representationOf(j, getJobMeta(j.getJobType()), true, baseUriOf(request), applicationProperties.getManagement().getBasePath()))
+        final List<JobInfo> jobInfos = getJobInfos(type, count, distinct);
+        final Map<String, JobMeta> jobMetas = getJobMetas(jobInfos);
+        final List<JobRepresentation> jobRepresentations = jobInfos.stream()
+                .map((j) -> representationOf(j, jobMetas.get(j.getJobType()), true, baseUriOf(request), applicationProperties.getManagement().getBasePath()))
                 .collect(toList());
 
         final ModelAndView modelAndView = new ModelAndView("jobs");
@@ -81,9 +86,11 @@ public class JobsController {
                                                  @RequestParam(name = "count", defaultValue = "10") int count,
                                                  @RequestParam(name = "distinct", defaultValue = "true", required = false) boolean distinct,
                                                  HttpServletRequest request) {
-        return getJobInfos(type, count, distinct)
+        final List<JobInfo> jobInfos = getJobInfos(type, count, distinct);
+        final Map<String, JobMeta> jobMetas = getJobMetas(jobInfos);
+        return jobInfos
                 .stream()
-                .map((j) -> representationOf(j, getJobMeta(j.getJobType()), false, baseUriOf(request), applicationProperties.getManagement().getBasePath()))
+                .map((j) -> representationOf(j, jobMetas.get(j.getJobType()), false, baseUriOf(request), applicationProperties.getManagement().getBasePath()))
                 .collect(toList());
     }
 
@@ -193,6 +200,17 @@ public class JobsController {
         }
     }
 
+    private Map<String, JobMeta> getJobMetas(final List<JobInfo> jobInfos) {
+        if (jobMetaService != null) {
+            return jobMetaService.getJobMetas(jobInfos
+                    .stream()
+                    .map(JobInfo::getJobType)
+                    .collect(toSet()));
+        } else {
+            return emptyMap();
+        }
+    }
+
     private List<JobInfo> getJobInfos(String type, int count, boolean distinct) {
         final List<JobInfo> jobInfos;
         if (type == null && distinct) {
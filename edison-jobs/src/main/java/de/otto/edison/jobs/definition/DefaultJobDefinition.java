@@ -23,6 +23,9 @@ public final class DefaultJobDefinition implements JobDefinition {
     private final int restarts;
     private final int retries;
     private final Optional<Duration> retryDelay;
+    private final double retryBackoffMultiplier;
+    private final Optional<Duration> maxRetryDelay;
+    private final double retryJitter;
 
     /**
      * Create a JobDefinition for a job that will not be triggered automatically by a job trigger.
@@ -146,6 +149,27 @@ public final class DefaultJobDefinition implements JobDefinition {
                                  final int restarts,
                                  final int retries,
                                  final Optional<Duration> retryDelay) {
+        this(jobType, jobName, description, maxAge, fixedDelay, cron, restarts, retries, retryDelay, 1.0, Optional.empty(), 0.0);
+    }
+
+    private DefaultJobDefinition(final String jobType,
+                                 final String jobName,
+                                 final String description,
+                                 final Optional<Duration> maxAge,
+                                 final Optional<Duration> fixedDelay,
+                                 final Optional<String> cron,
+                                 final int restarts,
+                                 final int retries,
+                                 final Optional<Duration> retryDelay,
+                                 final double retryBackoffMultiplier,
+                                 final Optional<Duration> maxRetryDelay,
+                                 final double retryJitter) {
+        if (retryBackoffMultiplier < 1.0) {
+            throw new IllegalArgumentException("retryBackoffMultiplier must not be less than 1.0");
+        }
+        if (retryJitter < 0.0 || retryJitter > 1.0) {
+            throw new IllegalArgumentException("retryJitter must be between 0.0 and 1.0");
+        }
         this.jobType = jobType;
         this.jobName = jobName;
         this.description = description;
@@ -155,9 +179,28 @@ public final class DefaultJobDefinition implements JobDefinition {
         this.restarts = restarts;
         this.retries = retries;
         this.retryDelay = retryDelay;
+        this.retryBackoffMultiplier = retryBackoffMultiplier;
+        this.maxRetryDelay = maxRetryDelay;
+        this.retryJitter = retryJitter;
         cron.ifPresent(expression -> validateCron(expression));
     }
 
+    /**
+     * Returns a copy of this JobDefinition, that is delaying restarts using exponential backoff with jitter. The
+     * delay before the first restart is the {@link #retryDelay() retry delay}.
+     *
+     * @param multiplier    The factor the delay is multiplied with after every failed attempt; 1.0 or greater.
+     * @param maxRetryDelay The optional upper bound of the delay.
+     * @param jitter        The maximum fraction of the delay that is randomly subtracted; between 0.0 and 1.0.
+     * @return JobDefinition
+     * @throws IllegalArgumentException if multiplier or jitter are out of range.
+     */
+    public DefaultJobDefinition withRetryBackoff(final double multiplier,
+                                                 final Optional<Duration> maxRetryDelay,
+                                                 final double jitter) {
+        return new DefaultJobDefinition(jobType, jobName, description, maxAge, fixedDelay, cron, restarts, retries, retryDelay, multiplier, maxRetryDelay, jitter);
+    }
+
     /**
      * @param cron cron expression to validate.
      * @throws IllegalArgumentException if cron expression is invalid
@@ -240,4 +283,28 @@ public final class DefaultJobDefinition implements JobDefinition {
     public Optional<Duration> retryDelay() {
         return retryDelay;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double retryBackoffMultiplier() {
+        return retryBackoffMultiplier;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Duration> maxRetryDelay() {
+        return maxRetryDelay;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double retryJitter() {
+        return retryJitter;
+    }
 }
@@ -88,4 +88,31 @@ public interface JobDefinition {
      * @see <a href="https://github.com/otto-de/edison-jobtrigger">Edison JobTrigger</a>
      */
     public default Optional<Duration> retryDelay() { return Optional.empty(); }
+
+    /**
+     * The factor the {@link #retryDelay() retry delay} is multiplied with after every failed attempt, used by the
+     * {@link de.otto.edison.jobs.service.JobRunner} to delay restarts using exponential backoff.
+     *
+     * By default, the delay is not increased.
+     *
+     * @return backoff multiplier, 1.0 or greater
+     */
+    public default double retryBackoffMultiplier() { return 1.0; }
+
+    /**
+     * The optional upper bound of the delay between restarts, if the delay is increased using
+     * {@link #retryBackoffMultiplier()}.
+     *
+     * @return optional maximum delay before restarting
+     */
+    public default Optional<Duration> maxRetryDelay() { return Optional.empty(); }
+
+    /**
+     * The maximum fraction of the delay between restarts that is randomly subtracted from the delay, so multiple
+     * failing jobs are not restarted at the same time. 0.0 disables the jitter, 1.0 chooses a random delay between
+     * zero and the full delay.
+     *
+     * @return jitter between 0.0 and 1.0
+     */
+    public default double retryJitter() { return 0.0; }
 }
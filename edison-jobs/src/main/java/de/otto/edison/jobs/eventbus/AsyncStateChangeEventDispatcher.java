@@ -0,0 +1,301 @@
+package de.otto.edison.jobs.eventbus;
+
+import de.otto.edison.jobs.configuration.JobsProperties;
+import de.otto.edison.jobs.eventbus.events.StateChangeEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Dispatches {@link StateChangeEvent StateChangeEvents} to the
+ * {@link JobStateChangeListener JobStateChangeListeners} using background threads, so the persistence of state changes
+ * is not part of the execution time of a job.
+ * <p>
+ *     The publisher is enabled using {@code edison.jobs.events.async=true}. Every job id is assigned to one of
+ *     {@code edison.jobs.events.threads} dispatcher threads, each having a bounded queue. All events of a job are
+ *     therefore dispatched in the order they were published: especially, the STOP event of a job is dispatched after
+ *     all other events of the job, and the run lock of the job is only released after the STOP event was persisted.
+ * </p>
+ * <p>
+ *     If the queue of a dispatcher thread is full, the job publishing an event is blocked until the queue has
+ *     capacity. The number of queued events and the number of times a job was blocked are exposed as metrics
+ *     {@code gauge.jobs.events.queued} and {@code counter.jobs.events.blocked}.
+ * </p>
+ * <p>
+ *     After {@link #stop()}, events that are still queued are dispatched by the stopping thread, and events
+ *     published afterwards are dispatched synchronously by the publishing thread, after the remaining queued events
+ *     of the same dispatcher. No event is lost or dispatched out of order during shutdown.
+ * </p>
+ * <p>
+ *     Jobs are publishing their events using {@link #publishEvent(Object)}. Other events are published synchronously.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(prefix = "edison.jobs.events", name = "async", havingValue = "true")
+public class AsyncStateChangeEventDispatcher {
+
+    private static final Logger LOG = getLogger(AsyncStateChangeEventDispatcher.class);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 10000;
+
+    private final ApplicationEventPublisher delegate;
+    private final List<Dispatcher> dispatchers;
+    private final AtomicLong blockedEvents = new AtomicLong();
+
+    @Autowired
+    public AsyncStateChangeEventDispatcher(final ApplicationEventPublisher delegate,
+                                          final JobsProperties jobsProperties) {
+        this.delegate = delegate;
+        final JobsProperties.Events events = jobsProperties.getEvents();
+        this.dispatchers = new ArrayList<>(events.getThreads());
+        for (int i = 0; i < events.getThreads(); ++i) {
+            final Dispatcher dispatcher = new Dispatcher(i, events.getQueueSize());
+            dispatchers.add(dispatcher);
+            dispatcher.start();
+        }
+        Gauge.builder("gauge.jobs.events.queued", this, AsyncStateChangeEventDispatcher::getQueuedEvents)
+                .register(Metrics.globalRegistry);
+        FunctionCounter.builder("counter.jobs.events.blocked", blockedEvents, AtomicLong::get)
+                .register(Metrics.globalRegistry);
+    }
+
+    /**
+     * Queues a StateChangeEvent for asynchronous dispatching, or publishes any other event synchronously.
+     *
+     * @param event the published event
+     */
+    public void publishEvent(final Object event) {
+        if (event instanceof StateChangeEvent) {
+            final StateChangeEvent stateChangeEvent = (StateChangeEvent) event;
+            dispatcherOf(stateChangeEvent.getJobId()).publish(stateChangeEvent);
+        } else {
+            delegate.publishEvent(event);
+        }
+    }
+
+    /**
+     * Stops accepting events and waits until all queued events are dispatched. Events that are still queued
+     * afterwards, for example because a dispatcher thread has died, are dispatched by the calling thread. Events
+     * published afterwards are dispatched synchronously.
+     */
+    @PreDestroy
+    public void stop() {
+        dispatchers.forEach(Dispatcher::shutdown);
+        final long deadline = System.currentTimeMillis() + SHUTDOWN_TIMEOUT_MILLIS;
+        try {
+            for (final Dispatcher dispatcher : dispatchers) {
+                dispatcher.join(Math.max(1, deadline - System.currentTimeMillis()));
+            }
+            for (final Dispatcher dispatcher : dispatchers) {
+                dispatcher.drain(Math.max(1, deadline - System.currentTimeMillis()));
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        final long remaining = getQueuedEvents();
+        if (remaining > 0) {
+            LOG.warn("Stopped dispatching of job state change events: {} events were not dispatched", remaining);
+        }
+    }
+
+    /**
+     * @return the number of events that are currently queued.
+     */
+    public long getQueuedEvents() {
+        return dispatchers.stream().mapToLong(Dispatcher::size).sum();
+    }
+
+    /**
+     * @return the number of times a job was blocked, because the queue of events was full.
+     */
+    public long getBlockedEvents() {
+        return blockedEvents.get();
+    }
+
+    private Dispatcher dispatcherOf(final String jobId) {
+        return dispatchers.get(Math.floorMod(jobId.hashCode(), dispatchers.size()));
+    }
+
+    /**
+     * A dispatcher thread with a bounded queue of events.
+     * <p>
+     *     The queue and the stopped state are guarded by {@code lock}, so queueing an event and exiting the thread
+     *     after shutdown are atomic: an event is either queued before the dispatcher was stopped, or it is dispatched
+     *     synchronously. Events are only dispatched while holding {@code dispatchLock}, so events taken from the
+     *     queue by the dispatcher thread, by the stopping thread, or by publishers after shutdown are never
+     *     dispatched concurrently or out of order.
+     * </p>
+     */
+    private final class Dispatcher extends Thread {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        private final Condition notFull = lock.newCondition();
+        private final ReentrantLock dispatchLock = new ReentrantLock();
+        private final Queue<StateChangeEvent> queue;
+        private final int capacity;
+        private boolean stopped;
+
+        private Dispatcher(final int num, final int queueSize) {
+            super("edison-StateChangeEventDispatcher-" + num);
+            setDaemon(true);
+            this.queue = new ArrayDeque<>(queueSize);
+            this.capacity = queueSize;
+        }
+
+        private void publish(final StateChangeEvent event) {
+            if (!enqueue(event)) {
+                dispatchLock.lock();
+                try {
+                    dispatchQueuedEvents();
+                    delegate.publishEvent(event);
+                } finally {
+                    dispatchLock.unlock();
+                }
+            }
+        }
+
+        /**
+         * Queues the event, blocking while the queue is full. If the publishing thread is interrupted while it is
+         * blocked, the event is still queued and the interrupt flag is restored afterwards.
+         *
+         * @return true if the event was queued, false if the dispatcher was stopped
+         */
+        private boolean enqueue(final StateChangeEvent event) {
+            lock.lock();
+            try {
+                if (!stopped && queue.size() >= capacity) {
+                    blockedEvents.incrementAndGet();
+                    while (!stopped && queue.size() >= capacity) {
+                        notFull.awaitUninterruptibly();
+                    }
+                }
+                if (stopped) {
+                    return false;
+                }
+                queue.add(event);
+                notEmpty.signal();
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void shutdown() {
+            lock.lock();
+            try {
+                stopped = true;
+                notEmpty.signalAll();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Dispatches the events that are still queued after shutdown using the calling thread.
+         *
+         * @param timeoutMillis the maximum time to wait for a dispatch in progress
+         * @throws InterruptedException if the calling thread was interrupted while waiting
+         */
+        private void drain(final long timeoutMillis) throws InterruptedException {
+            if (dispatchLock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                try {
+                    dispatchQueuedEvents();
+                } finally {
+                    dispatchLock.unlock();
+                }
+            }
+        }
+
+        private int size() {
+            lock.lock();
+            try {
+                return queue.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                dispatchLock.lock();
+                try {
+                    final StateChangeEvent event = take();
+                    if (event == null) {
+                        return;
+                    }
+                    dispatch(event);
+                } catch (final InterruptedException e) {
+                    return;
+                } finally {
+                    dispatchLock.unlock();
+                }
+            }
+        }
+
+        /**
+         * Waits for the next queued event.
+         *
+         * @return the next event, or null if the dispatcher was stopped and all events are dispatched
+         * @throws InterruptedException if the dispatcher thread was interrupted
+         */
+        private StateChangeEvent take() throws InterruptedException {
+            lock.lock();
+            try {
+                while (queue.isEmpty() && !stopped) {
+                    notEmpty.await();
+                }
+                return poll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private StateChangeEvent poll() {
+            lock.lock();
+            try {
+                final StateChangeEvent event = queue.poll();
+                if (event != null) {
+                    notFull.signal();
+                }
+                return event;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void dispatchQueuedEvents() {
+            StateChangeEvent event;
+            while ((event = poll()) != null) {
+                dispatch(event);
+            }
+        }
+
+        private void dispatch(final StateChangeEvent event) {
+            try {
+                delegate.publishEvent(event);
+            } catch (final RuntimeException e) {
+                LOG.error("Failed to dispatch job state change: jobId=" + event.getJobId() + ", state=" + event.getState(), e);
+            }
+        }
+    }
+}
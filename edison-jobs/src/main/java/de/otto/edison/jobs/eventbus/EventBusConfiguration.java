@@ -1,5 +1,6 @@
 package de.otto.edison.jobs.eventbus;
 
+import de.otto.edison.jobs.service.JobMessageLogAppender;
 import de.otto.edison.jobs.service.JobService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
@@ -10,6 +11,8 @@ public class EventBusConfiguration {
 
     @Autowired
     private JobService jobService;
+    @Autowired(required = false)
+    private JobMessageLogAppender jobMessageLogAppender;
 
     @Bean
     public JobStateChangeListener logJobEventListener() {
@@ -18,7 +21,7 @@ public class EventBusConfiguration {
 
     @Bean
     public JobStateChangeListener persistenceJobEventListener() {
-        return new PersistenceJobStateChangeListener(jobService);
+        return new PersistenceJobStateChangeListener(jobService, jobMessageLogAppender);
     }
 
 }
@@ -1,6 +1,7 @@
 package de.otto.edison.jobs.eventbus;
 
 import de.otto.edison.jobs.eventbus.events.StateChangeEvent;
+import de.otto.edison.jobs.service.JobMessageLogAppender;
 import de.otto.edison.jobs.service.JobService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,9 +19,24 @@ public class PersistenceJobStateChangeListener implements JobStateChangeListener
     private static final Logger LOG = LoggerFactory.getLogger(PersistenceJobStateChangeListener.class);
 
     private final JobService jobService;
+    private final JobMessageLogAppender jobMessageLogAppender;
 
     public PersistenceJobStateChangeListener(final JobService jobService) {
+        this(jobService, null);
+    }
+
+    /**
+     * Creates a listener that is flushing the queued messages of a job using the JobMessageLogAppender, before the
+     * job is stopped. Otherwise, asynchronously persisted messages - including error messages changing the status
+     * of the job - might be persisted after the job was stopped.
+     *
+     * @param jobService the JobService
+     * @param jobMessageLogAppender the JobMessageLogAppender, or null
+     */
+    public PersistenceJobStateChangeListener(final JobService jobService,
+                                             final JobMessageLogAppender jobMessageLogAppender) {
         this.jobService = jobService;
+        this.jobMessageLogAppender = jobMessageLogAppender;
     }
 
     @Override
@@ -32,7 +48,7 @@ public class PersistenceJobStateChangeListener implements JobStateChangeListener
                     break;
 
                 case KEEP_ALIVE:
-                    jobService.keepAlive(event.getJobId());
+                    jobService.keepAlive(event.getJobId(), event.getJobType());
                     break;
 
                 case FAILED:
@@ -41,19 +57,22 @@ public class PersistenceJobStateChangeListener implements JobStateChangeListener
                     break;
 
                 case RESTART:
-                    jobService.markRestarted(event.getJobId());
+                    jobService.markRestarted(event.getJobId(), event.getJobType());
                     break;
 
                 case DEAD:
+                    flushMessages(event.getJobId());
                     jobService.killJob(event.getJobId());
                     break;
 
                 case SKIPPED:
+                    flushMessages(event.getJobId());
                     jobService.markSkipped(event.getJobId());
                     jobService.stopJob(event.getJobId());
                     break;
 
                 case STOP:
+                    flushMessages(event.getJobId());
                     jobService.stopJob(event.getJobId());
                     break;
             }
@@ -63,4 +82,10 @@ public class PersistenceJobStateChangeListener implements JobStateChangeListener
         }
     }
 
+    private void flushMessages(final String jobId) {
+        if (jobMessageLogAppender != null) {
+            jobMessageLogAppender.flush(jobId);
+        }
+    }
+
 }
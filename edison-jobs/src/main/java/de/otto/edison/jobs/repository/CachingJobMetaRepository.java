@@ -0,0 +1,262 @@
+package de.otto.edison.jobs.repository;
+
+import de.otto.edison.jobs.domain.JobMeta;
+import de.otto.edison.jobs.domain.RunningJob;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A JobMetaRepository decorator that is caching the {@link JobMeta} of job types for a short period of time.
+ * <p>
+ *     Only {@link #getJobMeta(String)} and {@link #getJobMetas(Set)} are cached. All other reads, especially the
+ *     reads used to lock jobs, are delegated to the underlying repository. Every modification of a job type
+ *     invalidates the cached JobMeta of the job type.
+ * </p>
+ * <p>
+ *     Modifications applied by other instances of the application are visible after the time to live has expired.
+ * </p>
+ */
+public class CachingJobMetaRepository implements JobMetaRepository {
+
+    private final JobMetaRepository delegate;
+    private final long timeToLiveMillis;
+    private final Clock clock;
+    private final ConcurrentMap<String, CachedJobMeta> cache = new ConcurrentHashMap<>();
+
+    /**
+     * @param delegate the underlying JobMetaRepository
+     * @param timeToLiveMillis the number of milliseconds a JobMeta is cached
+     * @param clock the clock used to expire cached JobMetas
+     */
+    public CachingJobMetaRepository(final JobMetaRepository delegate,
+                                    final long timeToLiveMillis,
+                                    final Clock clock) {
+        this.delegate = delegate;
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.clock = clock;
+    }
+
+    @Override
+    public JobMeta getJobMeta(final String jobType) {
+        final CachedJobMeta cached = cache.get(jobType);
+        if (cached != null && !cached.isExpired()) {
+            return cached.jobMeta;
+        }
+        final JobMeta jobMeta = delegate.getJobMeta(jobType);
+        cache.put(jobType, new CachedJobMeta(jobMeta));
+        return jobMeta;
+    }
+
+    @Override
+    public Map<String, JobMeta> getJobMetas(final Set<String> jobTypes) {
+        final Map<String, JobMeta> result = new HashMap<>();
+        final Set<String> missingJobTypes = new HashSet<>();
+        jobTypes.forEach(jobType -> {
+            final CachedJobMeta cached = cache.get(jobType);
+            if (cached != null && !cached.isExpired()) {
+                result.put(jobType, cached.jobMeta);
+            } else {
+                missingJobTypes.add(jobType);
+            }
+        });
+        if (!missingJobTypes.isEmpty()) {
+            delegate.getJobMetas(missingJobTypes).forEach((jobType, jobMeta) -> {
+                cache.put(jobType, new CachedJobMeta(jobMeta));
+                result.put(jobType, jobMeta);
+            });
+        }
+        return result;
+    }
+
+    @Override
+    public boolean createValue(final String jobType, final String key, final String value) {
+        try {
+            return delegate.createValue(jobType, key, value);
+        } finally {
+            invalidate(jobType);
+        }
+    }
+
+    @Override
+    public boolean setRunningJob(final String jobType, final String jobId) {
+        try {
+            return delegate.setRunningJob(jobType, jobId);
+        } finally {
+            invalidate(jobType);
+        }
+    }
+
+    @Override
+    public boolean setRunningJob(final String jobType,
+                                 final String jobId,
+                                 final String owner,
+                                 final Instant expiresAt,
+                                 final Instant now) {
+        try {
+            return delegate.setRunningJob(jobType, jobId, owner, expiresAt, now);
+        } finally {
+            invalidate(jobType);
+        }
+    }
+
+    @Override
+    public boolean renewRunningJob(final String jobType, final String jobId, final Instant expiresAt) {
+        return delegate.renewRunningJob(jobType, jobId, expiresAt);
+    }
+
+    @Override
+    public String getLockOwner(final String jobType) {
+        return delegate.getLockOwner(jobType);
+    }
+
+    @Override
+    public String getRunningJob(final String jobType) {
+        return delegate.getRunningJob(jobType);
+    }
+
+    @Override
+    public Set<RunningJob> findRunningJobs() {
+        return delegate.findRunningJobs();
+    }
+
+    @Override
+    public void clearRunningJob(final String jobType) {
+        try {
+            delegate.clearRunningJob(jobType);
+        } finally {
+            invalidate(jobType);
+        }
+    }
+
+    @Override
+    public void clearRunningJob(final String jobType, final String jobId) {
+        try {
+            delegate.clearRunningJob(jobType, jobId);
+        } finally {
+            invalidate(jobType);
+        }
+    }
+
+    @Override
+    public boolean acquireGroupLock(final String groupName, final String jobType, final String jobId) {
+        return delegate.acquireGroupLock(groupName, jobType, jobId);
+    }
+
+    @Override
+    public boolean acquireGroupLock(final String groupName,
+                                    final String jobType,
+                                    final String jobId,
+                                    final Instant expiresAt,
+                                    final Instant now) {
+        return delegate.acquireGroupLock(groupName, jobType, jobId, expiresAt, now);
+    }
+
+    @Override
+    public void renewGroupLock(final String groupName, final String jobId, final Instant expiresAt) {
+        delegate.renewGroupLock(groupName, jobId, expiresAt);
+    }
+
+    @Override
+    public void renewLocks(final Collection<RunningJob> runningJobs,
+                           final Collection<String> groupNames,
+                           final Instant expiresAt) {
+        delegate.renewLocks(runningJobs, groupNames, expiresAt);
+    }
+
+    @Override
+    public String getGroupLock(final String groupName) {
+        return delegate.getGroupLock(groupName);
+    }
+
+    @Override
+    public String getGroupLockHolder(final String groupName) {
+        return delegate.getGroupLockHolder(groupName);
+    }
+
+    @Override
+    public void releaseGroupLock(final String groupName, final String jobId) {
+        delegate.releaseGroupLock(groupName, jobId);
+    }
+
+    @Override
+    public void disable(final String jobType, final String comment) {
+        try {
+            delegate.disable(jobType, comment);
+        } finally {
+            invalidate(jobType);
+        }
+    }
+
+    @Override
+    public void enable(final String jobType) {
+        try {
+            delegate.enable(jobType);
+        } finally {
+            invalidate(jobType);
+        }
+    }
+
+    @Override
+    public String setValue(final String jobType, final String key, final String value) {
+        try {
+            return delegate.setValue(jobType, key, value);
+        } finally {
+            invalidate(jobType);
+        }
+    }
+
+    @Override
+    public String getValue(final String jobType, final String key) {
+        return delegate.getValue(jobType, key);
+    }
+
+    @Override
+    public Set<String> findAllJobTypes() {
+        return delegate.findAllJobTypes();
+    }
+
+    @Override
+    public void deleteAll() {
+        try {
+            delegate.deleteAll();
+        } finally {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Removes the cached JobMeta of a job type.
+     *
+     * @param jobType the job type
+     */
+    public void invalidate(final String jobType) {
+        cache.remove(jobType);
+    }
+
+    @Override
+    public String toString() {
+        return "CachingJobMetaRepository{" + delegate + "}";
+    }
+
+    private final class CachedJobMeta {
+        private final JobMeta jobMeta;
+        private final long expiresAt;
+
+        private CachedJobMeta(final JobMeta jobMeta) {
+            this.jobMeta = jobMeta;
+            this.expiresAt = clock.millis() + timeToLiveMillis;
+        }
+
+        private boolean isExpired() {
+            return clock.millis() >= expiresAt;
+        }
+    }
+}
@@ -1,7 +1,13 @@
 package de.otto.edison.jobs.repository;
 
 import de.otto.edison.jobs.domain.JobMeta;
+import de.otto.edison.jobs.domain.RunningJob;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -16,6 +22,12 @@ import java.util.Set;
  */
 public interface JobMetaRepository {
 
+    String GROUP_LOCK_PREFIX = "_e_mutex_";
+    String KEY_GROUP_LOCKED_BY = "_e_locked_by";
+    String KEY_GROUP_LOCKED_BY_JOB = "_e_locked_by_job";
+    String KEY_LOCK_OWNER = "_e_lock_owner";
+    String KEY_LOCK_EXPIRES = "_e_lock_expires";
+
     /**
      * Returns the current state of the specified job type.
      *
@@ -24,6 +36,22 @@ public interface JobMetaRepository {
      */
     JobMeta getJobMeta(String jobType);
 
+    /**
+     * Returns the current state of a number of job types.
+     * <p>
+     *     Implementations should fetch the state of all job types using a single query. The default implementation
+     *     falls back to {@link #getJobMeta(String)} for every job type.
+     * </p>
+     *
+     * @param jobTypes the job types
+     * @return map containing the current state of every job type, keyed by job type
+     */
+    default Map<String, JobMeta> getJobMetas(final Set<String> jobTypes) {
+        final Map<String, JobMeta> jobMetas = new HashMap<>();
+        jobTypes.forEach(jobType -> jobMetas.put(jobType, getJobMeta(jobType)));
+        return jobMetas;
+    }
+
     /**
      * Create property if the document or key does not exists.
      * <p>
@@ -40,10 +68,248 @@ public interface JobMetaRepository {
 
     boolean setRunningJob(String jobType, String jobId);
 
+    /**
+     * Atomically marks the job type as running by the specified job, using a lease that expires at
+     * {@code expiresAt}. The lock is acquired if the job type is not running, or if the lease of the running job has
+     * expired before {@code now}. The owner of the lock is kept after the lock is released, so it is possible to
+     * find out which instance was the last one running the job type.
+     * <p>
+     *     Implementations should acquire the lease in a single test-and-set operation. The default implementation
+     *     does not support leases and falls back to {@link #setRunningJob(String, String)}.
+     * </p>
+     *
+     * @param jobType the job type
+     * @param jobId the id of the running job
+     * @param owner the owner of the lock, typically the hostname of the instance running the job
+     * @param expiresAt the time when the lease expires, if it is not renewed
+     * @param now the current time
+     * @return true if the lock was acquired, false otherwise
+     */
+    default boolean setRunningJob(final String jobType,
+                                  final String jobId,
+                                  final String owner,
+                                  final Instant expiresAt,
+                                  final Instant now) {
+        return setRunningJob(jobType, jobId);
+    }
+
+    /**
+     * Renews the lease of a running job. Does nothing, if the job type is not (or not anymore) locked by the job.
+     * <p>
+     *     The default implementation does not support leases and only checks, whether the job type is still marked
+     *     as running by the job.
+     * </p>
+     *
+     * @param jobType the job type
+     * @param jobId the id of the running job
+     * @param expiresAt the new expiry time of the lease
+     * @return true if the lease was renewed, false if the lock is not held by the job
+     */
+    default boolean renewRunningJob(final String jobType, final String jobId, final Instant expiresAt) {
+        return jobId.equals(getRunningJob(jobType));
+    }
+
+    /**
+     * Returns the owner of the current, or of the last lock of the job type, or null if the job type was never
+     * locked using a lease.
+     *
+     * @param jobType the job type
+     * @return owner or null
+     */
+    default String getLockOwner(final String jobType) {
+        return getValue(jobType, KEY_LOCK_OWNER);
+    }
+
     String getRunningJob(String jobType);
 
+    /**
+     * Returns all currently running jobs.
+     * <p>
+     *     Implementations should find the running jobs using a single query. The default implementation falls back
+     *     to {@link #getRunningJob(String)} for every job type.
+     * </p>
+     *
+     * @return set of running jobs
+     */
+    default Set<RunningJob> findRunningJobs() {
+        final Set<RunningJob> runningJobs = new HashSet<>();
+        findAllJobTypes().forEach(jobType -> {
+            final String jobId = getRunningJob(jobType);
+            if (jobId != null) {
+                runningJobs.add(new RunningJob(jobId, jobType));
+            }
+        });
+        return runningJobs;
+    }
+
+    /**
+     * Unconditionally clears the job running mark of the jobType, regardless of the job holding it.
+     *
+     * @param jobType the job type
+     */
     void clearRunningJob(String jobType);
 
+    /**
+     * Atomically clears the job running mark of the jobType, if it is held by the specified job. Does nothing if
+     * the job type is marked as running by another job, for example because the lease of the job has expired and
+     * was taken over by a job on another instance.
+     * <p>
+     *     The default implementation is not atomic: it relies on {@link #getRunningJob(String)} and
+     *     {@link #clearRunningJob(String)}. Implementations should clear the mark using a single conditional update.
+     * </p>
+     *
+     * @param jobType the job type
+     * @param jobId the id of the job holding the run lock
+     */
+    default void clearRunningJob(final String jobType, final String jobId) {
+        if (jobId.equals(getRunningJob(jobType))) {
+            clearRunningJob(jobType);
+        }
+    }
+
+    /**
+     * Atomically marks a {@link de.otto.edison.jobs.service.JobMutexGroup mutex group} as locked by a job.
+     * <p>
+     *     The lock of a mutex group is stored in a single document, so acquiring the lock is a single test-and-set
+     *     operation instead of checking every job type of the group. The document contains the type and the id of
+     *     the job holding the lock; the lock is only released by the holding job. Group locks are not job types:
+     *     they must neither be returned by {@link #findAllJobTypes()} nor by {@link #findRunningJobs()}.
+     * </p>
+     * <p>
+     *     The default implementation relies on {@link #createValue(String, String, String)} for a document
+     *     identified by {@link #groupLockId(String)}, and afterwards sets the id of the holding job.
+     * </p>
+     *
+     * @param groupName the name of the mutex group
+     * @param jobType the type of the job acquiring the lock
+     * @param jobId the id of the job acquiring the lock
+     * @return true if the lock was acquired, false if the group is already locked
+     */
+    default boolean acquireGroupLock(final String groupName, final String jobType, final String jobId) {
+        if (createValue(groupLockId(groupName), KEY_GROUP_LOCKED_BY, jobType)) {
+            setValue(groupLockId(groupName), KEY_GROUP_LOCKED_BY_JOB, jobId);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Atomically marks a mutex group as locked by a job, using a lease that expires at {@code expiresAt}. The
+     * lock is acquired if the group is not locked, if it is already locked by the same job type (which is only
+     * possible for the holder of the job type's run lock, taking over the group lock from the previous job of the
+     * type), or if the lease has expired before {@code now}.
+     * <p>
+     *     The default implementation does not support leases and falls back to
+     *     {@link #acquireGroupLock(String, String, String)}.
+     * </p>
+     *
+     * @param groupName the name of the mutex group
+     * @param jobType the type of the job acquiring the lock
+     * @param jobId the id of the job acquiring the lock
+     * @param expiresAt the time when the lease expires, if it is not renewed
+     * @param now the current time
+     * @return true if the lock was acquired, false if the group is locked by another job type
+     */
+    default boolean acquireGroupLock(final String groupName,
+                                     final String jobType,
+                                     final String jobId,
+                                     final Instant expiresAt,
+                                     final Instant now) {
+        return acquireGroupLock(groupName, jobType, jobId);
+    }
+
+    /**
+     * Renews the lease of a mutex group lock, if it is held by the specified job. The default implementation
+     * does not support leases and does nothing.
+     *
+     * @param groupName the name of the mutex group
+     * @param jobId the id of the job holding the lock
+     * @param expiresAt the new expiry time of the lease
+     */
+    default void renewGroupLock(final String groupName, final String jobId, final Instant expiresAt) {
+    }
+
+    /**
+     * Renews the leases of the run locks held by several running jobs, and of the mutex group locks held by these
+     * jobs.
+     * <p>
+     *     Implementations should renew all leases using a single update. The default implementation falls back to
+     *     {@link #renewRunningJob(String, String, Instant)} for every running job, and renews the group locks of
+     *     the job types still holding the run lock using {@link #renewGroupLock(String, String, Instant)}.
+     * </p>
+     *
+     * @param runningJobs the running jobs
+     * @param groupNames the names of the mutex groups of the running job types
+     * @param expiresAt the new expiry time of the leases
+     */
+    default void renewLocks(final Collection<RunningJob> runningJobs,
+                            final Collection<String> groupNames,
+                            final Instant expiresAt) {
+        runningJobs.forEach(runningJob -> {
+            if (renewRunningJob(runningJob.jobType, runningJob.jobId, expiresAt)) {
+                groupNames.forEach(groupName -> renewGroupLock(groupName, runningJob.jobId, expiresAt));
+            }
+        });
+    }
+
+    /**
+     * Returns the job type currently holding the lock of a mutex group, or null if the group is not locked.
+     *
+     * @param groupName the name of the mutex group
+     * @return job type or null
+     */
+    default String getGroupLock(final String groupName) {
+        return getValue(groupLockId(groupName), KEY_GROUP_LOCKED_BY);
+    }
+
+    /**
+     * Returns the id of the job currently holding the lock of a mutex group, or null if the group is not locked.
+     *
+     * @param groupName the name of the mutex group
+     * @return job id or null
+     */
+    default String getGroupLockHolder(final String groupName) {
+        return getValue(groupLockId(groupName), KEY_GROUP_LOCKED_BY_JOB);
+    }
+
+    /**
+     * Releases the lock of a mutex group, if it is held by the specified job. Does nothing otherwise, especially
+     * if another job of the same type has taken over the lock.
+     * <p>
+     *     Implementations should release the lock using a single conditional update. The default implementation
+     *     falls back to {@link #getValue(String, String)} and {@link #setValue(String, String, String)}.
+     * </p>
+     *
+     * @param groupName the name of the mutex group
+     * @param jobId the id of the job holding the lock
+     */
+    default void releaseGroupLock(final String groupName, final String jobId) {
+        if (jobId.equals(getGroupLockHolder(groupName))) {
+            setValue(groupLockId(groupName), KEY_GROUP_LOCKED_BY_JOB, null);
+            setValue(groupLockId(groupName), KEY_GROUP_LOCKED_BY, null);
+        }
+    }
+
+    /**
+     * Returns the id of the document used to store the lock of a mutex group.
+     *
+     * @param groupName the name of the mutex group
+     * @return document id
+     */
+    static String groupLockId(final String groupName) {
+        return GROUP_LOCK_PREFIX + groupName;
+    }
+
+    /**
+     * Returns true, if the id is the id of a document used to store the lock of a mutex group.
+     *
+     * @param id the document id
+     * @return boolean
+     */
+    static boolean isGroupLockId(final String id) {
+        return id != null && id.startsWith(GROUP_LOCK_PREFIX);
+    }
+
     /**
      * Disables a job type, i.e. prevents it from being started
      *
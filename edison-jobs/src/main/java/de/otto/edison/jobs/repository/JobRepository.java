@@ -4,8 +4,11 @@ import de.otto.edison.jobs.domain.JobInfo;
 import de.otto.edison.jobs.domain.JobMessage;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 public interface JobRepository {
 
@@ -28,18 +31,152 @@ public interface JobRepository {
 
     List<JobInfo> findByType(String jobType);
 
+    /**
+     * Returns a page of the messages of a job, in the order they were appended.
+     * <p>
+     *     Repositories that are limiting the number of messages stored with a JobInfo may return messages that are
+     *     not contained in {@link JobInfo#getMessages()} anymore. The default implementation is paging through
+     *     the messages of the JobInfo.
+     * </p>
+     *
+     * @param jobId the id of the job
+     * @param skip the number of messages to skip
+     * @param limit the maximum number of messages to return
+     * @return list of job messages, or an empty list if the job does not exist
+     */
+    default List<JobMessage> findMessages(final String jobId, final int skip, final int limit) {
+        return findOne(jobId)
+                .map(jobInfo -> jobInfo.getMessages()
+                        .stream()
+                        .skip(skip)
+                        .limit(limit)
+                        .collect(Collectors.toList()))
+                .orElse(Collections.emptyList());
+    }
+
     JobInfo createOrUpdate(JobInfo job);
 
     void removeIfStopped(String jobId);
 
+    /**
+     * Removes all jobs of the given ids that are stopped. Running jobs are not removed.
+     * <p>
+     *     Implementations should remove the jobs using a single bulk operation. The default implementation falls back
+     *     to {@link #removeIfStopped(String)} for every job.
+     * </p>
+     *
+     * @param jobIds the ids of the jobs to remove
+     */
+    default void removeIfStopped(final Collection<String> jobIds) {
+        jobIds.forEach(this::removeIfStopped);
+    }
+
     JobInfo.JobStatus findStatus(String jobId);
 
     void appendMessage(String jobId, JobMessage jobMessage);
 
+    /**
+     * Appends a number of messages to a job.
+     * <p>
+     *     Implementations should append all messages using a single update of the job. The default implementation
+     *     falls back to {@link #appendMessage(String, JobMessage)} for every message.
+     * </p>
+     *
+     * @param jobId the id of the job
+     * @param jobMessages the messages, in the order they are appended
+     */
+    default void appendMessages(final String jobId, final List<JobMessage> jobMessages) {
+        jobMessages.forEach(message -> appendMessage(jobId, message));
+    }
+
+    /**
+     * Appends a number of messages to a job and, if a status is present, sets the status and the lastUpdated timestamp
+     * of the job, so readers never see the messages without the status.
+     * <p>
+     *     Implementations should append the messages and set the status using a single, atomic update of the job. The
+     *     default implementation falls back to separate updates.
+     * </p>
+     *
+     * @param jobId the id of the job
+     * @param jobMessages the messages, in the order they are appended
+     * @param jobStatus optional new status of the job
+     * @param lastUpdate the new lastUpdated timestamp of the job, if the status is present
+     */
+    default void appendMessages(final String jobId,
+                                final List<JobMessage> jobMessages,
+                                final Optional<JobInfo.JobStatus> jobStatus,
+                                final OffsetDateTime lastUpdate) {
+        appendMessages(jobId, jobMessages);
+        jobStatus.ifPresent(status -> {
+            setLastUpdate(jobId, lastUpdate);
+            setJobStatus(jobId, status);
+        });
+    }
+
     void setJobStatus(String jobId, JobInfo.JobStatus jobStatus);
 
     void setLastUpdate(String jobId, OffsetDateTime lastUpdate);
 
+    /**
+     * Sets the lastUpdated timestamp of a number of jobs.
+     * <p>
+     *     Implementations should update all jobs using a single update. The default implementation falls back to
+     *     {@link #setLastUpdate(String, OffsetDateTime)} for every job.
+     * </p>
+     *
+     * @param jobIds the ids of the jobs
+     * @param lastUpdate the new lastUpdated timestamp of the jobs
+     */
+    default void setLastUpdate(final Collection<String> jobIds, final OffsetDateTime lastUpdate) {
+        jobIds.forEach(jobId -> setLastUpdate(jobId, lastUpdate));
+    }
+
+    /**
+     * Applies a state transition to a job: the status and the lastUpdated timestamp of the job are set and, if present,
+     * the job message is appended.
+     * <p>
+     *     Implementations should apply the transition using a single, atomic update of the job. The default
+     *     implementation falls back to separate updates.
+     * </p>
+     *
+     * @param jobId the id of the job
+     * @param jobStatus the new status of the job
+     * @param lastUpdate the new lastUpdated timestamp of the job
+     * @param jobMessage optional message that is appended to the job messages
+     */
+    default void applyTransition(final String jobId,
+                                 final JobInfo.JobStatus jobStatus,
+                                 final OffsetDateTime lastUpdate,
+                                 final Optional<JobMessage> jobMessage) {
+        jobMessage.ifPresent(message -> appendMessage(jobId, message));
+        setLastUpdate(jobId, lastUpdate);
+        setJobStatus(jobId, jobStatus);
+    }
+
+    /**
+     * Marks a job as stopped: the stopped and lastUpdated timestamps of the job are set and, if present, the status of
+     * the job. The messages of the job are not modified, so messages that are appended concurrently are not lost.
+     * <p>
+     *     Implementations should stop the job using a single, atomic update. The default implementation falls back to
+     *     {@link #findOne(String)} and {@link #createOrUpdate(JobInfo)}.
+     * </p>
+     *
+     * @param jobId the id of the job
+     * @param stopped the stopped and lastUpdated timestamp of the job
+     * @param jobStatus optional new status of the job
+     */
+    default void markStopped(final String jobId,
+                             final OffsetDateTime stopped,
+                             final Optional<JobInfo.JobStatus> jobStatus) {
+        findOne(jobId).ifPresent(jobInfo -> {
+            final JobInfo.Builder builder = jobInfo.copy()
+                    .setStopped(stopped)
+                    .setLastUpdated(stopped);
+            jobStatus.ifPresent(builder::setStatus);
+            createOrUpdate(builder.build());
+        });
+    }
+
     long size();
 
     void deleteAll();
@@ -5,6 +5,7 @@ import static de.otto.edison.jobs.domain.JobInfo.JobStatus.SKIPPED;
 import static java.util.Comparator.comparing;
 import static java.util.Comparator.reverseOrder;
 import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -53,8 +54,13 @@ public class DeleteSkippedJobs implements JobCleanupStrategy {
     public void doCleanUp() {
         final List<JobInfo> jobs = jobRepository.findAllJobInfoWithoutMessages();
 
-        findJobsToDelete(jobs)
-                .forEach(jobInfo -> jobRepository.removeIfStopped(jobInfo.getJobId()));
+        final List<String> jobIdsToDelete = findJobsToDelete(jobs)
+                .stream()
+                .map(JobInfo::getJobId)
+                .collect(toList());
+        if (!jobIdsToDelete.isEmpty()) {
+            jobRepository.removeIfStopped(jobIdsToDelete);
+        }
     }
 
     private List<JobInfo> findJobsToDelete(final List<JobInfo> jobs) {
@@ -15,6 +15,7 @@ import static de.otto.edison.jobs.domain.JobInfo.JobStatus.OK;
 import static java.util.Comparator.comparing;
 import static java.util.Comparator.reverseOrder;
 import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
 
 /**
  * A JobCleanupStrategy that is removing all but the newest N jobs of each type.
@@ -50,8 +51,13 @@ public class KeepLastJobs implements JobCleanupStrategy {
     public void doCleanUp() {
         final List<JobInfo> jobs = jobRepository.findAllJobInfoWithoutMessages();
 
-        findJobsToDelete(jobs)
-                .forEach(jobInfo -> jobRepository.removeIfStopped(jobInfo.getJobId()));
+        final List<String> jobIdsToDelete = findJobsToDelete(jobs)
+                .stream()
+                .map(JobInfo::getJobId)
+                .collect(toList());
+        if (!jobIdsToDelete.isEmpty()) {
+            jobRepository.removeIfStopped(jobIdsToDelete);
+        }
     }
 
     private List<JobInfo> findJobsToDelete(final List<JobInfo> jobs) {
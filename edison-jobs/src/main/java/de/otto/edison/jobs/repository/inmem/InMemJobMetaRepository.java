@@ -1,15 +1,20 @@
 package de.otto.edison.jobs.repository.inmem;
 
 import de.otto.edison.jobs.domain.JobMeta;
+import de.otto.edison.jobs.domain.RunningJob;
 import de.otto.edison.jobs.repository.JobMetaRepository;
 
+import java.time.Instant;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
+import static de.otto.edison.jobs.repository.JobMetaRepository.groupLockId;
+import static de.otto.edison.jobs.repository.JobMetaRepository.isGroupLockId;
 import static java.util.Collections.emptyMap;
 import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
 
 public class InMemJobMetaRepository implements JobMetaRepository {
 
@@ -27,6 +32,49 @@ public class InMemJobMetaRepository implements JobMetaRepository {
         return createValue(jobType, KEY_RUNNING, jobId);
     }
 
+    /**
+     * Marks the job type as running by the specified job, if it is not running or if the lease has expired.
+     * Leased operations are synchronized on the state of the job type.
+     */
+    @Override
+    public boolean setRunningJob(final String jobType,
+                                 final String jobId,
+                                 final String owner,
+                                 final Instant expiresAt,
+                                 final Instant now) {
+        final Map<String, String> document = document(jobType);
+        synchronized (document) {
+            if (document.containsKey(KEY_RUNNING) && !isExpired(document, now)) {
+                return false;
+            }
+            document.put(KEY_RUNNING, jobId);
+            document.put(KEY_LOCK_OWNER, owner);
+            document.put(KEY_LOCK_EXPIRES, String.valueOf(expiresAt.toEpochMilli()));
+            return true;
+        }
+    }
+
+    @Override
+    public boolean renewRunningJob(final String jobType, final String jobId, final Instant expiresAt) {
+        final Map<String, String> document = document(jobType);
+        synchronized (document) {
+            if (jobId.equals(document.get(KEY_RUNNING))) {
+                document.put(KEY_LOCK_EXPIRES, String.valueOf(expiresAt.toEpochMilli()));
+                return true;
+            }
+            return false;
+        }
+    }
+
+    @Override
+    public Set<RunningJob> findRunningJobs() {
+        return map.entrySet()
+                .stream()
+                .filter(entry -> entry.getValue().containsKey(KEY_RUNNING))
+                .map(entry -> new RunningJob(entry.getValue().get(KEY_RUNNING), entry.getKey()))
+                .collect(toSet());
+    }
+
     /**
      * Clears the job running mark of the jobType. Does nothing if not mark exists.
      *
@@ -34,7 +82,27 @@ public class InMemJobMetaRepository implements JobMetaRepository {
      */
     @Override
     public void clearRunningJob(final String jobType) {
-        setValue(jobType, KEY_RUNNING, null);
+        final Map<String, String> document = document(jobType);
+        synchronized (document) {
+            document.remove(KEY_RUNNING);
+            document.remove(KEY_LOCK_EXPIRES);
+        }
+    }
+
+    /**
+     * Atomically clears the job running mark of the jobType, if it is held by the specified job.
+     *
+     * @param jobType the job type
+     * @param jobId the id of the job holding the run lock
+     */
+    @Override
+    public void clearRunningJob(final String jobType, final String jobId) {
+        final Map<String, String> document = document(jobType);
+        synchronized (document) {
+            if (document.remove(KEY_RUNNING, jobId)) {
+                document.remove(KEY_LOCK_EXPIRES);
+            }
+        }
     }
 
     /**
@@ -80,7 +148,10 @@ public class InMemJobMetaRepository implements JobMetaRepository {
      */
     @Override
     public Set<String> findAllJobTypes() {
-        return map.keySet();
+        return map.keySet()
+                .stream()
+                .filter(jobType -> !isGroupLockId(jobType))
+                .collect(toSet());
     }
 
     /**
@@ -119,14 +190,77 @@ public class InMemJobMetaRepository implements JobMetaRepository {
 
     @Override
     public boolean createValue(String jobType, String key, String value) {
-        if (getValue(jobType, key) == null) {
-            setValue(jobType, key, value);
+        return map.computeIfAbsent(jobType, k -> new ConcurrentHashMap<>()).putIfAbsent(key, value) == null;
+    }
+
+    /**
+     * Atomically releases the lock of a mutex group, if it is held by the specified job.
+     *
+     * @param groupName the name of the mutex group
+     * @param jobId the id of the job holding the lock
+     */
+    @Override
+    public void releaseGroupLock(final String groupName, final String jobId) {
+        final Map<String, String> document = document(groupLockId(groupName));
+        synchronized (document) {
+            if (document.remove(KEY_GROUP_LOCKED_BY_JOB, jobId)) {
+                document.remove(KEY_GROUP_LOCKED_BY);
+                document.remove(KEY_LOCK_EXPIRES);
+            }
+        }
+    }
+
+    @Override
+    public boolean acquireGroupLock(final String groupName, final String jobType, final String jobId) {
+        final Map<String, String> document = document(groupLockId(groupName));
+        synchronized (document) {
+            if (document.containsKey(KEY_GROUP_LOCKED_BY)) {
+                return false;
+            }
+            document.put(KEY_GROUP_LOCKED_BY, jobType);
+            document.put(KEY_GROUP_LOCKED_BY_JOB, jobId);
             return true;
-        } else {
-            return false;
         }
     }
 
+    @Override
+    public boolean acquireGroupLock(final String groupName,
+                                    final String jobType,
+                                    final String jobId,
+                                    final Instant expiresAt,
+                                    final Instant now) {
+        final Map<String, String> document = document(groupLockId(groupName));
+        synchronized (document) {
+            final String lockedBy = document.get(KEY_GROUP_LOCKED_BY);
+            if (lockedBy != null && !lockedBy.equals(jobType) && !isExpired(document, now)) {
+                return false;
+            }
+            document.put(KEY_GROUP_LOCKED_BY, jobType);
+            document.put(KEY_GROUP_LOCKED_BY_JOB, jobId);
+            document.put(KEY_LOCK_EXPIRES, String.valueOf(expiresAt.toEpochMilli()));
+            return true;
+        }
+    }
+
+    @Override
+    public void renewGroupLock(final String groupName, final String jobId, final Instant expiresAt) {
+        final Map<String, String> document = document(groupLockId(groupName));
+        synchronized (document) {
+            if (jobId.equals(document.get(KEY_GROUP_LOCKED_BY_JOB))) {
+                document.put(KEY_LOCK_EXPIRES, String.valueOf(expiresAt.toEpochMilli()));
+            }
+        }
+    }
+
+    private Map<String, String> document(final String id) {
+        return map.computeIfAbsent(id, k -> new ConcurrentHashMap<>());
+    }
+
+    private static boolean isExpired(final Map<String, String> document, final Instant now) {
+        final String expires = document.get(KEY_LOCK_EXPIRES);
+        return expires != null && Long.parseLong(expires) < now.toEpochMilli();
+    }
+
     @Override
     public String toString() {
         return "InMemJobMetaRepository";
@@ -9,39 +9,53 @@ import java.time.OffsetDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
 
 import static java.util.Collections.emptyList;
 import static java.util.Comparator.comparing;
+import static java.util.Comparator.nullsLast;
 import static java.util.Comparator.reverseOrder;
 import static java.util.Objects.nonNull;
 import static java.util.Optional.ofNullable;
 import static java.util.stream.Collectors.toList;
 
+/**
+ * In-memory implementation of the JobRepository.
+ * <p>
+ *     Besides the jobs, the repository maintains a concurrent skip-list index of all jobs, ordered by started time
+ *     (latest first), plus one index per job type. This way, the latest N jobs, or the latest jobs of a type, can be
+ *     read without sorting all jobs.
+ * </p>
+ * <p>
+ *     All updates of a job are applied using {@link ConcurrentMap#compute(Object, java.util.function.BiFunction)},
+ *     so the indexes are updated while holding the lock of the job's map entry.
+ * </p>
+ */
 public class InMemJobRepository implements JobRepository {
 
     private static final Comparator<JobInfo> STARTED_TIME_DESC_COMPARATOR = comparing(JobInfo::getStarted, reverseOrder());
 
     private final ConcurrentMap<String, JobInfo> jobs = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<IndexEntry> startedIndex = new ConcurrentSkipListSet<>();
+    private final ConcurrentMap<String, ConcurrentSkipListSet<IndexEntry>> typeIndex = new ConcurrentHashMap<>();
 
     @Override
     public List<JobInfo> findLatest(int maxCount) {
-        return new ArrayList<>(jobs.values()
-                .stream()
-                .sorted(STARTED_TIME_DESC_COMPARATOR)
+        return jobsOf(startedIndex)
                 .limit(maxCount)
-                .collect(toList())
-        );
+                .collect(toList());
     }
 
     @Override
     public List<JobInfo> findLatestJobsDistinct() {
-        Set<String> typeSet = new HashSet<>();
-
-        return jobs.values()
+        return typeIndex.values()
                 .stream()
+                .map(index -> jobsOf(index).findFirst())
+                .filter(Optional::isPresent)
+                .map(Optional::get)
                 .sorted(STARTED_TIME_DESC_COMPARATOR)
-                .filter(j -> nonNull(j.getJobType()))
-                .filter(j -> typeSet.add(j.getJobType()))
                 .collect(toList());
     }
 
@@ -50,12 +64,17 @@ public class InMemJobRepository implements JobRepository {
         return ofNullable(jobs.get(uri));
     }
 
+    /**
+     * Returns the latest jobs of a job type, ignoring the case of the job type. The indexes of all job types that are
+     * only differing in case are merged.
+     */
     @Override
     public List<JobInfo> findLatestBy(String type, int maxCount) {
-        return jobs.values()
+        return typeIndex.entrySet()
                 .stream()
+                .filter(entry -> entry.getKey().equalsIgnoreCase(type))
+                .flatMap(entry -> jobsOf(entry.getValue()).limit(maxCount))
                 .sorted(STARTED_TIME_DESC_COMPARATOR)
-                .filter(jobInfo -> jobInfo.getJobType().equalsIgnoreCase(type))
                 .limit(maxCount)
                 .collect(toList());
     }
@@ -70,31 +89,39 @@ public class InMemJobRepository implements JobRepository {
 
     @Override
     public List<JobInfo> findAll() {
-        return jobs.values().stream()
-                .sorted(STARTED_TIME_DESC_COMPARATOR)
+        return jobsOf(startedIndex)
                 .collect(toList());
     }
 
     @Override
     public List<JobInfo> findByType(String jobType) {
-        return jobs.values().stream()
-                .filter(jobInfo -> jobInfo.getJobType().equals(jobType))
+        final ConcurrentSkipListSet<IndexEntry> index = typeIndex.get(jobType);
+        if (index == null) {
+            return emptyList();
+        }
+        return jobsOf(index)
                 .collect(toList());
     }
 
 
     @Override
     public JobInfo createOrUpdate(final JobInfo job) {
-        jobs.put(job.getJobId(), job);
+        jobs.compute(job.getJobId(), (id, previous) -> {
+            reindex(previous, job);
+            return job;
+        });
         return job;
     }
 
     @Override
     public void removeIfStopped(final String id) {
-        final JobInfo jobInfo = jobs.get(id);
-        if (jobInfo != null && jobInfo.isStopped()) {
-            jobs.remove(id);
-        }
+        jobs.computeIfPresent(id, (jobId, jobInfo) -> {
+            if (jobInfo.isStopped()) {
+                reindex(jobInfo, null);
+                return null;
+            }
+            return jobInfo;
+        });
     }
 
     @Override
@@ -109,33 +136,155 @@ public class InMemJobRepository implements JobRepository {
 
     @Override
     public void appendMessage(String jobId, JobMessage jobMessage) {
-        JobInfo jobInfo = jobs.get(jobId);
-        jobs.replace(jobId, jobInfo.copy().addMessage(jobMessage).build());
+        update(jobId, jobInfo -> jobInfo.copy().addMessage(jobMessage).build());
+    }
+
+    @Override
+    public void appendMessages(String jobId, List<JobMessage> jobMessages) {
+        update(jobId, jobInfo -> {
+            final JobInfo.Builder builder = jobInfo.copy();
+            jobMessages.forEach(builder::addMessage);
+            return builder.build();
+        });
+    }
+
+    @Override
+    public void appendMessages(final String jobId,
+                               final List<JobMessage> jobMessages,
+                               final Optional<JobStatus> jobStatus,
+                               final OffsetDateTime lastUpdate) {
+        update(jobId, jobInfo -> {
+            final JobInfo.Builder builder = jobInfo.copy();
+            jobMessages.forEach(builder::addMessage);
+            jobStatus.ifPresent(status -> builder
+                    .setStatus(status)
+                    .setLastUpdated(lastUpdate));
+            return builder.build();
+        });
     }
 
     @Override
     public void setJobStatus(String jobId, JobStatus jobStatus) {
-        JobInfo jobInfo = jobs.get(jobId);
-        jobs.replace(jobId, jobInfo.copy().setStatus(jobStatus).build());
+        update(jobId, jobInfo -> jobInfo.copy().setStatus(jobStatus).build());
     }
 
     @Override
     public void setLastUpdate(String jobId, OffsetDateTime lastUpdate) {
-        JobInfo jobInfo = jobs.get(jobId);
-        jobs.replace(jobId, jobInfo.copy().setLastUpdated(lastUpdate).build());
+        update(jobId, jobInfo -> jobInfo.copy().setLastUpdated(lastUpdate).build());
+    }
+
+    @Override
+    public void applyTransition(final String jobId,
+                                final JobStatus jobStatus,
+                                final OffsetDateTime lastUpdate,
+                                final Optional<JobMessage> jobMessage) {
+        update(jobId, jobInfo -> {
+            final JobInfo.Builder builder = jobInfo.copy()
+                    .setStatus(jobStatus)
+                    .setLastUpdated(lastUpdate);
+            jobMessage.ifPresent(builder::addMessage);
+            return builder.build();
+        });
+    }
+
+    @Override
+    public void markStopped(final String jobId,
+                            final OffsetDateTime stopped,
+                            final Optional<JobStatus> jobStatus) {
+        update(jobId, jobInfo -> {
+            final JobInfo.Builder builder = jobInfo.copy()
+                    .setStopped(stopped)
+                    .setLastUpdated(stopped);
+            jobStatus.ifPresent(builder::setStatus);
+            return builder.build();
+        });
     }
 
 	@Override
 	public List<JobInfo> findAllJobInfoWithoutMessages() {
-        return jobs.values().stream()
-	                .sorted(STARTED_TIME_DESC_COMPARATOR)
+        return jobsOf(startedIndex)
 	                .map(job->job.copy().setMessages(emptyList()).build())
 	                .collect(toList());
 	}
 
     public void deleteAll() {
-        jobs.clear();
+        jobs.keySet().forEach(jobId -> jobs.computeIfPresent(jobId, (id, jobInfo) -> {
+            reindex(jobInfo, null);
+            return null;
+        }));
+    }
+
+    private void update(final String jobId, final UnaryOperator<JobInfo> updateFunction) {
+        jobs.computeIfPresent(jobId, (id, jobInfo) -> {
+            final JobInfo updated = updateFunction.apply(jobInfo);
+            reindex(jobInfo, updated);
+            return updated;
+        });
+    }
+
+    /**
+     * Replaces the index entries of a job. Must be called from within a compute function of the job's map entry.
+     *
+     * @param previous the previous version of the job, or null if the job is created
+     * @param current the current version of the job, or null if the job is removed
+     */
+    private void reindex(final JobInfo previous, final JobInfo current) {
+        if (previous != null && current != null
+                && Objects.equals(previous.getStarted(), current.getStarted())
+                && Objects.equals(previous.getJobType(), current.getJobType())) {
+            return;
+        }
+        if (previous != null) {
+            final IndexEntry entry = new IndexEntry(previous);
+            startedIndex.remove(entry);
+            if (nonNull(previous.getJobType())) {
+                typeIndex.computeIfPresent(previous.getJobType(), (type, index) -> {
+                    index.remove(entry);
+                    return index.isEmpty() ? null : index;
+                });
+            }
+        }
+        if (current != null) {
+            final IndexEntry entry = new IndexEntry(current);
+            startedIndex.add(entry);
+            if (nonNull(current.getJobType())) {
+                typeIndex.compute(current.getJobType(), (type, index) -> {
+                    final ConcurrentSkipListSet<IndexEntry> result = index != null ? index : new ConcurrentSkipListSet<>();
+                    result.add(entry);
+                    return result;
+                });
+            }
+        }
+    }
+
+    /**
+     * Resolves the jobs of an index, skipping entries of jobs that were removed concurrently.
+     */
+    private Stream<JobInfo> jobsOf(final ConcurrentSkipListSet<IndexEntry> index) {
+        return index.stream()
+                .map(entry -> jobs.get(entry.jobId))
+                .filter(Objects::nonNull);
     }
 
+    /**
+     * Entry of the skip-list indexes, ordered by started time (latest first) and jobId.
+     */
+    private static final class IndexEntry implements Comparable<IndexEntry> {
+        private static final Comparator<IndexEntry> ORDER = comparing((IndexEntry entry) -> entry.started, nullsLast(reverseOrder()))
+                .thenComparing(entry -> entry.jobId);
+
+        private final OffsetDateTime started;
+        private final String jobId;
+
+        private IndexEntry(final JobInfo jobInfo) {
+            this.started = jobInfo.getStarted();
+            this.jobId = jobInfo.getJobId();
+        }
+
+        @Override
+        public int compareTo(final IndexEntry other) {
+            return ORDER.compare(this, other);
+        }
+    }
 
 }
@@ -9,9 +9,14 @@ import org.springframework.stereotype.Service;
 import javax.annotation.PostConstruct;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import static de.otto.edison.jobs.service.JobTypes.indexByJobType;
+import static de.otto.edison.jobs.service.JobTypes.normalize;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.unmodifiableList;
 import static java.util.stream.Collectors.toList;
 
 /**
@@ -27,7 +32,8 @@ public class JobDefinitionService {
 
     @Autowired(required = false)
     private List<JobRunnable> jobRunnables = new ArrayList<>();
-    private List<JobDefinition> jobDefinitions = new ArrayList<>();
+    private List<JobDefinition> jobDefinitions = emptyList();
+    private Map<String, JobDefinition> jobDefinitionsByType = emptyMap();
 
     // Used by Spring
     public JobDefinitionService() {
@@ -39,14 +45,21 @@ public class JobDefinitionService {
         postConstruct();
     }
 
+    /**
+     * Collects the JobDefinitions of all JobRunnables and creates a case-insensitive index by job type.
+     *
+     * @throws IllegalStateException if more than one JobDefinition is registered for a job type
+     */
     @PostConstruct
     void postConstruct() {
         LOG.info("Initializing JobDefinitionService...");
         if (jobRunnables == null || jobRunnables.isEmpty()) {
             jobDefinitions = emptyList();
+            jobDefinitionsByType = emptyMap();
             LOG.info("No JobDefinitions found in microservice.");
         } else {
-            this.jobDefinitions = jobRunnables.stream().map(JobRunnable::getJobDefinition).collect(toList());
+            this.jobDefinitions = unmodifiableList(jobRunnables.stream().map(JobRunnable::getJobDefinition).collect(toList()));
+            this.jobDefinitionsByType = indexByJobType(jobDefinitions, JobDefinition::jobType);
             LOG.info("Found " + jobDefinitions.size() + " JobDefinitions: " + jobDefinitions.stream().map(JobDefinition::jobType).collect(toList()));
         }
     }
@@ -54,10 +67,10 @@ public class JobDefinitionService {
     /**
      * Returns all registered JobDefinitions, or an empty list.
      *
-     * @return list of JobDefinitions
+     * @return unmodifiable list of JobDefinitions
      */
     public List<JobDefinition> getJobDefinitions() {
-        return new ArrayList<>(jobDefinitions);
+        return jobDefinitions;
     }
 
     /**
@@ -67,10 +80,7 @@ public class JobDefinitionService {
      * @return optional JobDefinition
      */
     public Optional<JobDefinition> getJobDefinition(final String jobType) {
-        return jobDefinitions
-                .stream()
-                .filter((j) -> j.jobType().equalsIgnoreCase(jobType))
-                .findAny();
+        return Optional.ofNullable(jobDefinitionsByType.get(normalize(jobType)));
     }
 
 }
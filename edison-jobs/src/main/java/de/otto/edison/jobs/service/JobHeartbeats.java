@@ -0,0 +1,137 @@
+package de.otto.edison.jobs.service;
+
+import de.otto.edison.jobs.configuration.JobsProperties;
+import de.otto.edison.jobs.domain.RunningJob;
+import de.otto.edison.jobs.repository.JobRepository;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static java.lang.String.format;
+import static java.time.OffsetDateTime.now;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Coalesces the keep-alives of all jobs running on the current instance.
+ * <p>
+ *     The heartbeats are enabled using {@code edison.jobs.heartbeat.enabled=true}. Instead of every
+ *     {@link JobRunner} publishing a KEEP_ALIVE event that is persisted using one update per job, the JobService
+ *     registers all locally running jobs. Every {@code edison.jobs.heartbeat.period} seconds, the lastUpdated timestamp
+ *     of all registered jobs is set using a single update of the JobRepository, and the leases of their run locks
+ *     and mutex group locks are renewed using a single update of the JobMetaRepository.
+ * </p>
+ * <p>
+ *     If run locks are leased, the heartbeat period must not exceed half of {@code edison.jobs.lock.lease-time}, so
+ *     a single delayed or failed heartbeat does not let the leases of running jobs expire.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(prefix = "edison.jobs.heartbeat", name = "enabled", havingValue = "true")
+public class JobHeartbeats {
+
+    private static final Logger LOG = getLogger(JobHeartbeats.class);
+
+    private final JobRepository jobRepository;
+    private final JobMetaService jobMetaService;
+    private final long period;
+    private final Clock clock;
+    private final Map<String, String> runningJobs = new ConcurrentHashMap<>();
+    private ScheduledExecutorService heartbeatExecutor;
+
+    @Autowired
+    public JobHeartbeats(final JobRepository jobRepository,
+                         final JobMetaService jobMetaService,
+                         final JobsProperties jobsProperties) {
+        this(jobRepository, jobMetaService, jobsProperties, Clock.systemDefaultZone());
+    }
+
+    JobHeartbeats(final JobRepository jobRepository,
+                  final JobMetaService jobMetaService,
+                  final JobsProperties jobsProperties,
+                  final Clock clock) {
+        this.jobRepository = jobRepository;
+        this.jobMetaService = jobMetaService;
+        this.period = jobsProperties.getHeartbeat().getPeriod();
+        this.clock = clock;
+        final long leaseTime = jobsProperties.getLock().getLeaseTime();
+        if (leaseTime > 0 && period * 2 > leaseTime) {
+            throw new IllegalStateException(format(
+                    "edison.jobs.heartbeat.period (%ds) must not exceed half of edison.jobs.lock.lease-time (%ds)",
+                    period, leaseTime));
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        // Not using the shared ScheduledExecutorService: if all threads are busy running jobs, heartbeats would be
+        // delayed until the jobs are considered dead.
+        heartbeatExecutor = newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "edison-JobHeartbeats");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeatExecutor.scheduleAtFixedRate(this::beat, period, period, SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (heartbeatExecutor != null) {
+            heartbeatExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Registers a job that is running on the current instance.
+     *
+     * @param jobId the id of the job
+     * @param jobType the type of the job
+     */
+    public void register(final String jobId, final String jobType) {
+        runningJobs.put(jobId, jobType);
+    }
+
+    /**
+     * Unregisters a job that is not running anymore. Does nothing if the job is not registered.
+     *
+     * @param jobId the id of the job
+     */
+    public void unregister(final String jobId) {
+        runningJobs.remove(jobId);
+    }
+
+    /**
+     * Updates the lastUpdated timestamp of all registered jobs using a single update, and renews the leases of their
+     * run locks and mutex group locks using another single update.
+     */
+    void beat() {
+        final Map<String, String> jobs = new HashMap<>(runningJobs);
+        if (jobs.isEmpty()) {
+            return;
+        }
+        try {
+            jobRepository.setLastUpdate(jobs.keySet(), now(clock));
+        } catch (final RuntimeException e) {
+            LOG.error("Failed to update heartbeat of {} running jobs: {}", jobs.size(), e.getMessage(), e);
+        }
+        try {
+            jobMetaService.renewRunLocks(jobs.entrySet()
+                    .stream()
+                    .map(job -> new RunningJob(job.getKey(), job.getValue()))
+                    .collect(toList()));
+        } catch (final RuntimeException e) {
+            LOG.error("Failed to renew run locks of {} running jobs: {}", jobs.size(), e.getMessage(), e);
+        }
+    }
+}
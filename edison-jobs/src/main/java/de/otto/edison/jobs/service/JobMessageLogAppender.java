@@ -4,30 +4,83 @@ import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.AppenderBase;
+import de.otto.edison.jobs.configuration.JobsProperties;
+import de.otto.edison.jobs.configuration.JobsProperties.Messages.OverflowPolicy;
 import de.otto.edison.jobs.domain.JobMarker;
 import de.otto.edison.jobs.domain.JobMessage;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Metrics;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static de.otto.edison.jobs.domain.JobMessage.jobMessage;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 /**
  * Logback log appender that publishes logging events as application events, when a job_id is set in MDC,
  * so that log messages are displayed in the job message html page.
+ * <p>
+ *     If {@code edison.jobs.messages.async} is enabled, messages are not persisted on the logging thread. Instead,
+ *     they are added to a bounded queue that is drained by a background thread. All messages of a job that are
+ *     queued during one flush interval are appended using a single update of the JobRepository. Before a job is
+ *     stopped, the remaining messages of the job are flushed using {@link #flush(String)}, so no message of the job
+ *     is persisted after the job was stopped.
+ * </p>
  */
 @Component
 public class JobMessageLogAppender extends AppenderBase<ILoggingEvent> {
 
-    private JobService jobService;
+    private final JobService jobService;
+    private final OverflowPolicy overflowPolicy;
+    private final BlockingQueue<QueuedJobMessage> queue;
+    private final ScheduledExecutorService flushExecutor;
+    private final AtomicLong droppedMessages = new AtomicLong();
+    // Not synchronizing on the appender itself: AppenderBase.doAppend() is holding the appender's lock while a
+    // logging thread is blocked on a full queue.
+    private final Object flushLock = new Object();
 
-    @Autowired
     public JobMessageLogAppender(final JobService jobService) {
+        this(jobService, new JobsProperties());
+    }
+
+    @Autowired
+    public JobMessageLogAppender(final JobService jobService,
+                                 final JobsProperties jobsProperties) {
         this.jobService = jobService;
 
+        final JobsProperties.Messages messages = jobsProperties.getMessages();
+        this.overflowPolicy = messages.getOverflowPolicy();
+        FunctionCounter.builder("counter.jobs.messages.dropped", droppedMessages, AtomicLong::get)
+                .register(Metrics.globalRegistry);
+        if (messages.isAsync()) {
+            this.queue = new ArrayBlockingQueue<>(messages.getQueueSize());
+            // Not using the shared ScheduledExecutorService: if all threads are busy running jobs that are blocked
+            // on a full queue, the queue would never be drained.
+            this.flushExecutor = newSingleThreadScheduledExecutor(r -> {
+                final Thread thread = new Thread(r, "edison-JobMessageLogAppender");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.flushExecutor.scheduleWithFixedDelay(this::flush, messages.getFlushInterval(), messages.getFlushInterval(), MILLISECONDS);
+        } else {
+            this.queue = null;
+            this.flushExecutor = null;
+        }
+
         LoggerContext lc = (LoggerContext) LoggerFactory.getILoggerFactory();
         setContext(lc);
         start();
@@ -48,7 +101,11 @@ public class JobMessageLogAppender extends AppenderBase<ILoggingEvent> {
 
             try {
                 final JobMessage jobMessage = jobMessage(edisonLevel, message, OffsetDateTime.now());
-                jobService.appendMessage(jobId, jobMessage);
+                if (queue != null) {
+                    enqueue(new QueuedJobMessage(jobId, jobMessage));
+                } else {
+                    jobService.appendMessage(jobId, jobMessage);
+                }
             }
             catch(final RuntimeException e) {
                 addError("Failed to persist job message (jobId=" + jobId + "): " + message, e);
@@ -56,6 +113,102 @@ public class JobMessageLogAppender extends AppenderBase<ILoggingEvent> {
         }
     }
 
+    /**
+     * Persists all queued job messages, grouped by job, using one update per job.
+     * <p>
+     *     Called periodically by the background thread, if asynchronous persistence is enabled.
+     * </p>
+     */
+    void flush() {
+        if (queue == null) {
+            return;
+        }
+        synchronized (flushLock) {
+            if (queue.isEmpty()) {
+                return;
+            }
+            final List<QueuedJobMessage> drained = new ArrayList<>(queue.size());
+            queue.drainTo(drained);
+
+            final Map<String, List<JobMessage>> messagesByJobId = new LinkedHashMap<>();
+            drained.forEach(queued -> messagesByJobId
+                    .computeIfAbsent(queued.jobId, jobId -> new ArrayList<>())
+                    .add(queued.jobMessage));
+
+            messagesByJobId.forEach(this::persist);
+        }
+    }
+
+    /**
+     * Persists the queued messages of a single job, using a single update.
+     * <p>
+     *     Called before the job is stopped: if a flush of the background thread is in progress, the call waits until
+     *     the flush is completed, so all messages that were logged by the job before it was stopped are persisted
+     *     when this method returns. Does nothing, if asynchronous persistence is disabled.
+     * </p>
+     *
+     * @param jobId the id of the job
+     */
+    public void flush(final String jobId) {
+        if (queue == null) {
+            return;
+        }
+        // same as the job_id put into the MDC by the JobRunner:
+        final String mdcJobId = jobId.substring(jobId.lastIndexOf('/') + 1);
+        synchronized (flushLock) {
+            final List<JobMessage> jobMessages = new ArrayList<>();
+            final Iterator<QueuedJobMessage> iterator = queue.iterator();
+            while (iterator.hasNext()) {
+                final QueuedJobMessage queued = iterator.next();
+                if (queued.jobId.equals(mdcJobId)) {
+                    jobMessages.add(queued.jobMessage);
+                    iterator.remove();
+                }
+            }
+            if (!jobMessages.isEmpty()) {
+                persist(mdcJobId, jobMessages);
+            }
+        }
+    }
+
+    private void persist(final String jobId, final List<JobMessage> jobMessages) {
+        try {
+            jobService.appendMessages(jobId, jobMessages);
+        } catch (final RuntimeException e) {
+            addError("Failed to persist " + jobMessages.size() + " job messages (jobId=" + jobId + ")", e);
+        }
+    }
+
+    /**
+     * @return the number of job messages that were dropped because the queue was full.
+     */
+    public long getDroppedMessages() {
+        return droppedMessages.get();
+    }
+
+    @Override
+    @PreDestroy
+    public void stop() {
+        if (flushExecutor != null) {
+            flushExecutor.shutdown();
+            flush();
+        }
+        super.stop();
+    }
+
+    private void enqueue(final QueuedJobMessage queuedJobMessage) {
+        if (overflowPolicy == OverflowPolicy.BLOCK) {
+            try {
+                queue.put(queuedJobMessage);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                droppedMessages.incrementAndGet();
+            }
+        } else if (!queue.offer(queuedJobMessage)) {
+            droppedMessages.incrementAndGet();
+        }
+    }
+
     private de.otto.edison.jobs.domain.Level logLevelToEdisonLevel(final Level level) {
         switch (level.levelStr) {
             case "ERROR": return de.otto.edison.jobs.domain.Level.ERROR;
@@ -63,4 +216,14 @@ public class JobMessageLogAppender extends AppenderBase<ILoggingEvent> {
             default: return de.otto.edison.jobs.domain.Level.INFO;
         }
     }
+
+    private static final class QueuedJobMessage {
+        private final String jobId;
+        private final JobMessage jobMessage;
+
+        private QueuedJobMessage(final String jobId, final JobMessage jobMessage) {
+            this.jobId = jobId;
+            this.jobMessage = jobMessage;
+        }
+    }
 }
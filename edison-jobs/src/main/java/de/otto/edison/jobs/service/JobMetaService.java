@@ -1,17 +1,29 @@
 package de.otto.edison.jobs.service;
 
+import de.otto.edison.jobs.configuration.JobsProperties;
 import de.otto.edison.jobs.domain.JobMeta;
 import de.otto.edison.jobs.domain.RunningJob;
+import de.otto.edison.jobs.repository.CachingJobMetaRepository;
 import de.otto.edison.jobs.repository.JobBlockedException;
 import de.otto.edison.jobs.repository.JobMetaRepository;
+import de.otto.edison.status.domain.SystemInfo;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.HashSet;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static java.lang.String.format;
+import static java.time.Clock.systemDefaultZone;
+import static java.util.stream.Collectors.toSet;
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
@@ -23,19 +35,79 @@ public class JobMetaService {
     private static final Logger LOG = getLogger(JobMetaService.class);
 
     private final JobMetaRepository jobMetaRepository;
+    private final JobMetaRepository uncachedJobMetaRepository;
     private final JobMutexGroups mutexGroups;
+    private final String owner;
+    private final Duration leaseTime;
+    private final Clock clock;
 
-    @Autowired
     public JobMetaService(final JobMetaRepository jobMetaRepository,
                           final JobMutexGroups mutexGroups) {
+        this(jobMetaRepository, mutexGroups, null, Duration.ZERO, systemDefaultZone());
+    }
+
+    /**
+     * Creates a JobMetaService that is caching JobMeta information for
+     * {@link JobsProperties#getJobMetaCacheTtl() edison.jobs.job-meta-cache-ttl} milliseconds, and that is using
+     * run locks leased to the current host for {@link JobsProperties.Lock#getLeaseTime() edison.jobs.lock.lease-time}
+     * seconds.
+     *
+     * @param jobMetaRepository the JobMetaRepository
+     * @param mutexGroups the JobMutexGroups
+     * @param jobsProperties the JobsProperties
+     * @param systemInfo the SystemInfo used to determine the owner of run locks
+     */
+    @Autowired
+    public JobMetaService(final JobMetaRepository jobMetaRepository,
+                          final JobMutexGroups mutexGroups,
+                          final JobsProperties jobsProperties,
+                          final SystemInfo systemInfo) {
+        this(jobsProperties.getJobMetaCacheTtl() > 0
+                        ? new CachingJobMetaRepository(jobMetaRepository, jobsProperties.getJobMetaCacheTtl(), systemDefaultZone())
+                        : jobMetaRepository,
+                jobMetaRepository,
+                mutexGroups,
+                systemInfo.getHostname(),
+                Duration.ofSeconds(jobsProperties.getLock().getLeaseTime()),
+                systemDefaultZone());
+    }
+
+    JobMetaService(final JobMetaRepository jobMetaRepository,
+                   final JobMutexGroups mutexGroups,
+                   final String owner,
+                   final Duration leaseTime,
+                   final Clock clock) {
+        this(jobMetaRepository, jobMetaRepository, mutexGroups, owner, leaseTime, clock);
+    }
+
+    /**
+     * @param jobMetaRepository the (possibly caching) JobMetaRepository
+     * @param uncachedJobMetaRepository the JobMetaRepository used to check the disabled state before locking a job
+     */
+    JobMetaService(final JobMetaRepository jobMetaRepository,
+                   final JobMetaRepository uncachedJobMetaRepository,
+                   final JobMutexGroups mutexGroups,
+                   final String owner,
+                   final Duration leaseTime,
+                   final Clock clock) {
         this.jobMetaRepository = jobMetaRepository;
+        this.uncachedJobMetaRepository = uncachedJobMetaRepository;
         this.mutexGroups = mutexGroups;
+        this.owner = owner;
+        this.leaseTime = leaseTime;
+        this.clock = clock;
     }
 
     /**
      * Marks a job as running or throws JobBlockException if it is either disabled, was marked running before or is
      * blocked by some other job from the mutex group. This operation must be implemented atomically on the persistent
      * datastore (i. e. test and set) to make sure a job is never marked as running twice.
+     * <p>
+     *     After the job type is marked as running, the locks of all {@link JobMutexGroup mutex groups} containing
+     *     the job type are acquired in the order of their group names. Every group lock is a single atomic
+     *     operation, so two jobs of the same mutex group can not both be started, even if they are started
+     *     concurrently on different instances.
+     * </p>
      *
      * @param jobId the id of the job
      * @param jobType the type of the job
@@ -44,52 +116,159 @@ public class JobMetaService {
      */
     public void aquireRunLock(final String jobId, final String jobType) throws JobBlockedException {
 
-        // check for disabled lock:
-        final JobMeta jobMeta = getJobMeta(jobType);
+        // check for disabled lock, bypassing the cache, so jobs disabled by other instances are never started:
+        final JobMeta jobMeta = uncachedJobMetaRepository.getJobMeta(jobType);
 
         if (jobMeta.isDisabled()) {
             throw new JobBlockedException(format("Job '%s' is currently disabled", jobType));
         }
 
         // aquire lock:
-        if (jobMetaRepository.setRunningJob(jobType, jobId)) {
+        final Instant now = clock.instant();
+        final Instant expiresAt = now.plus(leaseTime);
+        if (!setRunningJob(jobType, jobId, expiresAt, now)) {
+            throw new JobBlockedException(format("Job '%s' is already running", jobType));
+        }
+
+        // aquire locks of the mutex groups:
+        final List<JobMutexGroup> lockedGroups = new ArrayList<>();
+        boolean locked = false;
+        try {
+            for (final JobMutexGroup mutexGroup : mutexGroups.mutexGroupsFor(jobType)) {
+                if (acquireGroupLock(mutexGroup.getGroupName(), jobType, jobId, expiresAt, now)) {
+                    lockedGroups.add(mutexGroup);
+                } else {
+                    final String running = jobMetaRepository.getGroupLock(mutexGroup.getGroupName());
+                    throw new JobBlockedException(format("Job '%s' blocked by currently running job '%s'", jobType, running));
+                }
+            }
+            locked = true;
+        } finally {
+            if (!locked) {
+                releaseRunLock(jobId, jobType, lockedGroups);
+            }
+        }
+    }
 
-            // check for mutually exclusive running jobs:
-            mutexGroups.mutexJobTypesFor(jobType)
+    /**
+     * Renews the leases of the run lock and the mutex group locks held by a running job. Called whenever the
+     * job is sending a keep-alive ping. Does nothing if leases are disabled.
+     *
+     * @param jobId the id of the job
+     * @param jobType the type of the job
+     */
+    public void renewRunLock(final String jobId, final String jobType) {
+        if (isLeasing()) {
+            final Instant expiresAt = clock.instant().plus(leaseTime);
+            if (jobMetaRepository.renewRunningJob(jobType, jobId, expiresAt)) {
+                mutexGroups.mutexGroupsFor(jobType)
+                        .forEach(mutexGroup -> jobMetaRepository.renewGroupLock(mutexGroup.getGroupName(), jobId, expiresAt));
+            } else {
+                LOG.warn("Failed to renew run lock of job '{}' ({}): the lock is not held by the job anymore", jobType, jobId);
+            }
+        }
+    }
+
+    /**
+     * Renews the leases of the run locks and the mutex group locks held by several running jobs, using a single
+     * update of the JobMetaRepository. Does nothing if leases are disabled.
+     *
+     * @param runningJobs the jobs running on the current instance
+     */
+    public void renewRunLocks(final Collection<RunningJob> runningJobs) {
+        if (isLeasing() && !runningJobs.isEmpty()) {
+            final Instant expiresAt = clock.instant().plus(leaseTime);
+            final Set<String> groupNames = runningJobs
                     .stream()
-                    .filter(mutexJobType -> jobMetaRepository.getRunningJob(mutexJobType) != null)
-                    .findAny()
-                    .ifPresent(running -> {
-                        releaseRunLock(jobType);
-                        throw new JobBlockedException(format("Job '%s' blocked by currently running job '%s'", jobType, running));
-                    });
-        } else {
-            throw new JobBlockedException(format("Job '%s' is already running", jobType));
+                    .flatMap(runningJob -> mutexGroups.mutexGroupsFor(runningJob.jobType).stream())
+                    .map(JobMutexGroup::getGroupName)
+                    .collect(toSet());
+            jobMetaRepository.renewLocks(runningJobs, groupNames, expiresAt);
+        }
+    }
+
+    /**
+     * Returns true, if the current instance is the preferred instance to run a job type: either the job type was
+     * never run using a leased lock, or the current instance was the last one running it.
+     *
+     * @param jobType the type of the job
+     * @return boolean
+     */
+    public boolean isPreferredOwner(final String jobType) {
+        if (!isLeasing()) {
+            return true;
         }
+        final String lockOwner = jobMetaRepository.getLockOwner(jobType);
+        return lockOwner == null || lockOwner.equals(owner);
     }
 
     /**
-     * Clears the job running mark of the jobType. Does nothing if not mark exists.
+     * Clears the job running mark of the jobType and releases the locks of the mutex groups held by the job.
+     * Does nothing if not mark exists.
+     * <p>
+     *     The running mark is only cleared if it is still held by the job: if the lease of the job has expired,
+     *     the job type may already be running on another instance. The group locks are released after the running
+     *     mark was cleared, even if clearing the mark failed. Group locks are only released if they are still held
+     *     by the job: another job of the same type, started after the running mark was cleared, may already have
+     *     taken them over. Group locks that are left behind, for example because the instance died in between, are
+     *     released by {@link #releaseOrphanedGroupLocks()}.
+     * </p>
      *
+     * @param jobId the id of the job
      * @param jobType the job type
      */
-    public void releaseRunLock(final String jobType) {
-        jobMetaRepository.clearRunningJob(jobType);
+    public void releaseRunLock(final String jobId, final String jobType) {
+        releaseRunLock(jobId, jobType, mutexGroups.mutexGroupsFor(jobType));
+    }
+
+    /**
+     * Unconditionally clears the job running mark of the jobType, and releases the locks of the mutex groups held
+     * by the job. Only used to clean up run locks of jobs that are known to be stopped.
+     *
+     * @param jobId the id of the job
+     * @param jobType the job type
+     */
+    public void forceReleaseRunLock(final String jobId, final String jobType) {
+        try {
+            jobMetaRepository.clearRunningJob(jobType);
+        } finally {
+            releaseGroupLocks(jobId, mutexGroups.mutexGroupsFor(jobType));
+        }
+    }
+
+    /**
+     * Releases the locks of all mutex groups that are held by jobs that are not running.
+     */
+    public void releaseOrphanedGroupLocks() {
+        // The group locks are read before the running jobs: a job is marked as running before it acquires
+        // group locks, so the holder of a group lock is always found in the running jobs, if it is still running.
+        final Map<String, String> groupLocks = new HashMap<>();
+        mutexGroups.getMutexGroups().forEach(mutexGroup -> {
+            final String jobId = jobMetaRepository.getGroupLockHolder(mutexGroup.getGroupName());
+            if (jobId != null) {
+                groupLocks.put(mutexGroup.getGroupName(), jobId);
+            }
+        });
+        if (groupLocks.isEmpty()) {
+            return;
+        }
+        final Set<String> runningJobIds = runningJobs()
+                .stream()
+                .map(runningJob -> runningJob.jobId)
+                .collect(toSet());
+        groupLocks.forEach((groupName, jobId) -> {
+            if (!runningJobIds.contains(jobId)) {
+                LOG.error("Release lock of mutex group {}. Job {} is not running.", groupName, jobId);
+                jobMetaRepository.releaseGroupLock(groupName, jobId);
+            }
+        });
     }
 
     /**
      * @return All Running Jobs as specified by the markJobAsRunningIfPossible method.
      */
     public Set<RunningJob> runningJobs() {
-        final Set<RunningJob> runningJobs = new HashSet<>();
-        jobMetaRepository.findAllJobTypes()
-                .forEach(jobType -> {
-                    final String jobId = jobMetaRepository.getRunningJob(jobType);
-                    if (jobId != null) {
-                        runningJobs.add(new RunningJob(jobId, jobType));
-                    }
-                });
-        return runningJobs;
+        return jobMetaRepository.findRunningJobs();
     }
 
     /**
@@ -115,4 +294,46 @@ public class JobMetaService {
         return jobMetaRepository.getJobMeta(jobType);
     }
 
+    /**
+     * Returns the JobMeta information of a number of job types.
+     *
+     * @param jobTypes the job types
+     * @return map of job type to JobMeta
+     */
+    public Map<String, JobMeta> getJobMetas(final Set<String> jobTypes) {
+        return jobMetaRepository.getJobMetas(jobTypes);
+    }
+
+    private void releaseRunLock(final String jobId, final String jobType, final List<JobMutexGroup> lockedGroups) {
+        try {
+            jobMetaRepository.clearRunningJob(jobType, jobId);
+        } finally {
+            releaseGroupLocks(jobId, lockedGroups);
+        }
+    }
+
+    private void releaseGroupLocks(final String jobId, final List<JobMutexGroup> lockedGroups) {
+        lockedGroups.forEach(mutexGroup -> jobMetaRepository.releaseGroupLock(mutexGroup.getGroupName(), jobId));
+    }
+
+    private boolean isLeasing() {
+        return !leaseTime.isZero();
+    }
+
+    private boolean setRunningJob(final String jobType, final String jobId, final Instant expiresAt, final Instant now) {
+        return isLeasing()
+                ? jobMetaRepository.setRunningJob(jobType, jobId, owner, expiresAt, now)
+                : jobMetaRepository.setRunningJob(jobType, jobId);
+    }
+
+    private boolean acquireGroupLock(final String groupName,
+                                     final String jobType,
+                                     final String jobId,
+                                     final Instant expiresAt,
+                                     final Instant now) {
+        return isLeasing()
+                ? jobMetaRepository.acquireGroupLock(groupName, jobType, jobId, expiresAt, now)
+                : jobMetaRepository.acquireGroupLock(groupName, jobType, jobId);
+    }
+
 }
@@ -0,0 +1,83 @@
+package de.otto.edison.jobs.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static de.otto.edison.jobs.service.JobTypes.normalize;
+
+/**
+ * Metrics of job executions, tagged by job type:
+ * <ul>
+ *     <li>{@code timer.jobs.runtime}: the duration of job executions, including percentiles.</li>
+ *     <li>{@code timer.jobs.queue.wait}: the time between triggering a job and the start of its execution.</li>
+ *     <li>{@code counter.jobs.outcome}: the number of finished jobs and restarts, additionally tagged by outcome
+ *     OK, ERROR, SKIPPED, DEAD or RESTART.</li>
+ *     <li>{@code gauge.jobs.running}: the number of jobs that are currently executed by the current instance.</li>
+ * </ul>
+ */
+final class JobMetrics {
+
+    static final String RUNTIME = "timer.jobs.runtime";
+    static final String QUEUE_WAIT = "timer.jobs.queue.wait";
+    static final String OUTCOME = "counter.jobs.outcome";
+    static final String RUNNING = "gauge.jobs.running";
+    static final String TAG_JOB_TYPE = "jobType";
+    static final String TAG_OUTCOME = "outcome";
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<String, Timer> runtimeTimers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Timer> queueWaitTimers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicInteger> runningJobs = new ConcurrentHashMap<>();
+
+    JobMetrics(final MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    void recordRuntime(final String jobType, final long nanos) {
+        runtimeTimers.computeIfAbsent(normalize(jobType), type -> Timer.builder(RUNTIME)
+                .tag(TAG_JOB_TYPE, type)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordQueueWait(final String jobType, final long nanos) {
+        queueWaitTimers.computeIfAbsent(normalize(jobType), type -> Timer.builder(QUEUE_WAIT)
+                .tag(TAG_JOB_TYPE, type)
+                .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void countOutcome(final String jobType, final String outcome) {
+        Counter.builder(OUTCOME)
+                .tag(TAG_JOB_TYPE, normalize(jobType))
+                .tag(TAG_OUTCOME, outcome)
+                .register(registry)
+                .increment();
+    }
+
+    void jobStarted(final String jobType) {
+        running(jobType).incrementAndGet();
+    }
+
+    void jobFinished(final String jobType) {
+        running(jobType).decrementAndGet();
+    }
+
+    private AtomicInteger running(final String jobType) {
+        return runningJobs.computeIfAbsent(normalize(jobType), type -> {
+            final AtomicInteger running = new AtomicInteger();
+            Gauge.builder(RUNNING, running, AtomicInteger::get)
+                    .tag(TAG_JOB_TYPE, type)
+                    .register(registry);
+            return running;
+        });
+    }
+}
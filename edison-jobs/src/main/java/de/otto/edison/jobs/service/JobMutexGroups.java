@@ -1,22 +1,46 @@
 package de.otto.edison.jobs.service;
 
+import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Collections.unmodifiableSet;
+import static java.util.Comparator.comparing;
+import static java.util.Comparator.naturalOrder;
+import static java.util.Comparator.nullsFirst;
+import static de.otto.edison.jobs.service.JobTypes.normalize;
+import static java.util.stream.Collectors.groupingBy;
+import static org.slf4j.LoggerFactory.getLogger;
 
 /**
  * Component used to determine the mutually exclusive job types for a given type.
+ * <p>
+ *     The mutually exclusive job types and the mutex groups of every job type are computed once, when the mutex
+ *     groups are set. Lookups are case-insensitive, like the lookup of job definitions in the {@link JobService}.
+ * </p>
  *
  * @since 1.0.0
  */
 @Component
 public class JobMutexGroups {
 
+    private static final Logger LOG = getLogger(JobMutexGroups.class);
+
     private Set<JobMutexGroup> mutexGroups = emptySet();
+    private Map<String, Set<String>> mutexJobTypes = emptyMap();
+    private Map<String, List<JobMutexGroup>> mutexGroupsByJobType = emptyMap();
 
     /**
      * Returns the set of configured JobMutextGroups.
@@ -27,31 +51,98 @@ public class JobMutexGroups {
         return mutexGroups;
     }
 
+    /**
+     * Returns the immutable index of mutually exclusive job types, keyed by the lower-case job type.
+     *
+     * @return map of lower-case job type to the set of mutually exclusive job types
+     */
+    public Map<String, Set<String>> getMutexJobTypes() {
+        return mutexJobTypes;
+    }
+
     /**
      * Returns the set of mutually exclusive job types for a given type.
      * <p>
-     * Because every job type is mutually exclusive with itself, the returned set will at least contain the
-     * type provided as parameter.
+     * The returned set does not contain the type provided as parameter.
      * </p>
      * @param jobType the given job type
-     * @return set of mutually exclusive job types
+     * @return immutable set of mutually exclusive job types
      */
     public Set<String> mutexJobTypesFor(final String jobType) {
-        final Set<String> result = new HashSet<>();
-        this.mutexGroups
-                .stream()
-                .map(JobMutexGroup::getJobTypes)
-                .filter(g -> g.contains(jobType))
-                .forEach(result::addAll);
-        result.remove(jobType);
-        return result;
+        return mutexJobTypes.getOrDefault(normalize(jobType), emptySet());
+    }
+
+    /**
+     * Returns the mutex groups containing the given job type, ordered by group name.
+     * <p>
+     *     Locks of mutex groups must always be acquired in the same order to prevent two jobs from blocking each
+     *     other forever.
+     * </p>
+     *
+     * @param jobType the given job type
+     * @return immutable list of mutex groups
+     */
+    public List<JobMutexGroup> mutexGroupsFor(final String jobType) {
+        return mutexGroupsByJobType.getOrDefault(normalize(jobType), emptyList());
     }
 
     @Autowired(required = false)
     public JobMutexGroups setMutexGroups(Set<JobMutexGroup> mutexGroups) {
         this.mutexGroups = mutexGroups;
+        this.mutexGroupsByJobType = indexMutexGroups(mutexGroups);
+        this.mutexJobTypes = indexMutexJobTypes(mutexGroupsByJobType);
+        validate();
         return this;
     }
 
+    /**
+     * Logs a warning for mutex groups sharing the same name, because they are sharing the same lock, and for
+     * job types contained in more than one mutex group.
+     * <p>
+     *     Mutual exclusion is not transitive: if job type A is excluding B in one group and B is excluding C in
+     *     another group, A and C may still run concurrently.
+     * </p>
+     */
+    private void validate() {
+        mutexGroups.stream()
+                .collect(groupingBy(group -> String.valueOf(group.getGroupName())))
+                .forEach((groupName, groups) -> {
+                    if (groups.size() > 1) {
+                        LOG.warn("{} JobMutexGroups are named '{}' and will share the same lock: {}", groups.size(), groupName, groups);
+                    }
+                });
+        mutexGroupsByJobType.forEach((jobType, groups) -> {
+            if (groups.size() > 1) {
+                LOG.warn("Job type '{}' is contained in overlapping JobMutexGroups {}. The job types of these groups are " +
+                        "not mutually exclusive to each other, unless they are contained in a common group.", jobType, groups);
+            }
+        });
+    }
+
+    private static Map<String, List<JobMutexGroup>> indexMutexGroups(final Set<JobMutexGroup> mutexGroups) {
+        final Map<String, List<JobMutexGroup>> index = new HashMap<>();
+        mutexGroups.stream()
+                .sorted(comparing(JobMutexGroup::getGroupName, nullsFirst(naturalOrder())))
+                .forEach(group -> group.getJobTypes()
+                        .stream()
+                        .map(JobTypes::normalize)
+                        .distinct()
+                        .forEach(jobType -> index.computeIfAbsent(jobType, k -> new ArrayList<>()).add(group)));
+        index.replaceAll((jobType, groups) -> unmodifiableList(groups));
+        return unmodifiableMap(index);
+    }
+
+    private static Map<String, Set<String>> indexMutexJobTypes(final Map<String, List<JobMutexGroup>> mutexGroupsByJobType) {
+        final Map<String, Set<String>> index = new HashMap<>();
+        mutexGroupsByJobType.forEach((jobType, groups) -> {
+            final Set<String> jobTypes = new LinkedHashSet<>();
+            groups.forEach(group -> group.getJobTypes()
+                    .stream()
+                    .filter(other -> !normalize(other).equals(jobType))
+                    .forEach(jobTypes::add));
+            index.put(jobType, unmodifiableSet(jobTypes));
+        });
+        return unmodifiableMap(index);
+    }
 
 }
@@ -9,12 +9,15 @@ import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
 
 import static de.otto.edison.jobs.eventbus.events.StateChangeEvent.State.*;
 import static de.otto.edison.jobs.eventbus.events.StateChangeEvent.newStateChangeEvent;
 import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -26,18 +29,25 @@ public final class JobRunner implements Runnable {
     private final String jobId;
     private final JobRunnable jobRunnable;
     private final ScheduledExecutorService executorService;
+    private final Executor jobExecutor;
+    private final boolean keepAlivePings;
     private final ApplicationEventPublisher eventPublisher;
     private final Marker jobMarker;
     private ScheduledFuture<?> pingJob;
+    private ScheduledFuture<?> restartJob;
 
     private JobRunner(final String jobId,
                       final JobRunnable jobRunnable,
                       final ApplicationEventPublisher eventPublisher,
-                      final ScheduledExecutorService executorService) {
+                      final ScheduledExecutorService executorService,
+                      final Executor jobExecutor,
+                      final boolean keepAlivePings) {
         this.jobId = jobId;
         this.jobRunnable = jobRunnable;
         this.eventPublisher = eventPublisher;
         this.executorService = executorService;
+        this.jobExecutor = jobExecutor;
+        this.keepAlivePings = keepAlivePings;
         this.jobMarker = JobMarker.jobMarker(jobRunnable.getJobDefinition().jobType());
     }
 
@@ -45,60 +55,155 @@ public final class JobRunner implements Runnable {
                                          final JobRunnable jobRunnable,
                                          final ApplicationEventPublisher eventPublisher,
                                          final ScheduledExecutorService executorService) {
-        return new JobRunner(jobId, jobRunnable, eventPublisher, executorService);
+        return new JobRunner(jobId, jobRunnable, eventPublisher, executorService, executorService, true);
+    }
+
+    /**
+     * Creates a JobRunner that is executing delayed restarts of the job using the jobExecutor.
+     *
+     * @param jobId the id of the job
+     * @param jobRunnable the JobRunnable
+     * @param eventPublisher the publisher used to publish the state changes of the job
+     * @param executorService the ScheduledExecutorService used for keep-alive pings and to delay restarts
+     * @param jobExecutor the Executor used to run the job after a delayed restart
+     * @return JobRunner
+     */
+    public static JobRunner newJobRunner(final String jobId,
+                                         final JobRunnable jobRunnable,
+                                         final ApplicationEventPublisher eventPublisher,
+                                         final ScheduledExecutorService executorService,
+                                         final Executor jobExecutor) {
+        return new JobRunner(jobId, jobRunnable, eventPublisher, executorService, jobExecutor, true);
+    }
+
+    /**
+     * Creates a JobRunner that is only publishing KEEP_ALIVE events, if keepAlivePings is true. Otherwise, the
+     * keep-alives of the job are written by {@link JobHeartbeats}.
+     *
+     * @param jobId the id of the job
+     * @param jobRunnable the JobRunnable
+     * @param eventPublisher the publisher used to publish the state changes of the job
+     * @param executorService the ScheduledExecutorService used for keep-alive pings and to delay restarts
+     * @param jobExecutor the Executor used to run the job after a delayed restart
+     * @param keepAlivePings true, if the JobRunner should publish KEEP_ALIVE events
+     * @return JobRunner
+     */
+    public static JobRunner newJobRunner(final String jobId,
+                                         final JobRunnable jobRunnable,
+                                         final ApplicationEventPublisher eventPublisher,
+                                         final ScheduledExecutorService executorService,
+                                         final Executor jobExecutor,
+                                         final boolean keepAlivePings) {
+        return new JobRunner(jobId, jobRunnable, eventPublisher, executorService, jobExecutor, keepAlivePings);
     }
 
     public void run() {
         start();
+        execute(jobRunnable.getJobDefinition().restarts(), 0);
+    }
+
+    /**
+     * Executes the job, and restarts it if it failed with an exception. Restarts without delay are executed
+     * immediately. Delayed restarts are scheduled using the ScheduledExecutorService, so no thread is blocked while
+     * waiting for the restart. The job is stopped after the last attempt.
+     *
+     * @param restarts the number of remaining restarts
+     * @param attempt the number of the current attempt, starting with 0
+     */
+    private void execute(final int restarts, final int attempt) {
+        boolean restartScheduled = false;
         try {
-            final JobDefinition jobDefinition = jobRunnable.getJobDefinition();
-            final int restarts = jobDefinition.restarts();
-            final Optional<Duration> retryDelay = jobDefinition.retryDelay();
-            executeAndRetry(restarts, retryDelay);
+            putMDC();
+            int remainingRestarts = restarts;
+            int currentAttempt = attempt;
+            while (true) {
+                try {
+                    final boolean executed = jobRunnable.execute();
+                    if (!executed) {
+                        eventPublisher.publishEvent(
+                                newStateChangeEvent(jobRunnable, jobId, SKIPPED)
+                        );
+                    }
+                    break;
+                } catch (final RuntimeException e) {
+                    if (remainingRestarts <= 0) {
+                        error(e);
+                        break;
+                    }
+                    LOG.warn("Restarting job because of an exception caught during execution: " + e.getMessage());
+                    eventPublisher.publishEvent(
+                            newStateChangeEvent(jobRunnable, jobId, RESTART)
+                    );
+                    final long delay = restartDelayMillis(jobRunnable.getJobDefinition(), currentAttempt, ThreadLocalRandom.current().nextDouble());
+                    remainingRestarts--;
+                    currentAttempt++;
+                    if (delay > 0) {
+                        scheduleRestart(remainingRestarts, currentAttempt, delay);
+                        restartScheduled = true;
+                        break;
+                    }
+                }
+            }
         } catch (final RuntimeException e) {
             error(e);
         } finally {
-            stop();
+            if (restartScheduled) {
+                MDC.clear();
+            } else {
+                stop();
+            }
         }
     }
 
-    private synchronized void executeAndRetry(final int restarts, final Optional<Duration> retryDelay) {
-        try {
-            final boolean executed = jobRunnable.execute();
-            if (!executed) {
-                eventPublisher.publishEvent(
-                        newStateChangeEvent(jobRunnable, jobId, SKIPPED)
-                );
-            }
-        } catch (final RuntimeException e) {
-            if (restarts > 0) {
-                LOG.warn("Restarting job because of an exception caught during execution: " + e.getMessage());
-                eventPublisher.publishEvent(
-                        newStateChangeEvent(jobRunnable, jobId, RESTART)
-                );
-                retryDelay.ifPresent(this::sleep);
-                executeAndRetry(restarts - 1, retryDelay);
-            } else {
+    /**
+     * Schedules a delayed restart of the job. If the restart can not be handed over to the jobExecutor, for example
+     * because the executor was shut down in the meantime, the job is stopped, so the keep-alive pings are cancelled
+     * and the job is not left running forever.
+     */
+    private synchronized void scheduleRestart(final int restarts, final int attempt, final long delayMillis) {
+        LOG.info(jobMarker, "Restarting job '{}' in {}ms", jobId, delayMillis);
+        restartJob = executorService.schedule(() -> {
+            try {
+                jobExecutor.execute(() -> execute(restarts, attempt));
+            } catch (final RuntimeException e) {
                 error(e);
+                stop();
             }
+        }, delayMillis, MILLISECONDS);
+    }
+
+    /**
+     * Calculates the delay before restarting a failed job, using the retry delay, backoff and jitter of the
+     * JobDefinition.
+     *
+     * @param jobDefinition the definition of the job
+     * @param attempt the number of the failed attempt, starting with 0
+     * @param random random number between 0.0 (inclusive) and 1.0 (exclusive), used to calculate the jitter
+     * @return delay in milliseconds
+     */
+    static long restartDelayMillis(final JobDefinition jobDefinition, final int attempt, final double random) {
+        final long retryDelay = jobDefinition.retryDelay().map(Duration::toMillis).orElse(0L);
+        double delay = retryDelay * Math.pow(Math.max(1.0, jobDefinition.retryBackoffMultiplier()), attempt);
+        final Optional<Duration> maxRetryDelay = jobDefinition.maxRetryDelay();
+        if (maxRetryDelay.isPresent()) {
+            delay = Math.min(delay, maxRetryDelay.get().toMillis());
         }
-	}
-
-    private void sleep(final Duration duration) {
-    	try {
-			Thread.sleep(duration.toMillis());
-		} catch (InterruptedException e) {
-	        LOG.error(jobMarker, "InterruptedException", e);
-		}
+        return (long) (delay * (1.0 - jobDefinition.retryJitter() * random));
     }
 
-    synchronized void start() {
+    private void putMDC() {
         MDC.put("job_id", jobId.substring(jobId.lastIndexOf('/') + 1));
         MDC.put("job_type", jobRunnable.getJobDefinition().jobType());
+    }
+
+    synchronized void start() {
+        putMDC();
         eventPublisher.publishEvent(
                 newStateChangeEvent(jobRunnable, jobId, START)
         );
-        pingJob = executorService.scheduleAtFixedRate(this::ping, PING_PERIOD, PING_PERIOD, SECONDS);
+        if (keepAlivePings) {
+            pingJob = executorService.scheduleAtFixedRate(this::ping, PING_PERIOD, PING_PERIOD, SECONDS);
+        }
         LOG.info(jobMarker, "Job started '{}'", jobId);
     }
 
@@ -117,7 +222,12 @@ public final class JobRunner implements Runnable {
     }
 
     synchronized void stop() {
-        pingJob.cancel(false);
+        if (pingJob != null) {
+            pingJob.cancel(false);
+        }
+        if (restartJob != null) {
+            restartJob.cancel(false);
+        }
 
         try {
             eventPublisher.publishEvent(
@@ -0,0 +1,308 @@
+package de.otto.edison.jobs.service;
+
+import de.otto.edison.jobs.configuration.JobsProperties;
+import de.otto.edison.jobs.configuration.JobsProperties.Scheduler.MisfirePolicy;
+import de.otto.edison.jobs.definition.JobDefinition;
+import de.otto.edison.jobs.eventbus.events.StateChangeEvent;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.support.CronSequenceGenerator;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+import static de.otto.edison.jobs.eventbus.events.StateChangeEvent.State.STOP;
+import static de.otto.edison.jobs.service.JobTypes.normalize;
+import static java.lang.Math.max;
+import static java.time.OffsetDateTime.ofInstant;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Triggers all jobs having a {@link JobDefinition#cron() cron expression} or {@link JobDefinition#fixedDelay() fixed
+ * delay} using the shared ScheduledExecutorService.
+ * <p>
+ *     The JobScheduler is enabled using {@code edison.jobs.scheduler.enabled=true}. To prevent all instances of a
+ *     service from trying to start the same job at the same time, a random jitter of up to
+ *     {@code edison.jobs.scheduler.max-jitter} milliseconds is added to the fire times of every job type. If a job is
+ *     triggered more than {@code edison.jobs.scheduler.misfire-threshold} milliseconds later than scheduled, the
+ *     {@link MisfirePolicy} decides whether the job is triggered once, or skipped until the next fire time.
+ * </p>
+ * <p>
+ *     The fixed delay is the time between the end of a job and the next start: if the job was started by this
+ *     instance, the next fire time is scheduled when the job is {@link StateChangeEvent.State#STOP stopped}. If the job
+ *     was not started, for example because it is running on another instance, the next fire time is scheduled
+ *     immediately.
+ * </p>
+ * <p>
+ *     Jobs are started using {@link JobService#startAsyncJob(String)}, so disabled or already running jobs, as well as
+ *     jobs blocked by a {@link JobMutexGroup}, are not started.
+ * </p>
+ * <p>
+ *     If {@code edison.jobs.scheduler.preferred-owner-delay} is configured and run locks are
+ *     {@link JobMetaService#isPreferredOwner(String) leased}, an instance that was not the last one running a job
+ *     type delays the trigger, and only starts the job if the last owner did not start it in the meantime. This way,
+ *     job types are sticky to the instance running them, instead of being started by whichever instance wins the race.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(prefix = "edison.jobs.scheduler", name = "enabled", havingValue = "true")
+public class JobScheduler {
+
+    private static final Logger LOG = getLogger(JobScheduler.class);
+
+    private final JobDefinitionService jobDefinitionService;
+    private final JobService jobService;
+    private final JobMetaService jobMetaService;
+    private final ScheduledExecutorService executor;
+    private final long misfireThreshold;
+    private final long preferredOwnerDelay;
+    private final long maxJitter;
+    private final MisfirePolicy misfirePolicy;
+    private final Clock clock;
+    private final LongSupplier jitter;
+    private final Map<String, Trigger> triggers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public JobScheduler(final JobDefinitionService jobDefinitionService,
+                        final JobService jobService,
+                        final JobMetaService jobMetaService,
+                        final ScheduledExecutorService executor,
+                        final JobsProperties jobsProperties) {
+        this(jobDefinitionService, jobService, jobMetaService, executor, jobsProperties, Clock.systemDefaultZone(),
+                randomJitter(jobsProperties.getScheduler().getMaxJitter()));
+    }
+
+    JobScheduler(final JobDefinitionService jobDefinitionService,
+                 final JobService jobService,
+                 final JobMetaService jobMetaService,
+                 final ScheduledExecutorService executor,
+                 final JobsProperties jobsProperties,
+                 final Clock clock,
+                 final LongSupplier jitter) {
+        this.jobDefinitionService = jobDefinitionService;
+        this.jobService = jobService;
+        this.jobMetaService = jobMetaService;
+        this.executor = executor;
+        this.misfireThreshold = jobsProperties.getScheduler().getMisfireThreshold();
+        this.preferredOwnerDelay = jobsProperties.getScheduler().getPreferredOwnerDelay();
+        this.maxJitter = jobsProperties.getScheduler().getMaxJitter();
+        this.misfirePolicy = jobsProperties.getScheduler().getMisfirePolicy();
+        this.clock = clock;
+        this.jitter = jitter;
+    }
+
+    /**
+     * Schedules all jobs having a cron expression or fixed delay. If both are specified, the cron expression is used.
+     *
+     * @throws IllegalArgumentException if a cron expression is invalid
+     */
+    @PostConstruct
+    public void start() {
+        jobDefinitionService.getJobDefinitions()
+                .stream()
+                .filter(jobDefinition -> jobDefinition.cron().isPresent() || jobDefinition.fixedDelay().isPresent())
+                .forEach(jobDefinition -> {
+                    final Trigger trigger = new Trigger(jobDefinition, jitter.getAsLong());
+                    triggers.put(normalize(jobDefinition.jobType()), trigger);
+                    trigger.scheduleFirst();
+                });
+        LOG.info("Scheduled {} jobs: {}", triggers.size(), triggers.keySet());
+    }
+
+    /**
+     * Cancels all scheduled triggers. Jobs that are already running are not affected.
+     */
+    @PreDestroy
+    public void stop() {
+        triggers.values().forEach(Trigger::cancel);
+        triggers.clear();
+    }
+
+    /**
+     * Schedules the next fire time of a job with fixed delay, after the job started by this scheduler has stopped.
+     *
+     * @param event the state change of a job
+     */
+    @EventListener
+    public void onStateChange(final StateChangeEvent event) {
+        if (event.getState() == STOP) {
+            final Trigger trigger = triggers.get(normalize(event.getJobType()));
+            if (trigger != null) {
+                trigger.stopped(event.getJobId());
+            }
+        }
+    }
+
+    /**
+     * Returns the time when the job type is triggered next, or an empty Optional if the job type is not scheduled,
+     * or if a job with fixed delay is currently running.
+     *
+     * @param jobType case insensitive {@link JobDefinition#jobType() job type}
+     * @return optional next fire time
+     */
+    public Optional<OffsetDateTime> nextFireTime(final String jobType) {
+        return Optional.ofNullable(triggers.get(normalize(jobType)))
+                .map(trigger -> trigger.nextFireTime)
+                .map(nextFireTime -> ofInstant(nextFireTime, clock.getZone()));
+    }
+
+    private static LongSupplier randomJitter(final long maxJitter) {
+        return () -> maxJitter > 0 ? ThreadLocalRandom.current().nextLong(maxJitter + 1) : 0;
+    }
+
+    private final class Trigger implements Runnable {
+
+        private final String jobType;
+        private final Optional<CronSequenceGenerator> cron;
+        private final Optional<Duration> fixedDelay;
+        private final long jitterMillis;
+        private volatile Instant nextFireTime;
+        private volatile ScheduledFuture<?> future;
+        private volatile boolean cancelled = false;
+        private String runningJobId;
+        private String stoppedJobId;
+
+        private Trigger(final JobDefinition jobDefinition, final long jitterMillis) {
+            this.jobType = jobDefinition.jobType();
+            this.cron = jobDefinition.cron()
+                    .map(expression -> new CronSequenceGenerator(expression, TimeZone.getTimeZone(clock.getZone())));
+            this.fixedDelay = jobDefinition.fixedDelay();
+            this.jitterMillis = jitterMillis;
+        }
+
+        private void scheduleFirst() {
+            final Instant now = clock.instant();
+            if (cron.isPresent()) {
+                schedule(nextCronFireTime(now));
+            } else {
+                schedule(now.plus(fixedDelay.get()).plusMillis(jitterMillis));
+            }
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) {
+                return;
+            }
+            final Instant now = clock.instant();
+            final Instant scheduled = nextFireTime;
+            boolean running = false;
+            try {
+                final long lateness = Duration.between(scheduled, now).toMillis();
+                if (lateness > misfireThreshold && misfirePolicy == MisfirePolicy.SKIP) {
+                    LOG.warn("Skipped misfired trigger of job '{}' that was scheduled {}ms ago", jobType, lateness);
+                } else if (preferredOwnerDelay > 0 && !jobMetaService.isPreferredOwner(jobType)) {
+                    executor.schedule(() -> startIfNotStartedSince(now), preferredOwnerDelay, MILLISECONDS);
+                    running = true;
+                } else {
+                    running = start();
+                }
+            } catch (final RuntimeException e) {
+                LOG.error("Failed to trigger job '" + jobType + "': " + e.getMessage(), e);
+            } finally {
+                // Missed fire times are never caught up one by one: the next fire time is calculated from now.
+                if (cron.isPresent()) {
+                    schedule(nextCronFireTime(now.isAfter(scheduled) ? now : scheduled));
+                } else if (!running) {
+                    schedule(now.plus(fixedDelay.get()));
+                }
+            }
+        }
+
+        /**
+         * Starts the job. Jobs with fixed delay are scheduled again, after the started job has stopped.
+         *
+         * @return true, if the next fire time is scheduled when the job has stopped
+         */
+        private boolean start() {
+            final Optional<String> jobId = jobService.startAsyncJob(jobType);
+            if (!cron.isPresent() && jobId.isPresent()) {
+                return awaitStop(jobId.get());
+            }
+            return false;
+        }
+
+        private synchronized boolean awaitStop(final String jobId) {
+            if (jobId.equals(stoppedJobId)) {
+                // the job has already stopped:
+                return false;
+            }
+            runningJobId = jobId;
+            nextFireTime = null;
+            return true;
+        }
+
+        private synchronized void stopped(final String jobId) {
+            if (jobId.equals(runningJobId)) {
+                runningJobId = null;
+                schedule(clock.instant().plus(fixedDelay.get()));
+            } else {
+                stoppedJobId = jobId;
+            }
+        }
+
+        /**
+         * Starts the job, unless the preferred owner has started it after the (jittered) fire time of this instance.
+         */
+        private void startIfNotStartedSince(final Instant triggered) {
+            if (cancelled) {
+                return;
+            }
+            boolean running = false;
+            try {
+                final Instant startedAfter = triggered.minusMillis(maxJitter);
+                final boolean startedByOtherInstance = jobService.findJobs(Optional.of(jobType), 1)
+                        .stream()
+                        .anyMatch(jobInfo -> jobInfo.getStarted().toInstant().isAfter(startedAfter));
+                if (startedByOtherInstance) {
+                    LOG.debug("Job '{}' was already started by the preferred instance", jobType);
+                } else {
+                    running = start();
+                }
+            } catch (final RuntimeException e) {
+                LOG.error("Failed to trigger job '" + jobType + "': " + e.getMessage(), e);
+            } finally {
+                if (!cron.isPresent() && !running) {
+                    schedule(triggered.plus(fixedDelay.get()));
+                }
+            }
+        }
+
+        private Instant nextCronFireTime(final Instant after) {
+            final Date next = cron.get().next(Date.from(after.minusMillis(jitterMillis)));
+            return next.toInstant().plusMillis(jitterMillis);
+        }
+
+        private synchronized void schedule(final Instant fireTime) {
+            if (!cancelled) {
+                nextFireTime = fireTime;
+                final long delay = max(0, Duration.between(clock.instant(), fireTime).toMillis());
+                future = executor.schedule(this, delay, MILLISECONDS);
+            }
+        }
+
+        private synchronized void cancel() {
+            cancelled = true;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+    }
+}
@@ -5,6 +5,7 @@ import de.otto.edison.jobs.domain.JobInfo;
 import de.otto.edison.jobs.domain.JobMessage;
 import de.otto.edison.jobs.domain.Level;
 import de.otto.edison.jobs.domain.RunningJob;
+import de.otto.edison.jobs.eventbus.AsyncStateChangeEventDispatcher;
 import de.otto.edison.jobs.repository.JobBlockedException;
 import de.otto.edison.jobs.repository.JobRepository;
 import de.otto.edison.status.domain.SystemInfo;
@@ -12,6 +13,7 @@ import io.micrometer.core.instrument.Metrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
@@ -19,21 +21,28 @@ import javax.annotation.PostConstruct;
 import java.time.Clock;
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
-import static de.otto.edison.jobs.domain.JobInfo.Builder;
+import static de.otto.edison.jobs.configuration.JobsConfiguration.JOB_RUNNER_EXECUTOR_SERVICE;
 import static de.otto.edison.jobs.domain.JobInfo.JobStatus;
 import static de.otto.edison.jobs.domain.JobInfo.JobStatus.ERROR;
 import static de.otto.edison.jobs.domain.JobInfo.newJobInfo;
 import static de.otto.edison.jobs.domain.JobMessage.jobMessage;
 import static de.otto.edison.jobs.domain.Level.WARNING;
 import static de.otto.edison.jobs.service.JobRunner.newJobRunner;
+import static de.otto.edison.jobs.service.JobTypes.indexByJobType;
+import static de.otto.edison.jobs.service.JobTypes.normalize;
 import static java.lang.String.format;
-import static java.lang.System.currentTimeMillis;
+import static java.lang.System.nanoTime;
 import static java.time.OffsetDateTime.now;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
 
 @Service
 public class JobService {
@@ -49,9 +58,18 @@ public class JobService {
     @Autowired
     private ScheduledExecutorService executor;
     @Autowired(required = false)
+    @Qualifier(JOB_RUNNER_EXECUTOR_SERVICE)
+    private Executor jobRunnerExecutor;
+    @Autowired(required = false)
+    private JobHeartbeats heartbeats;
+    @Autowired(required = false)
+    private AsyncStateChangeEventDispatcher eventDispatcher;
+    @Autowired(required = false)
     private List<JobRunnable> jobRunnables = emptyList();
     @Autowired
     private UuidProvider uuidProvider;
+    private Map<String, JobRunnable> jobRunnablesByType = emptyMap();
+    private final JobMetrics metrics = new JobMetrics(Metrics.globalRegistry);
 
 
     @Autowired
@@ -70,19 +88,43 @@ public class JobService {
                final Clock clock,
                final SystemInfo systemInfo,
                final UuidProvider uuidProvider) {
+        this(jobRepository, jobMetaService, jobRunnables, executor, null, null, null, applicationEventPublisher, clock, systemInfo, uuidProvider);
+    }
+
+    JobService(final JobRepository jobRepository,
+               final JobMetaService jobMetaService,
+               final List<JobRunnable> jobRunnables,
+               final ScheduledExecutorService executor,
+               final Executor jobRunnerExecutor,
+               final JobHeartbeats heartbeats,
+               final AsyncStateChangeEventDispatcher eventDispatcher,
+               final ApplicationEventPublisher applicationEventPublisher,
+               final Clock clock,
+               final SystemInfo systemInfo,
+               final UuidProvider uuidProvider) {
         this.jobRepository = jobRepository;
         this.jobMetaService = jobMetaService;
         this.jobRunnables = jobRunnables;
         this.executor = executor;
+        this.jobRunnerExecutor = jobRunnerExecutor;
+        this.heartbeats = heartbeats;
+        this.eventDispatcher = eventDispatcher;
         this.applicationEventPublisher = applicationEventPublisher;
         this.clock = clock;
         this.systemInfo = systemInfo;
         this.uuidProvider = uuidProvider;
     }
 
+    /**
+     * Creates a case-insensitive index of the JobRunnables, so the JobRunnable of a job type can be found without
+     * iterating over all JobRunnables.
+     *
+     * @throws IllegalStateException if more than one JobRunnable is registered for a job type
+     */
     @PostConstruct
     public void postConstruct() {
         LOG.info("Found {} JobRunnables: {}", +jobRunnables.size(), jobRunnables.stream().map(j -> j.getJobDefinition().jobType()).collect(Collectors.toList()));
+        jobRunnablesByType = indexByJobType(jobRunnables, r -> r.getJobDefinition().jobType());
     }
 
     /**
@@ -92,12 +134,13 @@ public class JobService {
      * @return the URI under which you can retrieve the status about the triggered job instance
      */
     public Optional<String> startAsyncJob(String jobType) {
+        final long triggered = nanoTime();
         try {
             final JobRunnable jobRunnable = findJobRunnable(jobType);
             final JobInfo jobInfo = createJobInfo(jobType);
             jobMetaService.aquireRunLock(jobInfo.getJobId(), jobInfo.getJobType());
             jobRepository.createOrUpdate(jobInfo);
-            return Optional.of(startAsync(metered(jobRunnable), jobInfo.getJobId()));
+            return Optional.of(startAsync(metered(jobRunnable, triggered), jobInfo.getJobId()));
         } catch (JobBlockedException e) {
             LOG.info(e.getMessage());
             return Optional.empty();
@@ -128,11 +171,10 @@ public class JobService {
     }
 
     public void deleteJobs(final Optional<String> type) {
-        if (type.isPresent()) {
-            jobRepository.findByType(type.get()).forEach((j) -> jobRepository.removeIfStopped(j.getJobId()));
-        } else {
-            jobRepository.findAll().forEach((j) -> jobRepository.removeIfStopped(j.getJobId()));
-        }
+        final List<JobInfo> jobs = type.isPresent()
+                ? jobRepository.findByType(type.get())
+                : jobRepository.findAllJobInfoWithoutMessages();
+        jobRepository.removeIfStopped(jobs.stream().map(JobInfo::getJobId).collect(Collectors.toList()));
     }
 
     public void stopJob(final String jobId) {
@@ -148,7 +190,8 @@ public class JobService {
     }
 
     /**
-     * Checks all run locks and releases the lock, if the job is stopped.
+     * Checks all run locks and releases the lock, if the job is stopped. Afterwards, the locks of mutex groups held by
+     * job types that are not running are released.
      *
      * TODO: This method should never do something, otherwise the is a bug in the lock handling.
      * TODO: Check Log files + Remove
@@ -157,13 +200,14 @@ public class JobService {
         jobMetaService.runningJobs().forEach((RunningJob runningJob) -> {
             final Optional<JobInfo> jobInfoOptional = jobRepository.findOne(runningJob.jobId);
             if (jobInfoOptional.isPresent() && jobInfoOptional.get().isStopped()) {
-                jobMetaService.releaseRunLock(runningJob.jobType);
+                jobMetaService.forceReleaseRunLock(runningJob.jobId, runningJob.jobType);
                 LOG.error("Clear Lock of Job {}. Job stopped already.", runningJob.jobType);
             } else if (!jobInfoOptional.isPresent()){
-                jobMetaService.releaseRunLock(runningJob.jobType);
+                jobMetaService.forceReleaseRunLock(runningJob.jobId, runningJob.jobType);
                 LOG.error("Clear Lock of Job {}. JobID does not exist", runningJob.jobType);
             }
         });
+        jobMetaService.releaseOrphanedGroupLocks();
     }
 
     public void killJob(final String jobId) {
@@ -176,52 +220,88 @@ public class JobService {
 
     private void stopJob(final String jobId,
                          final JobStatus status) {
+        if (heartbeats != null) {
+            heartbeats.unregister(jobId);
+        }
         jobRepository.findOne(jobId).ifPresent((JobInfo jobInfo) -> {
-            jobMetaService.releaseRunLock(jobInfo.getJobType());
-            final OffsetDateTime now = now(clock);
-            final Builder builder = jobInfo.copy()
-                    .setStopped(now)
-                    .setLastUpdated(now);
-            if (status != null) {
-                builder.setStatus(status);
+            // The stopped job is persisted before the lock is released, so the next job of the same type is never
+            // started while the previous one is still marked as running. Only the stopped state is updated, so
+            // messages appended concurrently are not overwritten.
+            try {
+                jobRepository.markStopped(jobId, now(clock), Optional.ofNullable(status));
+                // A job that is already stopped (for example, killed after it has stopped) was counted before:
+                if (!jobInfo.isStopped()) {
+                    metrics.countOutcome(jobInfo.getJobType(), (status != null ? status : jobInfo.getStatus()).name());
+                }
+            } finally {
+                jobMetaService.releaseRunLock(jobId, jobInfo.getJobType());
             }
-            jobRepository.createOrUpdate(builder.build());
         });
     }
 
     public void appendMessage(final String jobId,
                               final JobMessage jobMessage) {
-        // TODO: Refactor JobRepository so only a single update is required
-        jobRepository.appendMessage(jobId, jobMessage);
         if (jobMessage.getLevel() == Level.ERROR) {
-            jobRepository.findOne(jobId).ifPresent(jobInfo -> {
-                jobRepository.createOrUpdate(
-                        jobInfo.copy()
-                                .setStatus(ERROR)
-                                .setLastUpdated(now(clock))
-                                .build());
-            });
+            jobRepository.applyTransition(jobId, ERROR, now(clock), Optional.of(jobMessage));
+        } else {
+            jobRepository.appendMessage(jobId, jobMessage);
         }
     }
 
+    /**
+     * Appends a batch of messages to a job using a single update. If at least one of the messages is an error
+     * message, the job status is set to ERROR by the same update.
+     *
+     * @param jobId the id of the job
+     * @param jobMessages the messages, in the order they are appended
+     */
+    public void appendMessages(final String jobId,
+                               final List<JobMessage> jobMessages) {
+        if (jobMessages.isEmpty()) {
+            return;
+        }
+        final Optional<JobStatus> jobStatus = jobMessages.stream().anyMatch(jobMessage -> jobMessage.getLevel() == Level.ERROR)
+                ? Optional.of(ERROR)
+                : Optional.empty();
+        jobRepository.appendMessages(jobId, jobMessages, jobStatus, now(clock));
+    }
+
     public void keepAlive(final String jobId) {
         jobRepository.setLastUpdate(jobId, now(clock));
     }
 
+    /**
+     * Updates the last-update timestamp of a running job and renews the leases of the locks held by the job.
+     *
+     * @param jobId the id of the running job
+     * @param jobType the type of the running job
+     */
+    public void keepAlive(final String jobId, final String jobType) {
+        keepAlive(jobId);
+        jobMetaService.renewRunLock(jobId, jobType);
+    }
+
     public void markSkipped(final String jobId) {
-        // TODO: Refactor JobRepository so only a single update is required
         OffsetDateTime currentTimestamp = now(clock);
-        jobRepository.appendMessage(jobId, jobMessage(Level.INFO, "Skipped job ..", currentTimestamp));
-        jobRepository.setLastUpdate(jobId, currentTimestamp);
-        jobRepository.setJobStatus(jobId, JobStatus.SKIPPED);
+        jobRepository.applyTransition(jobId, JobStatus.SKIPPED, currentTimestamp,
+                Optional.of(jobMessage(Level.INFO, "Skipped job ..", currentTimestamp)));
     }
 
     public void markRestarted(final String jobId) {
-        // TODO: Refactor JobRepository so only a single update is required
         OffsetDateTime currentTimestamp = now(clock);
-        jobRepository.appendMessage(jobId, jobMessage(WARNING, "Restarting job ..", currentTimestamp));
-        jobRepository.setLastUpdate(jobId, currentTimestamp);
-        jobRepository.setJobStatus(jobId, JobStatus.OK);
+        jobRepository.applyTransition(jobId, JobStatus.OK, currentTimestamp,
+                Optional.of(jobMessage(WARNING, "Restarting job ..", currentTimestamp)));
+    }
+
+    /**
+     * Marks a job as restarted and counts the restart in metric {@code counter.jobs.outcome}.
+     *
+     * @param jobId the id of the restarted job
+     * @param jobType the type of the restarted job
+     */
+    public void markRestarted(final String jobId, final String jobType) {
+        markRestarted(jobId);
+        metrics.countOutcome(jobType, "RESTART");
     }
 
     private JobInfo createJobInfo(final String jobType) {
@@ -230,22 +310,56 @@ public class JobService {
     }
 
     private JobRunnable findJobRunnable(final String jobType) {
-        final Optional<JobRunnable> optionalRunnable = jobRunnables.stream().filter(r -> r.getJobDefinition().jobType().equalsIgnoreCase(jobType)).findFirst();
-        return optionalRunnable.orElseThrow(() -> new IllegalArgumentException("No JobRunnable for " + jobType));
+        final JobRunnable jobRunnable = jobRunnablesByType.get(normalize(jobType));
+        if (jobRunnable == null) {
+            throw new IllegalArgumentException("No JobRunnable for " + jobType);
+        }
+        return jobRunnable;
     }
 
+    /**
+     * Runs the job on the elastic job runner executor, if {@code edison.jobs.execution-mode} is ELASTIC, or on the
+     * shared ScheduledExecutorService otherwise. Keep-alive pings are scheduled using the ScheduledExecutorService,
+     * unless {@link JobHeartbeats} are enabled. State changes of the job are dispatched asynchronously, if the
+     * {@link AsyncStateChangeEventDispatcher} is enabled.
+     * <p>
+     *     If the executor rejects the job, it is unregistered from the heartbeats, so it is stopped as a dead job.
+     * </p>
+     */
     private String startAsync(final JobRunnable jobRunnable,
                               final String jobId) {
-        executor.execute(newJobRunner(
-                jobId,
-                jobRunnable,
-                applicationEventPublisher,
-                executor
-        ));
+        final Executor runner = jobRunnerExecutor != null ? jobRunnerExecutor : executor;
+        if (heartbeats != null) {
+            heartbeats.register(jobId, jobRunnable.getJobDefinition().jobType());
+        }
+        final ApplicationEventPublisher eventPublisher = eventDispatcher != null
+                ? eventDispatcher::publishEvent
+                : applicationEventPublisher;
+        try {
+            runner.execute(newJobRunner(
+                    jobId,
+                    jobRunnable,
+                    eventPublisher,
+                    executor,
+                    runner,
+                    heartbeats == null
+            ));
+        } catch (final RejectedExecutionException e) {
+            if (heartbeats != null) {
+                heartbeats.unregister(jobId);
+            }
+            throw e;
+        }
         return jobId;
     }
 
-    private JobRunnable metered(final JobRunnable delegate) {
+    /**
+     * Wraps the JobRunnable, so the execution time, the time the job was waiting for execution and the number of
+     * running jobs are recorded by the {@link JobMetrics}.
+     */
+    private JobRunnable metered(final JobRunnable delegate, final long triggeredNanos) {
+        final String jobType = delegate.getJobDefinition().jobType();
+        final AtomicBoolean started = new AtomicBoolean(false);
         return new JobRunnable() {
 
             @Override
@@ -255,14 +369,17 @@ public class JobService {
 
             @Override
             public boolean execute() {
-                long ts = currentTimeMillis();
-                boolean executed = delegate.execute();
-                Metrics.gauge(gaugeName(), (currentTimeMillis() - ts) / 1000L);
-                return executed;
-            }
-
-            private String gaugeName() {
-                return "gauge.jobs.runtime." + delegate.getJobDefinition().jobType().toLowerCase();
+                final long ts = nanoTime();
+                if (started.compareAndSet(false, true)) {
+                    metrics.recordQueueWait(jobType, ts - triggeredNanos);
+                }
+                metrics.jobStarted(jobType);
+                try {
+                    return delegate.execute();
+                } finally {
+                    metrics.jobFinished(jobType);
+                    metrics.recordRuntime(jobType, nanoTime() - ts);
+                }
             }
         };
     }
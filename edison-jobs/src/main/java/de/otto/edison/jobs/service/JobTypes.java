@@ -0,0 +1,50 @@
+package de.otto.edison.jobs.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+import static java.lang.String.format;
+import static java.util.Collections.unmodifiableMap;
+
+/**
+ * Helper used to look up job-type specific objects, ignoring the case of the job type.
+ */
+final class JobTypes {
+
+    private JobTypes() {
+    }
+
+    /**
+     * Normalizes a job type, so it can be used as a case-insensitive key.
+     *
+     * @param jobType the job type
+     * @return lower-case job type
+     */
+    static String normalize(final String jobType) {
+        return jobType.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Creates an immutable, case-insensitive index of the given elements, keyed by {@link #normalize(String) normalized}
+     * job type.
+     *
+     * @param elements the indexed elements
+     * @param jobTypeOf function used to get the job type of an element
+     * @param <T> the type of the elements
+     * @return immutable map of normalized job type to element
+     * @throws IllegalStateException if more than one element has the same job type
+     */
+    static <T> Map<String, T> indexByJobType(final Collection<T> elements, final Function<T, String> jobTypeOf) {
+        final Map<String, T> index = new HashMap<>();
+        elements.forEach(element -> {
+            final String jobType = jobTypeOf.apply(element);
+            if (index.putIfAbsent(normalize(jobType), element) != null) {
+                throw new IllegalStateException(format("Duplicate job type '%s': job types must be unique, ignoring case", jobType));
+            }
+        });
+        return unmodifiableMap(index);
+    }
+}
@@ -0,0 +1,49 @@
+package de.otto.edison.jobs.configuration;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ElasticExecutionModeConditionTest {
+
+    private MockEnvironment environment;
+    private ConditionContext context;
+
+    @Before
+    public void setUp() {
+        environment = new MockEnvironment();
+        context = mock(ConditionContext.class);
+        when(context.getEnvironment()).thenReturn(environment);
+    }
+
+    @Test
+    public void shouldNotMatchByDefault() {
+        assertThat(matches(), is(false));
+    }
+
+    @Test
+    public void shouldMatchElasticExecutionModeIgnoringCase() {
+        environment.setProperty("edison.jobs.execution-mode", "elastic");
+        assertThat(matches(), is(true));
+
+        environment.setProperty("edison.jobs.execution-mode", "ELASTIC");
+        assertThat(matches(), is(true));
+    }
+
+    @Test
+    public void shouldNotMatchSharedExecutionMode() {
+        environment.setProperty("edison.jobs.execution-mode", "shared");
+        assertThat(matches(), is(false));
+    }
+
+    private boolean matches() {
+        return new ElasticExecutionModeCondition().getMatchOutcome(context, mock(AnnotatedTypeMetadata.class)).isMatch();
+    }
+}
@@ -12,6 +12,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
 
 import static de.otto.edison.jobs.definition.DefaultJobDefinition.fixedDelayJobDefinition;
 import static de.otto.edison.status.domain.Status.OK;
@@ -23,6 +24,7 @@ import static java.util.Optional.of;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -157,4 +159,17 @@ public class JobsConfigurationTest {
         );
 
     }
+
+    @Test
+    public void shouldRunJobsOnElasticJobRunnerThreads() throws Exception {
+        // given
+        final ExecutorService executorService = testee.jobRunnerExecutorService();
+
+        // when
+        final String threadName = executorService.submit(() -> Thread.currentThread().getName()).get();
+
+        // then
+        assertThat(threadName, startsWith("edison-JobRunner-"));
+        executorService.shutdown();
+    }
 }
@@ -4,6 +4,7 @@ import de.otto.edison.configuration.EdisonApplicationProperties;
 import de.otto.edison.jobs.definition.JobDefinition;
 import de.otto.edison.jobs.service.JobDefinitionService;
 import de.otto.edison.jobs.service.JobMetaService;
+import de.otto.edison.jobs.service.JobScheduler;
 import de.otto.edison.navigation.NavBar;
 import org.junit.Before;
 import org.junit.Test;
@@ -12,6 +13,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.time.Duration;
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -25,6 +27,7 @@ import static java.util.Collections.singletonList;
 import static java.util.Optional.empty;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -203,6 +206,29 @@ public class JobDefinitionsControllerTest {
                 });
     }
 
+    @Test
+    public void shouldReturnNextFireTimeOfScheduledJob() throws Exception {
+        // given
+        final JobScheduler jobScheduler = mock(JobScheduler.class);
+        when(jobScheduler.nextFireTime("FooJob")).thenReturn(Optional.of(OffsetDateTime.parse("2017-11-20T11:00:00+01:00")));
+        controller = new JobDefinitionsController(jobDefinitionService, jobMetaService, Optional.of(jobScheduler), navBar, webEndpointProperties);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .addPlaceholderValue("edison.application.management.base-path", MANAGEMENT_CONTEXT)
+                .build();
+        when(jobDefinitionService.getJobDefinition("FooJob")).thenReturn(Optional.of(jobDefinition("FooJob", "Foo")));
+
+        // when
+        mockMvc.perform(
+                get(MANAGEMENT_CONTEXT + "/jobdefinitions/FooJob")
+                        .accept("application/json")
+        )
+                .andExpect(status().is(200))
+                .andExpect(content().json("{\n" +
+                        "  \"type\": \"FooJob\",\n" +
+                        "  \"nextFireTime\": \"2017-11-20T11:00:00+01:00\"\n" +
+                        "}"));
+    }
+
     private JobDefinition jobDefinition(final String jobType, final String name) {
         return jobDefinition(jobType, name, ofHours(1));
     }
@@ -3,8 +3,15 @@ package de.otto.edison.jobs.definition;
 import org.hamcrest.Matchers;
 import org.junit.Test;
 
+import java.util.Optional;
+
+import static de.otto.edison.jobs.definition.DefaultJobDefinition.fixedDelayJobDefinition;
+import static de.otto.edison.jobs.definition.DefaultJobDefinition.retryableFixedDelayJobDefinition;
 import static de.otto.edison.jobs.definition.DefaultJobDefinition.validateCron;
+import static java.time.Duration.ofMinutes;
+import static java.time.Duration.ofSeconds;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.fail;
 
 public class DefaultJobDefinitionTest {
@@ -28,6 +35,31 @@ public class DefaultJobDefinitionTest {
         checkFailure("46-66 0 0 0 * *");
     }
 
+    @Test
+    public void shouldCopyJobDefinitionWithRetryBackoff() {
+        final DefaultJobDefinition jobDefinition = retryableFixedDelayJobDefinition("someType", "someName", "", ofMinutes(5), 3, 0, Optional.of(ofSeconds(10)), Optional.empty())
+                .withRetryBackoff(2.0, Optional.of(ofMinutes(1)), 0.5);
+
+        assertThat(jobDefinition.jobType(), is("someType"));
+        assertThat(jobDefinition.restarts(), is(3));
+        assertThat(jobDefinition.retryDelay(), is(Optional.of(ofSeconds(10))));
+        assertThat(jobDefinition.retryBackoffMultiplier(), is(2.0));
+        assertThat(jobDefinition.maxRetryDelay(), is(Optional.of(ofMinutes(1))));
+        assertThat(jobDefinition.retryJitter(), is(0.5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailOnBackoffMultiplierLessThanOne() {
+        fixedDelayJobDefinition("someType", "someName", "", ofMinutes(5), 3, Optional.empty())
+                .withRetryBackoff(0.5, Optional.empty(), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailOnJitterGreaterThanOne() {
+        fixedDelayJobDefinition("someType", "someName", "", ofMinutes(5), 3, Optional.empty())
+                .withRetryBackoff(2.0, Optional.empty(), 1.5);
+    }
+
     private void checkFailure(String cron) {
         try {
             validateCron(cron);
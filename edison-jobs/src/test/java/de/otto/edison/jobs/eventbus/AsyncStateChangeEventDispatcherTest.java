@@ -0,0 +1,187 @@
+package de.otto.edison.jobs.eventbus;
+
+import de.otto.edison.jobs.configuration.JobsProperties;
+import de.otto.edison.jobs.definition.JobDefinition;
+import de.otto.edison.jobs.eventbus.events.StateChangeEvent;
+import de.otto.edison.jobs.service.JobRunnable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static de.otto.edison.jobs.eventbus.events.StateChangeEvent.State.KEEP_ALIVE;
+import static de.otto.edison.jobs.eventbus.events.StateChangeEvent.State.START;
+import static de.otto.edison.jobs.eventbus.events.StateChangeEvent.State.STOP;
+import static de.otto.edison.jobs.eventbus.events.StateChangeEvent.newStateChangeEvent;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AsyncStateChangeEventDispatcherTest {
+
+    private JobRunnable jobRunnable;
+    private List<Object> dispatchedEvents;
+    private List<String> dispatchingThreads;
+    private AsyncStateChangeEventDispatcher dispatcher;
+
+    @Before
+    public void setUp() {
+        jobRunnable = mock(JobRunnable.class);
+        final JobDefinition jobDefinition = mock(JobDefinition.class);
+        when(jobDefinition.jobType()).thenReturn("someJob");
+        when(jobRunnable.getJobDefinition()).thenReturn(jobDefinition);
+        dispatchedEvents = new CopyOnWriteArrayList<>();
+        dispatchingThreads = new CopyOnWriteArrayList<>();
+    }
+
+    @After
+    public void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.stop();
+        }
+    }
+
+    @Test
+    public void shouldDispatchEventsOfJobInOrderUsingBackgroundThread() {
+        // given
+        dispatcher = new AsyncStateChangeEventDispatcher(recordingPublisher(), jobsProperties(2, 100));
+        final StateChangeEvent start = newStateChangeEvent(jobRunnable, "someId", START);
+        final StateChangeEvent keepAlive = newStateChangeEvent(jobRunnable, "someId", KEEP_ALIVE);
+        final StateChangeEvent stop = newStateChangeEvent(jobRunnable, "someId", STOP);
+
+        // when
+        dispatcher.publishEvent(start);
+        dispatcher.publishEvent(keepAlive);
+        dispatcher.publishEvent(stop);
+        dispatcher.stop();
+
+        // then
+        assertThat(dispatchedEvents, contains(start, keepAlive, stop));
+        assertThat(dispatchingThreads.get(0), is(not(Thread.currentThread().getName())));
+    }
+
+    @Test
+    public void shouldPublishOtherEventsSynchronously() {
+        // given
+        dispatcher = new AsyncStateChangeEventDispatcher(recordingPublisher(), jobsProperties(1, 100));
+
+        // when
+        dispatcher.publishEvent("someEvent");
+
+        // then
+        assertThat(dispatchedEvents, contains("someEvent"));
+        assertThat(dispatchingThreads, contains(Thread.currentThread().getName()));
+    }
+
+    @Test
+    public void shouldBlockPublisherIfQueueIsFull() throws InterruptedException {
+        // given
+        final CountDownLatch dispatching = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        dispatcher = new AsyncStateChangeEventDispatcher(event -> {
+            dispatching.countDown();
+            awaitQuietly(release);
+            dispatchedEvents.add(event);
+        }, jobsProperties(1, 1));
+        dispatcher.publishEvent(newStateChangeEvent(jobRunnable, "someId", START));
+        dispatching.await(5, SECONDS);
+        dispatcher.publishEvent(newStateChangeEvent(jobRunnable, "someId", KEEP_ALIVE));
+
+        // when
+        final Thread publisher = new Thread(() -> dispatcher.publishEvent(newStateChangeEvent(jobRunnable, "someId", STOP)));
+        publisher.start();
+        publisher.join(200);
+
+        // then
+        assertThat(publisher.isAlive(), is(true));
+        release.countDown();
+        publisher.join(5000);
+        assertThat(publisher.isAlive(), is(false));
+        assertThat(dispatcher.getBlockedEvents(), is(1L));
+    }
+
+    @Test
+    public void shouldStillQueueEventIfBlockedPublisherIsInterrupted() throws InterruptedException {
+        // given
+        final CountDownLatch dispatching = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        dispatcher = new AsyncStateChangeEventDispatcher(event -> {
+            dispatching.countDown();
+            awaitQuietly(release);
+            dispatchedEvents.add(event);
+        }, jobsProperties(1, 1));
+        final StateChangeEvent start = newStateChangeEvent(jobRunnable, "someId", START);
+        final StateChangeEvent keepAlive = newStateChangeEvent(jobRunnable, "someId", KEEP_ALIVE);
+        final StateChangeEvent stop = newStateChangeEvent(jobRunnable, "someId", STOP);
+        dispatcher.publishEvent(start);
+        dispatching.await(5, SECONDS);
+        dispatcher.publishEvent(keepAlive);
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        final Thread publisher = new Thread(() -> {
+            dispatcher.publishEvent(stop);
+            interrupted.set(Thread.currentThread().isInterrupted());
+        });
+        publisher.start();
+        publisher.join(200);
+
+        // when
+        publisher.interrupt();
+        publisher.join(200);
+        release.countDown();
+        publisher.join(5000);
+        dispatcher.stop();
+
+        // then
+        assertThat(interrupted.get(), is(true));
+        assertThat(dispatchedEvents, contains(start, keepAlive, stop));
+    }
+
+    @Test
+    public void shouldDispatchEventsPublishedAfterStopInOrder() {
+        // given
+        dispatcher = new AsyncStateChangeEventDispatcher(recordingPublisher(), jobsProperties(1, 100));
+        final StateChangeEvent start = newStateChangeEvent(jobRunnable, "someId", START);
+        final StateChangeEvent stop = newStateChangeEvent(jobRunnable, "someId", STOP);
+        dispatcher.publishEvent(start);
+        dispatcher.stop();
+
+        // when
+        dispatcher.publishEvent(stop);
+
+        // then
+        assertThat(dispatchedEvents, contains(start, stop));
+        assertThat(dispatchingThreads.get(1), is(Thread.currentThread().getName()));
+        assertThat(dispatcher.getQueuedEvents(), is(0L));
+    }
+
+    private ApplicationEventPublisher recordingPublisher() {
+        return event -> {
+            dispatchedEvents.add(event);
+            dispatchingThreads.add(Thread.currentThread().getName());
+        };
+    }
+
+    private JobsProperties jobsProperties(final int threads, final int queueSize) {
+        final JobsProperties jobsProperties = new JobsProperties();
+        jobsProperties.getEvents().setThreads(threads);
+        jobsProperties.getEvents().setQueueSize(queueSize);
+        return jobsProperties;
+    }
+
+    private static void awaitQuietly(final CountDownLatch latch) {
+        try {
+            latch.await(5, SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
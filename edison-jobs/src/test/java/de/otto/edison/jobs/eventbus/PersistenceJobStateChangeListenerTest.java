@@ -2,10 +2,12 @@ package de.otto.edison.jobs.eventbus;
 
 import de.otto.edison.jobs.definition.JobDefinition;
 import de.otto.edison.jobs.eventbus.events.StateChangeEvent;
+import de.otto.edison.jobs.service.JobMessageLogAppender;
 import de.otto.edison.jobs.service.JobRunnable;
 import de.otto.edison.jobs.service.JobService;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 
 import java.time.OffsetDateTime;
@@ -18,6 +20,7 @@ import static java.time.Instant.ofEpochMilli;
 import static java.time.OffsetDateTime.ofInstant;
 import static java.time.ZoneId.systemDefault;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -48,16 +51,22 @@ public class PersistenceJobStateChangeListenerTest {
 
     @Test
     public void shouldPersistStillAliveEvent() throws Exception {
+        JobDefinition mockDefinition = mock(JobDefinition.class);
+        when(mockDefinition.jobType()).thenReturn(JOB_TYPE);
+        when(jobRunnableMock.getJobDefinition()).thenReturn(mockDefinition);
         subject.consumeStateChange(stateChangedEvent(KEEP_ALIVE));
 
-        verify(jobServiceMock).keepAlive(JOB_ID);
+        verify(jobServiceMock).keepAlive(JOB_ID, JOB_TYPE);
     }
 
     @Test
     public void shouldPersistRestartEvent() throws Exception {
+        JobDefinition mockDefinition = mock(JobDefinition.class);
+        when(mockDefinition.jobType()).thenReturn(JOB_TYPE);
+        when(jobRunnableMock.getJobDefinition()).thenReturn(mockDefinition);
         subject.consumeStateChange(stateChangedEvent(RESTART));
 
-        verify(jobServiceMock).markRestarted(JOB_ID);
+        verify(jobServiceMock).markRestarted(JOB_ID, JOB_TYPE);
     }
 
     @Test
@@ -70,6 +79,21 @@ public class PersistenceJobStateChangeListenerTest {
         verify(jobServiceMock).killJob(JOB_ID);
     }
 
+    @Test
+    public void shouldFlushQueuedMessagesBeforeStoppingJob() throws Exception {
+        // given
+        final JobMessageLogAppender jobMessageLogAppender = mock(JobMessageLogAppender.class);
+        subject = new PersistenceJobStateChangeListener(jobServiceMock, jobMessageLogAppender);
+
+        // when
+        subject.consumeStateChange(stateChangedEvent(STOP));
+
+        // then
+        final InOrder inOrder = inOrder(jobMessageLogAppender, jobServiceMock);
+        inOrder.verify(jobMessageLogAppender).flush(JOB_ID);
+        inOrder.verify(jobServiceMock).stopJob(JOB_ID);
+    }
+
     @Test
     public void shouldPersistStopEvent() throws Exception {
         subject.consumeStateChange(stateChangedEvent(STOP));
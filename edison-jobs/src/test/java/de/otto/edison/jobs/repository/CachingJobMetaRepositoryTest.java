@@ -0,0 +1,103 @@
+package de.otto.edison.jobs.repository;
+
+import de.otto.edison.jobs.domain.JobMeta;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.util.HashSet;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonMap;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CachingJobMetaRepositoryTest {
+
+    private JobMetaRepository delegate;
+    private Clock clock;
+    private CachingJobMetaRepository repository;
+
+    @Before
+    public void setUp() {
+        delegate = mock(JobMetaRepository.class);
+        clock = mock(Clock.class);
+        when(clock.millis()).thenReturn(0L);
+        when(delegate.getJobMeta("someJob")).thenReturn(someJobMeta("someJob"));
+        repository = new CachingJobMetaRepository(delegate, 1000, clock);
+    }
+
+    @Test
+    public void shouldCacheJobMeta() {
+        // when
+        repository.getJobMeta("someJob");
+        final JobMeta jobMeta = repository.getJobMeta("someJob");
+
+        // then
+        assertThat(jobMeta.getJobType(), is("someJob"));
+        verify(delegate, times(1)).getJobMeta("someJob");
+    }
+
+    @Test
+    public void shouldExpireCachedJobMeta() {
+        // given
+        repository.getJobMeta("someJob");
+
+        // when
+        when(clock.millis()).thenReturn(1000L);
+        repository.getJobMeta("someJob");
+
+        // then
+        verify(delegate, times(2)).getJobMeta("someJob");
+    }
+
+    @Test
+    public void shouldInvalidateJobMetaOnModification() {
+        // given
+        repository.getJobMeta("someJob");
+
+        // when
+        repository.disable("someJob", "some comment");
+        repository.getJobMeta("someJob");
+
+        // then
+        verify(delegate).disable("someJob", "some comment");
+        verify(delegate, times(2)).getJobMeta("someJob");
+    }
+
+    @Test
+    public void shouldOnlyFetchMissingJobMetas() {
+        // given
+        repository.getJobMeta("someJob");
+        when(delegate.getJobMetas(singleton("someOtherJob"))).thenReturn(singletonMap("someOtherJob", someJobMeta("someOtherJob")));
+
+        // when
+        final Map<String, JobMeta> jobMetas = repository.getJobMetas(new HashSet<>(asList("someJob", "someOtherJob")));
+
+        // then
+        assertThat(jobMetas.size(), is(2));
+        assertThat(jobMetas.get("someOtherJob").getJobType(), is("someOtherJob"));
+        verify(delegate).getJobMetas(singleton("someOtherJob"));
+    }
+
+    @Test
+    public void shouldNotCacheRunningJob() {
+        // when
+        repository.getRunningJob("someJob");
+        repository.getRunningJob("someJob");
+
+        // then
+        verify(delegate, times(2)).getRunningJob("someJob");
+    }
+
+    private JobMeta someJobMeta(final String jobType) {
+        return new JobMeta(jobType, false, false, "", emptyMap());
+    }
+}
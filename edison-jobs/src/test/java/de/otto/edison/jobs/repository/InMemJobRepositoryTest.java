@@ -104,6 +104,28 @@ public class InMemJobRepositoryTest {
         assertThat(repository.size(), is(0L));
     }
 
+    @Test
+    public void shouldRemoveMultipleJobsIfStopped() {
+        // given
+        final JobInfo stoppedJob = builder()
+                .setJobId("some/job/stopped")
+                .setJobType("test")
+                .setStarted(now(fixed(Instant.now().minusSeconds(10), systemDefault())))
+                .setStopped(now(fixed(Instant.now().minusSeconds(7), systemDefault())))
+                .setHostname("localhost")
+                .setStatus(JobStatus.OK)
+                .build();
+        final JobInfo runningJob = newJobInfo("some/job/running", "test", clock, "localhost");
+        repository.createOrUpdate(stoppedJob);
+        repository.createOrUpdate(runningJob);
+
+        // when
+        repository.removeIfStopped(asList(stoppedJob.getJobId(), runningJob.getJobId(), "unknown"));
+
+        // then
+        assertThat(repository.findAll(), is(asList(runningJob)));
+    }
+
     @Test
     public void shouldFindAll() {
         // given
@@ -143,6 +165,22 @@ public class InMemJobRepositoryTest {
 
 
 
+    @Test
+    public void shouldFindLatestDistinctByCaseSensitiveJobType() {
+        // given
+        final JobInfo upper = newJobInfo("upper", "TEST", fixed(Instant.now().minusSeconds(10), systemDefault()), "localhost");
+        final JobInfo lower = newJobInfo("lower", "test", fixed(Instant.now(), systemDefault()), "localhost");
+        repository.createOrUpdate(upper);
+        repository.createOrUpdate(lower);
+
+        // when
+        final List<JobInfo> latestDistinct = repository.findLatestJobsDistinct();
+
+        // then
+        assertThat(latestDistinct, Matchers.containsInAnyOrder(upper, lower));
+        assertThat(repository.findByType("TEST"), Matchers.contains(upper));
+    }
+
     @Test
     public void shouldFindRunningJobsWithoutUpdatedSinceSpecificDate() throws Exception {
         // given
@@ -177,6 +215,59 @@ public class InMemJobRepositoryTest {
         assertThat(jobInfos, hasSize(2));
     }
 
+    @Test
+    public void shouldFindLatestByTypeIgnoringCase() {
+        // given
+        repository.createOrUpdate(newJobInfo("oldest", "TEST", fixed(Instant.now().minusSeconds(10), systemDefault()), "localhost"));
+        repository.createOrUpdate(newJobInfo("youngest", "test", fixed(Instant.now(), systemDefault()), "localhost"));
+
+        // when
+        final List<JobInfo> jobInfos = repository.findLatestBy("Test", 5);
+
+        // then
+        assertThat(jobInfos, hasSize(2));
+        assertThat(jobInfos.get(0).getJobId(), is("youngest"));
+        assertThat(jobInfos.get(1).getJobId(), is("oldest"));
+    }
+
+    @Test
+    public void shouldReindexUpdatedJobs() {
+        // given
+        repository.createOrUpdate(newJobInfo("first", "TEST", fixed(Instant.now().minusSeconds(10), systemDefault()), "localhost"));
+        repository.createOrUpdate(newJobInfo("second", "TEST", fixed(Instant.now().minusSeconds(5), systemDefault()), "localhost"));
+
+        // when
+        repository.createOrUpdate(newJobInfo("first", "OTHER", fixed(Instant.now(), systemDefault()), "localhost"));
+
+        // then
+        assertThat(repository.findLatest(1).get(0).getJobId(), is("first"));
+        assertThat(repository.findLatestBy("TEST", 5), hasSize(1));
+        assertThat(repository.findLatestBy("OTHER", 5).get(0).getJobId(), is("first"));
+        assertThat(repository.findAll(), hasSize(2));
+    }
+
+    @Test
+    public void shouldRemoveStoppedJobsFromIndexes() {
+        // given
+        final JobInfo stoppedJob = builder()
+                .setJobId("some/job/stopped")
+                .setJobType("test")
+                .setStarted(now(fixed(Instant.now().minusSeconds(10), systemDefault())))
+                .setStopped(now(fixed(Instant.now().minusSeconds(7), systemDefault())))
+                .setHostname("localhost")
+                .setStatus(JobStatus.OK)
+                .build();
+        repository.createOrUpdate(stoppedJob);
+
+        // when
+        repository.removeIfStopped(stoppedJob.getJobId());
+
+        // then
+        assertThat(repository.findLatest(5), is(emptyList()));
+        assertThat(repository.findLatestBy("test", 5), is(emptyList()));
+        assertThat(repository.findLatestJobsDistinct(), is(emptyList()));
+    }
+
     @Test
     public void shouldFindLatest() {
         // given
@@ -289,6 +380,83 @@ public class InMemJobRepositoryTest {
         assertThat(jobInfo.get().getLastUpdated(), is(myTestTime));
     }
 
+    @Test
+    public void shouldAppendMessagesToJobInfo() {
+        //Given
+        final JobInfo foo = jobInfo("http://localhost/foo", "T_FOO");
+        repository.createOrUpdate(foo);
+        final JobMessage first = jobMessage(Level.INFO, "first", now());
+        final JobMessage second = jobMessage(Level.WARNING, "second", now());
+
+        //When
+        repository.appendMessages(foo.getJobId(), asList(first, second));
+
+        //Then
+        final JobInfo jobInfo = repository.findOne(foo.getJobId()).get();
+        assertThat(jobInfo.getMessages(), hasSize(4));
+        assertThat(jobInfo.getMessages().get(2), is(first));
+        assertThat(jobInfo.getMessages().get(3), is(second));
+    }
+
+    @Test
+    public void shouldAppendMessagesAndSetStatusOfJob() {
+        //Given
+        final JobInfo foo = jobInfo("http://localhost/foo", "T_FOO");
+        repository.createOrUpdate(foo);
+
+        final OffsetDateTime myTestTime = OffsetDateTime.of(1979, 2, 5, 1, 2, 3, 1_000_000, ZoneOffset.UTC);
+        final JobMessage first = jobMessage(Level.INFO, "first", myTestTime);
+        final JobMessage error = jobMessage(Level.ERROR, "Der Igel ist traurig.", myTestTime);
+
+        //When
+        repository.appendMessages(foo.getJobId(), asList(first, error), Optional.of(ERROR), myTestTime);
+
+        //Then
+        final JobInfo jobInfo = repository.findOne(foo.getJobId()).get();
+        assertThat(jobInfo.getStatus(), is(ERROR));
+        assertThat(jobInfo.getLastUpdated(), is(myTestTime));
+        assertThat(jobInfo.getMessages(), hasSize(4));
+        assertThat(jobInfo.getMessages().get(3), is(error));
+    }
+
+    @Test
+    public void shouldApplyTransitionToJob() {
+        //Given
+        final JobInfo foo = jobInfo("http://localhost/foo", "T_FOO");
+        repository.createOrUpdate(foo);
+
+        final OffsetDateTime myTestTime = OffsetDateTime.of(1979, 2, 5, 1, 2, 3, 1_000_000, ZoneOffset.UTC);
+        final JobMessage message = jobMessage(Level.ERROR, "Der Igel ist traurig.", myTestTime);
+
+        //When
+        repository.applyTransition(foo.getJobId(), ERROR, myTestTime, Optional.of(message));
+
+        //Then
+        final JobInfo jobInfo = repository.findOne(foo.getJobId()).get();
+        assertThat(jobInfo.getStatus(), is(ERROR));
+        assertThat(jobInfo.getLastUpdated(), is(myTestTime));
+        assertThat(jobInfo.getMessages(), hasSize(3));
+        assertThat(jobInfo.getMessages().get(2), is(message));
+    }
+
+    @Test
+    public void shouldApplyTransitionWithoutMessage() {
+        //Given
+        final JobInfo foo = jobInfo("http://localhost/foo", "T_FOO");
+        repository.createOrUpdate(foo);
+
+        final OffsetDateTime myTestTime = OffsetDateTime.of(1979, 2, 5, 1, 2, 3, 1_000_000, ZoneOffset.UTC);
+
+        //When
+        repository.applyTransition(foo.getJobId(), JobStatus.SKIPPED, myTestTime, Optional.empty());
+
+        //Then
+        final JobInfo jobInfo = repository.findOne(foo.getJobId()).get();
+        assertThat(jobInfo.getStatus(), is(JobStatus.SKIPPED));
+        assertThat(jobInfo.getLastUpdated(), is(myTestTime));
+        assertThat(jobInfo.getMessages(), hasSize(2));
+    }
+
     @Test
     public void shouldClearJobInfos() throws Exception {
         //Given
@@ -309,6 +477,25 @@ public class InMemJobRepositoryTest {
         assertThat(repository.findAll(), is(emptyList()));
     }
 
+    @Test
+    public void shouldMarkJobAsStoppedWithoutModifyingMessages() {
+        // given
+        repository.createOrUpdate(newJobInfo("someJob", "TEST", clock, "localhost"));
+        final JobMessage jobMessage = jobMessage(Level.INFO, "foo", now());
+        repository.appendMessage("someJob", jobMessage);
+        final OffsetDateTime stopped = now().plusSeconds(1);
+
+        // when
+        repository.markStopped("someJob", stopped, Optional.of(ERROR));
+
+        // then
+        final JobInfo jobInfo = repository.findOne("someJob").get();
+        assertThat(jobInfo.getStopped(), is(Optional.of(stopped)));
+        assertThat(jobInfo.getLastUpdated(), is(stopped));
+        assertThat(jobInfo.getStatus(), is(ERROR));
+        assertThat(jobInfo.getMessages(), Matchers.contains(jobMessage));
+    }
+
     private JobInfo jobInfo(final String jobId, final String type) {
         return JobInfo.newJobInfo(
                 jobId,
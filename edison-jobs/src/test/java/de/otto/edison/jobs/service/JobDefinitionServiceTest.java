@@ -0,0 +1,80 @@
+package de.otto.edison.jobs.service;
+
+import de.otto.edison.jobs.definition.JobDefinition;
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static de.otto.edison.jobs.definition.DefaultJobDefinition.manuallyTriggerableJobDefinition;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class JobDefinitionServiceTest {
+
+    @Test
+    public void shouldGetJobDefinitionIgnoringCase() {
+        // given
+        final JobDefinition jobDefinition = someJobDefinition("SomeType");
+        final JobDefinitionService service = new JobDefinitionService(asList(someJobRunnable(jobDefinition)));
+
+        // when
+        final Optional<JobDefinition> result = service.getJobDefinition("sometype");
+
+        // then
+        assertThat(result, is(Optional.of(jobDefinition)));
+    }
+
+    @Test
+    public void shouldReturnEmptyOptionalForUnknownJobType() {
+        final JobDefinitionService service = new JobDefinitionService(asList(someJobRunnable(someJobDefinition("someType"))));
+
+        assertThat(service.getJobDefinition("unknownType"), is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldGetAllJobDefinitions() {
+        final JobDefinition first = someJobDefinition("first");
+        final JobDefinition second = someJobDefinition("second");
+        final JobDefinitionService service = new JobDefinitionService(asList(someJobRunnable(first), someJobRunnable(second)));
+
+        assertThat(service.getJobDefinitions(), contains(first, second));
+    }
+
+    @Test
+    public void shouldGetEmptyListWithoutJobRunnables() {
+        final JobDefinitionService service = new JobDefinitionService(emptyList());
+
+        assertThat(service.getJobDefinitions(), is(empty()));
+        assertThat(service.getJobDefinition("someType"), is(Optional.empty()));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldNotModifyJobDefinitions() {
+        final JobDefinitionService service = new JobDefinitionService(asList(someJobRunnable(someJobDefinition("someType"))));
+
+        service.getJobDefinitions().add(someJobDefinition("other"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldFailOnDuplicateJobTypes() {
+        new JobDefinitionService(asList(
+                someJobRunnable(someJobDefinition("someType")),
+                someJobRunnable(someJobDefinition("SOMETYPE"))));
+    }
+
+    private JobRunnable someJobRunnable(final JobDefinition jobDefinition) {
+        final JobRunnable jobRunnable = mock(JobRunnable.class);
+        when(jobRunnable.getJobDefinition()).thenReturn(jobDefinition);
+        return jobRunnable;
+    }
+
+    private JobDefinition someJobDefinition(final String jobType) {
+        return manuallyTriggerableJobDefinition(jobType, jobType + " name", "description", 0, Optional.empty());
+    }
+}
@@ -0,0 +1,104 @@
+package de.otto.edison.jobs.service;
+
+import de.otto.edison.jobs.configuration.JobsProperties;
+import de.otto.edison.jobs.domain.RunningJob;
+import de.otto.edison.jobs.repository.JobRepository;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+
+import static java.util.Arrays.asList;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class JobHeartbeatsTest {
+
+    private static final Instant NOW = Instant.parse("2017-11-20T10:15:00Z");
+
+    private JobRepository jobRepository;
+    private JobMetaService jobMetaService;
+    private JobHeartbeats heartbeats;
+
+    @Before
+    public void setUp() {
+        jobRepository = mock(JobRepository.class);
+        jobMetaService = mock(JobMetaService.class);
+        heartbeats = new JobHeartbeats(jobRepository, jobMetaService, new JobsProperties(), Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    public void shouldUpdateAllRegisteredJobsUsingSingleUpdate() {
+        // given
+        heartbeats.register("someId", "someJob");
+        heartbeats.register("otherId", "otherJob");
+
+        // when
+        heartbeats.beat();
+
+        // then
+        verify(jobRepository).setLastUpdate(eq(new HashSet<>(asList("someId", "otherId"))), eq(OffsetDateTime.ofInstant(NOW, ZoneOffset.UTC)));
+        verify(jobMetaService).renewRunLocks(argThat(runningJobs -> new HashSet<>(runningJobs).equals(new HashSet<>(asList(
+                new RunningJob("someId", "someJob"),
+                new RunningJob("otherId", "otherJob"))))));
+    }
+
+    @Test
+    public void shouldNotUpdateUnregisteredJobs() {
+        // given
+        heartbeats.register("someId", "someJob");
+        heartbeats.unregister("someId");
+
+        // when
+        heartbeats.beat();
+
+        // then
+        verify(jobRepository, never()).setLastUpdate(anyCollection(), any(OffsetDateTime.class));
+        verify(jobMetaService, never()).renewRunLocks(anyCollection());
+    }
+
+    @Test
+    public void shouldRenewRunLocksIfUpdateFailed() {
+        // given
+        heartbeats.register("someId", "someJob");
+        doThrow(new IllegalStateException("boom")).when(jobRepository).setLastUpdate(anyCollection(), any(OffsetDateTime.class));
+
+        // when
+        heartbeats.beat();
+
+        // then
+        verify(jobMetaService).renewRunLocks(asList(new RunningJob("someId", "someJob")));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectPeriodAboveHalfOfLeaseTime() {
+        // given
+        final JobsProperties jobsProperties = new JobsProperties();
+        jobsProperties.getLock().setLeaseTime(30);
+        jobsProperties.getHeartbeat().setPeriod(20);
+
+        // when
+        new JobHeartbeats(jobRepository, jobMetaService, jobsProperties, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    public void shouldAcceptPeriodOfHalfTheLeaseTime() {
+        // given
+        final JobsProperties jobsProperties = new JobsProperties();
+        jobsProperties.getLock().setLeaseTime(40);
+        jobsProperties.getHeartbeat().setPeriod(20);
+
+        // when
+        new JobHeartbeats(jobRepository, jobMetaService, jobsProperties, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+}
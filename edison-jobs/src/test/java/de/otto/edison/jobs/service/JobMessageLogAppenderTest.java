@@ -2,20 +2,31 @@ package de.otto.edison.jobs.service;
 
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.spi.LoggingEvent;
+import de.otto.edison.jobs.configuration.JobsProperties;
+import de.otto.edison.jobs.configuration.JobsProperties.Messages.OverflowPolicy;
 import de.otto.edison.jobs.domain.JobMarker;
 import de.otto.edison.jobs.domain.JobMessage;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.util.List;
+
+import static de.otto.edison.jobs.configuration.JobsProperties.Messages.OverflowPolicy.BLOCK;
+import static de.otto.edison.jobs.configuration.JobsProperties.Messages.OverflowPolicy.DROP;
 import static java.util.Collections.singletonMap;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentCaptor.forClass;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 
@@ -26,6 +37,9 @@ public class JobMessageLogAppenderTest {
 
     private JobMessageLogAppender jobEventAppender;
 
+    @Captor
+    private ArgumentCaptor<List<JobMessage>> messagesCaptor;
+
     @Before
     public void setUp() throws Exception {
         jobService = mock(JobService.class);
@@ -93,6 +107,85 @@ public class JobMessageLogAppenderTest {
         assertMessageEvent(messageCaptor, de.otto.edison.jobs.domain.Level.INFO);
     }
 
+    @Test
+    public void shouldAppendQueuedMessagesOfAJobInASingleBatch() throws Exception {
+        // given
+        final JobMessageLogAppender asyncAppender = new JobMessageLogAppender(jobService, asyncJobsProperties(10, DROP));
+        asyncAppender.append(createLoggingEvent(Level.INFO, "first"));
+        asyncAppender.append(createLoggingEvent(Level.WARN, "second"));
+        verify(jobService, never()).appendMessage(anyString(), any(JobMessage.class));
+
+        // when
+        asyncAppender.flush();
+
+        // then
+        verify(jobService).appendMessages(eq("someJobId"), messagesCaptor.capture());
+        final List<JobMessage> jobMessages = messagesCaptor.getValue();
+        assertThat(jobMessages.size(), is(2));
+        assertThat(jobMessages.get(0).getMessage(), is("first"));
+        assertThat(jobMessages.get(1).getMessage(), is("second"));
+        asyncAppender.stop();
+    }
+
+    @Test
+    public void shouldDropMessagesIfQueueIsFull() throws Exception {
+        // given
+        final JobMessageLogAppender asyncAppender = new JobMessageLogAppender(jobService, asyncJobsProperties(1, DROP));
+
+        // when
+        asyncAppender.append(createLoggingEvent(Level.INFO, "first"));
+        asyncAppender.append(createLoggingEvent(Level.INFO, "second"));
+        asyncAppender.flush();
+
+        // then
+        verify(jobService).appendMessages(eq("someJobId"), messagesCaptor.capture());
+        assertThat(messagesCaptor.getValue().size(), is(1));
+        assertThat(asyncAppender.getDroppedMessages(), is(1L));
+        asyncAppender.stop();
+    }
+
+    @Test
+    public void shouldFlushQueuedMessagesOfASingleJob() throws Exception {
+        // given
+        final JobMessageLogAppender asyncAppender = new JobMessageLogAppender(jobService, asyncJobsProperties(10, DROP));
+        asyncAppender.append(createLoggingEvent("someJobId", Level.ERROR, "first"));
+        asyncAppender.append(createLoggingEvent("otherJobId", Level.INFO, "other"));
+        asyncAppender.append(createLoggingEvent("someJobId", Level.INFO, "second"));
+
+        // when
+        asyncAppender.flush("someJobId");
+
+        // then
+        verify(jobService).appendMessages(eq("someJobId"), messagesCaptor.capture());
+        verify(jobService, never()).appendMessages(eq("otherJobId"), anyList());
+        assertThat(messagesCaptor.getValue().size(), is(2));
+        assertThat(messagesCaptor.getValue().get(0).getMessage(), is("first"));
+        assertThat(messagesCaptor.getValue().get(1).getMessage(), is("second"));
+        asyncAppender.stop();
+    }
+
+    @Test
+    public void shouldFlushQueuedMessagesOnStop() throws Exception {
+        // given
+        final JobMessageLogAppender asyncAppender = new JobMessageLogAppender(jobService, asyncJobsProperties(10, BLOCK));
+        asyncAppender.append(createLoggingEvent(Level.INFO));
+
+        // when
+        asyncAppender.stop();
+
+        // then
+        verify(jobService).appendMessages(eq("someJobId"), anyList());
+    }
+
+    private JobsProperties asyncJobsProperties(final int queueSize, final OverflowPolicy overflowPolicy) {
+        final JobsProperties jobsProperties = new JobsProperties();
+        jobsProperties.getMessages().setAsync(true);
+        jobsProperties.getMessages().setQueueSize(queueSize);
+        jobsProperties.getMessages().setFlushInterval(Long.MAX_VALUE / 2);
+        jobsProperties.getMessages().setOverflowPolicy(overflowPolicy);
+        return jobsProperties;
+    }
+
     private void assertMessageEvent(final ArgumentCaptor<JobMessage> messageCaptor,
                                     final de.otto.edison.jobs.domain.Level expectedLevel) {
         final JobMessage jobMessage = messageCaptor.getValue();
@@ -107,8 +200,15 @@ public class JobMessageLogAppenderTest {
     private LoggingEvent createLoggingEvent(final Level level,
                                             final String message,
                                             final Object... params) {
+        return createLoggingEvent("someJobId", level, message, params);
+    }
+
+    private LoggingEvent createLoggingEvent(final String jobId,
+                                            final Level level,
+                                            final String message,
+                                            final Object... params) {
         final LoggingEvent loggingEvent = new LoggingEvent();
-        loggingEvent.setMDCPropertyMap(singletonMap("job_id", "someJobId"));
+        loggingEvent.setMDCPropertyMap(singletonMap("job_id", jobId));
         loggingEvent.setMessage(message);
         loggingEvent.setArgumentArray(params);
         loggingEvent.setLevel(level);
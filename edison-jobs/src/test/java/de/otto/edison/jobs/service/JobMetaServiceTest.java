@@ -2,28 +2,46 @@ package de.otto.edison.jobs.service;
 
 import de.otto.edison.jobs.domain.JobMeta;
 import de.otto.edison.jobs.domain.RunningJob;
+import de.otto.edison.jobs.repository.CachingJobMetaRepository;
 import de.otto.edison.jobs.repository.JobBlockedException;
 import de.otto.edison.jobs.repository.JobMetaRepository;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.util.HashSet;
+import java.util.List;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
 import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
 public class JobMetaServiceTest {
 
+    private static final Instant NOW = Instant.parse("2017-11-20T10:15:00Z");
+
     @Mock
     private JobMetaRepository jobMetaRepository;
     @Mock
@@ -53,8 +71,22 @@ public class JobMetaServiceTest {
 
     @Test
     public void shouldReleaseRunLock() {
-        jobMetaService.releaseRunLock("someType");
-        verify(jobMetaRepository).clearRunningJob("someType");
+        jobMetaService.releaseRunLock("someId", "someType");
+        verify(jobMetaRepository).clearRunningJob("someType", "someId");
+    }
+
+    @Test
+    public void shouldForceReleaseRunLock() {
+        // given
+        when(jobMutexGroups.mutexGroupsFor("job2")).thenReturn(singletonList(new JobMutexGroup("group", "job1", "job2")));
+
+        // when
+        jobMetaService.forceReleaseRunLock("first", "job2");
+
+        // then
+        verify(jobMetaRepository).clearRunningJob("job2");
+        verify(jobMetaRepository, never()).clearRunningJob("job2", "first");
+        verify(jobMetaRepository).releaseGroupLock("group", "first");
     }
 
     @Test(expected = JobBlockedException.class)
@@ -71,11 +103,11 @@ public class JobMetaServiceTest {
     @Test(expected = JobBlockedException.class)
     public void shouldNotStartJobIfBlockedByAnotherJob() throws Exception {
         // given
-        when(jobMetaRepository.findAllJobTypes()).thenReturn(new HashSet<>(asList("job1", "job2")));
-        when(jobMetaRepository.getRunningJob("job1")).thenReturn("42");
         when(jobMetaRepository.getJobMeta("job2")).thenReturn(new JobMeta("job2", false, false, "", emptyMap()));
         when(jobMetaRepository.setRunningJob("job2", "first")).thenReturn(true);
-        when(jobMutexGroups.mutexJobTypesFor("job2")).thenReturn(new HashSet<>(asList("job1", "job2")));
+        when(jobMutexGroups.mutexGroupsFor("job2")).thenReturn(singletonList(new JobMutexGroup("group", "job1", "job2")));
+        when(jobMetaRepository.acquireGroupLock("group", "job2", "first")).thenReturn(false);
+        when(jobMetaRepository.getGroupLock("group")).thenReturn("job1");
 
         // when
         try {
@@ -84,16 +116,136 @@ public class JobMetaServiceTest {
 
         // then
         catch (final JobBlockedException e) {
-            verify(jobMetaRepository).clearRunningJob("job2");
+            assertThat(e.getMessage(), is("Job 'job2' blocked by currently running job 'job1'"));
+            verify(jobMetaRepository).clearRunningJob("job2", "first");
             throw e;
         }
     }
 
+    @Test
+    public void shouldAquireLocksOfAllMutexGroups() {
+        // given
+        when(jobMetaRepository.getJobMeta("job2")).thenReturn(new JobMeta("job2", false, false, "", emptyMap()));
+        when(jobMetaRepository.setRunningJob("job2", "first")).thenReturn(true);
+        when(jobMutexGroups.mutexGroupsFor("job2")).thenReturn(asList(
+                new JobMutexGroup("a", "job1", "job2"),
+                new JobMutexGroup("b", "job2", "job3")));
+        when(jobMetaRepository.acquireGroupLock(anyString(), eq("job2"), eq("first"))).thenReturn(true);
+
+        // when
+        jobMetaService.aquireRunLock("first", "job2");
+
+        // then
+        final InOrder inOrder = inOrder(jobMetaRepository);
+        inOrder.verify(jobMetaRepository).setRunningJob("job2", "first");
+        inOrder.verify(jobMetaRepository).acquireGroupLock("a", "job2", "first");
+        inOrder.verify(jobMetaRepository).acquireGroupLock("b", "job2", "first");
+        verify(jobMetaRepository, never()).getRunningJob(anyString());
+    }
+
+    @Test
+    public void shouldReleaseAquiredGroupLocksIfBlocked() {
+        // given
+        when(jobMetaRepository.getJobMeta("job2")).thenReturn(new JobMeta("job2", false, false, "", emptyMap()));
+        when(jobMetaRepository.setRunningJob("job2", "first")).thenReturn(true);
+        when(jobMutexGroups.mutexGroupsFor("job2")).thenReturn(asList(
+                new JobMutexGroup("a", "job1", "job2"),
+                new JobMutexGroup("b", "job2", "job3")));
+        when(jobMetaRepository.acquireGroupLock("a", "job2", "first")).thenReturn(true);
+        when(jobMetaRepository.acquireGroupLock("b", "job2", "first")).thenReturn(false);
+
+        // when
+        try {
+            jobMetaService.aquireRunLock("first", "job2");
+            fail("JobBlockedException expected");
+        } catch (final JobBlockedException e) {
+            // then
+            verify(jobMetaRepository).releaseGroupLock("a", "first");
+            verify(jobMetaRepository, never()).releaseGroupLock("b", "first");
+            verify(jobMetaRepository).clearRunningJob("job2", "first");
+        }
+    }
+
+    @Test
+    public void shouldReleaseGroupLocksWithRunLock() {
+        // given
+        when(jobMutexGroups.mutexGroupsFor("job2")).thenReturn(singletonList(new JobMutexGroup("group", "job1", "job2")));
+
+        // when
+        jobMetaService.releaseRunLock("first", "job2");
+
+        // then
+        final InOrder inOrder = inOrder(jobMetaRepository);
+        inOrder.verify(jobMetaRepository).clearRunningJob("job2", "first");
+        inOrder.verify(jobMetaRepository).releaseGroupLock("group", "first");
+    }
+
+    @Test
+    public void shouldReleaseGroupLocksIfClearingRunLockFailed() {
+        // given
+        when(jobMutexGroups.mutexGroupsFor("job2")).thenReturn(singletonList(new JobMutexGroup("group", "job1", "job2")));
+        doThrow(new IllegalStateException("some error")).when(jobMetaRepository).clearRunningJob("job2", "first");
+
+        // when
+        try {
+            jobMetaService.releaseRunLock("first", "job2");
+            fail("IllegalStateException expected");
+        } catch (final IllegalStateException e) {
+            // then
+            verify(jobMetaRepository).releaseGroupLock("group", "first");
+        }
+    }
+
+    @Test
+    public void shouldReleaseAquiredGroupLocksIfAquiringGroupLockFailed() {
+        // given
+        when(jobMetaRepository.getJobMeta("job2")).thenReturn(new JobMeta("job2", false, false, "", emptyMap()));
+        when(jobMetaRepository.setRunningJob("job2", "first")).thenReturn(true);
+        when(jobMutexGroups.mutexGroupsFor("job2")).thenReturn(asList(
+                new JobMutexGroup("a", "job1", "job2"),
+                new JobMutexGroup("b", "job2", "job3")));
+        when(jobMetaRepository.acquireGroupLock("a", "job2", "first")).thenReturn(true);
+        when(jobMetaRepository.acquireGroupLock("b", "job2", "first")).thenThrow(new IllegalStateException("some error"));
+
+        // when
+        try {
+            jobMetaService.aquireRunLock("first", "job2");
+            fail("IllegalStateException expected");
+        } catch (final IllegalStateException e) {
+            // then
+            final InOrder inOrder = inOrder(jobMetaRepository);
+            inOrder.verify(jobMetaRepository).clearRunningJob("job2", "first");
+            inOrder.verify(jobMetaRepository).releaseGroupLock("a", "first");
+            verify(jobMetaRepository, never()).releaseGroupLock("b", "first");
+        }
+    }
+
+    @Test
+    public void shouldReleaseOrphanedGroupLocks() {
+        // given
+        when(jobMutexGroups.getMutexGroups()).thenReturn(new HashSet<>(asList(
+                new JobMutexGroup("a", "job1", "job2"),
+                new JobMutexGroup("b", "job2", "job3"),
+                new JobMutexGroup("c", "job4", "job5"))));
+        when(jobMetaRepository.getGroupLockHolder("a")).thenReturn("firstId");
+        when(jobMetaRepository.getGroupLockHolder("b")).thenReturn("secondId");
+        when(jobMetaRepository.getGroupLockHolder("c")).thenReturn(null);
+        when(jobMetaRepository.findRunningJobs()).thenReturn(singleton(new RunningJob("secondId", "job2")));
+
+        // when
+        jobMetaService.releaseOrphanedGroupLocks();
+
+        // then
+        verify(jobMetaRepository).releaseGroupLock("a", "firstId");
+        verify(jobMetaRepository, never()).releaseGroupLock(eq("b"), anyString());
+        verify(jobMetaRepository, never()).releaseGroupLock(eq("c"), anyString());
+    }
+
     @Test
     public void shouldReturnRunningJobsDocument() {
-        when(jobMetaRepository.findAllJobTypes()).thenReturn(new HashSet<>(asList("someType", "someOtherType")));
-        when(jobMetaRepository.getRunningJob("someType")).thenReturn("someId");
-        when(jobMetaRepository.getRunningJob("someOtherType")).thenReturn("someOtherId");
+        when(jobMetaRepository.findRunningJobs()).thenReturn(new HashSet<>(asList(
+                new RunningJob("someId", "someType"),
+                new RunningJob("someOtherId", "someOtherType"))));
 
         assertThat(jobMetaService.runningJobs(), containsInAnyOrder(
                 new RunningJob("someId", "someType"),
@@ -139,4 +291,112 @@ public class JobMetaServiceTest {
         verify(jobMetaRepository).enable("jobType");
     }
 
+
+    @Test
+    public void shouldAquireLeasedRunLock() {
+        // given
+        final JobMetaService leasingService = leasingJobMetaService();
+        when(jobMutexGroups.mutexGroupsFor("jobType")).thenReturn(singletonList(new JobMutexGroup("group", "jobType", "other")));
+        when(jobMetaRepository.getJobMeta("jobType")).thenReturn(new JobMeta("jobType", false, false, "", emptyMap()));
+        when(jobMetaRepository.setRunningJob("jobType", "jobId", "someHost", NOW.plusSeconds(60), NOW)).thenReturn(true);
+        when(jobMetaRepository.acquireGroupLock("group", "jobType", "jobId", NOW.plusSeconds(60), NOW)).thenReturn(true);
+
+        // when
+        leasingService.aquireRunLock("jobId", "jobType");
+
+        // then
+        verify(jobMetaRepository).setRunningJob("jobType", "jobId", "someHost", NOW.plusSeconds(60), NOW);
+        verify(jobMetaRepository).acquireGroupLock("group", "jobType", "jobId", NOW.plusSeconds(60), NOW);
+        verify(jobMetaRepository, never()).setRunningJob("jobType", "jobId");
+    }
+
+    @Test
+    public void shouldRenewLeasedRunLockAndGroupLocks() {
+        // given
+        final JobMetaService leasingService = leasingJobMetaService();
+        when(jobMutexGroups.mutexGroupsFor("jobType")).thenReturn(singletonList(new JobMutexGroup("group", "jobType", "other")));
+        when(jobMetaRepository.renewRunningJob("jobType", "jobId", NOW.plusSeconds(60))).thenReturn(true);
+
+        // when
+        leasingService.renewRunLock("jobId", "jobType");
+
+        // then
+        verify(jobMetaRepository).renewGroupLock("group", "jobId", NOW.plusSeconds(60));
+    }
+
+    @Test
+    public void shouldNotRenewGroupLocksIfRunLockWasLost() {
+        // given
+        final JobMetaService leasingService = leasingJobMetaService();
+        when(jobMutexGroups.mutexGroupsFor("jobType")).thenReturn(singletonList(new JobMutexGroup("group", "jobType", "other")));
+        when(jobMetaRepository.renewRunningJob("jobType", "jobId", NOW.plusSeconds(60))).thenReturn(false);
+
+        // when
+        leasingService.renewRunLock("jobId", "jobType");
+
+        // then
+        verify(jobMetaRepository, never()).renewGroupLock(anyString(), anyString(), any(Instant.class));
+    }
+
+    @Test
+    public void shouldRenewLeasedLocksOfAllRunningJobsUsingSingleUpdate() {
+        // given
+        final JobMetaService leasingService = leasingJobMetaService();
+        when(jobMutexGroups.mutexGroupsFor("jobType")).thenReturn(singletonList(new JobMutexGroup("group", "jobType", "other")));
+        when(jobMutexGroups.mutexGroupsFor("otherJobType")).thenReturn(emptyList());
+        final List<RunningJob> runningJobs = asList(
+                new RunningJob("jobId", "jobType"),
+                new RunningJob("otherJobId", "otherJobType"));
+
+        // when
+        leasingService.renewRunLocks(runningJobs);
+
+        // then
+        verify(jobMetaRepository).renewLocks(runningJobs, singleton("group"), NOW.plusSeconds(60));
+        verify(jobMetaRepository, never()).renewRunningJob(anyString(), anyString(), any(Instant.class));
+    }
+
+    @Test
+    public void shouldNotRenewRunLocksWithoutLeases() {
+        jobMetaService.renewRunLocks(singletonList(new RunningJob("jobId", "jobType")));
+        verify(jobMetaRepository, never()).renewLocks(anyCollection(), anyCollection(), any(Instant.class));
+    }
+
+    @Test
+    public void shouldNotRenewRunLockWithoutLeases() {
+        jobMetaService.renewRunLock("jobId", "jobType");
+        verify(jobMetaRepository, never()).renewRunningJob(anyString(), anyString(), any(Instant.class));
+    }
+
+    @Test
+    public void shouldBePreferredOwnerIfLastOwnerOrNeverLocked() {
+        final JobMetaService leasingService = leasingJobMetaService();
+        when(jobMetaRepository.getLockOwner("jobType")).thenReturn("someHost");
+        when(jobMetaRepository.getLockOwner("otherJobType")).thenReturn("otherHost");
+
+        assertThat(leasingService.isPreferredOwner("jobType"), is(true));
+        assertThat(leasingService.isPreferredOwner("otherJobType"), is(false));
+        assertThat(leasingService.isPreferredOwner("newJobType"), is(true));
+    }
+
+    @Test(expected = JobBlockedException.class)
+    public void shouldNotStartAJobDisabledAfterItsJobMetaWasCached() {
+        // given
+        final JobMetaService cachingService = new JobMetaService(
+                new CachingJobMetaRepository(jobMetaRepository, 60000, Clock.fixed(NOW, ZoneOffset.UTC)),
+                jobMetaRepository, jobMutexGroups, "someHost", Duration.ZERO, Clock.fixed(NOW, ZoneOffset.UTC));
+        when(jobMetaRepository.getJobMeta("jobType")).thenReturn(new JobMeta("jobType", false, false, "", emptyMap()));
+        cachingService.getJobMeta("jobType");
+
+        // when
+        when(jobMetaRepository.getJobMeta("jobType")).thenReturn(new JobMeta("jobType", false, true, "", emptyMap()));
+        cachingService.aquireRunLock("someId", "jobType");
+
+        // then an exception is thrown
+    }
+
+    private JobMetaService leasingJobMetaService() {
+        return new JobMetaService(jobMetaRepository, jobMutexGroups, "someHost", Duration.ofSeconds(60), Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
 }
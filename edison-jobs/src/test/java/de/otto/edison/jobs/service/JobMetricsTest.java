@@ -0,0 +1,59 @@
+package de.otto.edison.jobs.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class JobMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private JobMetrics jobMetrics;
+
+    @Before
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        jobMetrics = new JobMetrics(registry);
+    }
+
+    @Test
+    public void shouldRecordRuntimePerJobType() {
+        jobMetrics.recordRuntime("SomeJob", MILLISECONDS.toNanos(100));
+        jobMetrics.recordRuntime("someJob", MILLISECONDS.toNanos(300));
+        jobMetrics.recordRuntime("otherJob", MILLISECONDS.toNanos(50));
+
+        assertThat(registry.find("timer.jobs.runtime").tag("jobType", "somejob").timer().count(), is(2L));
+        assertThat(registry.find("timer.jobs.runtime").tag("jobType", "somejob").timer().totalTime(MILLISECONDS), is(400.0));
+        assertThat(registry.find("timer.jobs.runtime").tag("jobType", "otherjob").timer().count(), is(1L));
+    }
+
+    @Test
+    public void shouldRecordQueueWait() {
+        jobMetrics.recordQueueWait("someJob", 42);
+
+        assertThat(registry.find("timer.jobs.queue.wait").tag("jobType", "somejob").timer().totalTime(NANOSECONDS), is(42.0));
+    }
+
+    @Test
+    public void shouldCountOutcomes() {
+        jobMetrics.countOutcome("someJob", "OK");
+        jobMetrics.countOutcome("someJob", "OK");
+        jobMetrics.countOutcome("someJob", "ERROR");
+
+        assertThat(registry.find("counter.jobs.outcome").tags("jobType", "somejob", "outcome", "OK").counter().count(), is(2.0));
+        assertThat(registry.find("counter.jobs.outcome").tags("jobType", "somejob", "outcome", "ERROR").counter().count(), is(1.0));
+    }
+
+    @Test
+    public void shouldGaugeRunningJobs() {
+        jobMetrics.jobStarted("someJob");
+        jobMetrics.jobStarted("someJob");
+        jobMetrics.jobFinished("someJob");
+
+        assertThat(registry.find("gauge.jobs.running").tag("jobType", "somejob").gauge().value(), is(1.0));
+    }
+}
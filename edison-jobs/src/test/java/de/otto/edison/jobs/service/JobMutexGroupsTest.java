@@ -11,6 +11,8 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
 
 public class JobMutexGroupsTest {
 
@@ -57,4 +59,60 @@ public class JobMutexGroupsTest {
         ));
         assertThat(mutexGroups.mutexJobTypesFor("foo1"), containsInAnyOrder("foo", "foo2", "bar", "bar1"));;
     }
+
+    @Test
+    public void shouldReturnMutexGroupsOfJobTypeOrderedByName() {
+        final JobMutexGroups mutexGroups = new JobMutexGroups();
+        final JobMutexGroup first = new JobMutexGroup("first", "foo", "foo1", "foo2");
+        final JobMutexGroup second = new JobMutexGroup("second", "bar", "bar1", "foo1");
+        mutexGroups.setMutexGroups(hashSet(second, first));
+
+        assertThat(mutexGroups.mutexGroupsFor("foo1"), contains(first, second));
+        assertThat(mutexGroups.mutexGroupsFor("bar"), contains(second));
+        assertThat(mutexGroups.mutexGroupsFor("unknown"), is(empty()));
+    }
+
+    @Test
+    public void shouldLookupMutexJobTypesIgnoringCase() {
+        final JobMutexGroups mutexGroups = new JobMutexGroups();
+        mutexGroups.setMutexGroups(singleton(
+                new JobMutexGroup("test", "Foo", "Bar"))
+        );
+
+        assertThat(mutexGroups.mutexJobTypesFor("foo"), contains("Bar"));
+        assertThat(mutexGroups.mutexJobTypesFor("BAR"), contains("Foo"));
+        assertThat(mutexGroups.mutexGroupsFor("bar"), hasSize(1));
+    }
+
+    @Test
+    public void shouldReturnEmptySetForUnknownJobType() {
+        final JobMutexGroups mutexGroups = new JobMutexGroups();
+        mutexGroups.setMutexGroups(singleton(
+                new JobMutexGroup("test", "foo", "bar"))
+        );
+
+        assertThat(mutexGroups.mutexJobTypesFor("unknown"), is(empty()));
+    }
+
+    @Test
+    public void shouldExposeIndexOfMutexJobTypes() {
+        final JobMutexGroups mutexGroups = new JobMutexGroups();
+        mutexGroups.setMutexGroups(hashSet(
+                new JobMutexGroup("first", "Foo", "foo1"),
+                new JobMutexGroup("second", "bar", "foo1")
+        ));
+
+        assertThat(mutexGroups.getMutexJobTypes().keySet(), containsInAnyOrder("foo", "foo1", "bar"));
+        assertThat(mutexGroups.getMutexJobTypes().get("foo1"), containsInAnyOrder("Foo", "bar"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldNotModifyIndex() {
+        final JobMutexGroups mutexGroups = new JobMutexGroups();
+        mutexGroups.setMutexGroups(singleton(
+                new JobMutexGroup("test", "foo", "bar"))
+        );
+
+        mutexGroups.mutexJobTypesFor("foo").add("foobar");
+    }
 }
@@ -9,17 +9,21 @@ import org.slf4j.MDC;
 import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import static de.otto.edison.jobs.definition.DefaultJobDefinition.fixedDelayJobDefinition;
 import static de.otto.edison.jobs.definition.DefaultJobDefinition.manuallyTriggerableJobDefinition;
+import static de.otto.edison.jobs.definition.DefaultJobDefinition.retryableFixedDelayJobDefinition;
 import static de.otto.edison.jobs.eventbus.events.StateChangeEvent.State.*;
 import static de.otto.edison.jobs.eventbus.events.StateChangeEvent.newStateChangeEvent;
 import static de.otto.edison.jobs.service.JobRunner.newJobRunner;
 import static java.time.Duration.ofSeconds;
 import static java.util.Optional.empty;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
@@ -139,6 +143,91 @@ public class JobRunnerTest {
                 .publishEvent(newStateChangeEvent(jobRunnable, "42", STOP));
     }
 
+    @Test
+    public void shouldScheduleDelayedRestartWithoutBlockingTheThread() {
+        // given
+        JobRunnable jobRunnable = mock(JobRunnable.class);
+        when(jobRunnable.getJobDefinition())
+                .thenReturn(retryableFixedDelayJobDefinition("someJobType", "someJobname", "", ofSeconds(2), 1, 0, Optional.of(ofSeconds(30)), empty()));
+        doThrow(new RuntimeException("some error"))
+                .doReturn(true)
+                .when(jobRunnable).execute();
+        final Executor jobExecutor = mock(Executor.class);
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(jobExecutor).execute(any(Runnable.class));
+        JobRunner jobRunner = newJobRunner("42", jobRunnable, eventPublisher, executor, jobExecutor);
+
+        // when
+        jobRunner.run();
+
+        // then
+        final ArgumentCaptor<Runnable> restartCaptor = forClass(Runnable.class);
+        verify(executor).schedule(restartCaptor.capture(), eq(30000L), eq(MILLISECONDS));
+        verify(jobRunnable, times(1)).execute();
+        verify(eventPublisher).publishEvent(newStateChangeEvent(jobRunnable, "42", RESTART));
+        verify(eventPublisher, never()).publishEvent(newStateChangeEvent(jobRunnable, "42", STOP));
+        verify(scheduledJob, never()).cancel(false);
+
+        // when
+        restartCaptor.getValue().run();
+
+        // then
+        verify(jobExecutor).execute(any(Runnable.class));
+        verify(jobRunnable, times(2)).execute();
+        verify(eventPublisher).publishEvent(newStateChangeEvent(jobRunnable, "42", STOP));
+        verify(scheduledJob).cancel(false);
+    }
+
+    @Test
+    public void shouldStopJobIfDelayedRestartIsRejected() {
+        // given
+        JobRunnable jobRunnable = mock(JobRunnable.class);
+        when(jobRunnable.getJobDefinition())
+                .thenReturn(retryableFixedDelayJobDefinition("someJobType", "someJobname", "", ofSeconds(2), 1, 0, Optional.of(ofSeconds(30)), empty()));
+        doThrow(new RuntimeException("some error")).when(jobRunnable).execute();
+        final ScheduledFuture<?> restartJob = mock(ScheduledFuture.class);
+        doReturn(restartJob)
+                .when(executor)
+                .schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        final Executor jobExecutor = mock(Executor.class);
+        doThrow(new RejectedExecutionException("shut down")).when(jobExecutor).execute(any(Runnable.class));
+        JobRunner jobRunner = newJobRunner("42", jobRunnable, eventPublisher, executor, jobExecutor);
+
+        // when
+        jobRunner.run();
+        final ArgumentCaptor<Runnable> restartCaptor = forClass(Runnable.class);
+        verify(executor).schedule(restartCaptor.capture(), eq(30000L), eq(MILLISECONDS));
+        restartCaptor.getValue().run();
+
+        // then
+        verify(jobRunnable, times(1)).execute();
+        verify(eventPublisher).publishEvent(newStateChangeEvent(jobRunnable, "42", STOP));
+        verify(scheduledJob).cancel(false);
+        verify(restartJob).cancel(false);
+    }
+
+    @Test
+    public void shouldCalculateRestartDelayWithBackoff() {
+        final JobDefinition jobDefinition = retryableFixedDelayJobDefinition("someJobType", "someJobname", "", ofSeconds(2), 5, 0, Optional.of(ofSeconds(10)), empty())
+                .withRetryBackoff(2.0, Optional.of(ofSeconds(60)), 0.0);
+
+        assertThat(JobRunner.restartDelayMillis(jobDefinition, 0, 0.5), is(10000L));
+        assertThat(JobRunner.restartDelayMillis(jobDefinition, 1, 0.5), is(20000L));
+        assertThat(JobRunner.restartDelayMillis(jobDefinition, 2, 0.5), is(40000L));
+        assertThat(JobRunner.restartDelayMillis(jobDefinition, 3, 0.5), is(60000L));
+    }
+
+    @Test
+    public void shouldCalculateRestartDelayWithJitter() {
+        final JobDefinition jobDefinition = retryableFixedDelayJobDefinition("someJobType", "someJobname", "", ofSeconds(2), 5, 0, Optional.of(ofSeconds(10)), empty())
+                .withRetryBackoff(1.0, empty(), 0.5);
+
+        assertThat(JobRunner.restartDelayMillis(jobDefinition, 0, 0.0), is(10000L));
+        assertThat(JobRunner.restartDelayMillis(jobDefinition, 0, 0.5), is(7500L));
+    }
+
     @Test
     public void shouldSendKeepAliveEventWithinPingJob() {
         // given
@@ -177,6 +266,20 @@ public class JobRunnerTest {
         verify(scheduledJob).cancel(false);
     }
 
+    @Test
+    public void shouldNotPingIfKeepAlivePingsAreDisabled() {
+        // given
+        final JobRunnable jobRunnable = getMockedRunnable();
+        JobRunner jobRunner = newJobRunner("42", jobRunnable, eventPublisher, executor, executor, false);
+
+        // when
+        jobRunner.run();
+
+        //then
+        verify(executor, never()).scheduleAtFixedRate(any(Runnable.class), anyLong(), anyLong(), any(TimeUnit.class));
+        verify(eventPublisher).publishEvent(newStateChangeEvent(jobRunnable, "42", STOP));
+    }
+
     private JobRunnable getMockedRunnable() {
         final JobRunnable jobRunnable = mock(JobRunnable.class);
         JobDefinition jobDefinition = mock(JobDefinition.class);
@@ -0,0 +1,368 @@
+package de.otto.edison.jobs.service;
+
+import de.otto.edison.jobs.configuration.JobsProperties;
+import de.otto.edison.jobs.configuration.JobsProperties.Scheduler.MisfirePolicy;
+import de.otto.edison.jobs.definition.JobDefinition;
+import de.otto.edison.jobs.domain.JobInfo;
+import de.otto.edison.jobs.eventbus.events.StateChangeEvent;
+import de.otto.edison.jobs.eventbus.events.StateChangeEvent.State;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static de.otto.edison.jobs.definition.DefaultJobDefinition.cronJobDefinition;
+import static de.otto.edison.jobs.definition.DefaultJobDefinition.fixedDelayJobDefinition;
+import static de.otto.edison.jobs.definition.DefaultJobDefinition.manuallyTriggerableJobDefinition;
+import static de.otto.edison.jobs.domain.JobInfo.JobStatus.OK;
+import static de.otto.edison.jobs.eventbus.events.StateChangeEvent.State.KEEP_ALIVE;
+import static de.otto.edison.jobs.eventbus.events.StateChangeEvent.State.STOP;
+import static de.otto.edison.jobs.eventbus.events.StateChangeEvent.newStateChangeEvent;
+import static de.otto.edison.jobs.domain.JobInfo.newJobInfo;
+import static java.time.Duration.ofMinutes;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class JobSchedulerTest {
+
+    private static final Instant NOW = Instant.parse("2017-11-20T10:15:00Z");
+
+    private JobDefinitionService jobDefinitionService;
+    private JobService jobService;
+    private JobMetaService jobMetaService;
+    private ScheduledExecutorService executor;
+    private ScheduledFuture<?> future;
+    private Clock clock;
+    private JobsProperties jobsProperties;
+
+    @Before
+    public void setUp() {
+        jobDefinitionService = mock(JobDefinitionService.class);
+        jobService = mock(JobService.class);
+        jobMetaService = mock(JobMetaService.class);
+        executor = mock(ScheduledExecutorService.class);
+        future = mock(ScheduledFuture.class);
+        doReturn(future).when(executor).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(NOW);
+        when(clock.getZone()).thenReturn(ZoneOffset.UTC);
+        jobsProperties = new JobsProperties();
+    }
+
+    @Test
+    public void shouldScheduleFixedDelayJobWithJitter() {
+        // given
+        givenJobDefinitions(fixedDelayJobDefinition("someJob", "Some Job", "", ofMinutes(10), 0, Optional.empty()));
+
+        // when
+        final JobScheduler scheduler = startScheduler(500);
+
+        // then
+        verify(executor).schedule(any(Runnable.class), eq(600500L), eq(MILLISECONDS));
+        assertThat(scheduler.nextFireTime("someJob"), is(Optional.of(OffsetDateTime.parse("2017-11-20T10:25:00.500Z"))));
+    }
+
+    @Test
+    public void shouldTriggerFixedDelayJobAndScheduleNextExecution() {
+        // given
+        givenJobDefinitions(fixedDelayJobDefinition("someJob", "Some Job", "", ofMinutes(10), 0, Optional.empty()));
+        final JobScheduler scheduler = startScheduler(500);
+        final Runnable trigger = scheduledTrigger();
+
+        // when
+        when(clock.instant()).thenReturn(NOW.plusMillis(600500));
+        trigger.run();
+
+        // then
+        verify(jobService).startAsyncJob("someJob");
+        verify(executor).schedule(trigger, 600000L, MILLISECONDS);
+        assertThat(scheduler.nextFireTime("someJob"), is(Optional.of(OffsetDateTime.parse("2017-11-20T10:35:00.500Z"))));
+    }
+
+    @Test
+    public void shouldScheduleFixedDelayJobAfterStartedJobHasStopped() {
+        // given
+        givenJobDefinitions(fixedDelayJobDefinition("someJob", "Some Job", "", ofMinutes(10), 0, Optional.empty()));
+        when(jobService.startAsyncJob("someJob")).thenReturn(Optional.of("someId"));
+        final JobScheduler scheduler = startScheduler(500);
+        final Runnable trigger = scheduledTrigger();
+        when(clock.instant()).thenReturn(NOW.plusMillis(600500));
+        trigger.run();
+
+        // when
+        when(clock.instant()).thenReturn(NOW.plus(ofMinutes(30)));
+        scheduler.onStateChange(stateChangeOf("someJob", "someId", STOP));
+
+        // then
+        verify(executor).schedule(trigger, 600000L, MILLISECONDS);
+        assertThat(scheduler.nextFireTime("someJob"), is(Optional.of(OffsetDateTime.parse("2017-11-20T10:55:00Z"))));
+    }
+
+    @Test
+    public void shouldNotScheduleFixedDelayJobWhileStartedJobIsRunning() {
+        // given
+        givenJobDefinitions(fixedDelayJobDefinition("someJob", "Some Job", "", ofMinutes(10), 0, Optional.empty()));
+        when(jobService.startAsyncJob("someJob")).thenReturn(Optional.of("someId"));
+        final JobScheduler scheduler = startScheduler(0);
+        final Runnable trigger = scheduledTrigger();
+
+        // when
+        when(clock.instant()).thenReturn(NOW.plus(ofMinutes(10)));
+        trigger.run();
+        scheduler.onStateChange(stateChangeOf("someJob", "someId", KEEP_ALIVE));
+        scheduler.onStateChange(stateChangeOf("someJob", "otherId", STOP));
+
+        // then
+        verify(executor, times(1)).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        assertThat(scheduler.nextFireTime("someJob"), is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldScheduleFixedDelayJobIfStartedJobHasStoppedBeforeStartReturned() {
+        // given
+        givenJobDefinitions(fixedDelayJobDefinition("someJob", "Some Job", "", ofMinutes(10), 0, Optional.empty()));
+        final JobScheduler scheduler = startScheduler(0);
+        final Runnable trigger = scheduledTrigger();
+        when(jobService.startAsyncJob("someJob")).thenAnswer(invocation -> {
+            scheduler.onStateChange(stateChangeOf("someJob", "someId", STOP));
+            return Optional.of("someId");
+        });
+
+        // when
+        when(clock.instant()).thenReturn(NOW.plus(ofMinutes(10)));
+        trigger.run();
+
+        // then
+        verify(executor, times(2)).schedule(trigger, 600000L, MILLISECONDS);
+    }
+
+    @Test
+    public void shouldScheduleCronJobWithJitter() {
+        // given
+        givenJobDefinitions(cronJobDefinition("someJob", "Some Job", "", "0 0 * * * *", 0, Optional.empty()));
+
+        // when
+        final JobScheduler scheduler = startScheduler(1000);
+
+        // then
+        assertThat(scheduler.nextFireTime("someJob"), is(Optional.of(OffsetDateTime.parse("2017-11-20T11:00:01Z"))));
+        verify(executor).schedule(any(Runnable.class), eq(ofMinutes(45).toMillis() + 1000), eq(MILLISECONDS));
+    }
+
+    @Test
+    public void shouldTriggerCronJobAndScheduleNextExecution() {
+        // given
+        givenJobDefinitions(cronJobDefinition("someJob", "Some Job", "", "0 0 * * * *", 0, Optional.empty()));
+        final JobScheduler scheduler = startScheduler(1000);
+        final Runnable trigger = scheduledTrigger();
+
+        // when
+        when(clock.instant()).thenReturn(Instant.parse("2017-11-20T11:00:01Z"));
+        trigger.run();
+
+        // then
+        verify(jobService).startAsyncJob("someJob");
+        assertThat(scheduler.nextFireTime("someJob"), is(Optional.of(OffsetDateTime.parse("2017-11-20T12:00:01Z"))));
+    }
+
+    @Test
+    public void shouldTriggerMisfiredJobOnlyOnce() {
+        // given
+        givenJobDefinitions(cronJobDefinition("someJob", "Some Job", "", "0 0 * * * *", 0, Optional.empty()));
+        final JobScheduler scheduler = startScheduler(0);
+        final Runnable trigger = scheduledTrigger();
+
+        // when
+        when(clock.instant()).thenReturn(Instant.parse("2017-11-20T13:30:00Z"));
+        trigger.run();
+
+        // then
+        verify(jobService, times(1)).startAsyncJob("someJob");
+        assertThat(scheduler.nextFireTime("someJob"), is(Optional.of(OffsetDateTime.parse("2017-11-20T14:00:00Z"))));
+    }
+
+    @Test
+    public void shouldSkipMisfiredJob() {
+        // given
+        jobsProperties.getScheduler().setMisfirePolicy(MisfirePolicy.SKIP);
+        givenJobDefinitions(cronJobDefinition("someJob", "Some Job", "", "0 0 * * * *", 0, Optional.empty()));
+        final JobScheduler scheduler = startScheduler(0);
+        final Runnable trigger = scheduledTrigger();
+
+        // when
+        when(clock.instant()).thenReturn(Instant.parse("2017-11-20T13:30:00Z"));
+        trigger.run();
+
+        // then
+        verify(jobService, never()).startAsyncJob("someJob");
+        assertThat(scheduler.nextFireTime("someJob"), is(Optional.of(OffsetDateTime.parse("2017-11-20T14:00:00Z"))));
+    }
+
+    @Test
+    public void shouldScheduleNextExecutionIfTriggeringFailed() {
+        // given
+        givenJobDefinitions(fixedDelayJobDefinition("someJob", "Some Job", "", ofMinutes(10), 0, Optional.empty()));
+        doThrow(new IllegalStateException("boom")).when(jobService).startAsyncJob("someJob");
+        startScheduler(0);
+        final Runnable trigger = scheduledTrigger();
+
+        // when
+        when(clock.instant()).thenReturn(NOW.plus(ofMinutes(10)));
+        trigger.run();
+
+        // then
+        verify(executor, times(2)).schedule(trigger, 600000L, MILLISECONDS);
+    }
+
+    @Test
+    public void shouldNotScheduleManuallyTriggeredJobs() {
+        // given
+        givenJobDefinitions(manuallyTriggerableJobDefinition("someJob", "Some Job", "", 0, Optional.empty()));
+
+        // when
+        final JobScheduler scheduler = startScheduler(0);
+
+        // then
+        verify(executor, never()).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        assertThat(scheduler.nextFireTime("someJob"), is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldFindNextFireTimeIgnoringCase() {
+        givenJobDefinitions(fixedDelayJobDefinition("SomeJob", "Some Job", "", ofMinutes(10), 0, Optional.empty()));
+
+        final JobScheduler scheduler = startScheduler(0);
+
+        assertThat(scheduler.nextFireTime("somejob").isPresent(), is(true));
+    }
+
+    @Test
+    public void shouldCancelTriggersOnStop() {
+        // given
+        givenJobDefinitions(fixedDelayJobDefinition("someJob", "Some Job", "", ofMinutes(10), 0, Optional.empty()));
+        final JobScheduler scheduler = startScheduler(0);
+        final Runnable trigger = scheduledTrigger();
+
+        // when
+        scheduler.stop();
+        trigger.run();
+
+        // then
+        verify(future).cancel(false);
+        verify(jobService, never()).startAsyncJob("someJob");
+        verify(executor, times(1)).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        assertThat(scheduler.nextFireTime("someJob"), is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldDeferTriggerIfNotPreferredOwner() {
+        // given
+        jobsProperties.getScheduler().setPreferredOwnerDelay(2000);
+        jobsProperties.getScheduler().setMaxJitter(1000);
+        givenJobDefinitions(fixedDelayJobDefinition("someJob", "Some Job", "", ofMinutes(10), 0, Optional.empty()));
+        when(jobMetaService.isPreferredOwner("someJob")).thenReturn(false);
+        startScheduler(0);
+        final Runnable trigger = scheduledTrigger();
+
+        // when
+        when(clock.instant()).thenReturn(NOW.plus(ofMinutes(10)));
+        trigger.run();
+
+        // then
+        verify(jobService, never()).startAsyncJob("someJob");
+        verify(executor).schedule(any(Runnable.class), eq(2000L), eq(MILLISECONDS));
+    }
+
+    @Test
+    public void shouldStartDeferredJobIfNotStartedByPreferredOwner() {
+        // given
+        jobsProperties.getScheduler().setPreferredOwnerDelay(2000);
+        jobsProperties.getScheduler().setMaxJitter(1000);
+        givenJobDefinitions(fixedDelayJobDefinition("someJob", "Some Job", "", ofMinutes(10), 0, Optional.empty()));
+        when(jobMetaService.isPreferredOwner("someJob")).thenReturn(false);
+        when(jobService.findJobs(Optional.of("someJob"), 1)).thenReturn(singletonList(jobStartedAt(NOW)));
+        startScheduler(0);
+        when(clock.instant()).thenReturn(NOW.plus(ofMinutes(10)));
+        scheduledTrigger().run();
+
+        // when
+        deferredTrigger().run();
+
+        // then
+        verify(jobService).startAsyncJob("someJob");
+    }
+
+    @Test
+    public void shouldSkipDeferredJobIfStartedByPreferredOwner() {
+        // given
+        jobsProperties.getScheduler().setPreferredOwnerDelay(2000);
+        jobsProperties.getScheduler().setMaxJitter(1000);
+        givenJobDefinitions(fixedDelayJobDefinition("someJob", "Some Job", "", ofMinutes(10), 0, Optional.empty()));
+        when(jobMetaService.isPreferredOwner("someJob")).thenReturn(false);
+        when(jobService.findJobs(Optional.of("someJob"), 1)).thenReturn(singletonList(jobStartedAt(NOW.plus(ofMinutes(10)).minusMillis(500))));
+        startScheduler(0);
+        when(clock.instant()).thenReturn(NOW.plus(ofMinutes(10)));
+        scheduledTrigger().run();
+
+        // when
+        deferredTrigger().run();
+
+        // then
+        verify(jobService, never()).startAsyncJob("someJob");
+    }
+
+    private StateChangeEvent stateChangeOf(final String jobType, final String jobId, final State state) {
+        final JobRunnable jobRunnable = mock(JobRunnable.class);
+        when(jobRunnable.getJobDefinition()).thenReturn(fixedDelayJobDefinition(jobType, "", "", ofMinutes(10), 0, Optional.empty()));
+        return newStateChangeEvent(jobRunnable, jobId, state);
+    }
+
+    private JobInfo jobStartedAt(final Instant started) {
+        final OffsetDateTime startedAt = OffsetDateTime.ofInstant(started, ZoneOffset.UTC);
+        return newJobInfo("someId", "someJob", startedAt, startedAt, Optional.empty(), OK, emptyList(), clock, "otherHost");
+    }
+
+    private Runnable deferredTrigger() {
+        final ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor).schedule(captor.capture(), eq(2000L), eq(MILLISECONDS));
+        return captor.getValue();
+    }
+
+    private void givenJobDefinitions(final JobDefinition... jobDefinitions) {
+        when(jobDefinitionService.getJobDefinitions()).thenReturn(asList(jobDefinitions));
+    }
+
+    private JobScheduler startScheduler(final long jitter) {
+        final JobScheduler scheduler = new JobScheduler(jobDefinitionService, jobService, jobMetaService, executor, jobsProperties, clock, () -> jitter);
+        scheduler.start();
+        return scheduler;
+    }
+
+    private Runnable scheduledTrigger() {
+        final ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor).schedule(captor.capture(), anyLong(), any(TimeUnit.class));
+        return captor.getValue();
+    }
+}
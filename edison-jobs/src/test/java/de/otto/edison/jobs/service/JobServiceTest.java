@@ -4,12 +4,18 @@ import de.otto.edison.jobs.definition.JobDefinition;
 import de.otto.edison.jobs.domain.JobInfo;
 import de.otto.edison.jobs.domain.JobMessage;
 import de.otto.edison.jobs.domain.Level;
+import de.otto.edison.jobs.domain.RunningJob;
+import de.otto.edison.jobs.eventbus.AsyncStateChangeEventDispatcher;
+import de.otto.edison.jobs.eventbus.events.StateChangeEvent;
 import de.otto.edison.jobs.repository.JobBlockedException;
 import de.otto.edison.jobs.repository.JobRepository;
 import de.otto.edison.status.domain.SystemInfo;
+import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
@@ -19,6 +25,8 @@ import java.time.Clock;
 import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -32,14 +40,19 @@ import static java.time.Clock.offset;
 import static java.time.Instant.now;
 import static java.time.ZoneId.systemDefault;
 import static java.time.temporal.ChronoUnit.MINUTES;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singleton;
 import static java.util.Collections.singletonList;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.isEmptyOrNullString;
 import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.mockito.MockitoAnnotations.initMocks;
 
@@ -89,10 +102,31 @@ public class JobServiceTest {
         jobService.postConstruct();
     }
 
+    @Test
+    public void shouldRunJobOnJobRunnerExecutorAndPingOnScheduledExecutor() {
+        // given:
+        final Executor jobRunnerExecutor = mock(Executor.class);
+        doAnswer(new RunImmediately()).when(jobRunnerExecutor).execute(any(Runnable.class));
+        jobService = new JobService(
+                jobRepository, jobMetaService, singletonList(jobRunnable),
+                executorService, jobRunnerExecutor, null, null, applicationEventPublisher, clock, systemInfo, uuidProviderMock);
+        jobService.postConstruct();
+
+        // when:
+        jobService.startAsyncJob("someType");
+
+        // then:
+        verify(jobRunnerExecutor).execute(any(Runnable.class));
+        verify(executorService, never()).execute(any(Runnable.class));
+        verify(executorService).scheduleAtFixedRate(any(Runnable.class), anyLong(), anyLong(), any(TimeUnit.class));
+        verify(jobRunnable).execute();
+    }
+
     @Test
     public void shouldReturnCreatedJobId() {
         // given:
         when(jobRunnable.getJobDefinition()).thenReturn(someJobDefinition("BAR"));
+        jobService.postConstruct();
 
         // when:
         Optional<String> jobId = jobService.startAsyncJob("BAR");
@@ -107,6 +141,7 @@ public class JobServiceTest {
         // given:
         String jobType = "bar";
         when(jobRunnable.getJobDefinition()).thenReturn(someJobDefinition(jobType));
+        jobService.postConstruct();
 
         // when:
         Optional<String> optionalJobId = jobService.startAsyncJob(jobType);
@@ -119,6 +154,34 @@ public class JobServiceTest {
         verify(jobMetaService).aquireRunLock(expectedJobInfo.getJobId(), expectedJobInfo.getJobType());
     }
 
+    @Test
+    public void shouldFindJobRunnableIgnoringCase() {
+        // when:
+        Optional<String> jobId = jobService.startAsyncJob("SOMETYPE");
+
+        // then:
+        assertThat(jobId.isPresent(), is(true));
+        verify(jobRunnable).execute();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailToStartUnknownJobType() {
+        jobService.startAsyncJob("unknownType");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldFailOnDuplicateJobTypes() {
+        // given:
+        final JobRunnable otherJobRunnable = mock(JobRunnable.class);
+        when(otherJobRunnable.getJobDefinition()).thenReturn(someJobDefinition("SomeType"));
+        jobService = new JobService(
+                jobRepository, jobMetaService, asList(jobRunnable, otherJobRunnable),
+                executorService, applicationEventPublisher, clock, systemInfo, uuidProviderMock);
+
+        // when:
+        jobService.postConstruct();
+    }
+
     @Test
     public void shouldNotStartJobOnBlockedException() {
         doAnswer((x) -> {throw new JobBlockedException("");})
@@ -130,15 +193,22 @@ public class JobServiceTest {
         verify(jobRepository, never()).createOrUpdate(any());
     }
 
-    // @Test FIXME
+    @Test
     public void shouldReportRuntime() {
         // given:
-        when(jobRunnable.getJobDefinition()).thenReturn(someJobDefinition("BAR"));
+        final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        Metrics.addRegistry(meterRegistry);
+        when(jobRunnable.getJobDefinition()).thenReturn(someJobDefinition("reportRuntimeJob"));
+        jobService.postConstruct();
 
         // when:
-        jobService.startAsyncJob("BAR");
+        jobService.startAsyncJob("reportRuntimeJob");
+
         // then:
-        assertThat(Metrics.summary("gauge.jobs.runtime.bar").totalAmount(), is(greaterThan(0.0d)));
+        assertThat(meterRegistry.find("timer.jobs.runtime").tag("jobType", "reportruntimejob").timer().count(), is(1L));
+        assertThat(meterRegistry.find("timer.jobs.queue.wait").tag("jobType", "reportruntimejob").timer().count(), is(1L));
+        assertThat(meterRegistry.find("gauge.jobs.running").tag("jobType", "reportruntimejob").gauge().value(), is(0.0));
+        Metrics.removeRegistry(meterRegistry);
     }
 
     @Test
@@ -150,9 +220,120 @@ public class JobServiceTest {
 
         jobService.stopJob("superId");
 
-        JobInfo expected = jobInfo.copy().setStatus(JobInfo.JobStatus.OK).setStopped(now).setLastUpdated(now).build();
-        verify(jobMetaService).releaseRunLock("superType");
-        verify(jobRepository).createOrUpdate(expected);
+        verify(jobMetaService).releaseRunLock("superId", "superType");
+        verify(jobRepository).markStopped("superId", now, Optional.empty());
+    }
+
+    @Test
+    public void shouldRegisterRunningJobsForHeartbeatsInsteadOfPinging() {
+        // given
+        final JobHeartbeats heartbeats = mock(JobHeartbeats.class);
+        jobService = new JobService(
+                jobRepository, jobMetaService, singletonList(jobRunnable),
+                executorService, null, heartbeats, null, applicationEventPublisher, clock, systemInfo, uuidProviderMock);
+        jobService.postConstruct();
+
+        // when
+        jobService.startAsyncJob("someType");
+
+        // then
+        verify(heartbeats).register(JOB_ID, "someType");
+        verify(executorService, never()).scheduleAtFixedRate(any(Runnable.class), anyLong(), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    public void shouldUnregisterRejectedJobFromHeartbeats() {
+        // given
+        final JobHeartbeats heartbeats = mock(JobHeartbeats.class);
+        final Executor jobRunnerExecutor = mock(Executor.class);
+        doThrow(new RejectedExecutionException("rejected")).when(jobRunnerExecutor).execute(any(Runnable.class));
+        jobService = new JobService(
+                jobRepository, jobMetaService, singletonList(jobRunnable),
+                executorService, jobRunnerExecutor, heartbeats, null, applicationEventPublisher, clock, systemInfo, uuidProviderMock);
+        jobService.postConstruct();
+
+        // when
+        try {
+            jobService.startAsyncJob("someType");
+            fail("RejectedExecutionException expected");
+        } catch (final RejectedExecutionException e) {
+            // then
+            verify(heartbeats).register(JOB_ID, "someType");
+            verify(heartbeats).unregister(JOB_ID);
+        }
+    }
+
+    @Test
+    public void shouldUnregisterStoppedJobFromHeartbeats() {
+        // given
+        final JobHeartbeats heartbeats = mock(JobHeartbeats.class);
+        jobService = new JobService(
+                jobRepository, jobMetaService, singletonList(jobRunnable),
+                executorService, null, heartbeats, null, applicationEventPublisher, clock, systemInfo, uuidProviderMock);
+        when(jobRepository.findOne("superId")).thenReturn(Optional.of(JobInfo.newJobInfo("superId", "superType", clock, HOSTNAME)));
+
+        // when
+        jobService.stopJob("superId");
+
+        // then
+        verify(heartbeats).unregister("superId");
+    }
+
+    @Test
+    public void shouldCountOutcomeOfStoppedJob() {
+        final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        Metrics.addRegistry(meterRegistry);
+        when(jobRepository.findOne("superId")).thenReturn(Optional.of(JobInfo.newJobInfo("superId", "superType", clock, HOSTNAME)));
+
+        jobService.killJob("superId");
+
+        assertThat(meterRegistry.find("counter.jobs.outcome").tags("jobType", "supertype", "outcome", "DEAD").counter().count(), is(1.0));
+        Metrics.removeRegistry(meterRegistry);
+    }
+
+    @Test
+    public void shouldNotCountOutcomeOfAlreadyStoppedJob() {
+        final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        Metrics.addRegistry(meterRegistry);
+        final JobInfo stoppedJob = JobInfo.newJobInfo("superId", "superType", clock, HOSTNAME)
+                .copy()
+                .setStopped(OffsetDateTime.now(clock))
+                .build();
+        when(jobRepository.findOne("superId")).thenReturn(Optional.of(stoppedJob));
+
+        jobService.killJob("superId");
+
+        final Counter counter = meterRegistry.find("counter.jobs.outcome").tags("jobType", "supertype", "outcome", "DEAD").counter();
+        assertThat(counter == null ? 0.0 : counter.count(), is(0.0));
+        Metrics.removeRegistry(meterRegistry);
+    }
+
+    @Test
+    public void shouldPersistStoppedJobBeforeReleasingRunLock() {
+        when(jobRepository.findOne("superId")).thenReturn(Optional.of(JobInfo.newJobInfo("superId", "superType", clock, HOSTNAME)));
+
+        jobService.stopJob("superId");
+
+        final InOrder inOrder = inOrder(jobRepository, jobMetaService);
+        inOrder.verify(jobRepository).markStopped(eq("superId"), any(OffsetDateTime.class), any());
+        inOrder.verify(jobMetaService).releaseRunLock("superId", "superType");
+    }
+
+    @Test
+    public void shouldPublishStateChangesUsingAsyncDispatcher() {
+        // given
+        final AsyncStateChangeEventDispatcher eventDispatcher = mock(AsyncStateChangeEventDispatcher.class);
+        jobService = new JobService(
+                jobRepository, jobMetaService, singletonList(jobRunnable),
+                executorService, null, null, eventDispatcher, applicationEventPublisher, clock, systemInfo, uuidProviderMock);
+        jobService.postConstruct();
+
+        // when
+        jobService.startAsyncJob("someType");
+
+        // then
+        verify(eventDispatcher, atLeastOnce()).publishEvent(any(StateChangeEvent.class));
+        verify(applicationEventPublisher, never()).publishEvent(any(StateChangeEvent.class));
     }
 
     @Test
@@ -163,9 +344,8 @@ public class JobServiceTest {
 
         jobService.killJob("superId");
 
-        JobInfo expected = jobInfo.copy().setStatus(JobInfo.JobStatus.DEAD).setStopped(now).setLastUpdated(now).build();
-        verify(jobMetaService).releaseRunLock("superType");
-        verify(jobRepository).createOrUpdate(expected);
+        verify(jobMetaService).releaseRunLock("superId", "superType");
+        verify(jobRepository).markStopped("superId", now, Optional.of(JobInfo.JobStatus.DEAD));
     }
 
     @Test
@@ -176,7 +356,19 @@ public class JobServiceTest {
 
         jobService.killJobsDeadSince(60);
 
-        verify(jobMetaService).releaseRunLock("jobType");
+        verify(jobMetaService).releaseRunLock(someJobInfo.getJobId(), "jobType");
+        verify(jobMetaService).releaseOrphanedGroupLocks();
+    }
+
+    @Test
+    public void shouldForceReleaseRunLocksOfUnknownJobs() {
+        when(jobRepository.findRunningWithoutUpdateSince(any())).thenReturn(emptyList());
+        when(jobMetaService.runningJobs()).thenReturn(singleton(new RunningJob("unknownId", "jobType")));
+        when(jobRepository.findOne("unknownId")).thenReturn(Optional.empty());
+
+        jobService.killJobsDeadSince(60);
+
+        verify(jobMetaService).forceReleaseRunLock("unknownId", "jobType");
     }
 
     @Test
@@ -189,6 +381,16 @@ public class JobServiceTest {
         verify(jobRepository).setLastUpdate(JOB_ID, now);
     }
 
+    @Test
+    public void shouldRenewRunLockOnKeepAlive() {
+        //when
+        jobService.keepAlive(JOB_ID, "jobType");
+
+        //then
+        verify(jobRepository).setLastUpdate(JOB_ID, OffsetDateTime.now(clock));
+        verify(jobMetaService).renewRunLock(JOB_ID, "jobType");
+    }
+
     @Test
     public void shouldMarkSkipped() {
         //when
@@ -197,9 +399,8 @@ public class JobServiceTest {
         // then
         OffsetDateTime now = OffsetDateTime.now(clock);
 
-        verify(jobRepository).appendMessage(JOB_ID, jobMessage(Level.INFO, "Skipped job ..", now));
-        verify(jobRepository).setLastUpdate(JOB_ID, now);
-        verify(jobRepository).setJobStatus(JOB_ID, JobInfo.JobStatus.SKIPPED);
+        verify(jobRepository).applyTransition(JOB_ID, JobInfo.JobStatus.SKIPPED, now, Optional.of(jobMessage(Level.INFO, "Skipped job ..", now)));
+        verifyNoMoreInteractions(jobRepository);
     }
 
     @Test
@@ -210,9 +411,8 @@ public class JobServiceTest {
         // then
         OffsetDateTime now = OffsetDateTime.now(clock);
 
-        verify(jobRepository).appendMessage(JOB_ID, jobMessage(Level.WARNING, "Restarting job ..", now));
-        verify(jobRepository).setLastUpdate(JOB_ID, now);
-        verify(jobRepository).setJobStatus(JOB_ID, JobInfo.JobStatus.OK);
+        verify(jobRepository).applyTransition(JOB_ID, JobInfo.JobStatus.OK, now, Optional.of(jobMessage(Level.WARNING, "Restarting job ..", now)));
+        verifyNoMoreInteractions(jobRepository);
     }
 
     @Test
@@ -230,22 +430,42 @@ public class JobServiceTest {
     @Test
     public void shouldAppendErrorMessageAndSetErrorStatus() {
         OffsetDateTime now = OffsetDateTime.now(clock);
-        OffsetDateTime earlier = now.minus(10, MINUTES);
         JobMessage message = JobMessage.jobMessage(Level.ERROR, "Error: Out of hunk", now);
-        JobInfo jobInfo = defaultJobInfo()
-                .setLastUpdated(earlier)
-                .build();
-        when(jobRepository.findOne(JOB_ID)).thenReturn(Optional.of(jobInfo));
 
         // when
         jobService.appendMessage(JOB_ID, message);
 
         // then
-        JobInfo expected = jobInfo.copy()
-                .setStatus(JobInfo.JobStatus.ERROR)
-                .setLastUpdated(now).build();
-        verify(jobRepository).appendMessage(JOB_ID, message);
-        verify(jobRepository).createOrUpdate(expected);
+        verify(jobRepository).applyTransition(JOB_ID, JobInfo.JobStatus.ERROR, now, Optional.of(message));
+        verifyNoMoreInteractions(jobRepository);
+    }
+
+    @Test
+    public void shouldAppendMessagesInSingleUpdate() {
+        OffsetDateTime now = OffsetDateTime.now(clock);
+        JobMessage first = JobMessage.jobMessage(Level.INFO, "first", now);
+        JobMessage second = JobMessage.jobMessage(Level.WARNING, "second", now);
+
+        // when
+        jobService.appendMessages(JOB_ID, asList(first, second));
+
+        // then
+        verify(jobRepository).appendMessages(JOB_ID, asList(first, second), Optional.empty(), now);
+        verifyNoMoreInteractions(jobRepository);
+    }
+
+    @Test
+    public void shouldAppendMessagesAndSetErrorStatus() {
+        OffsetDateTime now = OffsetDateTime.now(clock);
+        JobMessage info = JobMessage.jobMessage(Level.INFO, "first", now);
+        JobMessage error = JobMessage.jobMessage(Level.ERROR, "Error: Out of hunk", now);
+
+        // when
+        jobService.appendMessages(JOB_ID, asList(info, error));
+
+        // then
+        verify(jobRepository).appendMessages(JOB_ID, asList(info, error), Optional.of(JobInfo.JobStatus.ERROR), now);
+        verifyNoMoreInteractions(jobRepository);
     }
 
     private JobInfo.Builder defaultJobInfo() {
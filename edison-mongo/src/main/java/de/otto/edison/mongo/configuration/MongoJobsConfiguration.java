@@ -1,10 +1,13 @@
 package de.otto.edison.mongo.configuration;
 
 import com.mongodb.client.MongoDatabase;
+import de.otto.edison.jobs.configuration.JobsProperties;
 import de.otto.edison.jobs.repository.JobMetaRepository;
 import de.otto.edison.jobs.repository.JobRepository;
+import de.otto.edison.jobs.repository.cleanup.KeepLastJobs;
 import de.otto.edison.mongo.jobs.MongoJobMetaRepository;
 import de.otto.edison.mongo.jobs.MongoJobRepository;
+import de.otto.edison.mongo.jobs.MongoKeepLastJobs;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
@@ -16,7 +19,7 @@ import static org.slf4j.LoggerFactory.getLogger;
 
 @Configuration
 @ConditionalOnClass(name = "de.otto.edison.jobs.configuration.JobsConfiguration")
-@EnableConfigurationProperties(MongoProperties.class)
+@EnableConfigurationProperties({MongoProperties.class, JobsProperties.class})
 public class MongoJobsConfiguration {
 
     private static final Logger LOG = getLogger(MongoJobsConfiguration.class);
@@ -24,11 +27,31 @@ public class MongoJobsConfiguration {
     @Bean
     public JobRepository jobRepository(final MongoDatabase mongoDatabase,
                                        final @Value("${edison.jobs.collection.jobinfo:jobinfo}") String collectionName,
-                                       final MongoProperties mongoProperties) {
+                                       final @Value("${edison.jobs.collection.jobmessages:jobmessages}") String messagesCollectionName,
+                                       final MongoProperties mongoProperties,
+                                       final JobsProperties jobsProperties) {
         LOG.info("===============================");
         LOG.info("Using MongoJobRepository with {} MongoDatabase impl.", mongoDatabase.getClass().getSimpleName());
         LOG.info("===============================");
-        return new MongoJobRepository(mongoDatabase, collectionName, mongoProperties);
+        final JobsProperties.Messages messages = jobsProperties.getMessages();
+        return new MongoJobRepository(
+                mongoDatabase,
+                collectionName,
+                messages.isSeparateLog() ? messagesCollectionName : null,
+                messages.getMaxMessagesPerJob(),
+                jobsProperties.getCleanup().getStoppedJobsTimeToLive(),
+                mongoProperties);
+    }
+
+    @Bean
+    public KeepLastJobs keepLastJobsStrategy(final JobRepository jobRepository,
+                                             final JobsProperties jobsProperties) {
+        final int numberOfJobsToKeep = jobsProperties.getCleanup().getNumberOfJobsToKeep();
+        if (jobRepository instanceof MongoJobRepository) {
+            return new MongoKeepLastJobs((MongoJobRepository) jobRepository, numberOfJobsToKeep);
+        } else {
+            return new KeepLastJobs(jobRepository, numberOfJobsToKeep);
+        }
     }
 
     @Bean
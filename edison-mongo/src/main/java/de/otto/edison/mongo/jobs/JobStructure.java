@@ -11,6 +11,9 @@ enum JobStructure {
     MSG_TS("ts"),
     MSG_TEXT("msg"),
     MSG_LEVEL("level"),
+    MSG_JOB_ID("jobId"),
+    MSG_SEQ("seq"),
+    MESSAGE_COUNT("messageCount"),
     HOSTNAME("hostname"),
     LAST_UPDATED("lastUpdated");
 
@@ -1,6 +1,9 @@
 package de.otto.edison.mongo.jobs;
 
+import static de.otto.edison.jobs.repository.JobMetaRepository.groupLockId;
+import static de.otto.edison.jobs.repository.JobMetaRepository.isGroupLockId;
 import static java.util.Collections.emptyMap;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 import static java.util.stream.Collectors.toSet;
 import static java.util.stream.StreamSupport.stream;
@@ -8,9 +11,18 @@ import static java.util.stream.StreamSupport.stream;
 import static com.mongodb.client.model.Filters.and;
 import static com.mongodb.client.model.Filters.eq;
 import static com.mongodb.client.model.Filters.exists;
+import static com.mongodb.client.model.Filters.in;
+import static com.mongodb.client.model.Filters.lt;
+import static com.mongodb.client.model.Filters.or;
+import static com.mongodb.client.model.Updates.combine;
 import static com.mongodb.client.model.Updates.set;
 import static com.mongodb.client.model.Updates.unset;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
@@ -20,11 +32,13 @@ import org.bson.Document;
 import org.bson.conversions.Bson;
 
 import com.mongodb.BasicDBObject;
+import com.mongodb.MongoException;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.model.FindOneAndUpdateOptions;
 
 import de.otto.edison.jobs.domain.JobMeta;
+import de.otto.edison.jobs.domain.RunningJob;
 import de.otto.edison.jobs.repository.JobMetaRepository;
 
 /**
@@ -39,6 +53,7 @@ public class MongoJobMetaRepository implements JobMetaRepository {
     private static final FindOneAndUpdateOptions UPSERT = new FindOneAndUpdateOptions()
             .upsert(true)
             .maxTime(250, TimeUnit.MILLISECONDS);
+    private static final int DUPLICATE_KEY_ERROR = 11000;
     private static final String ID = "_id";
     private static final String KEY_DISABLED = "_e_disabled";
     private static final String KEY_RUNNING = "_e_running";
@@ -62,6 +77,32 @@ public class MongoJobMetaRepository implements JobMetaRepository {
                 .find(eq(ID, jobType))
                 .maxTime(mongoProperties.getDefaultReadTimeout(), TimeUnit.MILLISECONDS)
                 .first();
+        return toJobMeta(jobType, document);
+    }
+
+    /**
+     * Returns the current state of a number of job types, using a single query.
+     *
+     * @param jobTypes the job types
+     * @return map containing the current state of every job type, keyed by job type
+     */
+    @Override
+    public Map<String, JobMeta> getJobMetas(final Set<String> jobTypes) {
+        final Map<String, Document> documents = collection
+                .find(in(ID, jobTypes))
+                .maxTime(mongoProperties.getDefaultReadTimeout(), TimeUnit.MILLISECONDS)
+                .into(new ArrayList<>())
+                .stream()
+                .collect(toMap(document -> document.getString(ID), document -> document));
+        return jobTypes
+                .stream()
+                .collect(toMap(
+                        jobType -> jobType,
+                        jobType -> toJobMeta(jobType, documents.get(jobType))
+                ));
+    }
+
+    private JobMeta toJobMeta(final String jobType, final Document document) {
         if (document != null) {
             final Map<String, String> meta = document.keySet()
                     .stream()
@@ -84,11 +125,55 @@ public class MongoJobMetaRepository implements JobMetaRepository {
         return createValue(jobType, KEY_RUNNING, jobId);
     }
 
+    /**
+     * Marks the job type as running using a single conditional findOneAndUpdate, if the job type is not running or
+     * if the lease of the running job has expired.
+     */
+    @Override
+    public boolean setRunningJob(final String jobType,
+                                 final String jobId,
+                                 final String owner,
+                                 final Instant expiresAt,
+                                 final Instant now) {
+        final Bson filter = and(
+                eq(ID, jobType),
+                or(exists(KEY_RUNNING, false), lt(KEY_LOCK_EXPIRES, Date.from(now))));
+        final Bson update = combine(
+                set(KEY_RUNNING, jobId),
+                set(KEY_LOCK_OWNER, owner),
+                set(KEY_LOCK_EXPIRES, Date.from(expiresAt)));
+        return upsertIfMatches(filter, update);
+    }
+
+    @Override
+    public boolean renewRunningJob(final String jobType, final String jobId, final Instant expiresAt) {
+        return collection.updateOne(
+                and(eq(ID, jobType), eq(KEY_RUNNING, jobId)),
+                set(KEY_LOCK_EXPIRES, Date.from(expiresAt))
+        ).getMatchedCount() > 0;
+    }
+
     @Override
     public String getRunningJob(final String jobType) {
         return getValue(jobType, KEY_RUNNING);
     }
 
+    /**
+     * Returns all running jobs using a single query, projected to the job type and the id of the running job.
+     *
+     * @return set of running jobs
+     */
+    @Override
+    public Set<RunningJob> findRunningJobs() {
+        return stream(collection
+                .find(exists(KEY_RUNNING))
+                .projection(new Document(ID, true).append(KEY_RUNNING, true))
+                .maxTime(mongoProperties.getDefaultReadTimeout(), TimeUnit.MILLISECONDS)
+                .spliterator(), false)
+                .map(doc -> new RunningJob(doc.getString(KEY_RUNNING), doc.getString(ID)))
+                .collect(toSet());
+    }
+
     /**
      * Clears the job running mark of the jobType. Does nothing if not mark exists.
      *
@@ -96,7 +181,20 @@ public class MongoJobMetaRepository implements JobMetaRepository {
      */
     @Override
     public void clearRunningJob(final String jobType) {
-        setValue(jobType, KEY_RUNNING, null);
+        collection.findOneAndUpdate(eq(ID, jobType), combine(unset(KEY_RUNNING), unset(KEY_LOCK_EXPIRES)), UPSERT);
+    }
+
+    /**
+     * Clears the job running mark of the jobType using a single conditional update, if it is held by the specified job.
+     *
+     * @param jobType the job type
+     * @param jobId the id of the job holding the run lock
+     */
+    @Override
+    public void clearRunningJob(final String jobType, final String jobId) {
+        collection.updateOne(
+                and(eq(ID, jobType), eq(KEY_RUNNING, jobId)),
+                combine(unset(KEY_RUNNING), unset(KEY_LOCK_EXPIRES)));
     }
 
     /**
@@ -162,6 +260,97 @@ public class MongoJobMetaRepository implements JobMetaRepository {
         }
     }
 
+    /**
+     * Upserts the document, if the filter matches. If the document exists but does not match the filter, the upsert
+     * fails with a duplicate key error. Other errors are not related to the filter and are rethrown.
+     */
+    private boolean upsertIfMatches(final Bson filter, final Bson update) {
+        try {
+            collection.findOneAndUpdate(filter, update, UPSERT);
+            return true;
+        } catch (final MongoException e) {
+            if (e.getCode() == DUPLICATE_KEY_ERROR) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Releases the lock of a mutex group using a single conditional update, if it is held by the specified job.
+     *
+     * @param groupName the name of the mutex group
+     * @param jobId the id of the job holding the lock
+     */
+    @Override
+    public void releaseGroupLock(final String groupName, final String jobId) {
+        collection.updateOne(
+                and(eq(ID, groupLockId(groupName)), eq(KEY_GROUP_LOCKED_BY_JOB, jobId)),
+                combine(unset(KEY_GROUP_LOCKED_BY), unset(KEY_GROUP_LOCKED_BY_JOB), unset(KEY_LOCK_EXPIRES)));
+    }
+
+    /**
+     * Acquires the lock of a mutex group using a single conditional findOneAndUpdate, if the group is not locked.
+     */
+    @Override
+    public boolean acquireGroupLock(final String groupName, final String jobType, final String jobId) {
+        final Bson filter = and(
+                eq(ID, groupLockId(groupName)),
+                exists(KEY_GROUP_LOCKED_BY, false));
+        final Bson update = combine(
+                set(KEY_GROUP_LOCKED_BY, jobType),
+                set(KEY_GROUP_LOCKED_BY_JOB, jobId));
+        return upsertIfMatches(filter, update);
+    }
+
+    /**
+     * Acquires the lock of a mutex group using a single conditional findOneAndUpdate, if the group is not locked,
+     * locked by the same job type, or if the lease has expired.
+     */
+    @Override
+    public boolean acquireGroupLock(final String groupName,
+                                    final String jobType,
+                                    final String jobId,
+                                    final Instant expiresAt,
+                                    final Instant now) {
+        final Bson filter = and(
+                eq(ID, groupLockId(groupName)),
+                or(exists(KEY_GROUP_LOCKED_BY, false), eq(KEY_GROUP_LOCKED_BY, jobType), lt(KEY_LOCK_EXPIRES, Date.from(now))));
+        final Bson update = combine(
+                set(KEY_GROUP_LOCKED_BY, jobType),
+                set(KEY_GROUP_LOCKED_BY_JOB, jobId),
+                set(KEY_LOCK_EXPIRES, Date.from(expiresAt)));
+        return upsertIfMatches(filter, update);
+    }
+
+    @Override
+    public void renewGroupLock(final String groupName, final String jobId, final Instant expiresAt) {
+        collection.updateOne(
+                and(eq(ID, groupLockId(groupName)), eq(KEY_GROUP_LOCKED_BY_JOB, jobId)),
+                set(KEY_LOCK_EXPIRES, Date.from(expiresAt)));
+    }
+
+    /**
+     * Renews the leases of the run locks of all running jobs, and of the mutex group locks held by these jobs,
+     * using a single updateMany.
+     */
+    @Override
+    public void renewLocks(final Collection<RunningJob> runningJobs,
+                           final Collection<String> groupNames,
+                           final Instant expiresAt) {
+        if (runningJobs.isEmpty()) {
+            return;
+        }
+        final List<Bson> locks = new ArrayList<>();
+        runningJobs.forEach(runningJob -> locks.add(and(eq(ID, runningJob.jobType), eq(KEY_RUNNING, runningJob.jobId))));
+        if (!groupNames.isEmpty()) {
+            locks.add(and(
+                    in(ID, groupNames.stream().map(JobMetaRepository::groupLockId).collect(toList())),
+                    in(KEY_GROUP_LOCKED_BY_JOB, runningJobs.stream().map(runningJob -> runningJob.jobId).collect(toSet()))));
+        }
+        collection.updateMany(or(locks), set(KEY_LOCK_EXPIRES, Date.from(expiresAt)));
+    }
+
     /**
      * Returns all job types having state information.
      *
@@ -169,8 +358,9 @@ public class MongoJobMetaRepository implements JobMetaRepository {
      */
     @Override
     public Set<String> findAllJobTypes() {
-        return stream(collection.find().maxTime(500, TimeUnit.MILLISECONDS).spliterator(), false)
+        return stream(collection.find().projection(new Document(ID, true)).maxTime(500, TimeUnit.MILLISECONDS).spliterator(), false)
                 .map(doc -> doc.getString(ID))
+                .filter(jobType -> !isGroupLockId(jobType))
                 .collect(toSet());
     }
 
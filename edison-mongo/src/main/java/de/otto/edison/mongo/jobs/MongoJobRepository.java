@@ -1,10 +1,15 @@
 package de.otto.edison.mongo.jobs;
 
 import com.mongodb.BasicDBObject;
+import com.mongodb.MongoCommandException;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.model.DeleteOptions;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.PushOptions;
 import de.otto.edison.jobs.domain.JobInfo;
 import de.otto.edison.jobs.domain.JobInfo.JobStatus;
 import de.otto.edison.jobs.domain.JobMessage;
@@ -13,6 +18,8 @@ import de.otto.edison.jobs.repository.JobRepository;
 import de.otto.edison.mongo.AbstractMongoRepository;
 import de.otto.edison.mongo.configuration.MongoProperties;
 import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
 
 import java.time.Clock;
 import java.time.OffsetDateTime;
@@ -20,33 +27,78 @@ import java.util.*;
 import java.util.concurrent.TimeUnit;
 
 import static com.mongodb.ReadPreference.primaryPreferred;
+import static com.mongodb.client.model.Filters.and;
 import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.exists;
+import static com.mongodb.client.model.Filters.in;
+import static com.mongodb.client.model.ReturnDocument.AFTER;
+import static com.mongodb.client.model.Updates.combine;
+import static com.mongodb.client.model.Updates.inc;
 import static com.mongodb.client.model.Updates.push;
+import static com.mongodb.client.model.Updates.pushEach;
 import static com.mongodb.client.model.Updates.set;
+import static com.mongodb.client.model.Updates.unset;
 import static de.otto.edison.jobs.domain.JobInfo.newJobInfo;
 import static de.otto.edison.jobs.domain.JobMessage.jobMessage;
 import static java.time.Clock.systemDefaultZone;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static java.util.Collections.singletonMap;
 import static java.util.Date.from;
 import static java.util.Optional.ofNullable;
 import static java.util.stream.Collectors.toList;
+import static org.slf4j.LoggerFactory.getLogger;
 
 public class MongoJobRepository extends AbstractMongoRepository<String, JobInfo> implements JobRepository {
 
+    private static final Logger LOG = getLogger(MongoJobRepository.class);
+
     private static final int DESCENDING = -1;
+    private static final int ORPHAN_BATCH_SIZE = 1000;
     private static final String NO_LOG_MESSAGE_FOUND = "No log message found";
     public static final String ID = "_id";
 
+    private final MongoDatabase mongoDatabase;
     private final MongoCollection<Document> jobInfoCollection;
+    private final MongoCollection<Document> jobMessagesCollection;
+    private final int maxMessagesPerJob;
+    private final long stoppedJobsTimeToLive;
     private final Clock clock;
 
     public MongoJobRepository(final MongoDatabase mongoDatabase,
                               final String jobInfoCollectionName,
                               final MongoProperties mongoProperties) {
+        this(mongoDatabase, jobInfoCollectionName, null, 0, 0, mongoProperties);
+    }
+
+    /**
+     * @param mongoDatabase the MongoDatabase
+     * @param jobInfoCollectionName the name of the collection used to store JobInfos
+     * @param jobMessagesCollectionName the name of the collection used to store all job messages, or null, if job
+     *                                  messages are only stored with the JobInfo
+     * @param maxMessagesPerJob the maximum number of (latest) messages stored with a JobInfo, or 0 for unlimited
+     * @param stoppedJobsTimeToLive the number of seconds after which stopped jobs are removed by a TTL index,
+     *                              or 0 if no TTL index is used
+     * @param mongoProperties the MongoProperties
+     */
+    public MongoJobRepository(final MongoDatabase mongoDatabase,
+                              final String jobInfoCollectionName,
+                              final String jobMessagesCollectionName,
+                              final int maxMessagesPerJob,
+                              final long stoppedJobsTimeToLive,
+                              final MongoProperties mongoProperties) {
         super(mongoProperties);
+        this.mongoDatabase = mongoDatabase;
         MongoCollection<Document> tmpCollection = mongoDatabase.getCollection(jobInfoCollectionName).withReadPreference(primaryPreferred());
         this.jobInfoCollection = tmpCollection.withWriteConcern(tmpCollection.getWriteConcern().withWTimeout(mongoProperties.getDefaultWriteTimeout(), TimeUnit.MILLISECONDS));
+        if (jobMessagesCollectionName != null) {
+            tmpCollection = mongoDatabase.getCollection(jobMessagesCollectionName).withReadPreference(primaryPreferred());
+            this.jobMessagesCollection = tmpCollection.withWriteConcern(tmpCollection.getWriteConcern().withWTimeout(mongoProperties.getDefaultWriteTimeout(), TimeUnit.MILLISECONDS));
+        } else {
+            this.jobMessagesCollection = null;
+        }
+        this.maxMessagesPerJob = maxMessagesPerJob;
+        this.stoppedJobsTimeToLive = stoppedJobsTimeToLive;
         this.clock = systemDefaultZone();
     }
 
@@ -61,16 +113,95 @@ public class MongoJobRepository extends AbstractMongoRepository<String, JobInfo>
 
     @Override
     public void removeIfStopped(final String id) {
-        findOne(id).ifPresent(jobInfo -> {
-            if (jobInfo.isStopped()) {
-                collectionWithWriteTimeout(50, TimeUnit.MILLISECONDS).deleteOne(eq(ID, id));
+        final long deleted = collectionWithWriteTimeout(50, TimeUnit.MILLISECONDS)
+                .deleteOne(and(eq(ID, id), exists(JobStructure.STOPPED.key())))
+                .getDeletedCount();
+        if (deleted > 0 && jobMessagesCollection != null) {
+            jobMessagesCollection.deleteMany(eq(JobStructure.MSG_JOB_ID.key(), id));
+        }
+    }
+
+    @Override
+    public void removeIfStopped(final Collection<String> jobIds) {
+        if (jobIds.isEmpty()) {
+            return;
+        }
+        collectionWithWriteTimeout(500, TimeUnit.MILLISECONDS)
+                .deleteMany(and(in(ID, jobIds), exists(JobStructure.STOPPED.key())));
+        if (jobMessagesCollection != null) {
+            removeMessagesOfMissingJobs(jobIds);
+        }
+    }
+
+    /**
+     * Removes the messages of jobs that do not exist anymore from the job messages collection. Jobs removed by the
+     * TTL index on {@code stopped} are leaving their messages behind, so this is called periodically by the
+     * {@link MongoKeepLastJobs} cleanup. Does nothing, if no job messages collection is configured.
+     *
+     * @return the number of removed messages
+     */
+    public long removeOrphanedMessages() {
+        if (jobMessagesCollection == null) {
+            return 0;
+        }
+        long removed = 0;
+        final List<String> jobIds = new ArrayList<>(ORPHAN_BATCH_SIZE);
+        try (final MongoCursor<Document> cursor = jobMessagesCollection
+                .aggregate(singletonList(new Document("$group", new Document(ID, "$" + JobStructure.MSG_JOB_ID.key()))))
+                .batchSize(ORPHAN_BATCH_SIZE)
+                .maxTime(10, TimeUnit.SECONDS)
+                .iterator()) {
+            while (cursor.hasNext()) {
+                jobIds.add(cursor.next().getString(ID));
+                if (jobIds.size() == ORPHAN_BATCH_SIZE) {
+                    removed += removeMessagesOfMissingJobs(jobIds);
+                    jobIds.clear();
+                }
             }
-        });
+        }
+        removed += removeMessagesOfMissingJobs(jobIds);
+        return removed;
+    }
+
+    private long removeMessagesOfMissingJobs(final Collection<String> jobIds) {
+        if (jobIds.isEmpty()) {
+            return 0;
+        }
+        final Set<String> remainingJobIds = collection()
+                .find(in(ID, jobIds))
+                .projection(new Document(ID, true))
+                .maxTime(500, TimeUnit.MILLISECONDS)
+                .map(document -> document.getString(ID))
+                .into(new HashSet<>());
+        final List<String> removedJobIds = jobIds.stream()
+                .filter(jobId -> !remainingJobIds.contains(jobId))
+                .collect(toList());
+        return removedJobIds.isEmpty()
+                ? 0
+                : jobMessagesCollection.deleteMany(in(JobStructure.MSG_JOB_ID.key(), removedJobIds)).getDeletedCount();
     }
 
     @Override
     public void appendMessage(final String jobId, final JobMessage jobMessage) {
-        collectionWithWriteTimeout(250, TimeUnit.MILLISECONDS).updateOne(eq(ID, jobId), push(JobStructure.MESSAGES.key(), encodeJobMessage(jobMessage)));
+        appendMessages(jobId, singletonList(jobMessage));
+    }
+
+    @Override
+    public void appendMessages(final String jobId, final List<JobMessage> jobMessages) {
+        updateAndAppendMessages(jobId, new ArrayList<>(), jobMessages);
+    }
+
+    @Override
+    public void appendMessages(final String jobId,
+                               final List<JobMessage> jobMessages,
+                               final Optional<JobStatus> jobStatus,
+                               final OffsetDateTime lastUpdate) {
+        final List<Bson> updates = new ArrayList<>();
+        jobStatus.ifPresent(status -> {
+            updates.add(set(JobStructure.STATUS.key(), status.name()));
+            updates.add(set(JobStructure.LAST_UPDATED.key(), DateTimeConverters.toDate(lastUpdate)));
+        });
+        updateAndAppendMessages(jobId, updates, jobMessages);
     }
 
     @Override
@@ -83,6 +214,169 @@ public class MongoJobRepository extends AbstractMongoRepository<String, JobInfo>
         collectionWithWriteTimeout(250, TimeUnit.MILLISECONDS).updateOne(eq(ID, jobId), set(JobStructure.LAST_UPDATED.key(), DateTimeConverters.toDate(lastUpdate)));
     }
 
+    @Override
+    public void setLastUpdate(final Collection<String> jobIds, final OffsetDateTime lastUpdate) {
+        if (!jobIds.isEmpty()) {
+            collectionWithWriteTimeout(250, TimeUnit.MILLISECONDS).updateMany(in(ID, jobIds), set(JobStructure.LAST_UPDATED.key(), DateTimeConverters.toDate(lastUpdate)));
+        }
+    }
+
+    @Override
+    public void applyTransition(final String jobId,
+                                final JobStatus jobStatus,
+                                final OffsetDateTime lastUpdate,
+                                final Optional<JobMessage> jobMessage) {
+        final List<Bson> updates = new ArrayList<>();
+        updates.add(set(JobStructure.STATUS.key(), jobStatus.name()));
+        updates.add(set(JobStructure.LAST_UPDATED.key(), DateTimeConverters.toDate(lastUpdate)));
+        updateAndAppendMessages(jobId, updates, jobMessage.map(Collections::singletonList).orElse(emptyList()));
+    }
+
+    @Override
+    public void markStopped(final String jobId,
+                            final OffsetDateTime stopped,
+                            final Optional<JobStatus> jobStatus) {
+        final List<Bson> updates = new ArrayList<>();
+        updates.add(set(JobStructure.STOPPED.key(), DateTimeConverters.toDate(stopped)));
+        updates.add(set(JobStructure.LAST_UPDATED.key(), DateTimeConverters.toDate(stopped)));
+        jobStatus.ifPresent(status -> updates.add(set(JobStructure.STATUS.key(), status.name())));
+        collectionWithWriteTimeout(250, TimeUnit.MILLISECONDS).updateOne(eq(ID, jobId), combine(updates));
+    }
+
+    @Override
+    public List<JobMessage> findMessages(final String jobId, final int skip, final int limit) {
+        if (jobMessagesCollection == null) {
+            return JobRepository.super.findMessages(jobId, skip, limit);
+        }
+        return jobMessagesCollection
+                .find(eq(JobStructure.MSG_JOB_ID.key(), jobId))
+                .maxTime(500, TimeUnit.MILLISECONDS)
+                .sort(new Document(JobStructure.MSG_SEQ.key(), 1).append(ID, 1))
+                .skip(skip)
+                .limit(limit)
+                .map(this::toJobMessage)
+                .into(new ArrayList<>());
+    }
+
+    /**
+     * Creates or replaces a job.
+     * <p>
+     *     If a job messages collection is configured, the messages of the job that are not yet stored with the job
+     *     are also inserted into this collection, so the message log contains the initial messages of new jobs, too.
+     *     The messages are compared by position: all messages following the longest common prefix of the given and
+     *     the currently stored messages are new, so repeated messages are logged repeatedly. The job is replaced by a
+     *     single update that also increments the number of messages, so concurrent writers are never allocating the
+     *     same sequence numbers.
+     * </p>
+     */
+    @Override
+    public JobInfo createOrUpdate(final JobInfo job, final long maxTime, final TimeUnit timeUnit) {
+        if (jobMessagesCollection == null) {
+            return super.createOrUpdate(job, maxTime, timeUnit);
+        }
+        final Document previous = collection()
+                .find(eq(ID, job.getJobId()))
+                .projection(new Document(JobStructure.MESSAGES.key(), true))
+                .maxTime(mongoProperties.getDefaultReadTimeout(), TimeUnit.MILLISECONDS)
+                .first();
+        final List<JobMessage> previousMessages = previous != null ? getMessagesFrom(previous) : emptyList();
+        final List<JobMessage> messages = job.getMessages();
+        int storedCount = 0;
+        while (storedCount < messages.size()
+                && storedCount < previousMessages.size()
+                && messages.get(storedCount).equals(previousMessages.get(storedCount))) {
+            ++storedCount;
+        }
+        final List<Document> addedMessages = messages.stream()
+                .skip(storedCount)
+                .map(MongoJobRepository::encodeJobMessage)
+                .collect(toList());
+
+        final Document document = encode(job);
+        final List<Bson> updates = new ArrayList<>();
+        document.forEach((key, value) -> {
+            if (!ID.equals(key)) {
+                updates.add(set(key, value));
+            }
+        });
+        if (!job.isStopped()) {
+            updates.add(unset(JobStructure.STOPPED.key()));
+        }
+        updates.add(inc(JobStructure.MESSAGE_COUNT.key(), (long) addedMessages.size()));
+        final Document updated = collectionWithWriteTimeout(maxTime, timeUnit).findOneAndUpdate(
+                eq(ID, job.getJobId()),
+                combine(updates),
+                new FindOneAndUpdateOptions()
+                        .upsert(true)
+                        .projection(new Document(JobStructure.MESSAGE_COUNT.key(), true))
+                        .returnDocument(AFTER));
+        if (updated != null) {
+            insertIntoMessageLog(job.getJobId(), messageCountOf(updated) - addedMessages.size(), addedMessages);
+        }
+        return decode(document);
+    }
+
+    /**
+     * Updates a job using a single update, appending the job messages to the messages of the job.
+     * <p>
+     *     If maxMessagesPerJob is configured, only the latest messages are kept in the job document. If a job messages
+     *     collection is configured, the number of messages of the job is incremented by the same update, and the
+     *     messages are inserted into this collection, numbered by their position in the messages of the job.
+     * </p>
+     */
+    private void updateAndAppendMessages(final String jobId,
+                                         final List<Bson> updates,
+                                         final List<JobMessage> jobMessages) {
+        if (jobMessages.isEmpty()) {
+            if (!updates.isEmpty()) {
+                collectionWithWriteTimeout(250, TimeUnit.MILLISECONDS).updateOne(eq(ID, jobId), combine(updates));
+            }
+            return;
+        }
+        final List<Document> encodedMessages = jobMessages.stream()
+                .map(MongoJobRepository::encodeJobMessage)
+                .collect(toList());
+        if (maxMessagesPerJob > 0) {
+            updates.add(pushEach(JobStructure.MESSAGES.key(), encodedMessages, new PushOptions().slice(-maxMessagesPerJob)));
+        } else if (encodedMessages.size() == 1) {
+            updates.add(push(JobStructure.MESSAGES.key(), encodedMessages.get(0)));
+        } else {
+            updates.add(pushEach(JobStructure.MESSAGES.key(), encodedMessages));
+        }
+        if (jobMessagesCollection == null) {
+            collectionWithWriteTimeout(250, TimeUnit.MILLISECONDS).updateOne(eq(ID, jobId), combine(updates));
+        } else {
+            updates.add(inc(JobStructure.MESSAGE_COUNT.key(), (long) encodedMessages.size()));
+            final Document updated = collectionWithWriteTimeout(250, TimeUnit.MILLISECONDS).findOneAndUpdate(
+                    eq(ID, jobId),
+                    combine(updates),
+                    new FindOneAndUpdateOptions()
+                            .projection(new Document(JobStructure.MESSAGE_COUNT.key(), true))
+                            .returnDocument(AFTER));
+            if (updated != null) {
+                insertIntoMessageLog(jobId, messageCountOf(updated) - encodedMessages.size(), encodedMessages);
+            }
+        }
+    }
+
+    private void insertIntoMessageLog(final String jobId, final long firstSeq, final List<Document> encodedMessages) {
+        if (encodedMessages.isEmpty()) {
+            return;
+        }
+        final List<Document> logEntries = new ArrayList<>(encodedMessages.size());
+        for (int i = 0; i < encodedMessages.size(); ++i) {
+            logEntries.add(new Document(encodedMessages.get(i))
+                    .append(JobStructure.MSG_JOB_ID.key(), jobId)
+                    .append(JobStructure.MSG_SEQ.key(), firstSeq + i));
+        }
+        jobMessagesCollection.insertMany(logEntries);
+    }
+
+    private static long messageCountOf(final Document document) {
+        final Object messageCount = document.get(JobStructure.MESSAGE_COUNT.key());
+        return messageCount instanceof Number ? ((Number) messageCount).longValue() : 0L;
+    }
+
     @Override
     public List<JobInfo> findLatest(final int maxCount) {
         return collection()
@@ -104,10 +398,19 @@ public class MongoJobRepository extends AbstractMongoRepository<String, JobInfo>
                 .into(new ArrayList<>());
     }
 
+    /**
+     * Returns the ids of the latest job of every job type.
+     * <p>
+     *     The $sort stage is matching the compound {type: 1, started: -1} index, so MongoDB is able to
+     *     answer the $group stage using a distinct scan of the index instead of sorting the whole collection.
+     * </p>
+     *
+     * @return list of job ids
+     */
     public List<String> findAllJobIdsDistinct() {
         return collection()
                 .aggregate(Arrays.asList(
-                        new Document("$sort", new Document("started", -1)),
+                        new Document("$sort", new Document(JobStructure.JOB_TYPE.key(), 1).append(JobStructure.STARTED.key(), -1)),
                         new Document("$group", new HashMap<String, Object>() {{
                             put("_id", "$type");
                             put("latestJobId", new Document("$first", "$_id"));
@@ -143,9 +446,7 @@ public class MongoJobRepository extends AbstractMongoRepository<String, JobInfo>
     @Override
     public List<JobInfo> findRunningWithoutUpdateSince(final OffsetDateTime timeOffset) {
         return collection()
-                .find(new Document()
-                        .append(JobStructure.STOPPED.key(), singletonMap("$exists", false))
-                        .append(JobStructure.LAST_UPDATED.key(), singletonMap("$lt", from(timeOffset.toInstant()))))
+                .find(runningWithoutUpdateSince(timeOffset))
                 .maxTime(500, TimeUnit.MILLISECONDS)
                 .map(this::decode)
                 .into(new ArrayList<>());
@@ -159,6 +460,7 @@ public class MongoJobRepository extends AbstractMongoRepository<String, JobInfo>
                 .append(JobStructure.STARTED.key(), DateTimeConverters.toDate(job.getStarted()))
                 .append(JobStructure.LAST_UPDATED.key(), DateTimeConverters.toDate(job.getLastUpdated()))
                 .append(JobStructure.MESSAGES.key(), job.getMessages().stream()
+                        .skip(maxMessagesPerJob > 0 ? Math.max(0, job.getMessages().size() - maxMessagesPerJob) : 0)
                         .map(MongoJobRepository::encodeJobMessage)
                         .collect(toList()))
                 .append(JobStructure.STATUS.key(), job.getStatus().name())
@@ -223,8 +525,81 @@ public class MongoJobRepository extends AbstractMongoRepository<String, JobInfo>
 
     @Override
     protected final void ensureIndexes() {
-        collection().createIndex(new BasicDBObject(JobStructure.JOB_TYPE.key(), 1));
+        collection().createIndex(new BasicDBObject(JobStructure.JOB_TYPE.key(), 1).append(JobStructure.STARTED.key(), -1));
         collection().createIndex(new BasicDBObject(JobStructure.STARTED.key(), 1));
+        collection().createIndex(new BasicDBObject(JobStructure.STOPPED.key(), 1).append(JobStructure.LAST_UPDATED.key(), 1));
+        if (stoppedJobsTimeToLive > 0) {
+            // documents without 'stopped' (running jobs) are never expired by the TTL monitor:
+            try {
+                collection().createIndex(
+                        new BasicDBObject(JobStructure.STOPPED.key(), 1),
+                        new IndexOptions().expireAfter(stoppedJobsTimeToLive, TimeUnit.SECONDS));
+            } catch (final MongoCommandException e) {
+                LOG.warn("Unable to create TTL index on {}. If the time to live was changed, the existing index must be dropped: {}",
+                        JobStructure.STOPPED.key(), e.getMessage());
+            }
+        }
+        if (jobMessagesCollection != null) {
+            jobMessagesCollection.createIndex(new BasicDBObject(JobStructure.MSG_JOB_ID.key(), 1)
+                    .append(JobStructure.MSG_SEQ.key(), 1)
+                    .append(ID, 1));
+        }
+        warnAboutCollectionScans();
+    }
+
+    /**
+     * Explains the query plans of the most frequently executed queries and logs a warning for every query that
+     * would be executed using a collection scan instead of an index.
+     */
+    private void warnAboutCollectionScans() {
+        final Map<String, Document> queries = new LinkedHashMap<>();
+        queries.put("findLatest", explainFind(new Document(), orderByStarted(DESCENDING)));
+        queries.put("findLatestBy", explainFind(byType("someType"), orderByStarted(DESCENDING)));
+        queries.put("findRunningWithoutUpdateSince", explainFind(runningWithoutUpdateSince(OffsetDateTime.now(clock)), null));
+        queries.forEach((query, explainCommand) -> {
+            try {
+                final Document explained = mongoDatabase.runCommand(explainCommand);
+                final Document queryPlanner = (Document) explained.get("queryPlanner");
+                if (queryPlanner != null && containsCollectionScan((Document) queryPlanner.get("winningPlan"))) {
+                    LOG.warn("Query {} on collection {} is executed using a COLLSCAN. Please check the indexes of the collection.",
+                            query, collection().getNamespace().getCollectionName());
+                }
+            } catch (final RuntimeException e) {
+                LOG.info("Unable to explain query plan of {}: {}", query, e.getMessage());
+            }
+        });
+    }
+
+    private Document explainFind(final Document filter, final Document sort) {
+        final Document find = new Document("find", collection().getNamespace().getCollectionName())
+                .append("filter", filter);
+        if (sort != null) {
+            find.append("sort", sort);
+        }
+        return new Document("explain", find).append("verbosity", "queryPlanner");
+    }
+
+    @SuppressWarnings("unchecked")
+    static boolean containsCollectionScan(final Document plan) {
+        if (plan == null) {
+            return false;
+        }
+        if ("COLLSCAN".equals(plan.getString("stage"))) {
+            return true;
+        }
+        if (containsCollectionScan((Document) plan.get("inputStage"))) {
+            return true;
+        }
+        final List<Document> inputStages = (List<Document>) plan.get("inputStages");
+        return inputStages != null && inputStages.stream().anyMatch(MongoJobRepository::containsCollectionScan);
+    }
+
+    @Override
+    public void deleteAll(final long maxTime, final TimeUnit timeUnit) {
+        super.deleteAll(maxTime, timeUnit);
+        if (jobMessagesCollection != null) {
+            jobMessagesCollection.deleteMany(matchAll());
+        }
     }
 
     private String getMessage(final Document document) {
@@ -235,6 +610,12 @@ public class MongoJobRepository extends AbstractMongoRepository<String, JobInfo>
         return new Document(JobStructure.JOB_TYPE.key(), type);
     }
 
+    private Document runningWithoutUpdateSince(final OffsetDateTime timeOffset) {
+        return new Document()
+                .append(JobStructure.STOPPED.key(), singletonMap("$exists", false))
+                .append(JobStructure.LAST_UPDATED.key(), singletonMap("$lt", from(timeOffset.toInstant())));
+    }
+
     private Document byTypeAndStatus(final String type, final JobStatus status) {
         return new Document(JobStructure.JOB_TYPE.key(), type).append(JobStructure.STATUS.key(), status.name());
     }
@@ -0,0 +1,121 @@
+package de.otto.edison.mongo.jobs;
+
+import com.mongodb.client.MongoCursor;
+import de.otto.edison.jobs.repository.cleanup.KeepLastJobs;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import static com.mongodb.client.model.Filters.and;
+import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.exists;
+import static de.otto.edison.jobs.domain.JobInfo.JobStatus.OK;
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * A KeepLastJobs strategy that is computing the jobs to remove inside of MongoDB, instead of loading all jobs
+ * into memory.
+ * <p>
+ *     The last successful job of every job type is determined using an aggregation. The jobs to remove are
+ *     streamed per job type using the {type: 1, started: -1} index, skipping the newest N stopped jobs, and removed
+ *     in batches. Afterwards, messages of jobs that were removed by the TTL index on {@code stopped} are removed
+ *     from the job messages collection.
+ * </p>
+ */
+public class MongoKeepLastJobs extends KeepLastJobs {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MongoKeepLastJobs.class);
+    private static final long KEEP_LAST_JOBS_CLEANUP_INTERVAL = 10L * 60L * 1000L;
+    private static final int BATCH_SIZE = 1000;
+
+    private final MongoJobRepository jobRepository;
+    private final int numberOfJobsToKeep;
+
+    /**
+     * @param jobRepository the MongoJobRepository
+     * @param numberOfJobsToKeep the number of jobs that are kept
+     */
+    public MongoKeepLastJobs(final MongoJobRepository jobRepository, final int numberOfJobsToKeep) {
+        super(jobRepository, numberOfJobsToKeep);
+        this.jobRepository = jobRepository;
+        this.numberOfJobsToKeep = numberOfJobsToKeep;
+    }
+
+    /**
+     * Execute the cleanup of the given repository.
+     */
+    @Override
+    @Scheduled(fixedRate = KEEP_LAST_JOBS_CLEANUP_INTERVAL)
+    public void doCleanUp() {
+        final Map<String, String> lastOkJobIds = findLastOkJobIdsByType();
+        final List<String> jobIdsToDelete = new ArrayList<>(BATCH_SIZE);
+        long removed = 0;
+        for (final String jobType : findJobTypes()) {
+            try (final MongoCursor<Document> cursor = jobRepository.collection()
+                    .find(and(eq(JobStructure.JOB_TYPE.key(), jobType), exists(JobStructure.STOPPED.key())))
+                    .sort(new Document(JobStructure.JOB_TYPE.key(), 1).append(JobStructure.STARTED.key(), -1))
+                    .skip(numberOfJobsToKeep)
+                    .projection(new Document(JobStructure.ID.key(), true))
+                    .batchSize(BATCH_SIZE)
+                    .maxTime(10, TimeUnit.SECONDS)
+                    .iterator()) {
+                while (cursor.hasNext()) {
+                    final String jobId = cursor.next().getString(JobStructure.ID.key());
+                    if (!jobId.equals(lastOkJobIds.get(jobType))) {
+                        jobIdsToDelete.add(jobId);
+                    }
+                    if (jobIdsToDelete.size() == BATCH_SIZE) {
+                        removed += removeIfStopped(jobIdsToDelete);
+                    }
+                }
+            }
+        }
+        removed += removeIfStopped(jobIdsToDelete);
+        final long removedMessages = jobRepository.removeOrphanedMessages();
+        LOG.debug("Removed {} jobs and {} orphaned job messages", removed, removedMessages);
+    }
+
+    private long removeIfStopped(final List<String> jobIds) {
+        final int size = jobIds.size();
+        if (size > 0) {
+            jobRepository.removeIfStopped(jobIds);
+            jobIds.clear();
+        }
+        return size;
+    }
+
+    private List<String> findJobTypes() {
+        final List<String> jobTypes = jobRepository.collection()
+                .distinct(JobStructure.JOB_TYPE.key(), String.class)
+                .filter(exists(JobStructure.STOPPED.key()))
+                .maxTime(10, TimeUnit.SECONDS)
+                .into(new ArrayList<>());
+        jobTypes.removeIf(Objects::isNull);
+        return jobTypes;
+    }
+
+    private Map<String, String> findLastOkJobIdsByType() {
+        return jobRepository.collection()
+                .aggregate(asList(
+                        new Document("$match", new Document(JobStructure.STOPPED.key(), new Document("$exists", true))
+                                .append(JobStructure.STATUS.key(), OK.name())),
+                        new Document("$sort", new Document(JobStructure.JOB_TYPE.key(), 1).append(JobStructure.STARTED.key(), -1)),
+                        new Document("$group", new Document(JobStructure.ID.key(), "$" + JobStructure.JOB_TYPE.key())
+                                .append("lastOkJobId", new Document("$first", "$" + JobStructure.ID.key())))))
+                .maxTime(10, TimeUnit.SECONDS)
+                .into(new ArrayList<>())
+                .stream()
+                .filter(document -> document.getString(JobStructure.ID.key()) != null)
+                .collect(toMap(
+                        document -> document.getString(JobStructure.ID.key()),
+                        document -> document.getString("lastOkJobId")));
+    }
+}
@@ -2,6 +2,8 @@ package de.otto.edison.mongo.jobs;
 
 import com.github.fakemongo.Fongo;
 import de.otto.edison.jobs.domain.JobMeta;
+import de.otto.edison.jobs.domain.RunningJob;
+import de.otto.edison.jobs.repository.CachingJobMetaRepository;
 import de.otto.edison.jobs.repository.JobMetaRepository;
 import de.otto.edison.jobs.repository.inmem.InMemJobMetaRepository;
 import de.otto.edison.mongo.configuration.MongoProperties;
@@ -11,10 +13,16 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameters;
 
+import java.time.Clock;
+import java.time.Instant;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonList;
 import static java.util.Collections.singletonMap;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.Matchers.contains;
@@ -26,13 +34,16 @@ import static org.junit.Assert.assertThat;
 @RunWith(Parameterized.class)
 public class JobMetaRepositoryTest {
 
+    private static final Instant NOW = Instant.parse("2017-11-20T10:15:00Z");
+
     @Parameters(name = "{0}")
     public static Collection<JobMetaRepository> data() {
         return asList(
                 new MongoJobMetaRepository(new Fongo("inMemoryDb").getDatabase("jobmeta"),
                         "jobmeta",
                         new MongoProperties()),
-                new InMemJobMetaRepository());
+                new InMemJobMetaRepository(),
+                new CachingJobMetaRepository(new InMemJobMetaRepository(), 60000, Clock.systemDefaultZone()));
     }
 
     @Before
@@ -46,6 +57,32 @@ public class JobMetaRepositoryTest {
         this.testee = testee;
     }
 
+    @Test
+    public void shouldGetJobMetasOfMultipleJobTypes() {
+        testee.setValue("someJob", "someKey", "someValue");
+        testee.disable("someOtherJob", "some comment");
+
+        final Map<String, JobMeta> jobMetas = testee.getJobMetas(new HashSet<>(asList("someJob", "someOtherJob", "unknownJob")));
+
+        assertThat(jobMetas.size(), is(3));
+        assertThat(jobMetas.get("someJob").get("someKey"), is("someValue"));
+        assertThat(jobMetas.get("someOtherJob").isDisabled(), is(true));
+        assertThat(jobMetas.get("someOtherJob").getDisabledComment(), is("some comment"));
+        assertThat(jobMetas.get("unknownJob").isDisabled(), is(false));
+    }
+
+    @Test
+    public void shouldGetModifiedJobMeta() {
+        testee.setValue("someJob", "someKey", "someValue");
+        assertThat(testee.getJobMeta("someJob").isDisabled(), is(false));
+
+        testee.disable("someJob", "");
+        assertThat(testee.getJobMeta("someJob").isDisabled(), is(true));
+
+        testee.enable("someJob");
+        assertThat(testee.getJobMetas(new HashSet<>(asList("someJob"))).get("someJob").isDisabled(), is(false));
+    }
+
     @Test
     public void shouldStoreAndGetValue() throws Exception {
         testee.setValue("someJob", "someKey", "someValue");
@@ -122,6 +159,69 @@ public class JobMetaRepositoryTest {
         assertThat(testee.getValue("someJob", "_e_disabled"), is("some comment"));
     }
 
+    @Test
+    public void shouldFindRunningJobs() {
+        testee.setRunningJob("someJob", "someId");
+        testee.setRunningJob("someOtherJob", "someOtherId");
+        testee.setValue("someStoppedJob", "someKey", "someValue");
+
+        assertThat(testee.findRunningJobs(), containsInAnyOrder(
+                new RunningJob("someId", "someJob"),
+                new RunningJob("someOtherId", "someOtherJob")));
+    }
+
+    @Test
+    public void shouldAcquireGroupLockOnlyOnce() {
+        assertThat(testee.acquireGroupLock("someGroup", "someJob", "someId"), is(true));
+        assertThat(testee.acquireGroupLock("someGroup", "someJob", "otherId"), is(false));
+        assertThat(testee.acquireGroupLock("someGroup", "someOtherJob", "someOtherId"), is(false));
+
+        assertThat(testee.getGroupLock("someGroup"), is("someJob"));
+        assertThat(testee.getGroupLockHolder("someGroup"), is("someId"));
+    }
+
+    @Test
+    public void shouldReleaseGroupLockHeldByJob() {
+        testee.acquireGroupLock("someGroup", "someJob", "someId");
+
+        testee.releaseGroupLock("someGroup", "someId");
+
+        assertThat(testee.getGroupLock("someGroup"), is(nullValue()));
+        assertThat(testee.getGroupLockHolder("someGroup"), is(nullValue()));
+        assertThat(testee.acquireGroupLock("someGroup", "someOtherJob", "someOtherId"), is(true));
+    }
+
+    @Test
+    public void shouldNotReleaseGroupLockHeldByOtherJob() {
+        testee.acquireGroupLock("someGroup", "someJob", "someId");
+
+        testee.releaseGroupLock("someGroup", "otherId");
+
+        assertThat(testee.getGroupLock("someGroup"), is("someJob"));
+        assertThat(testee.getGroupLockHolder("someGroup"), is("someId"));
+    }
+
+    @Test
+    public void shouldNotReleaseGroupLockReacquiredByOtherJobOfSameType() {
+        testee.acquireGroupLock("someGroup", "someJob", "someId", NOW.plusSeconds(60), NOW);
+        testee.acquireGroupLock("someGroup", "someJob", "otherId", NOW.plusSeconds(61), NOW.plusSeconds(1));
+
+        testee.releaseGroupLock("someGroup", "someId");
+
+        assertThat(testee.getGroupLock("someGroup"), is("someJob"));
+        assertThat(testee.getGroupLockHolder("someGroup"), is("otherId"));
+        assertThat(testee.acquireGroupLock("someGroup", "someOtherJob", "someOtherId", NOW.plusSeconds(62), NOW.plusSeconds(2)), is(false));
+    }
+
+    @Test
+    public void shouldNotFindGroupLocksAsJobTypesOrRunningJobs() {
+        testee.setRunningJob("someJob", "someId");
+        testee.acquireGroupLock("someGroup", "someJob", "someId");
+
+        assertThat(testee.findAllJobTypes(), contains("someJob"));
+        assertThat(testee.findRunningJobs(), contains(new RunningJob("someId", "someJob")));
+    }
+
     @Test
     public void shouldSetRunningJob() {
         testee.setRunningJob("someJob", "someId");
@@ -149,6 +249,27 @@ public class JobMetaRepositoryTest {
         assertThat(testee.getValue("someJob", "_e_runnin"), is(nullValue()));
     }
 
+    @Test
+    public void shouldClearRunningJobHeldByJob() {
+        testee.setRunningJob("someJob", "someId", "someHost", NOW.plusSeconds(60), NOW);
+
+        testee.clearRunningJob("someJob", "someId");
+
+        assertThat(testee.getRunningJob("someJob"), is(nullValue()));
+        assertThat(testee.setRunningJob("someJob", "otherId", "otherHost", NOW.plusSeconds(60), NOW), is(true));
+    }
+
+    @Test
+    public void shouldNotClearRunningJobHeldByOtherJob() {
+        testee.setRunningJob("someJob", "someId", "someHost", NOW.plusSeconds(60), NOW);
+        testee.setRunningJob("someJob", "otherId", "otherHost", NOW.plusSeconds(121), NOW.plusSeconds(61));
+
+        testee.clearRunningJob("someJob", "someId");
+
+        assertThat(testee.getRunningJob("someJob"), is("otherId"));
+        assertThat(testee.setRunningJob("someJob", "thirdId", "someHost", NOW.plusSeconds(122), NOW.plusSeconds(62)), is(false));
+    }
+
     @Test
     public void shouldReturnNullForMissingKeys() throws Exception {
         testee.setValue("someJob", "someKey", "someValue");
@@ -241,4 +362,100 @@ public class JobMetaRepositoryTest {
         assertThat(testee.findAllJobTypes(), contains("someJob"));
         assertThat(testee.getValue("someJob", "someKey"), is(nullValue()));
     }
+
+    @Test
+    public void shouldSetLeasedRunningJobOnlyOnce() {
+        assertThat(testee.setRunningJob("someJob", "someId", "someHost", NOW.plusSeconds(60), NOW), is(true));
+        assertThat(testee.setRunningJob("someJob", "otherId", "otherHost", NOW.plusSeconds(61), NOW.plusSeconds(1)), is(false));
+
+        assertThat(testee.getRunningJob("someJob"), is("someId"));
+        assertThat(testee.getLockOwner("someJob"), is("someHost"));
+    }
+
+    @Test
+    public void shouldTakeOverExpiredLease() {
+        testee.setRunningJob("someJob", "someId", "someHost", NOW.plusSeconds(60), NOW);
+
+        final boolean acquired = testee.setRunningJob("someJob", "otherId", "otherHost", NOW.plusSeconds(121), NOW.plusSeconds(61));
+
+        assertThat(acquired, is(true));
+        assertThat(testee.getRunningJob("someJob"), is("otherId"));
+        assertThat(testee.getLockOwner("someJob"), is("otherHost"));
+    }
+
+    @Test
+    public void shouldRenewLeaseOfRunningJob() {
+        testee.setRunningJob("someJob", "someId", "someHost", NOW.plusSeconds(60), NOW);
+
+        assertThat(testee.renewRunningJob("someJob", "someId", NOW.plusSeconds(120)), is(true));
+        assertThat(testee.renewRunningJob("someJob", "otherId", NOW.plusSeconds(120)), is(false));
+
+        assertThat(testee.setRunningJob("someJob", "otherId", "otherHost", NOW.plusSeconds(121), NOW.plusSeconds(61)), is(false));
+    }
+
+    @Test
+    public void shouldRenewLeasesOfRunningJobsAndTheirGroupLocks() {
+        testee.setRunningJob("someJob", "someId", "someHost", NOW.plusSeconds(60), NOW);
+        testee.setRunningJob("otherJob", "otherId", "someHost", NOW.plusSeconds(60), NOW);
+        testee.acquireGroupLock("someGroup", "someJob", "someId", NOW.plusSeconds(60), NOW);
+        testee.acquireGroupLock("otherGroup", "thirdJob", "thirdId", NOW.plusSeconds(60), NOW);
+
+        testee.renewLocks(
+                asList(new RunningJob("someId", "someJob"), new RunningJob("otherId", "otherJob")),
+                asList("someGroup", "otherGroup"),
+                NOW.plusSeconds(120));
+
+        assertThat(testee.setRunningJob("someJob", "newId", "otherHost", NOW.plusSeconds(121), NOW.plusSeconds(61)), is(false));
+        assertThat(testee.setRunningJob("otherJob", "newId", "otherHost", NOW.plusSeconds(121), NOW.plusSeconds(61)), is(false));
+        assertThat(testee.acquireGroupLock("someGroup", "newJob", "newId", NOW.plusSeconds(121), NOW.plusSeconds(61)), is(false));
+        assertThat(testee.acquireGroupLock("otherGroup", "newJob", "newId", NOW.plusSeconds(121), NOW.plusSeconds(61)), is(true));
+    }
+
+    @Test
+    public void shouldNotRenewLeasesOfLocksHeldByOtherJobs() {
+        testee.setRunningJob("someJob", "otherId", "otherHost", NOW.plusSeconds(60), NOW);
+
+        testee.renewLocks(singletonList(new RunningJob("someId", "someJob")), emptyList(), NOW.plusSeconds(120));
+
+        assertThat(testee.setRunningJob("someJob", "newId", "someHost", NOW.plusSeconds(121), NOW.plusSeconds(61)), is(true));
+    }
+
+    @Test
+    public void shouldKeepLockOwnerAfterClearingRunningJob() {
+        testee.setRunningJob("someJob", "someId", "someHost", NOW.plusSeconds(60), NOW);
+
+        testee.clearRunningJob("someJob");
+
+        assertThat(testee.getRunningJob("someJob"), is(nullValue()));
+        assertThat(testee.getLockOwner("someJob"), is("someHost"));
+        assertThat(testee.setRunningJob("someJob", "otherId", "otherHost", NOW.plusSeconds(60), NOW), is(true));
+    }
+
+    @Test
+    public void shouldAcquireLeasedGroupLock() {
+        assertThat(testee.acquireGroupLock("someGroup", "someJob", "someId", NOW.plusSeconds(60), NOW), is(true));
+        assertThat(testee.acquireGroupLock("someGroup", "someJob", "someId", NOW.plusSeconds(61), NOW.plusSeconds(1)), is(true));
+        assertThat(testee.acquireGroupLock("someGroup", "otherJob", "otherId", NOW.plusSeconds(61), NOW.plusSeconds(1)), is(false));
+
+        assertThat(testee.getGroupLock("someGroup"), is("someJob"));
+    }
+
+    @Test
+    public void shouldTakeOverExpiredGroupLock() {
+        testee.acquireGroupLock("someGroup", "someJob", "someId", NOW.plusSeconds(60), NOW);
+
+        assertThat(testee.acquireGroupLock("someGroup", "otherJob", "otherId", NOW.plusSeconds(121), NOW.plusSeconds(61)), is(true));
+        assertThat(testee.getGroupLock("someGroup"), is("otherJob"));
+        assertThat(testee.getGroupLockHolder("someGroup"), is("otherId"));
+    }
+
+    @Test
+    public void shouldRenewGroupLockHeldByJob() {
+        testee.acquireGroupLock("someGroup", "someJob", "someId", NOW.plusSeconds(60), NOW);
+
+        testee.renewGroupLock("someGroup", "someId", NOW.plusSeconds(120));
+        testee.renewGroupLock("someGroup", "otherId", NOW.plusSeconds(30));
+
+        assertThat(testee.acquireGroupLock("someGroup", "otherJob", "otherId", NOW.plusSeconds(121), NOW.plusSeconds(61)), is(false));
+    }
 }
@@ -5,6 +5,7 @@ import static java.time.OffsetDateTime.now;
 import static java.time.temporal.ChronoUnit.SECONDS;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.toList;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
@@ -18,20 +19,26 @@ import static de.otto.edison.jobs.domain.JobMessage.jobMessage;
 import static de.otto.edison.mongo.jobs.DateTimeConverters.toDate;
 import static de.otto.edison.mongo.jobs.JobStructure.ID;
 import static de.otto.edison.mongo.jobs.JobStructure.JOB_TYPE;
+import static de.otto.edison.mongo.jobs.JobStructure.LAST_UPDATED;
 import static de.otto.edison.mongo.jobs.JobStructure.MESSAGES;
 import static de.otto.edison.mongo.jobs.JobStructure.MSG_LEVEL;
 import static de.otto.edison.mongo.jobs.JobStructure.MSG_TEXT;
 import static de.otto.edison.mongo.jobs.JobStructure.MSG_TS;
+import static de.otto.edison.mongo.jobs.JobStructure.STARTED;
 import static de.otto.edison.mongo.jobs.JobStructure.STATUS;
+import static de.otto.edison.mongo.jobs.JobStructure.STOPPED;
 
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import de.otto.edison.mongo.configuration.MongoProperties;
 import org.assertj.core.util.Lists;
@@ -114,6 +121,27 @@ public class MongoJobRepositoryTest {
         assertThat(toDate(jobInfo.orElse(null).getLastUpdated()), is(toDate(myTestTime)));
     }
 
+    @Test
+    public void shouldUpdateLastUpdateTimeOfMultipleJobs() {
+        //Given
+        final JobInfo foo = jobInfo("http://localhost/foo", "T_FOO");
+        final JobInfo bar = jobInfo("http://localhost/bar", "T_BAR");
+        final JobInfo foobar = jobInfo("http://localhost/foobar", "T_FOOBAR");
+        repo.createOrUpdate(foo);
+        repo.createOrUpdate(bar);
+        repo.createOrUpdate(foobar);
+
+        final OffsetDateTime myTestTime = OffsetDateTime.of(1979, 2, 5, 1, 2, 3, 4, ZoneOffset.UTC);
+
+        //When
+        repo.setLastUpdate(asList(foo.getJobId(), bar.getJobId()), myTestTime);
+
+        //Then
+        assertThat(toDate(repo.findOne(foo.getJobId()).get().getLastUpdated()), is(toDate(myTestTime)));
+        assertThat(toDate(repo.findOne(bar.getJobId()).get().getLastUpdated()), is(toDate(myTestTime)));
+        assertThat(toDate(repo.findOne(foobar.getJobId()).get().getLastUpdated()), is(toDate(foobar.getLastUpdated())));
+    }
+
     @Test
     public void shouldStoreAndRetrieveRunningJobInfo() {
         // given
@@ -225,6 +253,47 @@ public class MongoJobRepositoryTest {
         assertThat(repo.findAll(), contains(bar));
     }
 
+    @Test
+    public void shouldRemoveMultipleJobsIfStopped() {
+        // given
+        final MongoJobRepository repo = new MongoJobRepository(new Fongo("inmemory-mongodb").getDatabase("jobsinfo"), "jobsinfo", "jobmessages", 0, 0, new MongoProperties());
+        final JobInfo foo = jobInfo("foo", "T_FOO");
+        final JobInfo bar = someRunningJobInfo("bar", "T_BAR", now());
+        final JobInfo foobar = jobInfo("foobar", "T_FOO");
+        repo.createOrUpdate(foo);
+        repo.createOrUpdate(bar);
+        repo.createOrUpdate(foobar);
+        repo.appendMessage("foo", jobMessage(Level.INFO, "foo message", now()));
+        repo.appendMessage("bar", jobMessage(Level.INFO, "bar message", now()));
+        // when
+        repo.removeIfStopped(asList("foo", "bar", "foobar"));
+        // then
+        assertThat(repo.findAll(), hasSize(1));
+        assertThat(repo.findAll().get(0).getJobId(), is("bar"));
+        assertThat(repo.findMessages("foo", 0, 10), is(emptyList()));
+        assertThat(repo.findMessages("bar", 0, 10), hasSize(1));
+    }
+
+    @Test
+    public void shouldRemoveOrphanedMessages() {
+        // given
+        final Fongo fongo = new Fongo("inmemory-mongodb");
+        final MongoDatabase database = fongo.getDatabase("jobsinfo");
+        final MongoJobRepository repo = new MongoJobRepository(database, "jobsinfo", "jobmessages", 0, 0, new MongoProperties());
+        repo.createOrUpdate(jobInfo("foo", "T_FOO"));
+        repo.createOrUpdate(jobInfo("bar", "T_BAR"));
+        // removed by TTL index:
+        database.getCollection("jobsinfo").deleteOne(new Document("_id", "foo"));
+
+        // when
+        final long removed = repo.removeOrphanedMessages();
+
+        // then
+        assertThat(removed, is(2L));
+        assertThat(database.getCollection("jobmessages").count(), is(2L));
+        assertThat(repo.findMessages("bar", 0, 10), hasSize(2));
+    }
+
     @Test
     public void shouldFindAllJobTypes() throws Exception {
         // Given
@@ -247,6 +316,60 @@ public class MongoJobRepositoryTest {
         assertThat(allJobIds, Matchers.containsInAnyOrder("jobEins", "jobZwei", "jobVier"));
     }
 
+    @Test
+    public void shouldCreateCompoundIndexOnTypeAndStarted() {
+        // given
+        final Fongo fongo = new Fongo("inmemory-mongodb");
+        final MongoDatabase mongoDatabase = fongo.getDatabase("jobsinfo");
+        final MongoJobRepository repo = new MongoJobRepository(mongoDatabase, "jobsinfo", new MongoProperties());
+
+        // when
+        repo.postConstruct();
+
+        // then
+        final List<Document> indexKeys = mongoDatabase.getCollection("jobsinfo")
+                .listIndexes()
+                .map(index -> (Document) index.get("key"))
+                .into(new ArrayList<>());
+        assertThat(indexKeys, Matchers.hasItem(new Document(JOB_TYPE.key(), 1).append(STARTED.key(), -1)));
+        assertThat(indexKeys, Matchers.hasItem(new Document(STOPPED.key(), 1).append(LAST_UPDATED.key(), 1)));
+    }
+
+    @Test
+    public void shouldCreateTimeToLiveIndexForStoppedJobs() {
+        // given
+        final Fongo fongo = new Fongo("inmemory-mongodb");
+        final MongoDatabase mongoDatabase = fongo.getDatabase("jobsinfo");
+        final MongoJobRepository repo = new MongoJobRepository(mongoDatabase, "jobsinfo", null, 0, 3600, new MongoProperties());
+
+        // when
+        repo.postConstruct();
+
+        // then
+        final List<Document> indexKeys = mongoDatabase.getCollection("jobsinfo")
+                .listIndexes()
+                .map(index -> (Document) index.get("key"))
+                .into(new ArrayList<>());
+        assertThat(indexKeys, Matchers.hasItem(new Document(STOPPED.key(), 1)));
+    }
+
+    @Test
+    public void shouldDetectCollectionScanInQueryPlan() {
+        // given
+        final Document indexScan = new Document("stage", "FETCH")
+                .append("inputStage", new Document("stage", "IXSCAN"));
+        final Document collectionScan = new Document("stage", "SORT")
+                .append("inputStage", new Document("stage", "SORT_KEY_GENERATOR")
+                        .append("inputStage", new Document("stage", "COLLSCAN")));
+        final Document orWithCollectionScan = new Document("stage", "OR")
+                .append("inputStages", asList(indexScan, new Document("stage", "COLLSCAN")));
+
+        // then
+        assertThat(MongoJobRepository.containsCollectionScan(indexScan), is(false));
+        assertThat(MongoJobRepository.containsCollectionScan(collectionScan), is(true));
+        assertThat(MongoJobRepository.containsCollectionScan(orWithCollectionScan), is(true));
+    }
+
     @Test
     public void shouldFindLatestDistinct() throws Exception {
         // Given
@@ -335,6 +458,212 @@ public class MongoJobRepositoryTest {
 
     }
 
+    @Test
+    public void shouldAppendMessagesToJob() {
+        // given
+        final String jobId = "http://localhost/baZ";
+        repo.createOrUpdate(jobInfo(jobId, "T_FOO"));
+
+        // when
+        final JobMessage first = JobMessage.jobMessage(Level.INFO, "first", now());
+        final JobMessage second = JobMessage.jobMessage(Level.WARNING, "second", now());
+        repo.appendMessages(jobId, asList(first, second));
+
+        // then
+        final JobInfo jobInfoFromDB = repo.findOne(jobId).orElse(null);
+        assertThat(jobInfoFromDB.getMessages(), hasSize(4));
+        assertThat(jobInfoFromDB.getMessages().get(2), is(first));
+        assertThat(jobInfoFromDB.getMessages().get(3), is(second));
+    }
+
+    @Test
+    public void shouldKeepOnlyLatestMessagesIfMaxMessagesPerJobIsConfigured() {
+        // given
+        final Fongo fongo = new Fongo("inmemory-mongodb");
+        final MongoJobRepository repo = new MongoJobRepository(fongo.getDatabase("jobsinfo"), "jobsinfo", null, 3, 0, new MongoProperties());
+        final String jobId = "http://localhost/baZ";
+        repo.createOrUpdate(jobInfo(jobId, "T_FOO"));
+
+        // when
+        repo.appendMessage(jobId, jobMessage(Level.INFO, "first", now()));
+        repo.appendMessages(jobId, asList(
+                jobMessage(Level.INFO, "second", now()),
+                jobMessage(Level.INFO, "third", now())));
+
+        // then
+        final List<JobMessage> messages = repo.findOne(jobId).get().getMessages();
+        assertThat(messages, hasSize(3));
+        assertThat(messages.get(0).getMessage(), is("first"));
+        assertThat(messages.get(2).getMessage(), is("third"));
+    }
+
+    @Test
+    public void shouldFindAllMessagesInSeparateMessageLog() {
+        // given
+        final Fongo fongo = new Fongo("inmemory-mongodb");
+        final MongoJobRepository repo = new MongoJobRepository(fongo.getDatabase("jobsinfo"), "jobsinfo", "jobmessages", 2, 0, new MongoProperties());
+        final String jobId = "http://localhost/baZ";
+        repo.createOrUpdate(jobInfo(jobId, "T_FOO"));
+
+        // when
+        repo.appendMessages(jobId, asList(
+                jobMessage(Level.INFO, "first", now()),
+                jobMessage(Level.INFO, "second", now()),
+                jobMessage(Level.INFO, "third", now())));
+        repo.applyTransition(jobId, ERROR, now(), Optional.of(jobMessage(Level.ERROR, "fourth", now())));
+
+        // then
+        final List<JobMessage> embeddedMessages = repo.findOne(jobId).get().getMessages();
+        assertThat(embeddedMessages, hasSize(2));
+        assertThat(embeddedMessages.get(0).getMessage(), is("third"));
+        assertThat(embeddedMessages.get(1).getMessage(), is("fourth"));
+        final List<JobMessage> allMessages = repo.findMessages(jobId, 3, 10);
+        assertThat(allMessages, hasSize(3));
+        assertThat(allMessages.get(0).getMessage(), is("second"));
+        assertThat(allMessages.get(2).getMessage(), is("fourth"));
+    }
+
+    @Test
+    public void shouldWriteMessagesOfCreatedAndReplacedJobsToMessageLog() {
+        // given
+        final Fongo fongo = new Fongo("inmemory-mongodb");
+        final MongoJobRepository repo = new MongoJobRepository(fongo.getDatabase("jobsinfo"), "jobsinfo", "jobmessages", 0, 0, new MongoProperties());
+        final String jobId = "http://localhost/baZ";
+        repo.createOrUpdate(jobInfo(jobId, "T_FOO"));
+        repo.appendMessage(jobId, jobMessage(Level.INFO, "appended", now()));
+
+        // when
+        final JobInfo jobInfo = repo.findOne(jobId).get();
+        repo.createOrUpdate(jobInfo.copy().addMessage(jobMessage(Level.WARNING, "replaced", now())).build());
+        repo.appendMessage(jobId, jobMessage(Level.INFO, "last", now()));
+
+        // then
+        final List<String> allMessages = repo.findMessages(jobId, 0, 10).stream()
+                .map(JobMessage::getMessage)
+                .collect(toList());
+        assertThat(allMessages, contains("foo", "bar", "appended", "replaced", "last"));
+    }
+
+    @Test
+    public void shouldWriteIdenticalMessagesOfReplacedJobsToMessageLog() {
+        // given
+        final Fongo fongo = new Fongo("inmemory-mongodb");
+        final MongoJobRepository repo = new MongoJobRepository(fongo.getDatabase("jobsinfo"), "jobsinfo", "jobmessages", 2, 0, new MongoProperties());
+        final String jobId = "http://localhost/baZ";
+        repo.createOrUpdate(jobInfo(jobId, "T_FOO"));
+        final JobMessage message = jobMessage(Level.INFO, "same", now());
+
+        // when
+        final JobInfo jobInfo = repo.findOne(jobId).get();
+        repo.createOrUpdate(jobInfo.copy().addMessage(message).addMessage(message).build());
+
+        // then
+        final List<String> allMessages = repo.findMessages(jobId, 0, 10).stream()
+                .map(JobMessage::getMessage)
+                .collect(toList());
+        assertThat(allMessages, contains("foo", "bar", "same", "same"));
+    }
+
+    @Test
+    public void shouldAllocateDistinctSequencesForConcurrentlyAppendedMessages() {
+        // given
+        final Fongo fongo = new Fongo("inmemory-mongodb");
+        final MongoDatabase database = fongo.getDatabase("jobsinfo");
+        final MongoJobRepository repo = new MongoJobRepository(database, "jobsinfo", "jobmessages", 0, 0, new MongoProperties());
+        final String jobId = "http://localhost/baZ";
+        repo.createOrUpdate(jobInfo(jobId, "T_FOO"));
+        final JobInfo staleJobInfo = repo.findOne(jobId).get();
+
+        // when
+        repo.appendMessage(jobId, jobMessage(Level.INFO, "appended", now()));
+        repo.createOrUpdate(staleJobInfo.copy().addMessage(jobMessage(Level.WARNING, "replaced", now())).build());
+
+        // then
+        final List<String> allMessages = repo.findMessages(jobId, 0, 10).stream()
+                .map(JobMessage::getMessage)
+                .collect(toList());
+        assertThat(allMessages, contains("foo", "bar", "appended", "replaced"));
+        final Set<Object> sequences = database.getCollection("jobmessages")
+                .find()
+                .map(document -> document.get("seq"))
+                .into(new HashSet<>());
+        assertThat(sequences, hasSize(4));
+    }
+
+    @Test
+    public void shouldAppendMessagesAndSetStatusOfJob() {
+        // given
+        final String jobId = "http://localhost/baZ";
+        repo.createOrUpdate(jobInfo(jobId, "T_FOO"));
+
+        final OffsetDateTime myTestTime = OffsetDateTime.of(1979, 2, 5, 1, 2, 3, 4, ZoneOffset.UTC);
+        final JobMessage first = JobMessage.jobMessage(Level.INFO, "first", now());
+        final JobMessage error = JobMessage.jobMessage(Level.ERROR, "Der Igel ist traurig", now());
+
+        // when
+        repo.appendMessages(jobId, asList(first, error), Optional.of(ERROR), myTestTime);
+
+        // then
+        final JobInfo jobInfoFromDB = repo.findOne(jobId).orElse(null);
+        assertThat(jobInfoFromDB.getStatus(), is(ERROR));
+        assertThat(toDate(jobInfoFromDB.getLastUpdated()), is(toDate(myTestTime)));
+        assertThat(jobInfoFromDB.getMessages(), hasSize(4));
+        assertThat(jobInfoFromDB.getMessages().get(3), is(error));
+    }
+
+    @Test
+    public void shouldApplyTransitionToJob() {
+        // given
+        final String jobId = "http://localhost/baZ";
+        repo.createOrUpdate(jobInfo(jobId, "T_FOO"));
+
+        final OffsetDateTime myTestTime = OffsetDateTime.of(1979, 2, 5, 1, 2, 3, 4, ZoneOffset.UTC);
+        final JobMessage jobMessage = JobMessage.jobMessage(Level.ERROR, "Der Igel ist traurig", now());
+
+        // when
+        repo.applyTransition(jobId, ERROR, myTestTime, Optional.of(jobMessage));
+
+        // then
+        final JobInfo jobInfoFromDB = repo.findOne(jobId).orElse(null);
+        assertThat(jobInfoFromDB.getStatus(), is(ERROR));
+        assertThat(toDate(jobInfoFromDB.getLastUpdated()), is(toDate(myTestTime)));
+        assertThat(jobInfoFromDB.getMessages(), hasSize(3));
+        assertThat(jobInfoFromDB.getMessages().get(2), is(jobMessage));
+    }
+
+    @Test
+    public void shouldApplyTransitionWithoutMessage() {
+        // given
+        final String jobId = "http://localhost/baZ";
+        repo.createOrUpdate(jobInfo(jobId, "T_FOO"));
+
+        // when
+        repo.applyTransition(jobId, JobStatus.SKIPPED, now(), Optional.empty());
+
+        // then
+        final JobInfo jobInfoFromDB = repo.findOne(jobId).orElse(null);
+        assertThat(jobInfoFromDB.getStatus(), is(JobStatus.SKIPPED));
+        assertThat(jobInfoFromDB.getMessages(), hasSize(2));
+    }
+
+    @Test
+    public void shouldMarkJobAsStoppedWithoutModifyingMessages() {
+        // given
+        final String jobId = "http://localhost/baZ";
+        repo.createOrUpdate(jobInfo(jobId, "T_FOO"));
+        final OffsetDateTime stopped = OffsetDateTime.of(1979, 2, 5, 1, 2, 3, 4, ZoneOffset.UTC);
+
+        // when
+        repo.markStopped(jobId, stopped, Optional.of(JobStatus.DEAD));
+
+        // then
+        final JobInfo jobInfoFromDB = repo.findOne(jobId).orElse(null);
+        assertThat(jobInfoFromDB.getStatus(), is(JobStatus.DEAD));
+        assertThat(toDate(jobInfoFromDB.getStopped().get()), is(toDate(stopped)));
+        assertThat(toDate(jobInfoFromDB.getLastUpdated()), is(toDate(stopped)));
+        assertThat(jobInfoFromDB.getMessages(), hasSize(2));
+    }
+
     @Test
     public void shouldDeleteJobInfos() throws Exception {
         // given
@@ -0,0 +1,119 @@
+package de.otto.edison.mongo.jobs;
+
+import com.github.fakemongo.Fongo;
+import de.otto.edison.jobs.domain.JobInfo;
+import de.otto.edison.mongo.configuration.MongoProperties;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+
+import static de.otto.edison.jobs.domain.JobInfo.JobStatus.ERROR;
+import static de.otto.edison.jobs.domain.JobInfo.JobStatus.OK;
+import static de.otto.edison.jobs.domain.JobInfo.builder;
+import static de.otto.edison.testsupport.matcher.OptionalMatchers.isAbsent;
+import static de.otto.edison.testsupport.matcher.OptionalMatchers.isPresent;
+import static java.time.Clock.fixed;
+import static java.time.OffsetDateTime.now;
+import static java.time.ZoneId.systemDefault;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+public class MongoKeepLastJobsTest {
+
+    private final Clock now = fixed(Instant.now(), systemDefault());
+    private final Clock earlier = fixed(Instant.now().minusSeconds(1), systemDefault());
+    private final Clock muchEarlier = fixed(Instant.now().minusSeconds(10), systemDefault());
+    private final Clock evenEarlier = fixed(Instant.now().minusSeconds(20), systemDefault());
+
+    private MongoJobRepository repository;
+
+    @Before
+    public void setUp() {
+        final Fongo fongo = new Fongo("inmemory-mongodb");
+        repository = new MongoJobRepository(fongo.getDatabase("jobsinfo"), "jobsinfo", new MongoProperties());
+    }
+
+    @Test
+    public void shouldOnlyRemoveStoppedJobs() {
+        // given
+        final JobInfo job = builder()
+                .setJobId("foo")
+                .setJobType("TYPE")
+                .setLastUpdated(now(now))
+                .setHostname("localhost")
+                .setStatus(OK)
+                .build();
+        repository.createOrUpdate(job.copy().setStarted(now(now)).setStopped(now(now)).build());
+        repository.createOrUpdate(job.copy().setJobId("foobar").setStarted(now(earlier)).build());
+        repository.createOrUpdate(job.copy().setJobId("bar").setStarted(now(muchEarlier)).setStopped(now(now)).build());
+
+        // when
+        new MongoKeepLastJobs(repository, 1).doCleanUp();
+
+        // then
+        assertThat(repository.findOne("foo"), isPresent());
+        assertThat(repository.findOne("foobar"), isPresent());
+        assertThat(repository.findOne("bar"), isAbsent());
+        assertThat(repository.size(), is(2L));
+    }
+
+    @Test
+    public void shouldKeepAtLeastOneSuccessfulJob() {
+        // given
+        final JobInfo job = builder()
+                .setJobId("foobar")
+                .setJobType("TYPE")
+                .setStarted(now(muchEarlier))
+                .setStopped(now(now))
+                .setLastUpdated(now(now))
+                .setHostname("localhost")
+                .setStatus(ERROR)
+                .build();
+        repository.createOrUpdate(job.copy().setStatus(OK).build());
+        repository.createOrUpdate(job.copy().setStarted(now(now)).setJobId("foo").build());
+        repository.createOrUpdate(job.copy().setJobId("bar").setStarted(now(earlier)).build());
+        repository.createOrUpdate(job.copy().setJobId("barzig").setStarted(now(evenEarlier)).build());
+
+        // when
+        new MongoKeepLastJobs(repository, 2).doCleanUp();
+
+        // then
+        assertThat(repository.size(), is(3L));
+        assertThat(repository.findOne("foo"), isPresent());
+        assertThat(repository.findOne("bar"), isPresent());
+        assertThat(repository.findOne("foobar"), isPresent());
+        assertThat(repository.findOne("barzig"), isAbsent());
+    }
+
+    @Test
+    public void shouldKeepNJobsOfEachType() {
+        // given
+        final JobInfo stoppedJob = builder()
+                .setJobId("foo1")
+                .setJobType("TYPE1")
+                .setStarted(now(now))
+                .setStopped(now(now))
+                .setLastUpdated(now(now))
+                .setHostname("localhost")
+                .setStatus(ERROR)
+                .build();
+        repository.createOrUpdate(stoppedJob);
+        repository.createOrUpdate(stoppedJob.copy().setJobId("foo2").setStopped(now(muchEarlier)).setStarted(now(muchEarlier)).build());
+        repository.createOrUpdate(stoppedJob.copy().setJobId("foo3").setStopped(now(evenEarlier)).setStarted(now(evenEarlier)).build());
+        repository.createOrUpdate(stoppedJob.copy().setJobId("bar1").setJobType("TYPE2").setStopped(now(earlier)).setStarted(now(earlier)).build());
+        repository.createOrUpdate(stoppedJob.copy().setJobId("bar2").setJobType("TYPE2").setStopped(now(muchEarlier)).setStarted(now(muchEarlier)).build());
+        repository.createOrUpdate(stoppedJob.copy().setJobId("bar3").setJobType("TYPE2").setStopped(now(evenEarlier)).setStarted(now(evenEarlier)).build());
+
+        // when
+        new MongoKeepLastJobs(repository, 2).doCleanUp();
+
+        // then
+        assertThat(repository.findByType("TYPE1"), hasSize(2));
+        assertThat(repository.findByType("TYPE2"), hasSize(2));
+        assertThat(repository.findOne("foo3"), isAbsent());
+        assertThat(repository.findOne("bar3"), isAbsent());
+    }
+}